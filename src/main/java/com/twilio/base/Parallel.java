@@ -0,0 +1,102 @@
+package com.twilio.base;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.twilio.Twilio;
+import com.twilio.exception.ApiException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a task for every item of an iterable with bounded parallelism on the Twilio executor service.
+ *
+ * <p>
+ *     A fixed number of workers pull the items one at a time, so the iterable is only consumed as fast as the items
+ *     are handled and can be a lazily paged {@link ResourceSet}. The first failing task stops the workers from
+ *     pulling further items, and its exception is rethrown once the tasks in progress are cancelled.
+ * </p>
+ */
+public class Parallel {
+
+    /**
+     * Task run for every item.
+     *
+     * @param <T> type of the items
+     */
+    public interface Task<T> {
+
+        /**
+         * Handle an item.
+         *
+         * @param item item to handle
+         */
+        void run(T item);
+    }
+
+    private Parallel() {}
+
+    /**
+     * Run a task for every item, waiting for all of them to complete.
+     *
+     * @param items items to handle
+     * @param parallelism maximum number of tasks running at once
+     * @param task task run for every item
+     * @param <T> type of the items
+     */
+    public static <T> void forEach(final Iterable<T> items, final int parallelism, final Task<? super T> task) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+
+        final Iterator<T> iterator = items.iterator();
+        final AtomicBoolean failed = new AtomicBoolean();
+        List<ListenableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(Twilio.getExecutorService().submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    try {
+                        while (!failed.get() && !Thread.currentThread().isInterrupted()) {
+                            T item;
+                            synchronized (iterator) {
+                                if (!iterator.hasNext()) {
+                                    return null;
+                                }
+                                item = iterator.next();
+                            }
+                            task.run(item);
+                        }
+                        return null;
+                    } catch (final RuntimeException | Error e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }
+            }));
+        }
+
+        try {
+            Futures.allAsList(workers).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Parallel tasks interrupted", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new ApiException("Parallel tasks failed", e.getCause());
+        } finally {
+            for (final ListenableFuture<Void> worker : workers) {
+                worker.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.twilio.calls;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.RateLimiter;
+import com.twilio.Twilio;
+import com.twilio.base.Parallel;
+import com.twilio.base.Updater;
+import com.twilio.exception.TwilioException;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.Call;
+import com.twilio.rest.api.v2010.account.CallReader;
+import com.twilio.rest.api.v2010.account.conference.Participant;
+import com.twilio.rest.api.v2010.account.conference.ParticipantReader;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies the same update to many live calls or conference participants at once, e.g. to hang up every call of a
+ * number or to mute every participant of a conference.
+ *
+ * <p>
+ *     The targets are read lazily, from a query or a list of sids, and a bounded number of updates run at once,
+ *     optionally paced to a maximum rate so the account limits are not exceeded. Failed updates, such as calls which
+ *     ended before they were reached, are reported with their target without stopping the others, and the latency
+ *     of the updates is aggregated.
+ * </p>
+ *
+ * <pre>
+ *     CallControl.Result&lt;String&gt; result = new CallControl.Builder&lt;&gt;(
+ *         CallControl.calls(Call.reader().setStatus(Call.Status.IN_PROGRESS).setTo(number)),
+ *         CallControl.hangUp()
+ *     ).rate(200).build().run();
+ * </pre>
+ *
+ * @param <T> type of the targets
+ */
+public class CallControl<T> {
+
+    public static final int DEFAULT_PARALLELISM = 32;
+
+    /**
+     * Reads the targets of the update.
+     *
+     * @param <T> type of the targets
+     */
+    public interface Targets<T> {
+
+        /**
+         * Read the targets.
+         *
+         * @param client client used to make requests
+         * @return targets, read lazily
+         */
+        Iterable<T> read(TwilioRestClient client);
+    }
+
+    /**
+     * Creates the update of a target.
+     *
+     * @param <T> type of the targets
+     */
+    public interface Action<T> {
+
+        /**
+         * Create the update of a target.
+         *
+         * @param target target
+         * @return updater of the target
+         */
+        Updater<?> updater(T target);
+    }
+
+    /**
+     * Create the targets of the calls matching a query.
+     *
+     * @param reader query of the calls, e.g. in progress calls to a number
+     * @return sids of the calls
+     */
+    public static Targets<String> calls(final CallReader reader) {
+        return new Targets<String>() {
+            @Override
+            public Iterable<String> read(final TwilioRestClient client) {
+                return Iterables.transform(reader.read(client), new Function<Call, String>() {
+                    @Override
+                    public String apply(final Call call) {
+                        return call.getSid();
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Create the targets of known calls.
+     *
+     * @param callSids sids of the calls
+     * @return sids of the calls
+     */
+    public static Targets<String> calls(final List<String> callSids) {
+        final List<String> sids = ImmutableList.copyOf(callSids);
+        return new Targets<String>() {
+            @Override
+            public Iterable<String> read(final TwilioRestClient client) {
+                return sids;
+            }
+        };
+    }
+
+    /**
+     * Create the targets of the participants of a conference.
+     *
+     * @param reader query of the participants of a conference
+     * @return participants
+     */
+    public static Targets<Participant> participants(final ParticipantReader reader) {
+        return participants(ImmutableList.of(reader));
+    }
+
+    /**
+     * Create the targets of the participants of many conferences.
+     *
+     * @param readers queries of the participants, one per conference
+     * @return participants, read one conference after the other
+     */
+    public static Targets<Participant> participants(final List<ParticipantReader> readers) {
+        final List<ParticipantReader> queries = ImmutableList.copyOf(readers);
+        return new Targets<Participant>() {
+            @Override
+            public Iterable<Participant> read(final TwilioRestClient client) {
+                return Iterables.concat(Iterables.transform(
+                    queries,
+                    new Function<ParticipantReader, Iterable<Participant>>() {
+                        @Override
+                        public Iterable<Participant> apply(final ParticipantReader reader) {
+                            return reader.read(client);
+                        }
+                    }
+                ));
+            }
+        };
+    }
+
+    /**
+     * Create the action ending calls.
+     *
+     * @return action completing every call
+     */
+    public static Action<String> hangUp() {
+        return new Action<String>() {
+            @Override
+            public Updater<?> updater(final String callSid) {
+                return Call.updater(callSid).setStatus(Call.UpdateStatus.COMPLETED);
+            }
+        };
+    }
+
+    /**
+     * Create the action redirecting calls to new TwiML.
+     *
+     * @param url url of the TwiML executed by every call
+     * @return action redirecting every call
+     */
+    public static Action<String> redirect(final URI url) {
+        return new Action<String>() {
+            @Override
+            public Updater<?> updater(final String callSid) {
+                return Call.updater(callSid).setUrl(url);
+            }
+        };
+    }
+
+    /**
+     * Create the action muting or unmuting participants.
+     *
+     * @param muted true to mute every participant, false to unmute
+     * @return action muting every participant
+     */
+    public static Action<Participant> mute(final boolean muted) {
+        return new Action<Participant>() {
+            @Override
+            public Updater<?> updater(final Participant participant) {
+                return Participant.updater(participant.getConferenceSid(), participant.getCallSid()).setMuted(muted);
+            }
+        };
+    }
+
+    /**
+     * Target which could not be updated.
+     *
+     * @param <T> type of the targets
+     */
+    public static class Failure<T> {
+        private final T target;
+        private final TwilioException exception;
+
+        private Failure(final T target, final TwilioException exception) {
+            this.target = target;
+            this.exception = exception;
+        }
+
+        public T getTarget() {
+            return target;
+        }
+
+        public TwilioException getException() {
+            return exception;
+        }
+    }
+
+    /**
+     * Outcome of a bulk update.
+     *
+     * @param <T> type of the targets
+     */
+    public static class Result<T> {
+        private final int updated;
+        private final List<Failure<T>> failures;
+        private final LatencyStats latency;
+        private final long elapsedMillis;
+
+        private Result(
+            final int updated,
+            final List<Failure<T>> failures,
+            final LatencyStats latency,
+            final long elapsedMillis
+        ) {
+            this.updated = updated;
+            this.failures = ImmutableList.copyOf(failures);
+            this.latency = latency;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        public List<Failure<T>> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Get the latency of the updates.
+         *
+         * @return latency of every update request, successful or not
+         */
+        public LatencyStats getLatency() {
+            return latency;
+        }
+
+        /**
+         * Get the duration of the bulk update.
+         *
+         * @return milliseconds from the first read to the last update
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+    }
+
+    private final Targets<T> targets;
+    private final Action<T> action;
+    private final int parallelism;
+    private final double rate;
+
+    private CallControl(Builder<T> b) {
+        this.targets = b.targets;
+        this.action = b.action;
+        this.parallelism = b.parallelism;
+        this.rate = b.rate;
+    }
+
+    /**
+     * Update every target using default client.
+     *
+     * @return number of updated targets and failures
+     */
+    public Result<T> run() {
+        return run(Twilio.getRestClient());
+    }
+
+    /**
+     * Update every target using specified client.
+     *
+     * @param client client used to make requests
+     * @return number of updated targets and failures
+     */
+    public Result<T> run(final TwilioRestClient client) {
+        long start = System.currentTimeMillis();
+        final RateLimiter rateLimiter = rate > 0 ? RateLimiter.create(rate) : null;
+        final LatencyStats.Recorder latency = new LatencyStats.Recorder();
+        final AtomicInteger updated = new AtomicInteger();
+        final List<Failure<T>> failures = new ArrayList<>();
+
+        Parallel.forEach(targets.read(client), parallelism, new Parallel.Task<T>() {
+            @Override
+            public void run(final T target) {
+                Updater<?> updater = action.updater(target);
+                if (rateLimiter != null) {
+                    rateLimiter.acquire();
+                }
+
+                long requestStart = System.nanoTime();
+                try {
+                    updater.update(client);
+                    latency.record(requestStart);
+                    updated.incrementAndGet();
+                } catch (final TwilioException e) {
+                    latency.record(requestStart);
+                    synchronized (failures) {
+                        failures.add(new Failure<>(target, e));
+                    }
+                }
+            }
+        });
+        return new Result<>(updated.get(), failures, latency.snapshot(), System.currentTimeMillis() - start);
+    }
+
+    public static class Builder<T> {
+        private final Targets<T> targets;
+        private final Action<T> action;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private double rate;
+
+        /**
+         * Create a new CallControl.
+         *
+         * @param targets targets of the update, e.g. {@link CallControl#calls(CallReader)}
+         * @param action update applied to every target, e.g. {@link CallControl#hangUp()}
+         */
+        public Builder(Targets<T> targets, Action<T> action) {
+            this.targets = targets;
+            this.action = action;
+        }
+
+        /**
+         * Set the maximum number of updates in progress at once.
+         *
+         * @param parallelism maximum number of concurrent updates
+         * @return this
+         */
+        public Builder<T> parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Set the maximum rate of the updates.
+         *
+         * @param rate updates per second, unlimited if 0
+         * @return this
+         */
+        public Builder<T> rate(double rate) {
+            this.rate = rate;
+            return this;
+        }
+
+        /**
+         * Build new CallControl.
+         *
+         * @return CallControl instance
+         */
+        public CallControl<T> build() {
+            return new CallControl<>(this);
+        }
+    }
+}
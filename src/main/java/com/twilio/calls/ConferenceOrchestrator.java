@@ -0,0 +1,490 @@
+package com.twilio.calls;
+
+import com.google.common.collect.ImmutableList;
+import com.twilio.Twilio;
+import com.twilio.base.Parallel;
+import com.twilio.exception.ApiException;
+import com.twilio.exception.TwilioException;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.Domains;
+import com.twilio.rest.api.v2010.account.conference.Participant;
+import com.twilio.rest.api.v2010.account.conference.ParticipantCreator;
+import com.twilio.type.PhoneNumber;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dials many participants into a conference at once and tracks them until they join.
+ *
+ * <p>
+ *     Every participant is created concurrently, so the conference starts after about one round trip instead of
+ *     one per participant, and the pooled connections can be opened beforehand so the creates do not wait for TLS
+ *     handshakes. The participants of the conference are then polled until every call joined, ended or the join
+ *     timeout expired, and the time each participant took to join is measured from its create. A participant missing
+ *     from the listing of its conference is fetched on its own, and only counts as ended once the fetch answers
+ *     {@code 404 Not Found}, since a listing may lag behind a participant just created. A failed poll does
+ *     not lose the dialed participants, they are polled again until the timeout and the failure is reported with
+ *     the result.
+ * </p>
+ *
+ * <pre>
+ *     ConferenceOrchestrator.Result result = new ConferenceOrchestrator.Builder("standup")
+ *         .participants(from, numbers)
+ *         .earlyMedia(true)
+ *         .beep("false")
+ *         .warmUp(true)
+ *         .build()
+ *         .dialOut();
+ *     System.out.println(result.getJoinLatency());
+ * </pre>
+ */
+public class ConferenceOrchestrator {
+
+    public static final int DEFAULT_PARALLELISM = 50;
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 500;
+    public static final long DEFAULT_JOIN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private static final int HTTP_STATUS_CODE_NOT_FOUND = 404;
+
+    /**
+     * Participant dialed into the conference.
+     */
+    public static class Leg {
+        private final String label;
+        private final ParticipantCreator creator;
+        private volatile String conferenceSid;
+        private volatile String callSid;
+        private volatile Participant.Status status;
+        private volatile TwilioException exception;
+        private volatile long startNanos;
+        private volatile long createNanos = -1;
+        private volatile long joinNanos = -1;
+
+        private Leg(final String label, final ParticipantCreator creator) {
+            this.label = label;
+            this.creator = creator;
+        }
+
+        /**
+         * Get the label of the participant.
+         *
+         * @return label given when the participant was added, e.g. the dialed number
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        public String getCallSid() {
+            return callSid;
+        }
+
+        /**
+         * Get the last known status of the participant.
+         *
+         * @return status, complete once the call left the conference, or null if the create failed
+         */
+        public Participant.Status getStatus() {
+            return status;
+        }
+
+        public TwilioException getException() {
+            return exception;
+        }
+
+        public boolean isJoined() {
+            return joinNanos >= 0;
+        }
+
+        /**
+         * Get the latency of the create request.
+         *
+         * @return milliseconds until the participant was created, or null if the create failed
+         */
+        public Double getCreateMillis() {
+            return createNanos < 0 ? null : millis(createNanos);
+        }
+
+        /**
+         * Get the join latency, as precise as the poll interval.
+         *
+         * @return milliseconds from the create until the participant was seen connected, or null if it did not join
+         */
+        public Double getJoinMillis() {
+            return joinNanos < 0 ? null : millis(joinNanos);
+        }
+
+        private boolean isPending() {
+            return exception == null && joinNanos < 0 && status != Participant.Status.COMPLETE
+                && status != Participant.Status.FAILED;
+        }
+
+        private static double millis(final long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+    /**
+     * Outcome of a dial-out.
+     */
+    public static class Result {
+        private final List<Leg> legs;
+        private final LatencyStats createLatency;
+        private final LatencyStats joinLatency;
+        private final TwilioException pollException;
+
+        private Result(
+            final List<Leg> legs,
+            final LatencyStats createLatency,
+            final LatencyStats joinLatency,
+            final TwilioException pollException
+        ) {
+            this.legs = legs;
+            this.createLatency = createLatency;
+            this.joinLatency = joinLatency;
+            this.pollException = pollException;
+        }
+
+        public List<Leg> getLegs() {
+            return legs;
+        }
+
+        /**
+         * Get the participants which joined the conference.
+         *
+         * @return participants seen connected
+         */
+        public List<Leg> getJoined() {
+            List<Leg> joined = new ArrayList<>();
+            for (final Leg leg : legs) {
+                if (leg.isJoined()) {
+                    joined.add(leg);
+                }
+            }
+            return joined;
+        }
+
+        /**
+         * Get the participants which did not join the conference.
+         *
+         * @return participants which could not be created, ended before joining or were still dialing at the timeout
+         */
+        public List<Leg> getMissing() {
+            List<Leg> missing = new ArrayList<>();
+            for (final Leg leg : legs) {
+                if (!leg.isJoined()) {
+                    missing.add(leg);
+                }
+            }
+            return missing;
+        }
+
+        public LatencyStats getCreateLatency() {
+            return createLatency;
+        }
+
+        public LatencyStats getJoinLatency() {
+            return joinLatency;
+        }
+
+        /**
+         * Get the last failure of the polls of the participants.
+         *
+         * @return the exception, or null if every poll succeeded
+         */
+        public TwilioException getPollException() {
+            return pollException;
+        }
+    }
+
+    private final List<Leg> legs;
+    private final int parallelism;
+    private final boolean warmUp;
+    private final long pollIntervalMillis;
+    private final long joinTimeoutMillis;
+
+    private ConferenceOrchestrator(Builder b) {
+        List<Leg> legs = new ArrayList<>();
+        for (final Map.Entry<String, ParticipantCreator> participant : b.participants.entrySet()) {
+            ParticipantCreator creator = participant.getValue();
+            if (b.earlyMedia != null) {
+                creator.setEarlyMedia(b.earlyMedia);
+            }
+            if (b.beep != null) {
+                creator.setBeep(b.beep);
+            }
+            if (b.startConferenceOnEnter != null) {
+                creator.setStartConferenceOnEnter(b.startConferenceOnEnter);
+            }
+            legs.add(new Leg(participant.getKey(), creator));
+        }
+        this.legs = ImmutableList.copyOf(legs);
+        this.parallelism = b.parallelism;
+        this.warmUp = b.warmUp;
+        this.pollIntervalMillis = b.pollIntervalMillis;
+        this.joinTimeoutMillis = b.joinTimeoutMillis;
+    }
+
+    /**
+     * Dial every participant using default client.
+     *
+     * @return state and latencies of the participants
+     */
+    public Result dialOut() {
+        return dialOut(Twilio.getRestClient());
+    }
+
+    /**
+     * Dial every participant using specified client, and wait until they joined or the join timeout expired.
+     *
+     * @param client client used to make requests
+     * @return state and latencies of the participants
+     */
+    public Result dialOut(final TwilioRestClient client) {
+        int concurrency = Math.max(1, Math.min(parallelism, legs.size()));
+        if (warmUp) {
+            client.warmUp(concurrency, Domains.API);
+        }
+
+        final LatencyStats.Recorder createLatency = new LatencyStats.Recorder();
+        Parallel.forEach(legs, concurrency, new Parallel.Task<Leg>() {
+            @Override
+            public void run(final Leg leg) {
+                leg.startNanos = System.nanoTime();
+                try {
+                    Participant participant = leg.creator.create(client);
+                    leg.createNanos = System.nanoTime() - leg.startNanos;
+                    createLatency.record(leg.startNanos);
+                    leg.conferenceSid = participant.getConferenceSid();
+                    leg.callSid = participant.getCallSid();
+                    leg.status = participant.getStatus();
+                } catch (final TwilioException e) {
+                    leg.exception = e;
+                }
+            }
+        });
+
+        LatencyStats.Recorder joinLatency = new LatencyStats.Recorder();
+        long deadline = System.currentTimeMillis() + joinTimeoutMillis;
+        TwilioException pollException = null;
+        while (joinTimeoutMillis > 0) {
+            boolean pending;
+            try {
+                pending = poll(client, joinLatency);
+            } catch (final TwilioException e) {
+                // Keep tracking the dialed participants, a later poll may succeed
+                pollException = e;
+                pending = true;
+            }
+            if (!pending || System.currentTimeMillis() >= deadline) {
+                break;
+            }
+
+            try {
+                TimeUnit.MILLISECONDS.sleep(pollIntervalMillis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiException("Conference dial-out interrupted", e);
+            }
+        }
+        return new Result(legs, createLatency.snapshot(), joinLatency.snapshot(), pollException);
+    }
+
+    /**
+     * Update the status of the pending participants.
+     *
+     * @return true if some participants are still pending
+     */
+    private boolean poll(final TwilioRestClient client, final LatencyStats.Recorder joinLatency) {
+        Set<String> conferenceSids = new LinkedHashSet<>();
+        for (final Leg leg : legs) {
+            if (leg.isPending()) {
+                conferenceSids.add(leg.conferenceSid);
+            }
+        }
+
+        final Map<String, Participant> participants = new ConcurrentHashMap<>();
+        for (final String conferenceSid : conferenceSids) {
+            for (final Participant participant : Participant.reader(conferenceSid).read(client)) {
+                participants.put(participant.getCallSid(), participant);
+            }
+        }
+
+        List<Leg> unlisted = new ArrayList<>();
+        for (final Leg leg : legs) {
+            if (leg.isPending() && !participants.containsKey(leg.callSid)) {
+                unlisted.add(leg);
+            }
+        }
+        if (!unlisted.isEmpty()) {
+            Parallel.forEach(unlisted, Math.min(parallelism, unlisted.size()), new Parallel.Task<Leg>() {
+                @Override
+                public void run(final Leg leg) {
+                    try {
+                        participants.put(leg.callSid, Participant.fetcher(leg.conferenceSid, leg.callSid).fetch(client));
+                    } catch (final ApiException e) {
+                        if (!Integer.valueOf(HTTP_STATUS_CODE_NOT_FOUND).equals(e.getStatusCode())) {
+                            throw e;
+                        }
+                    }
+                }
+            });
+        }
+
+        boolean pending = false;
+        for (final Leg leg : legs) {
+            if (!leg.isPending()) {
+                continue;
+            }
+
+            Participant participant = participants.get(leg.callSid);
+            if (participant == null) {
+                // The participant is gone, the call ended before it joined, e.g. it was not answered
+                leg.status = Participant.Status.COMPLETE;
+            } else if (participant.getStatus() == Participant.Status.CONNECTED) {
+                leg.status = participant.getStatus();
+                leg.joinNanos = System.nanoTime() - leg.startNanos;
+                joinLatency.record(leg.startNanos);
+            } else {
+                leg.status = participant.getStatus();
+                pending |= leg.isPending();
+            }
+        }
+        return pending;
+    }
+
+    public List<Leg> getLegs() {
+        return legs;
+    }
+
+    public static class Builder {
+        private final String conference;
+        private final Map<String, ParticipantCreator> participants = new LinkedHashMap<>();
+        private Boolean earlyMedia;
+        private String beep;
+        private Boolean startConferenceOnEnter;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private boolean warmUp;
+        private long pollIntervalMillis = DEFAULT_POLL_INTERVAL_MILLIS;
+        private long joinTimeoutMillis = DEFAULT_JOIN_TIMEOUT_MILLIS;
+
+        /**
+         * Create a new ConferenceOrchestrator.
+         *
+         * @param conference friendly name or sid of the conference
+         */
+        public Builder(String conference) {
+            this.conference = conference;
+        }
+
+        /**
+         * Dial numbers into the conference.
+         *
+         * @param from caller id of the calls
+         * @param to numbers to dial, also used as the labels of the participants
+         * @return this
+         */
+        public Builder participants(PhoneNumber from, List<PhoneNumber> to) {
+            for (final PhoneNumber number : to) {
+                participant(number.toString(), Participant.creator(conference, from, number));
+            }
+            return this;
+        }
+
+        /**
+         * Add a participant created with custom options.
+         *
+         * @param label unique label of the participant
+         * @param creator creator of the participant in the conference
+         * @return this
+         */
+        public Builder participant(String label, ParticipantCreator creator) {
+            this.participants.put(label, creator);
+            return this;
+        }
+
+        /**
+         * Set whether every participant hears the ringing of its call.
+         *
+         * @param earlyMedia true to play early media
+         * @return this
+         */
+        public Builder earlyMedia(boolean earlyMedia) {
+            this.earlyMedia = earlyMedia;
+            return this;
+        }
+
+        /**
+         * Set when the conference beeps as participants join and leave.
+         *
+         * @param beep true, false, onEnter or onExit
+         * @return this
+         */
+        public Builder beep(String beep) {
+            this.beep = beep;
+            return this;
+        }
+
+        /**
+         * Set whether the conference starts as soon as any participant joins.
+         *
+         * @param startConferenceOnEnter true for every participant to start the conference
+         * @return this
+         */
+        public Builder startConferenceOnEnter(boolean startConferenceOnEnter) {
+            this.startConferenceOnEnter = startConferenceOnEnter;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of participants created at once.
+         *
+         * @param parallelism maximum number of concurrent creates
+         * @return this
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Open a pooled connection per concurrent create before dialing.
+         *
+         * @param warmUp true to warm up the connections
+         * @return this
+         */
+        public Builder warmUp(boolean warmUp) {
+            this.warmUp = warmUp;
+            return this;
+        }
+
+        /**
+         * Set how long to track the participants until they join.
+         *
+         * @param pollInterval delay between polls of the participants
+         * @param joinTimeout maximum time to wait for every participant to join, 0 not to wait
+         * @param unit unit of the durations
+         * @return this
+         */
+        public Builder tracking(long pollInterval, long joinTimeout, TimeUnit unit) {
+            this.pollIntervalMillis = unit.toMillis(pollInterval);
+            this.joinTimeoutMillis = unit.toMillis(joinTimeout);
+            return this;
+        }
+
+        /**
+         * Build new ConferenceOrchestrator.
+         *
+         * @return ConferenceOrchestrator instance
+         */
+        public ConferenceOrchestrator build() {
+            return new ConferenceOrchestrator(this);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.twilio.calls;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of a set of requests.
+ */
+public class LatencyStats {
+
+    private final long[] nanos;
+    private final long total;
+
+    private LatencyStats(final long[] nanos) {
+        Arrays.sort(nanos);
+        long sum = 0;
+        for (final long latency : nanos) {
+            sum += latency;
+        }
+        this.nanos = nanos;
+        this.total = sum;
+    }
+
+    public int getCount() {
+        return nanos.length;
+    }
+
+    public double getMinMillis() {
+        return nanos.length == 0 ? 0 : millis(nanos[0]);
+    }
+
+    public double getMaxMillis() {
+        return nanos.length == 0 ? 0 : millis(nanos[nanos.length - 1]);
+    }
+
+    public double getMeanMillis() {
+        return nanos.length == 0 ? 0 : millis(total) / nanos.length;
+    }
+
+    /**
+     * Get a percentile of the latencies, by the nearest rank.
+     *
+     * @param percentile percentile between 0 and 100, e.g. 99
+     * @return latency in milliseconds which this percentage of the requests did not exceed
+     */
+    public double getPercentileMillis(final double percentile) {
+        if (nanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * nanos.length);
+        return millis(nanos[Math.min(nanos.length, Math.max(1, rank)) - 1]);
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%d requests, mean %.1fms, p50 %.1fms, p95 %.1fms, p99 %.1fms, max %.1fms",
+            getCount(),
+            getMeanMillis(),
+            getPercentileMillis(50),
+            getPercentileMillis(95),
+            getPercentileMillis(99),
+            getMaxMillis()
+        );
+    }
+
+    /**
+     * Records latencies from many threads.
+     */
+    public static class Recorder {
+        private long[] nanos = new long[64];
+        private int count;
+
+        /**
+         * Record the latency of a request.
+         *
+         * @param startNanos {@link System#nanoTime()} when the request started
+         */
+        public synchronized void record(final long startNanos) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = System.nanoTime() - startNanos;
+        }
+
+        /**
+         * Get the distribution of the latencies recorded so far.
+         *
+         * @return latency stats
+         */
+        public synchronized LatencyStats snapshot() {
+            return new LatencyStats(Arrays.copyOf(nanos, count));
+        }
+    }
+}
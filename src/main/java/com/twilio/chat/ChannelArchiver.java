@@ -0,0 +1,503 @@
+package com.twilio.chat;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.twilio.Twilio;
+import com.twilio.base.Page;
+import com.twilio.base.Parallel;
+import com.twilio.base.Reader;
+import com.twilio.base.Resource;
+import com.twilio.exception.ApiException;
+import com.twilio.exception.TwilioException;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.Domains;
+import com.twilio.rest.chat.v2.service.Channel;
+import com.twilio.rest.chat.v2.service.channel.Message;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Archives the message history of every channel of a Chat or IP Messaging service to a sink.
+ *
+ * <p>
+ *     Channels are read as a lazy stream, and a bounded number of workers pull them one at a time and page through
+ *     their messages, so a channel with a long history does not hold back the others. Messages are handed to the sink
+ *     as their pages arrive, oldest first within a channel.
+ * </p>
+ *
+ * <p>
+ *     The archiver keeps a cursor per channel, the index of the last archived message along with the url of the
+ *     page holding it, which only advances once the sink has handled the whole channel. Channels are read oldest
+ *     first, and channels with a cursor are read again from the page of the cursor, so later runs neither request the
+ *     pages before it nor hold the new messages in memory however many there are. When that page no longer starts at
+ *     or before the cursor, e.g. because older messages were deleted, the channel is read from its first page and the
+ *     messages up to the cursor are skipped.
+ * </p>
+ *
+ * <p>
+ *     The cursors can be kept in a file, replaced atomically every few channels, to resume an interrupted archive. A
+ *     channel interrupted halfway is archived again from its cursor, so the sink may receive some messages twice.
+ * </p>
+ *
+ * <pre>
+ *     ChannelArchiver.Result result = new ChannelArchiver.Builder&lt;&gt;(ChannelArchiver.chat(serviceSid))
+ *         .cursors(Paths.get("chat.cursors"))
+ *         .build()
+ *         .archive(new ChannelArchiver.Sink&lt;Message&gt;() {
+ *             public void onMessage(String channelSid, Message message) {
+ *                 archive.append(channelSid, message);
+ *             }
+ *
+ *             public void onChannel(String channelSid, int messages) {
+ *                 archive.flush(channelSid);
+ *             }
+ *         });
+ * </pre>
+ *
+ * @param <M> type of the messages
+ */
+public class ChannelArchiver<M extends Resource> {
+
+    public static final int DEFAULT_PARALLELISM = 16;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+
+    /**
+     * Reads the channels of a service and their messages.
+     *
+     * @param <M> type of the messages
+     */
+    public interface Source<M extends Resource> {
+
+        /**
+         * Read the channels of the service.
+         *
+         * @param client client used to make requests
+         * @param pageSize size of the pages of channels
+         * @return lazily paged sids of the channels
+         */
+        Iterable<String> channels(TwilioRestClient client, int pageSize);
+
+        /**
+         * Create a reader of the messages of a channel.
+         *
+         * @param channelSid sid of the channel
+         * @param newestFirst true to read the newest messages first
+         * @return reader of the messages
+         */
+        Reader<M> messages(String channelSid, boolean newestFirst);
+
+        /**
+         * Get the position of a message in its channel.
+         *
+         * @param message message
+         * @return index of the message
+         */
+        int getIndex(M message);
+
+        /**
+         * Get the domain of the messages, to resolve relative page urls.
+         *
+         * @return domain of the service
+         */
+        Domains getDomain();
+    }
+
+    /**
+     * Receives the archived messages.
+     *
+     * <p>
+     *     The sink is called concurrently for different channels, and from a single thread at a time for a channel.
+     * </p>
+     *
+     * @param <M> type of the messages
+     */
+    public interface Sink<M extends Resource> {
+
+        /**
+         * Handle a message.
+         *
+         * @param channelSid sid of the channel of the message
+         * @param message message
+         */
+        void onMessage(String channelSid, M message);
+
+        /**
+         * Handle the end of a channel, before its cursor advances.
+         *
+         * @param channelSid sid of the channel
+         * @param messages number of messages archived in this run
+         */
+        void onChannel(String channelSid, int messages);
+    }
+
+    /**
+     * Create the source of the channels of a Chat service.
+     *
+     * @param serviceSid sid of the Chat service
+     * @return source of the channels and messages of the service
+     */
+    public static Source<Message> chat(final String serviceSid) {
+        return new Source<Message>() {
+            @Override
+            public Iterable<String> channels(final TwilioRestClient client, final int pageSize) {
+                return Iterables.transform(
+                    Channel.reader(serviceSid).pageSize(pageSize).read(client),
+                    new Function<Channel, String>() {
+                        @Override
+                        public String apply(final Channel channel) {
+                            return channel.getSid();
+                        }
+                    }
+                );
+            }
+
+            @Override
+            public Reader<Message> messages(final String channelSid, final boolean newestFirst) {
+                return Message.reader(serviceSid, channelSid)
+                    .setOrder(newestFirst ? Message.OrderType.DESC : Message.OrderType.ASC);
+            }
+
+            @Override
+            public int getIndex(final Message message) {
+                return message.getIndex();
+            }
+
+            @Override
+            public Domains getDomain() {
+                return Domains.CHAT;
+            }
+        };
+    }
+
+    /**
+     * Create the source of the channels of an IP Messaging service.
+     *
+     * @param serviceSid sid of the IP Messaging service
+     * @return source of the channels and messages of the service
+     */
+    public static Source<com.twilio.rest.ipmessaging.v2.service.channel.Message> ipMessaging(final String serviceSid) {
+        return new Source<com.twilio.rest.ipmessaging.v2.service.channel.Message>() {
+            @Override
+            public Iterable<String> channels(final TwilioRestClient client, final int pageSize) {
+                return Iterables.transform(
+                    com.twilio.rest.ipmessaging.v2.service.Channel.reader(serviceSid).pageSize(pageSize).read(client),
+                    new Function<com.twilio.rest.ipmessaging.v2.service.Channel, String>() {
+                        @Override
+                        public String apply(final com.twilio.rest.ipmessaging.v2.service.Channel channel) {
+                            return channel.getSid();
+                        }
+                    }
+                );
+            }
+
+            @Override
+            public Reader<com.twilio.rest.ipmessaging.v2.service.channel.Message> messages(
+                final String channelSid,
+                final boolean newestFirst
+            ) {
+                return com.twilio.rest.ipmessaging.v2.service.channel.Message.reader(serviceSid, channelSid)
+                    .setOrder(newestFirst
+                        ? com.twilio.rest.ipmessaging.v2.service.channel.Message.OrderType.DESC
+                        : com.twilio.rest.ipmessaging.v2.service.channel.Message.OrderType.ASC);
+            }
+
+            @Override
+            public int getIndex(final com.twilio.rest.ipmessaging.v2.service.channel.Message message) {
+                return message.getIndex();
+            }
+
+            @Override
+            public Domains getDomain() {
+                return Domains.IPMESSAGING;
+            }
+        };
+    }
+
+    /**
+     * Outcome of an archive.
+     */
+    public static class Result {
+        private final int channels;
+        private final long messages;
+        private final Map<String, TwilioException> failures;
+
+        private Result(final int channels, final long messages, final Map<String, TwilioException> failures) {
+            this.channels = channels;
+            this.messages = messages;
+            this.failures = ImmutableMap.copyOf(failures);
+        }
+
+        /**
+         * Get the number of channels archived.
+         *
+         * @return number of channels whose cursor advanced or which had no new messages
+         */
+        public int getChannels() {
+            return channels;
+        }
+
+        public long getMessages() {
+            return messages;
+        }
+
+        /**
+         * Get the channels which could not be read, to be archived again by a later run.
+         *
+         * @return failures by channel sid
+         */
+        public Map<String, TwilioException> getFailures() {
+            return failures;
+        }
+    }
+
+    private final Source<M> source;
+    private final int parallelism;
+    private final int pageSize;
+    private final Path cursorsPath;
+    private final int checkpointInterval;
+    private final Map<String, Cursor> cursors = new ConcurrentHashMap<>();
+
+    private ChannelArchiver(Builder<M> b) {
+        this.source = b.source;
+        this.parallelism = b.parallelism;
+        this.pageSize = b.pageSize;
+        this.cursorsPath = b.cursors;
+        this.checkpointInterval = b.checkpointInterval;
+        if (cursorsPath != null && Files.exists(cursorsPath)) {
+            readCursors();
+        }
+    }
+
+    /**
+     * Archive the new messages of every channel using default client.
+     *
+     * @param sink sink of the messages
+     * @return number of archived channels and messages
+     */
+    public Result archive(final Sink<M> sink) {
+        return archive(Twilio.getRestClient(), sink);
+    }
+
+    /**
+     * Archive the new messages of every channel using specified client.
+     *
+     * <p>
+     *     Channels which cannot be read are reported and skipped, while a sink failure stops the archive and is
+     *     rethrown. The cursors are saved in both cases.
+     * </p>
+     *
+     * @param client client used to make requests
+     * @param sink sink of the messages
+     * @return number of archived channels and messages
+     */
+    public Result archive(final TwilioRestClient client, final Sink<M> sink) {
+        final AtomicInteger channels = new AtomicInteger();
+        final AtomicLong messages = new AtomicLong();
+        final Map<String, TwilioException> failures = new ConcurrentHashMap<>();
+
+        try {
+            Parallel.forEach(source.channels(client, pageSize), parallelism, new Parallel.Task<String>() {
+                @Override
+                public void run(final String channelSid) {
+                    int archived;
+                    try {
+                        archived = archiveChannel(client, channelSid, sink);
+                    } catch (final TwilioException e) {
+                        failures.put(channelSid, e);
+                        return;
+                    }
+
+                    messages.addAndGet(archived);
+                    if (channels.incrementAndGet() % checkpointInterval == 0) {
+                        writeCursors();
+                    }
+                }
+            });
+        } finally {
+            writeCursors();
+        }
+        return new Result(channels.get(), messages.get(), failures);
+    }
+
+    private int archiveChannel(final TwilioRestClient client, final String channelSid, final Sink<M> sink) {
+        Cursor cursor = cursors.get(channelSid);
+        Cursor last = cursor;
+        int archived = 0;
+
+        // Oldest first, so the messages after the cursor stream to the sink as their pages arrive
+        Reader<M> reader = source.messages(channelSid, false);
+        reader.pageSize(pageSize);
+        String pageUrl = cursor == null ? null : cursor.pageUrl;
+        Page<M> page = pageUrl == null ? reader.firstPage(client) : reader.getPage(pageUrl, client);
+        if (pageUrl != null && !startsAtOrBefore(page, cursor.index)) {
+            pageUrl = null;
+            page = reader.firstPage(client);
+        }
+
+        while (true) {
+            for (final M message : page.getRecords()) {
+                int index = source.getIndex(message);
+                if (cursor != null && index <= cursor.index) {
+                    continue;
+                }
+                sink.onMessage(channelSid, message);
+                last = new Cursor(index, pageUrl);
+                archived++;
+            }
+
+            if (!page.hasNextPage()) {
+                break;
+            }
+            pageUrl = page.getNextPageUrl(source.getDomain().toString(), client.getRegion());
+            page = reader.getPage(pageUrl, client);
+        }
+
+        sink.onChannel(channelSid, archived);
+        if (last != null) {
+            cursors.put(channelSid, last);
+        }
+        return archived;
+    }
+
+    private boolean startsAtOrBefore(final Page<M> page, final int index) {
+        return !page.getRecords().isEmpty() && source.getIndex(page.getRecords().get(0)) <= index;
+    }
+
+    /**
+     * Get the cursor of a channel.
+     *
+     * @param channelSid sid of the channel
+     * @return index of the last archived message of the channel, or null if none was archived
+     */
+    public Integer getCursor(final String channelSid) {
+        Cursor cursor = cursors.get(channelSid);
+        return cursor == null ? null : cursor.index;
+    }
+
+    private void readCursors() {
+        try {
+            for (final String line : Files.readAllLines(cursorsPath, Charsets.UTF_8)) {
+                String[] fields = line.trim().split(" ", 3);
+                if (fields.length > 1) {
+                    cursors.put(fields[0], new Cursor(Integer.parseInt(fields[1]), fields.length > 2 ? fields[2] : null));
+                }
+            }
+        } catch (final IOException | NumberFormatException e) {
+            throw new ApiException("Unable to read cursors " + cursorsPath + ": " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized void writeCursors() {
+        if (cursorsPath == null) {
+            return;
+        }
+        Path temporary = cursorsPath.resolveSibling(cursorsPath.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, Charsets.UTF_8)) {
+                for (final Map.Entry<String, Cursor> cursor : new HashMap<>(cursors).entrySet()) {
+                    writer.write(cursor.getKey());
+                    writer.write(' ');
+                    writer.write(Integer.toString(cursor.getValue().index));
+                    if (cursor.getValue().pageUrl != null) {
+                        writer.write(' ');
+                        writer.write(cursor.getValue().pageUrl);
+                    }
+                    writer.newLine();
+                }
+            }
+            Files.move(temporary, cursorsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new ApiException("Unable to write cursors " + cursorsPath + ": " + e.getMessage(), e);
+        }
+    }
+
+    public Source<M> getSource() {
+        return source;
+    }
+
+    private static class Cursor {
+        private final int index;
+        private final String pageUrl;
+
+        Cursor(final int index, final String pageUrl) {
+            this.index = index;
+            this.pageUrl = pageUrl;
+        }
+    }
+
+    public static class Builder<M extends Resource> {
+        private final Source<M> source;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private Path cursors;
+        private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+        /**
+         * Create a new ChannelArchiver.
+         *
+         * @param source service to archive, e.g. {@link ChannelArchiver#chat(String)}
+         */
+        public Builder(Source<M> source) {
+            this.source = source;
+        }
+
+        /**
+         * Set the maximum number of channels read at once.
+         *
+         * @param parallelism maximum number of concurrent channels
+         * @return this
+         */
+        public Builder<M> parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder<M> pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Keep the cursors in a file, read when the archiver is built.
+         *
+         * @param cursors cursors file
+         * @return this
+         */
+        public Builder<M> cursors(Path cursors) {
+            this.cursors = cursors;
+            return this;
+        }
+
+        /**
+         * Set how often the cursors file is written.
+         *
+         * @param checkpointInterval number of archived channels between writes
+         * @return this
+         */
+        public Builder<M> checkpointInterval(int checkpointInterval) {
+            this.checkpointInterval = checkpointInterval;
+            return this;
+        }
+
+        /**
+         * Build new ChannelArchiver.
+         *
+         * @return ChannelArchiver instance
+         */
+        public ChannelArchiver<M> build() {
+            return new ChannelArchiver<>(this);
+        }
+    }
+}
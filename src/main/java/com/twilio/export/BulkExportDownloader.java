@@ -0,0 +1,484 @@
+package com.twilio.export;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.twilio.Twilio;
+import com.twilio.base.Parallel;
+import com.twilio.exception.ApiConnectionException;
+import com.twilio.exception.ApiException;
+import com.twilio.http.HttpMethod;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.Domains;
+import com.twilio.rest.preview.bulkExports.export.Day;
+import org.joda.time.LocalDate;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Downloads the daily files of a Bulk Export to a directory.
+ *
+ * <p>
+ *     The days of the export are listed with a {@code DayReader} and their files downloaded in parallel, a bounded
+ *     number at a time. Every file is first written to a {@code .part} file which is only renamed once its size
+ *     matches the size of the day. An interrupted download is resumed from the end of its {@code .part} file with a
+ *     {@code Range} request, both within a download and by a later one, and files already downloaded are skipped. A
+ *     partial response whose {@code Content-Range} does not start at the end of the {@code .part} file restarts the
+ *     download from scratch.
+ * </p>
+ *
+ * <p>
+ *     Files are served from presigned urls, either listed with the day or redirected to by the day. Redirects are
+ *     followed without the account credentials, which the presigned urls must not receive.
+ * </p>
+ *
+ * <pre>
+ *     BulkExportDownloader downloader = new BulkExportDownloader.Builder("Messages", Paths.get("exports"))
+ *         .days(new LocalDate(2016, 1, 1), new LocalDate(2016, 12, 31))
+ *         .build();
+ *
+ *     try (BulkExportDownloader.Records records = downloader.records(downloader.download())) {
+ *         while (records.hasNext()) {
+ *             warehouse.load(records.next());
+ *         }
+ *     }
+ * </pre>
+ */
+public class BulkExportDownloader {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int HTTP_STATUS_CODE_PARTIAL_CONTENT = 206;
+    public static final int HTTP_STATUS_CODE_RANGE_NOT_SATISFIABLE = 416;
+
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes\\s+(\\d+)-.*");
+    private static final Set<Integer> REDIRECT_CODES = ImmutableSet.of(301, 302, 303, 307, 308);
+
+    private final String resourceType;
+    private final Path directory;
+    private final LocalDate startDay;
+    private final LocalDate endDay;
+    private final int parallelism;
+    private final int maxAttempts;
+    private final int bufferSize;
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+    private final AtomicLong filesDownloaded = new AtomicLong();
+    private final AtomicLong filesSkipped = new AtomicLong();
+
+    private BulkExportDownloader(Builder b) {
+        this.resourceType = b.resourceType;
+        this.directory = b.directory;
+        this.startDay = b.startDay;
+        this.endDay = b.endDay;
+        this.parallelism = b.parallelism;
+        this.maxAttempts = b.maxAttempts;
+        this.bufferSize = b.bufferSize;
+    }
+
+    /**
+     * Download the files of every selected day using default client.
+     *
+     * @return downloaded files, ordered by day
+     */
+    public List<Path> download() {
+        return download(Twilio.getRestClient());
+    }
+
+    /**
+     * Download the files of every selected day using specified client.
+     *
+     * @param client client used to make requests
+     * @return downloaded files, ordered by day
+     */
+    public List<Path> download(final TwilioRestClient client) {
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException e) {
+            throw new ApiException("Unable to create " + directory + ": " + e.getMessage(), e);
+        }
+
+        List<Day> days = new ArrayList<>();
+        for (final Day day : Day.reader(resourceType).read(client)) {
+            if (isSelected(day)) {
+                days.add(day);
+            }
+        }
+
+        final List<Path> files = Collections.synchronizedList(new ArrayList<Path>());
+        Parallel.forEach(days, parallelism, new Parallel.Task<Day>() {
+            @Override
+            public void run(final Day day) {
+                files.add(download(client, day));
+            }
+        });
+
+        List<Path> sorted = new ArrayList<>(files);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private boolean isSelected(final Day day) {
+        LocalDate date = LocalDate.parse(day.getDay());
+        return (startDay == null || !date.isBefore(startDay)) && (endDay == null || !date.isAfter(endDay));
+    }
+
+    /**
+     * Download the file of a day using specified client, resuming a previous partial download.
+     *
+     * @param client client used to make requests
+     * @param day day of the export
+     * @return the downloaded file
+     */
+    public Path download(final TwilioRestClient client, final Day day) {
+        Path file = directory.resolve(resourceType + "-" + day.getDay() + ".json.gz");
+        Path partial = directory.resolve(file.getFileName() + PARTIAL_SUFFIX);
+        Long size = day.getSize() == null ? null : day.getSize().longValue();
+
+        try {
+            if (Files.exists(file) && (size == null || Files.size(file) == size)) {
+                filesSkipped.incrementAndGet();
+                return file;
+            }
+
+            Exception failure = null;
+            for (int attempt = 0; attempt < maxAttempts; attempt++) {
+                try {
+                    transfer(client, day, partial, size);
+                    failure = null;
+                    break;
+                } catch (final IOException | ApiConnectionException e) {
+                    // The bytes written so far are kept and the next attempt resumes after them
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw new ApiConnectionException(
+                    "Download of " + resourceType + " " + day.getDay() + " failed: " + failure.getMessage(),
+                    failure
+                );
+            }
+
+            long downloaded = Files.size(partial);
+            if (size != null && downloaded != size) {
+                if (downloaded > size) {
+                    Files.delete(partial);
+                }
+                throw new ApiException(
+                    "Download of " + resourceType + " " + day.getDay() + " has " + downloaded + " bytes, expected " + size
+                );
+            }
+
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            filesDownloaded.incrementAndGet();
+            return file;
+        } catch (final IOException e) {
+            throw new ApiException("Unable to write " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void transfer(
+        final TwilioRestClient client,
+        final Day day,
+        final Path partial,
+        final Long size
+    ) throws IOException {
+        long offset = Files.exists(partial) ? Files.size(partial) : 0;
+        if (size != null && offset > size) {
+            Files.delete(partial);
+            offset = 0;
+        }
+        if (size != null && offset == size) {
+            return;
+        }
+
+        Response response = request(client, day, offset);
+        if (response != null && response.getStatusCode() == HTTP_STATUS_CODE_RANGE_NOT_SATISFIABLE && offset > 0) {
+            response.getStream().close();
+            Files.delete(partial);
+            offset = 0;
+            response = request(client, day, offset);
+        }
+
+        if (response != null && response.getStatusCode() == HTTP_STATUS_CODE_PARTIAL_CONTENT
+            && rangeStart(response) != offset) {
+            // The bytes sent do not follow the .part file, so they can not be appended to it
+            response.getStream().close();
+            offset = 0;
+            response = request(client, day, offset);
+        }
+
+        if (response == null) {
+            throw new ApiConnectionException("Unable to connect to server");
+        }
+        boolean resumed = response.getStatusCode() == HTTP_STATUS_CODE_PARTIAL_CONTENT;
+        if (resumed && rangeStart(response) != offset) {
+            response.getStream().close();
+            throw new IOException("Unexpected Content-Range " + response.getHeader("Content-Range") + " for offset " + offset);
+        }
+        if (!resumed && !TwilioRestClient.SUCCESS.apply(response.getStatusCode())) {
+            response.getStream().close();
+            throw new ApiException(
+                "Download of " + resourceType + " " + day.getDay() + " failed",
+                null,
+                null,
+                response.getStatusCode(),
+                null
+            );
+        }
+
+        // A server ignoring the range sends the whole file again
+        StandardOpenOption mode = resumed && offset > 0 ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        try (InputStream stream = response.getStream();
+             ReadableByteChannel in = Channels.newChannel(stream);
+             FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    bytesDownloaded.addAndGet(out.write(buffer));
+                }
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * Request the file of a day, streaming its body so the file is never held in memory.
+     */
+    private Response request(final TwilioRestClient client, final Day day, final long offset) throws IOException {
+        String url;
+        if (day.getRedirectTo() == null) {
+            Request request = new Request(
+                HttpMethod.GET,
+                Domains.PREVIEW.toString(),
+                "/BulkExports/Exports/" + resourceType + "/Days/" + day.getDay(),
+                client.getRegion()
+            );
+            addHeaders(request, offset);
+            // A followed redirect would carry the credentials to the presigned url
+            request.setFollowRedirects(false);
+            Response response = client.requestStream(request);
+            String location = response == null ? null : response.getHeader("Location");
+            if (location == null || !REDIRECT_CODES.contains(response.getStatusCode())) {
+                return response;
+            }
+
+            response.getStream().close();
+            url = URI.create(request.getUrl()).resolve(location).toString();
+        } else {
+            url = day.getRedirectTo().toString();
+        }
+
+        // Files are served from a presigned url which must not receive the account credentials
+        Request request = new Request(HttpMethod.GET, url);
+        addHeaders(request, offset);
+        return client.getHttpClient().makeStreamingRequest(request);
+    }
+
+    /**
+     * Get the offset of the first byte of a partial response.
+     *
+     * @return the offset, or -1 without a valid Content-Range
+     */
+    private static long rangeStart(final Response response) {
+        String range = response.getHeader("Content-Range");
+        Matcher matcher = range == null ? null : CONTENT_RANGE.matcher(range.trim());
+        return matcher != null && matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private static void addHeaders(final Request request, final long offset) {
+        // The files are already gzipped, and ranges and sizes count the bytes of the file as stored
+        request.setHeader("Accept-Encoding", "identity");
+        if (offset > 0) {
+            request.setHeader("Range", "bytes=" + offset + "-");
+        }
+    }
+
+    /**
+     * Iterate over the records of downloaded files.
+     *
+     * @param files downloaded files, read in order
+     * @return iterator over the lines of the decompressed files, to be closed once read
+     */
+    public Records records(final List<Path> files) {
+        return new Records(files);
+    }
+
+    public long getBytesDownloaded() {
+        return bytesDownloaded.get();
+    }
+
+    public long getFilesDownloaded() {
+        return filesDownloaded.get();
+    }
+
+    /**
+     * Get the number of files which were already downloaded.
+     *
+     * @return number of skipped files
+     */
+    public long getFilesSkipped() {
+        return filesSkipped.get();
+    }
+
+    /**
+     * Iterator over the records of gzipped export files, one JSON record per line, opening one file at a time.
+     */
+    public static class Records implements Iterator<String>, Closeable {
+        private final Iterator<Path> files;
+        private BufferedReader reader;
+        private String next;
+
+        Records(final List<Path> files) {
+            this.files = ImmutableList.copyOf(files).iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    if (reader == null) {
+                        if (!files.hasNext()) {
+                            return false;
+                        }
+                        reader = new BufferedReader(new InputStreamReader(
+                            new GZIPInputStream(Files.newInputStream(files.next())),
+                            Charsets.UTF_8
+                        ));
+                    }
+
+                    String line = reader.readLine();
+                    if (line == null) {
+                        reader.close();
+                        reader = null;
+                    } else if (!line.isEmpty()) {
+                        next = line;
+                    }
+                }
+                return true;
+            } catch (final IOException e) {
+                throw new ApiException("Unable to read export file: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String record = next;
+            next = null;
+            return record;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Records cannot be removed");
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (reader != null) {
+                reader.close();
+                reader = null;
+            }
+        }
+    }
+
+    public static class Builder {
+        private final String resourceType;
+        private final Path directory;
+        private LocalDate startDay;
+        private LocalDate endDay;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+        /**
+         * Create a new BulkExportDownloader.
+         *
+         * @param resourceType type of the exported resource, e.g. Messages
+         * @param directory directory the files are downloaded to
+         */
+        public Builder(String resourceType, Path directory) {
+            this.resourceType = resourceType;
+            this.directory = directory;
+        }
+
+        /**
+         * Only download the files of the days within a range.
+         *
+         * @param startDay first day, inclusive, or null for the first exported day
+         * @param endDay last day, inclusive, or null for the last exported day
+         * @return this
+         */
+        public Builder days(LocalDate startDay, LocalDate endDay) {
+            this.startDay = startDay;
+            this.endDay = endDay;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of files downloaded at once.
+         *
+         * @param parallelism maximum number of concurrent downloads
+         * @return this
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Set the number of attempts of a download interrupted by a connection failure.
+         *
+         * @param maxAttempts maximum number of attempts, each resuming the previous one
+         * @return this
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Build new BulkExportDownloader.
+         *
+         * @return BulkExportDownloader instance
+         */
+        public BulkExportDownloader build() {
+            return new BulkExportDownloader(this);
+        }
+    }
+}
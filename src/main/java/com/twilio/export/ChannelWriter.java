@@ -0,0 +1,80 @@
+package com.twilio.export;
+
+import com.google.common.base.Charsets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Encodes text as UTF-8 into a reused direct buffer which is written to a channel whenever it fills up.
+ */
+class ChannelWriter {
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = Charsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private long bytes;
+
+    ChannelWriter(final WritableByteChannel channel, final int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    ChannelWriter write(final CharSequence text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                drain();
+            } else {
+                break;
+            }
+        }
+        encoder.reset();
+        return this;
+    }
+
+    ChannelWriter write(final char c) throws IOException {
+        if (c < 0x80) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) c);
+            return this;
+        }
+        return write(String.valueOf(c));
+    }
+
+    /**
+     * Write every buffered byte to the channel.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    void flush() throws IOException {
+        drain();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytes += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Get the number of bytes written to the channel.
+     *
+     * @return number of written bytes
+     */
+    long getBytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,721 @@
+package com.twilio.export;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Range;
+import com.twilio.Twilio;
+import com.twilio.base.Parallel;
+import com.twilio.exception.ApiConnectionException;
+import com.twilio.exception.ApiException;
+import com.twilio.exception.RestException;
+import com.twilio.exception.TwilioException;
+import com.twilio.http.HttpMethod;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.Domains;
+import com.twilio.rest.api.v2010.account.Recording;
+import org.joda.time.DateTime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Archives Recordings to a storage and deletes them once they are stored, e.g. to apply a retention policy.
+ *
+ * <p>
+ *     Recordings created within a time range are read page by page, and a bounded number of them are downloaded at
+ *     once. The media is streamed from the response to the storage through a fixed buffer, so the memory used does
+ *     not depend on the size or the number of the recordings. The media is requested without content encoding, and a
+ *     recording is only committed to the storage when the number of bytes written matches the length announced by
+ *     the response, or when a chunked response was read to its last chunk, and only deleted once committed.
+ * </p>
+ *
+ * <p>
+ *     Recordings are listed newest first, and the checkpoint file holds the creation time down to which every
+ *     recording was archived. It is replaced atomically every few recordings, and a later run only reads the
+ *     recordings created at or before it. A recording which could not be archived holds the checkpoint, so later
+ *     runs try it again, and recordings already in the storage are not downloaded again.
+ * </p>
+ *
+ * <pre>
+ *     RecordingArchiver.Result result = new RecordingArchiver.Builder(
+ *         Range.lessThan(DateTime.now().minusDays(30)),
+ *         RecordingArchiver.directory(Paths.get("recordings"))
+ *     ).delete(true).checkpoint(Paths.get("recordings.checkpoint")).build().archive();
+ * </pre>
+ */
+public class RecordingArchiver {
+
+    public static final int DEFAULT_PARALLELISM = 8;
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    public enum Format {
+        WAV("wav"),
+        MP3("mp3");
+
+        private final String extension;
+
+        Format(final String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Destination of the archived media.
+     */
+    public interface Storage {
+
+        /**
+         * Check whether a recording was already committed.
+         *
+         * @param recording recording
+         * @param format format of the media
+         * @return true if the recording does not need to be downloaded
+         * @throws IOException if the storage cannot be read
+         */
+        boolean contains(Recording recording, Format format) throws IOException;
+
+        /**
+         * Open the destination of a recording, closed once its media was written.
+         *
+         * @param recording recording
+         * @param format format of the media
+         * @return channel the media is written to
+         * @throws IOException if the destination cannot be created
+         */
+        WritableByteChannel create(Recording recording, Format format) throws IOException;
+
+        /**
+         * Make a written recording durable, before it is deleted.
+         *
+         * @param recording recording
+         * @param format format of the media
+         * @throws IOException if the recording cannot be committed
+         */
+        void commit(Recording recording, Format format) throws IOException;
+
+        /**
+         * Discard a recording whose download failed.
+         *
+         * @param recording recording
+         * @param format format of the media
+         * @throws IOException if the written media cannot be discarded
+         */
+        void discard(Recording recording, Format format) throws IOException;
+    }
+
+    /**
+     * Create a storage writing every recording to a file of a directory, named after its sid.
+     *
+     * <p>
+     *     The media is written to a {@code .part} file, forced to the disk when closed, which is renamed once
+     *     committed. The directory is then forced too, so a committed recording survives a crash once deleted.
+     * </p>
+     *
+     * @param directory directory of the files, created if missing
+     * @return storage in the directory
+     */
+    public static Storage directory(final Path directory) {
+        return new Storage() {
+            @Override
+            public boolean contains(final Recording recording, final Format format) {
+                return Files.exists(file(recording, format));
+            }
+
+            @Override
+            public WritableByteChannel create(final Recording recording, final Format format) throws IOException {
+                Files.createDirectories(directory);
+                final FileChannel channel = FileChannel.open(
+                    partial(recording, format),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE
+                );
+                return new WritableByteChannel() {
+                    @Override
+                    public int write(final ByteBuffer source) throws IOException {
+                        return channel.write(source);
+                    }
+
+                    @Override
+                    public boolean isOpen() {
+                        return channel.isOpen();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            if (channel.isOpen()) {
+                                channel.force(true);
+                            }
+                        } finally {
+                            channel.close();
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public void commit(final Recording recording, final Format format) throws IOException {
+                Files.move(
+                    partial(recording, format),
+                    file(recording, format),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE
+                );
+                forceDirectory();
+            }
+
+            @Override
+            public void discard(final Recording recording, final Format format) throws IOException {
+                Files.deleteIfExists(partial(recording, format));
+            }
+
+            /**
+             * Force the entries of the directory to the disk, where the platform can open a directory.
+             */
+            private void forceDirectory() throws IOException {
+                FileChannel channel;
+                try {
+                    channel = FileChannel.open(directory, StandardOpenOption.READ);
+                } catch (final IOException e) {
+                    // Windows cannot open a directory, its renames are durable once the call returns
+                    return;
+                }
+                try (FileChannel opened = channel) {
+                    opened.force(true);
+                }
+            }
+
+            private Path file(final Recording recording, final Format format) {
+                return directory.resolve(recording.getSid() + "." + format.getExtension());
+            }
+
+            private Path partial(final Recording recording, final Format format) {
+                return directory.resolve(recording.getSid() + "." + format.getExtension() + PARTIAL_SUFFIX);
+            }
+        };
+    }
+
+    /**
+     * Recording which could not be archived or deleted.
+     */
+    public static class Failure {
+        private final String sid;
+        private final TwilioException exception;
+
+        private Failure(final String sid, final TwilioException exception) {
+            this.sid = sid;
+            this.exception = exception;
+        }
+
+        public String getSid() {
+            return sid;
+        }
+
+        public TwilioException getException() {
+            return exception;
+        }
+    }
+
+    /**
+     * Outcome of an archive.
+     */
+    public static class Result {
+        private final long downloaded;
+        private final long skipped;
+        private final long deleted;
+        private final long bytes;
+        private final DateTime checkpoint;
+        private final List<Failure> failures;
+
+        private Result(final Run run) {
+            this.downloaded = run.downloaded.get();
+            this.skipped = run.skipped.get();
+            this.deleted = run.deleted.get();
+            this.bytes = run.bytes.get();
+            this.checkpoint = run.checkpoint();
+            synchronized (run.failures) {
+                this.failures = ImmutableList.copyOf(run.failures);
+            }
+        }
+
+        public long getDownloaded() {
+            return downloaded;
+        }
+
+        /**
+         * Get the number of recordings which were already in the storage.
+         *
+         * @return number of recordings not downloaded again
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        public long getDeleted() {
+            return deleted;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Get the creation time down to which every recording was archived.
+         *
+         * @return checkpoint, or null if no recording was handled
+         */
+        public DateTime getCheckpoint() {
+            return checkpoint;
+        }
+
+        public List<Failure> getFailures() {
+            return failures;
+        }
+    }
+
+    private final Range<DateTime> dateCreated;
+    private final Storage storage;
+    private final Format format;
+    private final boolean delete;
+    private final int parallelism;
+    private final int pageSize;
+    private final int maxAttempts;
+    private final int bufferSize;
+    private final Path checkpoint;
+    private final int checkpointInterval;
+
+    private RecordingArchiver(Builder b) {
+        this.dateCreated = b.dateCreated;
+        this.storage = b.storage;
+        this.format = b.format;
+        this.delete = b.delete;
+        this.parallelism = b.parallelism;
+        this.pageSize = b.pageSize;
+        this.maxAttempts = b.maxAttempts;
+        this.bufferSize = b.bufferSize;
+        this.checkpoint = b.checkpoint;
+        this.checkpointInterval = b.checkpointInterval;
+    }
+
+    /**
+     * Archive the recordings using default client.
+     *
+     * @return number of archived and deleted recordings
+     */
+    public Result archive() {
+        return archive(Twilio.getRestClient());
+    }
+
+    /**
+     * Archive the recordings using specified client, resuming from the checkpoint.
+     *
+     * <p>
+     *     Recordings which cannot be downloaded, stored or deleted are reported and kept, while the others go on.
+     * </p>
+     *
+     * @param client client used to make requests
+     * @return number of archived and deleted recordings
+     */
+    public Result archive(final TwilioRestClient client) {
+        Range<DateTime> window = dateCreated;
+        DateTime resumed = readCheckpoint();
+        if (resumed != null) {
+            Range<DateTime> remaining = Range.atMost(resumed);
+            window = window.isConnected(remaining) ? window.intersection(remaining) : null;
+        }
+
+        final Run run = new Run(resumed);
+        if (window == null) {
+            return new Result(run);
+        }
+
+        final Iterator<Recording> recordings = Recording.reader()
+            .setDateCreated(window)
+            .pageSize(pageSize)
+            .read(client)
+            .iterator();
+        Iterable<Item> items = new Iterable<Item>() {
+            @Override
+            public Iterator<Item> iterator() {
+                return new Iterator<Item>() {
+                    private long position;
+
+                    @Override
+                    public boolean hasNext() {
+                        return recordings.hasNext();
+                    }
+
+                    @Override
+                    public Item next() {
+                        return new Item(position++, recordings.next());
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+
+        try {
+            Parallel.forEach(items, parallelism, new Parallel.Task<Item>() {
+                @Override
+                public void run(final Item item) {
+                    try {
+                        archive(client, item.recording, run);
+                        run.handle(item, true);
+                    } catch (final TwilioException e) {
+                        run.fail(item.recording.getSid(), e);
+                        run.handle(item, false);
+                    }
+                }
+            });
+        } finally {
+            writeCheckpoint(run.checkpoint());
+        }
+        return new Result(run);
+    }
+
+    private void archive(final TwilioRestClient client, final Recording recording, final Run run) {
+        try {
+            if (storage.contains(recording, format)) {
+                run.skipped.incrementAndGet();
+            } else {
+                download(client, recording, run);
+            }
+        } catch (final IOException e) {
+            throw new ApiException("Unable to store " + recording.getSid() + ": " + e.getMessage(), e);
+        }
+
+        if (delete) {
+            Recording.deleter(recording.getAccountSid(), recording.getSid()).delete(client);
+            run.deleted.incrementAndGet();
+        }
+    }
+
+    private void download(final TwilioRestClient client, final Recording recording, final Run run) throws IOException {
+        Exception failure = null;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            try {
+                long written = transfer(client, recording);
+                storage.commit(recording, format);
+                run.downloaded.incrementAndGet();
+                run.bytes.addAndGet(written);
+                return;
+            } catch (final IOException | ApiConnectionException e) {
+                storage.discard(recording, format);
+                failure = e;
+            } catch (final RuntimeException e) {
+                storage.discard(recording, format);
+                throw e;
+            }
+        }
+        throw new ApiConnectionException(
+            "Download of " + recording.getSid() + " failed: " + failure.getMessage(),
+            failure
+        );
+    }
+
+    private long transfer(final TwilioRestClient client, final Recording recording) throws IOException {
+        Request request = new Request(
+            HttpMethod.GET,
+            Domains.API.toString(),
+            "/2010-04-01/Accounts/" + recording.getAccountSid() + "/Recordings/" + recording.getSid() + "."
+                + format.getExtension(),
+            client.getRegion()
+        );
+        // The announced length is then the length of the media as written
+        request.setHeader("Accept-Encoding", "identity");
+        Response response = client.requestStream(request);
+        if (response == null) {
+            throw new ApiConnectionException("Recording download failed: Unable to connect to server");
+        }
+
+        try (InputStream stream = response.getStream()) {
+            if (!TwilioRestClient.SUCCESS.apply(response.getStatusCode())) {
+                RestException restException = RestException.fromJson(stream, client.getObjectMapper());
+                if (restException == null) {
+                    throw new ApiException("Server Error, no content");
+                }
+
+                throw new ApiException(
+                    restException.getMessage(),
+                    restException.getCode(),
+                    restException.getMoreInfo(),
+                    restException.getStatus(),
+                    null
+                );
+            }
+            String encoding = response.getHeader("Content-Encoding");
+            if (encoding != null && !"identity".equalsIgnoreCase(encoding.trim())) {
+                throw new IOException("Recording " + recording.getSid() + " was sent with " + encoding + " encoding");
+            }
+
+            long written = 0;
+            try (ReadableByteChannel in = Channels.newChannel(stream);
+                 WritableByteChannel out = storage.create(recording, format)) {
+                ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+                while (in.read(buffer) >= 0) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        written += out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+
+            verify(recording, response, written);
+            return written;
+        }
+    }
+
+    /**
+     * Check that the whole media was received.
+     *
+     * @param recording downloaded recording
+     * @param response response of the download
+     * @param written number of bytes written to the storage
+     * @throws IOException if the media is truncated or its length cannot be verified
+     */
+    private static void verify(final Recording recording, final Response response, final long written)
+        throws IOException {
+        String length = response.getHeader("Content-Length");
+        if (length != null) {
+            if (Long.parseLong(length.trim()) != written) {
+                throw new IOException("Recording " + recording.getSid() + " has " + written + " bytes, expected " + length);
+            }
+            return;
+        }
+
+        // The HTTP client fails a chunked body which ends before its last chunk
+        String transferEncoding = response.getHeader("Transfer-Encoding");
+        if (transferEncoding == null || !transferEncoding.toLowerCase().contains("chunked")) {
+            throw new IOException("Recording " + recording.getSid() + " has no Content-Length to verify its size");
+        }
+    }
+
+    private DateTime readCheckpoint() {
+        if (checkpoint == null || !Files.exists(checkpoint)) {
+            return null;
+        }
+        try {
+            return DateTime.parse(new String(Files.readAllBytes(checkpoint), Charsets.UTF_8).trim());
+        } catch (final IOException | IllegalArgumentException e) {
+            throw new ApiException("Unable to read checkpoint " + checkpoint + ": " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized void writeCheckpoint(final DateTime position) {
+        if (checkpoint == null || position == null) {
+            return;
+        }
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try {
+            Files.write(temporary, position.toString().getBytes(Charsets.UTF_8));
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new ApiException("Unable to write checkpoint " + checkpoint + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static class Item {
+        private final long position;
+        private final Recording recording;
+
+        private Item(final long position, final Recording recording) {
+            this.position = position;
+            this.recording = recording;
+        }
+    }
+
+    /**
+     * State of an archive, shared by the workers.
+     */
+    private class Run {
+        private final AtomicLong downloaded = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final List<Failure> failures = new ArrayList<>();
+
+        // Creation times of the items handled out of order, beyond the first unhandled one, null for failures
+        private final TreeMap<Long, DateTime> handled = new TreeMap<>();
+        private long position;
+        private long checkpointed;
+        private boolean held;
+        private DateTime mark;
+
+        private Run(final DateTime mark) {
+            this.mark = mark;
+        }
+
+        private void fail(final String sid, final TwilioException e) {
+            synchronized (failures) {
+                failures.add(new Failure(sid, e));
+            }
+        }
+
+        private void handle(final Item item, final boolean archived) {
+            DateTime write = null;
+            synchronized (this) {
+                handled.put(item.position, archived ? item.recording.getDateCreated() : null);
+                while (!handled.isEmpty() && handled.firstKey() == position) {
+                    DateTime date = handled.pollFirstEntry().getValue();
+                    // A failed recording holds the checkpoint so that the next run reads it again
+                    held |= date == null;
+                    if (!held) {
+                        mark = date;
+                    }
+                    position++;
+                }
+                if (position - checkpointed >= checkpointInterval) {
+                    checkpointed = position;
+                    write = mark;
+                }
+            }
+            if (write != null) {
+                writeCheckpoint(write);
+            }
+        }
+
+        private synchronized DateTime checkpoint() {
+            return mark;
+        }
+    }
+
+    public static class Builder {
+        private final Range<DateTime> dateCreated;
+        private final Storage storage;
+        private Format format = Format.WAV;
+        private boolean delete;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+        private Path checkpoint;
+        private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+        /**
+         * Create a new RecordingArchiver.
+         *
+         * @param dateCreated creation time of the archived recordings, e.g. before 30 days ago
+         * @param storage destination of the media, e.g. {@link RecordingArchiver#directory(Path)}
+         */
+        public Builder(Range<DateTime> dateCreated, Storage storage) {
+            this.dateCreated = dateCreated;
+            this.storage = storage;
+        }
+
+        public Builder format(Format format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * Delete every recording once it is in the storage.
+         *
+         * @param delete true to delete the archived recordings
+         * @return this
+         */
+        public Builder delete(boolean delete) {
+            this.delete = delete;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of recordings archived at once.
+         *
+         * @param parallelism maximum number of concurrent downloads
+         * @return this
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of attempts of a download which could not complete.
+         *
+         * @param maxAttempts maximum number of attempts
+         * @return this
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Set the size of the buffer the media is copied through.
+         *
+         * @param bufferSize size of the buffer in bytes
+         * @return this
+         */
+        public Builder bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Keep the progress in a file, to resume interrupted archives.
+         *
+         * @param checkpoint checkpoint file
+         * @return this
+         */
+        public Builder checkpoint(Path checkpoint) {
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
+        /**
+         * Set how often the checkpoint is written.
+         *
+         * @param checkpointInterval number of recordings between checkpoints
+         * @return this
+         */
+        public Builder checkpointInterval(int checkpointInterval) {
+            this.checkpointInterval = checkpointInterval;
+            return this;
+        }
+
+        /**
+         * Build new RecordingArchiver.
+         *
+         * @return RecordingArchiver instance
+         */
+        public RecordingArchiver build() {
+            return new RecordingArchiver(this);
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.twilio.export;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.google.common.collect.ImmutableList;
+import com.twilio.Twilio;
+import com.twilio.exception.ApiConnectionException;
+import com.twilio.exception.ApiException;
+import com.twilio.exception.RestException;
+import com.twilio.http.HttpMethod;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.Domains;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports the records of a list resource of an account, e.g. Messages or Calls, to CSV or newline-delimited JSON.
+ *
+ * <p>
+ *     Pages are parsed as a stream of JSON tokens and only the selected columns of every record are kept, in a row
+ *     reused from one record to the next, before being encoded into a buffer written to a channel. No resource
+ *     object is created, so the memory used by an export does not depend on the number of exported records.
+ * </p>
+ *
+ * <pre>
+ *     long exported = ResourceExporter.messages()
+ *         .queryParam("DateSent&gt;", "2017-01-01")
+ *         .format(ResourceExporter.Format.CSV)
+ *         .build()
+ *         .export(Paths.get("messages.csv"));
+ * </pre>
+ */
+public class ResourceExporter {
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    public static final List<String> DEFAULT_MESSAGE_COLUMNS = ImmutableList.of(
+        "sid", "date_created", "date_sent", "from", "to", "status", "direction", "num_segments", "price", "price_unit",
+        "error_code"
+    );
+
+    public static final List<String> DEFAULT_CALL_COLUMNS = ImmutableList.of(
+        "sid", "date_created", "start_time", "end_time", "from", "to", "status", "direction", "duration", "price",
+        "price_unit"
+    );
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private static final char[] CSV_SPECIAL_CHARACTERS = {',', '"', '\n', '\r'};
+
+    private final String listName;
+    private final String recordKey;
+    private final String accountSid;
+    private final List<String> columns;
+    private final Map<String, Integer> columnIndexes;
+    private final Map<String, String> queryParams;
+    private final Format format;
+    private final boolean header;
+    private final int pageSize;
+    private final int bufferSize;
+
+    private ResourceExporter(Builder b) {
+        this.listName = b.listName;
+        this.recordKey = b.recordKey;
+        this.accountSid = b.accountSid;
+        this.columns = ImmutableList.copyOf(b.columns);
+        this.queryParams = new HashMap<>(b.queryParams);
+        this.format = b.format;
+        this.header = b.header;
+        this.pageSize = b.pageSize;
+        this.bufferSize = b.bufferSize;
+
+        this.columnIndexes = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            columnIndexes.put(columns.get(i), i);
+        }
+    }
+
+    /**
+     * Create a builder of an exporter of Messages.
+     *
+     * @return Builder with the default Message columns
+     */
+    public static Builder messages() {
+        return new Builder("Messages", "messages").columns(DEFAULT_MESSAGE_COLUMNS);
+    }
+
+    /**
+     * Create a builder of an exporter of Calls.
+     *
+     * @return Builder with the default Call columns
+     */
+    public static Builder calls() {
+        return new Builder("Calls", "calls").columns(DEFAULT_CALL_COLUMNS);
+    }
+
+    /**
+     * Export every record to a file using default client.
+     *
+     * @param path file to create or replace
+     * @return number of exported records
+     */
+    public long export(final Path path) {
+        return export(Twilio.getRestClient(), path);
+    }
+
+    /**
+     * Export every record to a file using specified client.
+     *
+     * @param client client used to make requests
+     * @param path file to create or replace
+     * @return number of exported records
+     */
+    public long export(final TwilioRestClient client, final Path path) {
+        try (FileChannel channel = FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE
+        )) {
+            return export(client, channel);
+        } catch (final IOException e) {
+            throw new ApiException("Unable to export " + listName + " to " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Export every record to a channel using specified client.
+     *
+     * @param client client used to make requests
+     * @param channel channel the records are written to, left open
+     * @return number of exported records
+     */
+    public long export(final TwilioRestClient client, final WritableByteChannel channel) {
+        String sid = accountSid == null ? client.getAccountSid() : accountSid;
+        Request request = new Request(
+            HttpMethod.GET,
+            Domains.API.toString(),
+            "/2010-04-01/Accounts/" + sid + "/" + listName + ".json",
+            client.getRegion()
+        );
+        for (final Map.Entry<String, String> param : queryParams.entrySet()) {
+            request.addQueryParam(param.getKey(), param.getValue());
+        }
+        request.addQueryParam("PageSize", Integer.toString(pageSize));
+
+        ChannelWriter writer = new ChannelWriter(channel, bufferSize);
+        String[] row = new String[columns.size()];
+        boolean[] quoted = new boolean[columns.size()];
+        long records = 0;
+        try {
+            if (header && format == Format.CSV) {
+                writeCsv(writer, columns.toArray(new String[columns.size()]));
+            }
+
+            while (request != null) {
+                PageResult result = exportPage(client, request, writer, row, quoted);
+                records += result.records;
+                request = result.nextPageUrl == null ? null : new Request(HttpMethod.GET, result.nextPageUrl);
+            }
+
+            writer.flush();
+        } catch (final IOException e) {
+            throw new ApiException("Unable to export " + listName + ": " + e.getMessage(), e);
+        }
+
+        return records;
+    }
+
+    private PageResult exportPage(
+        final TwilioRestClient client,
+        final Request request,
+        final ChannelWriter writer,
+        final String[] row,
+        final boolean[] quoted
+    ) throws IOException {
+        Response response = client.request(request);
+        if (response == null) {
+            throw new ApiConnectionException(listName + " export failed: Unable to connect to server");
+        } else if (!TwilioRestClient.SUCCESS.apply(response.getStatusCode())) {
+            RestException restException = RestException.fromJson(response.getStream(), client.getObjectMapper());
+            if (restException == null) {
+                throw new ApiException("Server Error, no content");
+            }
+
+            throw new ApiException(
+                restException.getMessage(),
+                restException.getCode(),
+                restException.getMoreInfo(),
+                restException.getStatus(),
+                null
+            );
+        }
+
+        PageResult result = new PageResult();
+        try (InputStream stream = response.getStream();
+             JsonParser parser = client.getObjectMapper().getFactory().createParser(stream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ApiConnectionException("Unable to deserialize " + listName + " page: object expected");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (recordKey.equals(name) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readRecord(client, parser, row, quoted);
+                        writeRow(writer, row, quoted);
+                        result.records++;
+                    }
+                } else if ("next_page_uri".equals(name) && token == JsonToken.VALUE_STRING) {
+                    result.nextPageUrl = new Request(
+                        HttpMethod.GET,
+                        Domains.API.toString(),
+                        parser.getText(),
+                        client.getRegion()
+                    ).getUrl();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return result;
+    }
+
+    private void readRecord(
+        final TwilioRestClient client,
+        final JsonParser parser,
+        final String[] row,
+        final boolean[] quoted
+    ) throws IOException {
+        Arrays.fill(row, null);
+        Arrays.fill(quoted, false);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Integer index = columnIndexes.get(parser.getCurrentName());
+            JsonToken token = parser.nextToken();
+            if (index == null) {
+                parser.skipChildren();
+            } else if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                // Only selected nested values are read as a tree, and kept as their JSON text
+                row[index] = client.getObjectMapper().readTree(parser).toString();
+            } else if (token != JsonToken.VALUE_NULL) {
+                row[index] = parser.getText();
+                quoted[index] = token == JsonToken.VALUE_STRING;
+            }
+        }
+    }
+
+    private void writeRow(final ChannelWriter writer, final String[] row, final boolean[] quoted) throws IOException {
+        if (format == Format.CSV) {
+            writeCsv(writer, row);
+            return;
+        }
+
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        writer.write('{');
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write('"').write(new String(encoder.quoteAsString(columns.get(i)))).write("\":");
+            if (row[i] == null) {
+                writer.write("null");
+            } else if (quoted[i]) {
+                writer.write('"').write(new String(encoder.quoteAsString(row[i]))).write('"');
+            } else {
+                writer.write(row[i]);
+            }
+        }
+        writer.write("}\n");
+    }
+
+    private static void writeCsv(final ChannelWriter writer, final String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (needsQuotes(value)) {
+                writer.write('"').write(value.replace("\"", "\"\"")).write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static boolean needsQuotes(final String value) {
+        for (final char c : CSV_SPECIAL_CHARACTERS) {
+            if (value.indexOf(c) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    private static class PageResult {
+        private long records;
+        private String nextPageUrl;
+    }
+
+    public static class Builder {
+        private final String listName;
+        private final String recordKey;
+        private String accountSid;
+        private List<String> columns = new ArrayList<>();
+        private final Map<String, String> queryParams = new HashMap<>();
+        private Format format = Format.CSV;
+        private boolean header = true;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+        /**
+         * Create a new ResourceExporter of a list resource of an account.
+         *
+         * @param listName name of the list in its url, e.g. Messages
+         * @param recordKey key of the records in the pages of the list, e.g. messages
+         */
+        public Builder(String listName, String recordKey) {
+            this.listName = listName;
+            this.recordKey = recordKey;
+        }
+
+        /**
+         * Set the account of the exported records.
+         *
+         * @param accountSid sid of the account, the account of the client if null
+         * @return this
+         */
+        public Builder accountSid(String accountSid) {
+            this.accountSid = accountSid;
+            return this;
+        }
+
+        /**
+         * Set the exported columns.
+         *
+         * @param columns names of the JSON fields of the records, in export order
+         * @return this
+         */
+        public Builder columns(List<String> columns) {
+            this.columns = columns;
+            return this;
+        }
+
+        /**
+         * Filter the exported records.
+         *
+         * @param name name of the query parameter of the list, e.g. DateSent&gt;
+         * @param value value of the query parameter
+         * @return this
+         */
+        public Builder queryParam(String name, String value) {
+            this.queryParams.put(name, value);
+            return this;
+        }
+
+        public Builder format(Format format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * Write the column names as the first line of CSV exports.
+         *
+         * @param header true to write a header line
+         * @return this
+         */
+        public Builder header(boolean header) {
+            this.header = header;
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Set the size of the buffer written to the channel.
+         *
+         * @param bufferSize size of the buffer in bytes
+         * @return this
+         */
+        public Builder bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Build new ResourceExporter.
+         *
+         * @return ResourceExporter instance
+         */
+        public ResourceExporter build() {
+            return new ResourceExporter(this);
+        }
+    }
+}
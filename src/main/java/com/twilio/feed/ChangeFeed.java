@@ -0,0 +1,340 @@
+package com.twilio.feed;
+
+import com.google.common.collect.Range;
+import com.twilio.Twilio;
+import com.twilio.base.Page;
+import com.twilio.base.Reader;
+import com.twilio.base.Resource;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.Call;
+import com.twilio.rest.api.v2010.account.Message;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Incremental feed of the new and updated records of a list resource, e.g. Messages or Calls.
+ *
+ * <p>
+ *     The feed keeps a high-water mark, the time of the newest record it emitted. Every poll reads only the records
+ *     at or after the high-water mark minus an overlap, so records which are created late or updated shortly after
+ *     they were first emitted are still seen. Records read again because of the overlap are recognized by their key,
+ *     the sid combined with what changes when the record is updated, and are not emitted twice.
+ * </p>
+ *
+ * <pre>
+ *     ChangeFeed&lt;Message&gt; feed = new ChangeFeed.Builder&lt;&gt;(ChangeFeed.MESSAGES)
+ *         .since(lastHighWaterMark)
+ *         .overlap(10, TimeUnit.MINUTES)
+ *         .build();
+ *
+ *     feed.poll(new ChangeFeed.Consumer&lt;Message&gt;() {
+ *         public void onRecord(Message message) {
+ *             warehouse.upsert(message);
+ *         }
+ *     });
+ * </pre>
+ *
+ * @param <T> type of the records
+ */
+public class ChangeFeed<T extends Resource> {
+
+    public static final long DEFAULT_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    public static final long DEFAULT_INITIAL_WINDOW_MILLIS = TimeUnit.DAYS.toMillis(1);
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    public static final int DEFAULT_RECENT_KEYS = 100000;
+    public static final int DEFAULT_EXPECTED_KEYS = 1000000;
+    public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.0001;
+
+    /**
+     * Reads a list resource by time and identifies the versions of its records.
+     *
+     * @param <T> type of the records
+     */
+    public interface Source<T extends Resource> {
+
+        /**
+         * Create a reader of the records within a time window.
+         *
+         * @param window time window of the records
+         * @return reader of the records
+         */
+        Reader<T> reader(Range<DateTime> window);
+
+        /**
+         * Get the time which the reader filters the record on.
+         *
+         * @param record record
+         * @return time of the record, or null if the record cannot be placed in time yet
+         */
+        DateTime getTimestamp(T record);
+
+        /**
+         * Get the key of a version of the record.
+         *
+         * @param record record
+         * @return key changing whenever the record is updated
+         */
+        String getKey(T record);
+    }
+
+    /**
+     * Receives the new and updated records of a feed.
+     *
+     * @param <T> type of the records
+     */
+    public interface Consumer<T extends Resource> {
+
+        /**
+         * Handle a new or updated record.
+         *
+         * @param record record
+         */
+        void onRecord(T record);
+    }
+
+    /**
+     * Messages of the account of the client, by date sent.
+     */
+    public static final Source<Message> MESSAGES = new Source<Message>() {
+        @Override
+        public Reader<Message> reader(final Range<DateTime> window) {
+            return Message.reader().setDateSent(window);
+        }
+
+        @Override
+        public DateTime getTimestamp(final Message message) {
+            return message.getDateSent();
+        }
+
+        @Override
+        public String getKey(final Message message) {
+            return message.getSid() + " " + message.getStatus() + " " + millis(message.getDateUpdated());
+        }
+    };
+
+    /**
+     * Calls of the account of the client, by start time.
+     */
+    public static final Source<Call> CALLS = new Source<Call>() {
+        @Override
+        public Reader<Call> reader(final Range<DateTime> window) {
+            return Call.reader().setStartTime(window);
+        }
+
+        @Override
+        public DateTime getTimestamp(final Call call) {
+            return call.getStartTime();
+        }
+
+        @Override
+        public String getKey(final Call call) {
+            return call.getSid() + " " + call.getStatus() + " " + millis(call.getDateUpdated());
+        }
+    };
+
+    private static String millis(final DateTime dateTime) {
+        return dateTime == null ? "" : String.valueOf(dateTime.getMillis());
+    }
+
+    private final Source<T> source;
+    private final long overlapMillis;
+    private final long initialWindowMillis;
+    private final int pageSize;
+    private final SeenKeys seen;
+    private DateTime highWaterMark;
+
+    private ChangeFeed(Builder<T> b) {
+        this.source = b.source;
+        this.overlapMillis = b.overlapMillis;
+        this.initialWindowMillis = b.initialWindowMillis;
+        this.pageSize = b.pageSize;
+        this.seen = new SeenKeys(b.recentKeys, b.expectedKeys, b.falsePositiveProbability);
+        this.highWaterMark = b.since == null ? null : b.since.withZone(DateTimeZone.UTC);
+    }
+
+    /**
+     * Emit the records which changed since the last poll using default client.
+     *
+     * @param consumer consumer of the records
+     * @return number of emitted records
+     */
+    public int poll(final Consumer<T> consumer) {
+        return poll(Twilio.getRestClient(), consumer);
+    }
+
+    /**
+     * Emit the records which changed since the last poll using specified client.
+     *
+     * <p>
+     *     Records are emitted from the oldest to the newest, and the high-water mark advances with every emitted
+     *     record, so a consumer failure only causes the records it did not handle to be emitted again. The records
+     *     of a poll are sorted before they are emitted, so they are all held in memory; without a high-water mark
+     *     the first poll therefore only reads the initial window.
+     * </p>
+     *
+     * @param client client used to make requests
+     * @param consumer consumer of the records
+     * @return number of emitted records
+     */
+    public synchronized int poll(final TwilioRestClient client, final Consumer<T> consumer) {
+        Range<DateTime> window;
+        if (highWaterMark != null) {
+            window = Range.atLeast(highWaterMark.minus(overlapMillis));
+        } else if (initialWindowMillis > 0) {
+            window = Range.atLeast(DateTime.now(DateTimeZone.UTC).minus(initialWindowMillis));
+        } else {
+            window = Range.all();
+        }
+
+        Reader<T> reader = source.reader(window);
+        reader.pageSize(pageSize);
+
+        List<T> changes = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
+        Page<T> page = reader.firstPage(client);
+        while (true) {
+            for (final T record : page.getRecords()) {
+                DateTime timestamp = source.getTimestamp(record);
+                if (timestamp == null) {
+                    continue;
+                }
+
+                String key = source.getKey(record);
+                if (!seen.contains(key, timestamp.getMillis()) && keys.add(key)) {
+                    changes.add(record);
+                }
+            }
+
+            if (!page.hasNextPage()) {
+                break;
+            }
+            page = reader.nextPage(page, client);
+        }
+
+        Collections.sort(changes, new Comparator<T>() {
+            @Override
+            public int compare(final T o1, final T o2) {
+                return source.getTimestamp(o1).compareTo(source.getTimestamp(o2));
+            }
+        });
+
+        for (final T record : changes) {
+            consumer.onRecord(record);
+
+            DateTime timestamp = source.getTimestamp(record);
+            seen.add(source.getKey(record), timestamp.getMillis());
+            if (highWaterMark == null || timestamp.isAfter(highWaterMark)) {
+                // The window is formatted in the zone of its bound, which the API reads as UTC
+                highWaterMark = timestamp.withZone(DateTimeZone.UTC);
+            }
+        }
+
+        return changes.size();
+    }
+
+    /**
+     * Get the time of the newest emitted record, to be stored and passed back to {@link Builder#since(DateTime)}
+     * when the feed is recreated.
+     *
+     * @return the high-water mark in UTC, or null if no record was emitted yet
+     */
+    public synchronized DateTime getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public Source<T> getSource() {
+        return source;
+    }
+
+    public static class Builder<T extends Resource> {
+        private final Source<T> source;
+        private DateTime since;
+        private long overlapMillis = DEFAULT_OVERLAP_MILLIS;
+        private long initialWindowMillis = DEFAULT_INITIAL_WINDOW_MILLIS;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private int recentKeys = DEFAULT_RECENT_KEYS;
+        private int expectedKeys = DEFAULT_EXPECTED_KEYS;
+        private double falsePositiveProbability = DEFAULT_FALSE_POSITIVE_PROBABILITY;
+
+        /**
+         * Create a new ChangeFeed.
+         *
+         * @param source list resource to follow, e.g. {@link ChangeFeed#MESSAGES}
+         */
+        public Builder(Source<T> source) {
+            this.source = source;
+        }
+
+        /**
+         * Set the initial high-water mark.
+         *
+         * @param since high-water mark of a previous feed, the first poll reads the initial window if null
+         * @return this
+         */
+        public Builder<T> since(DateTime since) {
+            this.since = since;
+            return this;
+        }
+
+        /**
+         * Set how far before the high-water mark polls read.
+         *
+         * @param duration overlap of consecutive polls
+         * @param unit unit of the duration
+         * @return this
+         */
+        public Builder<T> overlap(long duration, TimeUnit unit) {
+            this.overlapMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Set how far back the first poll reads when there is no high-water mark.
+         *
+         * @param duration initial window before the first poll, 0 to read and buffer every record ever created
+         * @param unit unit of the duration
+         * @return this
+         */
+        public Builder<T> initialWindow(long duration, TimeUnit unit) {
+            this.initialWindowMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder<T> pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Set the bounds of the memory used to recognize already emitted records.
+         *
+         * @param recentKeys number of most recent keys kept exactly
+         * @param expectedKeys number of older keys remembered with the given false positive probability
+         * @param falsePositiveProbability probability of an older new record being taken for an emitted one
+         * @return this
+         */
+        public Builder<T> seenKeys(int recentKeys, int expectedKeys, double falsePositiveProbability) {
+            this.recentKeys = recentKeys;
+            this.expectedKeys = expectedKeys;
+            this.falsePositiveProbability = falsePositiveProbability;
+            return this;
+        }
+
+        /**
+         * Build new ChangeFeed.
+         *
+         * @return ChangeFeed instance
+         */
+        public ChangeFeed<T> build() {
+            return new ChangeFeed<>(this);
+        }
+    }
+}
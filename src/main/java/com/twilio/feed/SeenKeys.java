@@ -0,0 +1,107 @@
+package com.twilio.feed;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Bounded set of the keys of already emitted records.
+ *
+ * <p>
+ *     The most recent keys are kept exactly in a ring buffer. Keys evicted from the ring buffer are only remembered
+ *     by Bloom filters, which are consulted for records no newer than the newest evicted key. The filters are
+ *     rotated once they hold their expected number of keys, so memory stays bounded while the oldest keys are
+ *     eventually forgotten.
+ * </p>
+ */
+class SeenKeys {
+
+    private final int capacity;
+    private final int expectedInsertions;
+    private final double falsePositiveProbability;
+
+    private final Deque<Entry> ring;
+    private final Set<String> recent;
+    private BloomFilter<CharSequence> current;
+    private BloomFilter<CharSequence> previous;
+    private int insertions;
+    private long horizon = Long.MIN_VALUE;
+
+    SeenKeys(final int capacity, final int expectedInsertions, final double falsePositiveProbability) {
+        this.capacity = capacity;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.ring = new ArrayDeque<>(capacity);
+        this.recent = new HashSet<>(capacity * 2);
+        this.current = newFilter();
+    }
+
+    private BloomFilter<CharSequence> newFilter() {
+        return BloomFilter.create(Funnels.stringFunnel(Charsets.UTF_8), expectedInsertions, falsePositiveProbability);
+    }
+
+    /**
+     * Check whether a key was added.
+     *
+     * @param key key of the record
+     * @param timestamp time of the record, in milliseconds
+     * @return true if the key was added, or probably added if older than the recent keys
+     */
+    boolean contains(final String key, final long timestamp) {
+        if (recent.contains(key)) {
+            return true;
+        }
+
+        // Every evicted key is at most as new as the horizon, so newer records are decided by the ring alone
+        if (timestamp > horizon) {
+            return false;
+        }
+        return current.mightContain(key) || (previous != null && previous.mightContain(key));
+    }
+
+    /**
+     * Add the key of an emitted record.
+     *
+     * @param key key of the record
+     * @param timestamp time of the record, in milliseconds
+     */
+    void add(final String key, final long timestamp) {
+        if (!recent.add(key)) {
+            return;
+        }
+        ring.addLast(new Entry(key, timestamp));
+
+        if (ring.size() > capacity) {
+            Entry evicted = ring.removeFirst();
+            recent.remove(evicted.key);
+            horizon = Math.max(horizon, evicted.timestamp);
+
+            if (insertions == expectedInsertions) {
+                previous = current;
+                current = newFilter();
+                insertions = 0;
+            }
+            current.put(evicted.key);
+            insertions++;
+        }
+    }
+
+    int size() {
+        return recent.size();
+    }
+
+    private static class Entry {
+        private final String key;
+        private final long timestamp;
+
+        Entry(final String key, final long timestamp) {
+            this.key = key;
+            this.timestamp = timestamp;
+        }
+    }
+}
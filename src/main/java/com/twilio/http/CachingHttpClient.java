@@ -0,0 +1,462 @@
+package com.twilio.http;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.twilio.exception.ApiException;
+import com.twilio.rest.Domains;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * HttpClient which caches successful GET responses of another HttpClient.
+ *
+ * <p>
+ *     Responses are cached by url, query string and credentials for a time to live configured per resource type,
+ *     the collection name which precedes the sid in the resource url, e.g. {@code IncomingPhoneNumbers}. Resource
+ *     types without a time to live are not cached unless a default is set. Concurrent misses for the same url
+ *     make a single request.
+ * </p>
+ *
+ * <p>
+ *     Any other request invalidates the collection it changes, every cached response whose path starts with the
+ *     collection path whatever its query string, so creating or updating a resource also discards the cached pages
+ *     listing it. The collection of a POST is its path, or its parent when the path ends with a sid, and the
+ *     collection of a DELETE is always its parent.
+ * </p>
+ *
+ * <p>
+ *     With revalidation enabled, an expired response which carried an {@code ETag} or {@code Last-Modified} header
+ *     is revalidated with a conditional request. A {@code 304 Not Modified} answer renews the cached response
+ *     instead of transferring it again, which keeps polling fetchers and page reads cheap.
+ * </p>
+ *
+ * <p>
+ *     Caching is opt-in, build a TwilioRestClient with this client to enable it:
+ * </p>
+ * <pre>
+ *     HttpClient httpClient = new CachingHttpClient.Builder(new NetworkHttpClient())
+ *         .ttl("IncomingPhoneNumbers", 5, TimeUnit.MINUTES)
+ *         .ttl(Domains.MESSAGING, "Services", 1, TimeUnit.HOURS)
+ *         .build();
+ * </pre>
+ */
+public class CachingHttpClient extends HttpClient {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+    public static final int HTTP_STATUS_CODE_NOT_MODIFIED = 304;
+
+    private static final Pattern SID = Pattern.compile("[A-Z]{2}[0-9a-fA-F]{32}");
+
+    private final HttpClient httpClient;
+    private final Map<String, Long> ttlNanos;
+    private final long defaultTtlNanos;
+    private final boolean revalidate;
+    private final Ticker ticker;
+    private final Cache<Key, CachedResponse> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+
+    private CachingHttpClient(Builder b) {
+        this.httpClient = b.httpClient;
+        this.ttlNanos = new HashMap<>(b.ttlNanos);
+        this.defaultTtlNanos = b.defaultTtlNanos;
+        this.revalidate = b.revalidate;
+        this.ticker = b.ticker;
+        this.cache = CacheBuilder.newBuilder().maximumSize(b.maximumSize).build();
+    }
+
+    /**
+     * Make a request, serving GET requests from the cache when possible.
+     *
+     * @param request request to make
+     * @return Response of the HTTP request
+     */
+    @Override
+    public Response makeRequest(final Request request) {
+        URL url = request.constructURL();
+        if (request.getMethod() != HttpMethod.GET) {
+            try {
+                return httpClient.makeRequest(request);
+            } finally {
+                // Once the change is made, so responses loaded while it was in flight are discarded too
+                invalidate(request.getMethod(), url);
+            }
+        }
+
+        final long ttl = ttlFor(url);
+        if (ttl <= 0) {
+            return httpClient.makeRequest(request);
+        }
+
+        final Key key = new Key(request, url);
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null && !cached.isExpired(ticker.read())) {
+            hits.incrementAndGet();
+            return cached.toResponse();
+        }
+
+        final CachedResponse stale = revalidate && cached != null && cached.hasValidators() ? cached : null;
+        if (cached != null) {
+            cache.asMap().remove(key, cached);
+        }
+
+        final boolean[] loaded = new boolean[1];
+        try {
+            cached = cache.get(key, new Callable<CachedResponse>() {
+                @Override
+                public CachedResponse call() {
+                    loaded[0] = true;
+                    return load(request, ttl, stale);
+                }
+            });
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof UncacheableResponseException) {
+                return ((UncacheableResponseException) e.getCause()).getResponse();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ApiException(e.getMessage(), e);
+        }
+
+        if (loaded[0]) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return cached.toResponse();
+    }
+
+    /**
+     * Make a streaming request, which bypasses the cache since its body is not read into memory.
+     *
+     * @param request request to make
+     * @return Response of the HTTP request, with a stream to be closed
+     */
+    @Override
+    public Response makeStreamingRequest(final Request request) {
+        if (request.getMethod() != HttpMethod.GET) {
+            try {
+                return httpClient.makeStreamingRequest(request);
+            } finally {
+                invalidate(request.getMethod(), request.constructURL());
+            }
+        }
+        return httpClient.makeStreamingRequest(request);
+    }
+
+    private CachedResponse load(final Request request, final long ttl, final CachedResponse stale) {
+        Request conditional = request;
+        if (stale != null) {
+            // The validators belong to this load, the caller's request is left untouched
+            conditional = copyOf(request);
+            if (stale.getETag() != null) {
+                conditional.setHeader("If-None-Match", stale.getETag());
+            }
+            if (stale.getLastModified() != null) {
+                conditional.setHeader("If-Modified-Since", stale.getLastModified());
+            }
+        }
+
+        Response response = httpClient.makeRequest(conditional);
+        if (response == null) {
+            throw new UncacheableResponseException(null);
+        }
+
+        if (stale != null && response.getStatusCode() == HTTP_STATUS_CODE_NOT_MODIFIED) {
+            notModified.incrementAndGet();
+            return stale.renew(ticker.read() + ttl);
+        }
+
+        // Read the body once so it can be shared by every caller waiting on this load
+        Response buffered = new Response(response.getContent(), response.getStatusCode(), response.getHeaders());
+        if (!TwilioRestClient.SUCCESS.apply(buffered.getStatusCode())) {
+            throw new UncacheableResponseException(buffered);
+        }
+
+        return new CachedResponse(buffered, ticker.read() + ttl);
+    }
+
+    private long ttlFor(final URL url) {
+        String[] segments = url.getPath().split("/");
+        if (segments.length < 2) {
+            return defaultTtlNanos;
+        }
+
+        String domain = url.getHost().split("\\.")[0];
+
+        // Lists end with the resource type, instances with the resource type followed by a sid
+        String list = segments[segments.length - 1].replace(".json", "");
+        Long ttl = ttlFor(domain, list);
+        if (ttl == null) {
+            ttl = ttlFor(domain, segments[segments.length - 2]);
+        }
+
+        return ttl == null ? defaultTtlNanos : ttl;
+    }
+
+    private Long ttlFor(final String domain, final String resourceType) {
+        Long ttl = ttlNanos.get(domain + "/" + resourceType);
+        return ttl == null ? ttlNanos.get(resourceType) : ttl;
+    }
+
+    private void invalidate(final HttpMethod method, final URL url) {
+        String path = pathOf(url);
+        int parent = path.lastIndexOf('/');
+        if (parent > 0 && (method == HttpMethod.DELETE || SID.matcher(path.substring(parent + 1)).matches())) {
+            path = path.substring(0, parent);
+        }
+
+        String host = url.getHost();
+        for (Iterator<Key> keys = cache.asMap().keySet().iterator(); keys.hasNext(); ) {
+            Key key = keys.next();
+            if (key.host.equals(host) && (key.path.equals(path) || key.path.startsWith(path + "/"))) {
+                keys.remove();
+            }
+        }
+    }
+
+    private static String pathOf(final URL url) {
+        String path = url.getPath();
+        return path.endsWith(".json") ? path.substring(0, path.length() - ".json".length()) : path;
+    }
+
+    private static Request copyOf(final Request request) {
+        Request copy = new Request(request.getMethod(), request.getUrl());
+        if (request.requiresAuthentication()) {
+            copy.setAuth(request.getUsername(), request.getPassword(), request.getAuthString());
+        }
+        for (final Map.Entry<String, List<String>> param : request.getQueryParams().entrySet()) {
+            for (final String value : param.getValue()) {
+                copy.addQueryParam(param.getKey(), value);
+            }
+        }
+        for (final Map.Entry<String, List<String>> param : request.getPostParams().entrySet()) {
+            for (final String value : param.getValue()) {
+                copy.addPostParam(param.getKey(), value);
+            }
+        }
+        for (final Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            copy.setHeader(header.getKey(), header.getValue());
+        }
+        return copy;
+    }
+
+    @Override
+    public void warmUp(final int connections, final String... urls) {
+        httpClient.warmUp(connections, urls);
+    }
+
+    /**
+     * Discard every cached response.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of expired responses renewed by a Not Modified answer to a conditional request.
+     *
+     * @return number of revalidated responses
+     */
+    public long getNotModified() {
+        return notModified.get();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    private static final class Key {
+        private final String identity;
+        private final String url;
+        private final String host;
+        private final String path;
+
+        Key(final Request request, final URL url) {
+            this.identity = request.requiresAuthentication() ? request.getAuthString() : "";
+            this.url = url.toString();
+            this.host = url.getHost();
+            this.path = pathOf(url);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) o;
+            return identity.equals(other.identity) && url.equals(other.url);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * identity.hashCode() + url.hashCode();
+        }
+    }
+
+    private static class CachedResponse {
+        private final Response response;
+        private final long expiresAt;
+
+        CachedResponse(final Response response, final long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(final long now) {
+            return now - expiresAt >= 0;
+        }
+
+        boolean hasValidators() {
+            return getETag() != null || getLastModified() != null;
+        }
+
+        String getETag() {
+            return response.getHeader("ETag");
+        }
+
+        String getLastModified() {
+            return response.getHeader("Last-Modified");
+        }
+
+        CachedResponse renew(final long expiresAt) {
+            return new CachedResponse(response, expiresAt);
+        }
+
+        Response toResponse() {
+            return response;
+        }
+    }
+
+    private static class UncacheableResponseException extends RuntimeException {
+        private static final long serialVersionUID = 2707853440318960123L;
+
+        private final transient Response response;
+
+        UncacheableResponseException(final Response response) {
+            super(null, null, false, false);
+            this.response = response;
+        }
+
+        Response getResponse() {
+            return response;
+        }
+    }
+
+    public static class Builder {
+        private final HttpClient httpClient;
+        private final Map<String, Long> ttlNanos = new HashMap<>();
+        private long defaultTtlNanos;
+        private boolean revalidate;
+        private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+        private Ticker ticker = Ticker.systemTicker();
+
+        /**
+         * Create a new CachingHttpClient.
+         *
+         * @param httpClient client used to make the requests which miss the cache
+         */
+        public Builder(HttpClient httpClient) {
+            this.httpClient = httpClient;
+        }
+
+        /**
+         * Cache responses for a resource type of any domain.
+         *
+         * @param resourceType collection name of the resource, e.g. IncomingPhoneNumbers
+         * @param duration time to live of cached responses
+         * @param unit unit of the duration
+         * @return this
+         */
+        public Builder ttl(String resourceType, long duration, TimeUnit unit) {
+            this.ttlNanos.put(resourceType, unit.toNanos(duration));
+            return this;
+        }
+
+        /**
+         * Cache responses for a resource type of a single domain.
+         *
+         * @param domain domain of the resource
+         * @param resourceType collection name of the resource, e.g. Services
+         * @param duration time to live of cached responses
+         * @param unit unit of the duration
+         * @return this
+         */
+        public Builder ttl(Domains domain, String resourceType, long duration, TimeUnit unit) {
+            this.ttlNanos.put(domain.toString() + "/" + resourceType, unit.toNanos(duration));
+            return this;
+        }
+
+        /**
+         * Cache responses of resource types without a time to live of their own.
+         *
+         * @param duration time to live of cached responses
+         * @param unit unit of the duration
+         * @return this
+         */
+        public Builder defaultTtl(long duration, TimeUnit unit) {
+            this.defaultTtlNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Revalidate expired responses with conditional requests instead of fetching them again.
+         *
+         * @param revalidate true to send If-None-Match and If-Modified-Since for expired responses
+         * @return this
+         */
+        public Builder revalidate(boolean revalidate) {
+            this.revalidate = revalidate;
+            return this;
+        }
+
+        public Builder maximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder ticker(Ticker ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        /**
+         * Build new CachingHttpClient.
+         *
+         * @return CachingHttpClient instance
+         */
+        public CachingHttpClient build() {
+            return new CachingHttpClient(this);
+        }
+    }
+}
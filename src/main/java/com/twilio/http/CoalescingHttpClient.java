@@ -0,0 +1,118 @@
+package com.twilio.http;
+
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.twilio.exception.ApiException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HttpClient which coalesces identical concurrent GET requests made to another HttpClient.
+ *
+ * <p>
+ *     While a GET request is in flight, further GET requests for the same url, query string and credentials wait
+ *     for it and share its response instead of making a request of their own. Nothing is kept once the request
+ *     completes, the next request for the url goes to the network again.
+ * </p>
+ */
+public class CoalescingHttpClient extends HttpClient {
+
+    private final HttpClient httpClient;
+    private final ConcurrentMap<String, SettableFuture<Response>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Create a new CoalescingHttpClient.
+     *
+     * @param httpClient client used to make the requests
+     */
+    public CoalescingHttpClient(final HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Make a request, sharing the response of an identical GET request already in flight.
+     *
+     * @param request request to make
+     * @return Response of the HTTP request
+     */
+    @Override
+    public Response makeRequest(final Request request) {
+        if (request.getMethod() != HttpMethod.GET) {
+            return httpClient.makeRequest(request);
+        }
+
+        String identity = request.requiresAuthentication() ? request.getAuthString() : "";
+        String key = request.getMethod() + " " + identity + " " + request.constructURL();
+
+        SettableFuture<Response> future = SettableFuture.create();
+        SettableFuture<Response> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        try {
+            Response response = httpClient.makeRequest(request);
+
+            // Read the body once so it can be shared by every caller waiting on this request
+            Response shared = response == null
+                ? null
+                : new Response(response.getContent(), response.getStatusCode(), response.getHeaders());
+            future.set(shared);
+            return shared;
+        } catch (final RuntimeException | Error e) {
+            // Fail the waiting callers whatever went wrong, or they would wait forever
+            future.setException(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Make a streaming request, which is never coalesced since its body can only be read once.
+     *
+     * @param request request to make
+     * @return Response of the HTTP request, with a stream to be closed
+     */
+    @Override
+    public Response makeStreamingRequest(final Request request) {
+        return httpClient.makeStreamingRequest(request);
+    }
+
+    private static Response await(final SettableFuture<Response> future) {
+        try {
+            return Uninterruptibles.getUninterruptibly(future);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new ApiException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void warmUp(final int connections, final String... urls) {
+        httpClient.warmUp(connections, urls);
+    }
+
+    /**
+     * Get the number of requests which shared the response of a request already in flight.
+     *
+     * @return number of coalesced requests
+     */
+    public long getCoalescedRequests() {
+        return coalesced.get();
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+}
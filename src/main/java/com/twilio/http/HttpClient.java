@@ -60,6 +60,35 @@ public abstract class HttpClient {
         return response;
     }
 
+    /**
+     * Make a request whose response body is streamed rather than read entirely, e.g. to download media.
+     *
+     * <p>
+     *     The stream of the response must be closed to release its connection. Clients which do not stream read the
+     *     whole response as {@link #makeRequest(Request)} does.
+     * </p>
+     *
+     * @param request request to make
+     * @return Response of the HTTP request, with a stream to be closed
+     */
+    public Response makeStreamingRequest(final Request request) {
+        return makeRequest(request);
+    }
+
+    /**
+     * Pre-establish connections to the hosts of the given urls.
+     *
+     * <p>
+     *     Clients which do not pool connections ignore this call.
+     * </p>
+     *
+     * @param connections number of connections to open to each host
+     * @param urls urls of the hosts to connect to
+     */
+    public void warmUp(final int connections, final String... urls) {
+        // Nothing to warm up without a connection pool
+    }
+
     public Response getLastResponse() {
         return lastResponse;
     }
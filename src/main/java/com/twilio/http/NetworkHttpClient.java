@@ -3,47 +3,85 @@ package com.twilio.http;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.twilio.Twilio;
+import com.twilio.exception.ApiConnectionException;
 import com.twilio.exception.ApiException;
 import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpVersion;
 import org.apache.http.client.utils.HttpClientUtils;
 import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DeflateInputStream;
 import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.pool.PoolStats;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
 public class NetworkHttpClient extends HttpClient {
 
     private static final int CONNECTION_TIMEOUT = 10000;
     private static final int SOCKET_TIMEOUT = 30500;
+    private static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+    public static final int DEFAULT_MAX_CONNECTIONS = DEFAULT_MAX_CONNECTIONS_PER_ROUTE * 2;
 
     private final org.apache.http.client.HttpClient client;
+    private final RequestConfig config;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
 
     /**
      * Create a new HTTP Client.
      */
     public NetworkHttpClient() {
-        RequestConfig config = RequestConfig.custom()
-            .setConnectTimeout(CONNECTION_TIMEOUT)
-            .setSocketTimeout(SOCKET_TIMEOUT)
-            .build();
+        this(DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * Create a new HTTP Client with a custom sized connection pool.
+     *
+     * <p>
+     *     Each pooled connection carries one in-flight request at a time, so the pool size bounds
+     *     the number of concurrent requests that can be made to a single Twilio host.
+     * </p>
+     *
+     * @param maxConnectionsPerRoute max number of pooled connections to a single host
+     * @param maxConnections max number of pooled connections across all hosts
+     */
+    public NetworkHttpClient(final int maxConnectionsPerRoute, final int maxConnections) {
+        config = defaultConfig();
 
         Collection<Header> headers = Lists.<Header>newArrayList(
             new BasicHeader("X-Twilio-Client", "java-" + Twilio.VERSION),
             new BasicHeader(HttpHeaders.USER_AGENT, "twilio-java/" + Twilio.VERSION + " (" + Twilio.JAVA_VERSION + ")"),
-            new BasicHeader(HttpHeaders.ACCEPT, "application/json"),
-            new BasicHeader(HttpHeaders.ACCEPT_ENCODING, "utf-8")
+            new BasicHeader(HttpHeaders.ACCEPT, "application/json")
         );
 
         String googleAppEngineVersion = System.getProperty("com.google.appengine.runtime.version");
@@ -55,11 +93,13 @@ public class NetworkHttpClient extends HttpClient {
             clientBuilder.useSystemProperties();
         }
 
-        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
-	      connectionManager.setDefaultMaxPerRoute(10);
-	      connectionManager.setMaxTotal(10*2);
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setMaxTotal(maxConnections);
 
+        // Responses are buffered compressed and decoded as they are read, see decode()
         clientBuilder
+            .disableContentCompression()
             .setConnectionManager(connectionManager)
             .setDefaultRequestConfig(config)
             .setDefaultHeaders(headers);
@@ -77,13 +117,116 @@ public class NetworkHttpClient extends HttpClient {
                 new BasicHeader(
                     HttpHeaders.USER_AGENT, "twilio-java/" + Twilio.VERSION + " (" + Twilio.JAVA_VERSION + ") custom"
                 ),
-                new BasicHeader(HttpHeaders.ACCEPT, "application/json"),
-                new BasicHeader(HttpHeaders.ACCEPT_ENCODING, "utf-8")
+                new BasicHeader(HttpHeaders.ACCEPT, "application/json")
         );
 
         client = clientBuilder
                 .setDefaultHeaders(headers)
                 .build();
+        // The configuration of the builder is not readable, requests which do not follow redirects use the defaults
+        config = defaultConfig();
+        connectionManager = null;
+    }
+
+    /**
+     * Get statistics for the connection pool.
+     *
+     * <p>
+     *     Statistics are only available when the connection pool is managed by this client,
+     *     clients created from a custom HttpClientBuilder return null.
+     * </p>
+     *
+     * @return leased, pending and available connection counts along with the pool size
+     */
+    public PoolStats getPoolStats() {
+        if (connectionManager == null) {
+            return null;
+        }
+
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Pre-establish pooled connections to the hosts of the given urls.
+     *
+     * <p>
+     *     Connections are opened until the pool holds the requested number of connections to each host, capped
+     *     at the pool's per host limit, and are then returned to the pool for the following requests to reuse. TLS sessions negotiated while
+     *     warming up are cached by the client's SSL context, so connections opened later resume them instead
+     *     of performing a full handshake.
+     * </p>
+     *
+     * @param connections number of connections to open to each host
+     * @param urls urls of the hosts to connect to
+     * @throws ApiConnectionException if a connection can not be established
+     */
+    @Override
+    public void warmUp(final int connections, final String... urls) {
+        if (connectionManager == null) {
+            return;
+        }
+
+        for (final String url : urls) {
+            List<HttpClientConnection> leased = new ArrayList<>();
+            try {
+                HttpRoute route = routeFor(url);
+                int count = Math.min(connections, connectionManager.getMaxPerRoute(route));
+                for (int i = 0; i < count; i++) {
+                    ConnectionRequest connectionRequest = connectionManager.requestConnection(route, null);
+                    HttpClientConnection connection = connectionRequest.get(CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS);
+                    leased.add(connection);
+
+                    if (!connection.isOpen()) {
+                        HttpClientContext context = HttpClientContext.create();
+                        connectionManager.connect(connection, route, CONNECTION_TIMEOUT, context);
+                        connectionManager.routeComplete(connection, route, context);
+                    }
+                }
+            } catch (final IOException | InterruptedException | ExecutionException e) {
+                throw new ApiConnectionException("Unable to warm up connections to " + url, e);
+            } finally {
+                for (final HttpClientConnection connection : leased) {
+                    connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of response body bytes read as they were received on the wire.
+     *
+     * @return number of compressed bytes read
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    /**
+     * Get the number of response body bytes read after content decoding.
+     *
+     * @return number of uncompressed bytes read
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    private static RequestConfig defaultConfig() {
+        return RequestConfig.custom()
+            .setConnectTimeout(CONNECTION_TIMEOUT)
+            .setSocketTimeout(SOCKET_TIMEOUT)
+            .build();
+    }
+
+    private static HttpRoute routeFor(final String url) throws IOException {
+        URI uri = URI.create(url);
+        HttpHost host = new HttpHost(uri.getHost(), uri.getPort(), uri.getScheme());
+        HttpHost target = new HttpHost(
+            host.getHostName(),
+            DefaultSchemePortResolver.INSTANCE.resolve(host),
+            host.getSchemeName()
+        );
+
+        return new HttpRoute(target, null, "https".equalsIgnoreCase(target.getSchemeName()));
     }
 
     /**
@@ -93,17 +236,54 @@ public class NetworkHttpClient extends HttpClient {
      * @return Response of the HTTP request
      */
     public Response makeRequest(final Request request) {
+        HttpResponse response = null;
 
+        try {
+            response = client.execute(builderFor(request).build());
+            HttpEntity entity = response.getEntity();
+            return new Response(
+                // Consume the entire HTTP response before returning the stream
+                entity == null ? null : decode(new BufferedHttpEntity(entity)),
+                response.getStatusLine().getStatusCode(),
+                headersOf(response)
+            );
+        } catch (IOException e) {
+            throw new ApiException(e.getMessage());
+        } finally {
+
+            // Ensure this response is properly closed
+            HttpClientUtils.closeQuietly(response);
+
+        }
+
+    }
+
+    private RequestBuilder builderFor(final Request request) {
         HttpMethod method = request.getMethod();
         RequestBuilder builder = RequestBuilder.create(method.toString())
             .setUri(request.constructURL().toString())
             .setVersion(HttpVersion.HTTP_1_1)
             .setCharset(StandardCharsets.UTF_8);
 
+        if (!request.isFollowRedirects()) {
+            builder.setConfig(RequestConfig.copy(config).setRedirectsEnabled(false).build());
+        }
+
         if (request.requiresAuthentication()) {
             builder.addHeader(HttpHeaders.AUTHORIZATION, request.getAuthString());
         }
 
+        boolean encodings = false;
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.addHeader(header.getKey(), header.getValue());
+            encodings |= HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(header.getKey());
+        }
+
+        // Not a default header, which could not be replaced by a request asking for another encoding
+        if (!encodings) {
+            builder.addHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPTED_ENCODINGS);
+        }
+
         if (method == HttpMethod.POST) {
             builder.addHeader(HttpHeaders.CONTENT_TYPE, "application/x-www-form-urlencoded");
 
@@ -114,24 +294,105 @@ public class NetworkHttpClient extends HttpClient {
             }
         }
 
-        HttpResponse response = null;
+        return builder;
+    }
 
+    /**
+     * Make a request whose response body is read from the connection as the returned stream is read.
+     *
+     * @param request request to make
+     * @return Response of the HTTP request, whose stream releases the connection when closed
+     */
+    @Override
+    public Response makeStreamingRequest(final Request request) {
+        HttpResponse response = null;
         try {
-            response = client.execute(builder.build());
+            response = client.execute(builderFor(request).build());
             HttpEntity entity = response.getEntity();
-            return new Response(
-                // Consume the entire HTTP response before returning the stream
-                entity == null ? null : new BufferedHttpEntity(entity).getContent(),
-                response.getStatusLine().getStatusCode()
-            );
-        } catch (IOException e) {
-            throw new ApiException(e.getMessage());
-        } finally {
+            if (entity == null) {
+                HttpClientUtils.closeQuietly(response);
+                return new Response("", response.getStatusLine().getStatusCode(), headersOf(response));
+            }
 
-            // Ensure this response is properly closed
+            final HttpResponse streamed = response;
+            InputStream stream = new FilterInputStream(decode(entity)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        HttpClientUtils.closeQuietly(streamed);
+                    }
+                }
+            };
+            return new Response(stream, response.getStatusLine().getStatusCode(), headersOf(response));
+        } catch (IOException e) {
             HttpClientUtils.closeQuietly(response);
+            throw new ApiConnectionException(e.getMessage(), e);
+        }
+    }
+
+    static Map<String, String> headersOf(final HttpResponse response) {
+        Header[] headers = response.getAllHeaders();
+        if (headers == null) {
+            return null;
+        }
 
+        Map<String, String> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Header header : headers) {
+            String previous = values.get(header.getName());
+            values.put(header.getName(), previous == null ? header.getValue() : previous + ", " + header.getValue());
         }
+        return values;
+    }
 
+    private InputStream decode(final HttpEntity entity) throws IOException {
+        Header encoding = entity.getContentEncoding();
+        InputStream content = new CountingInputStream(entity.getContent(), compressedBytes);
+
+        if (encoding != null) {
+            String value = encoding.getValue().trim().toLowerCase(Locale.ROOT);
+            if ("gzip".equals(value) || "x-gzip".equals(value)) {
+                content = new GZIPInputStream(content);
+            } else if ("deflate".equals(value)) {
+                content = new DeflateInputStream(content);
+            }
+        }
+
+        return new CountingInputStream(content, uncompressedBytes);
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final AtomicLong counter;
+
+        CountingInputStream(final InputStream stream, final AtomicLong counter) {
+            super(stream);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                counter.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                counter.addAndGet(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            long skipped = super.skip(n);
+            counter.addAndGet(skipped);
+            return skipped;
+        }
     }
 }
@@ -16,6 +16,7 @@ import java.net.URL;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -29,9 +30,12 @@ public class Request {
     private final String url;
     private final Map<String, List<String>> queryParams;
     private final Map<String, List<String>> postParams;
+    private final Map<String, String> headers;
 
     private String username;
     private String password;
+    private String authString;
+    private boolean followRedirects = true;
 
     /**
      * Create a new API request.
@@ -44,6 +48,7 @@ public class Request {
         this.url = url;
         this.queryParams = new HashMap<>();
         this.postParams = new HashMap<>();
+        this.headers = new LinkedHashMap<>();
     }
 
     /**
@@ -74,6 +79,7 @@ public class Request {
         this.url = "https://" + Joiner.on(".").skipNulls().join(domain, region, "twilio", "com") + uri;
         this.queryParams = new HashMap<>();
         this.postParams = new HashMap<>();
+        this.headers = new LinkedHashMap<>();
     }
 
     public HttpMethod getMethod() {
@@ -84,9 +90,27 @@ public class Request {
         return url;
     }
 
+    /**
+     * Set the credentials used to authenticate the request.
+     *
+     * @param username username to authenticate with
+     * @param password password to authenticate with
+     */
     public void setAuth(final String username, final String password) {
+        setAuth(username, password, null);
+    }
+
+    /**
+     * Set the credentials used to authenticate the request along with their pre-encoded basic authentication string.
+     *
+     * @param username username to authenticate with
+     * @param password password to authenticate with
+     * @param authString basic authentication string for the credentials, or null to encode it on demand
+     */
+    public void setAuth(final String username, final String password, final String authString) {
         this.username = username;
         this.password = password;
+        this.authString = authString;
     }
 
     /**
@@ -95,10 +119,25 @@ public class Request {
      * @return basic authentication string
      */
     public String getAuthString() {
-        String credentials = this.username + ":" + this.password;
+        if (authString == null) {
+            authString = encodeAuthString(username, password);
+        }
+
+        return authString;
+    }
+
+    /**
+     * Encode a basic authentication string from username and password.
+     *
+     * @param username username to encode
+     * @param password password to encode
+     * @return basic authentication string
+     */
+    public static String encodeAuthString(final String username, final String password) {
+        String credentials = username + ":" + password;
         try {
 
-            String encoded = new Base64().encodeAsString(credentials.getBytes("ascii"));
+            String encoded = Base64.encodeBase64String(credentials.getBytes("ascii"));
             return "Basic " + encoded;
 
         } catch (final UnsupportedEncodingException e) {
@@ -200,6 +239,34 @@ public class Request {
         addParam(postParams, name, value);
     }
 
+    /**
+     * Set a request header, replacing any previous value.
+     *
+     * @param name name of header
+     * @param value value of header
+     */
+    public void setHeader(final String name, final String value) {
+        headers.put(name, value);
+    }
+
+    /**
+     * Set whether redirects are followed by the client.
+     *
+     * <p>
+     *     A followed redirect is sent with the headers of the request, including its credentials, so a request
+     *     redirected to another host should not follow it and make the next request itself.
+     * </p>
+     *
+     * @param followRedirects false to return redirect responses as they are
+     */
+    public void setFollowRedirects(final boolean followRedirects) {
+        this.followRedirects = followRedirects;
+    }
+
+    public boolean isFollowRedirects() {
+        return followRedirects;
+    }
+
     private void addParam(final Map<String, List<String>> params, final String name, final String value) {
         if (!params.containsKey(name)) {
             params.put(name, new ArrayList<String>());
@@ -255,6 +322,10 @@ public class Request {
         return postParams;
     }
 
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -271,6 +342,7 @@ public class Request {
                Objects.equals(this.username, other.username) &&
                Objects.equals(this.password, other.password) &&
                Objects.equals(this.queryParams, other.queryParams) &&
-               Objects.equals(this.postParams, other.postParams);
+               Objects.equals(this.postParams, other.postParams) &&
+               Objects.equals(this.headers, other.headers);
     }
 }
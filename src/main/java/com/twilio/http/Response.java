@@ -6,13 +6,17 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.TreeMap;
 
 public class Response {
 
     private final InputStream stream;
     private final String content;
     private final int statusCode;
+    private final Map<String, String> headers;
 
     /**
      * Create a Response from content string and status code.
@@ -21,9 +25,21 @@ public class Response {
      * @param statusCode status code
      */
     public Response(final String content, final int statusCode) {
+        this(content, statusCode, null);
+    }
+
+    /**
+     * Create a Response from content string, status code and headers.
+     *
+     * @param content content string
+     * @param statusCode status code
+     * @param headers response headers
+     */
+    public Response(final String content, final int statusCode, final Map<String, String> headers) {
         this.stream = null;
         this.content = content;
         this.statusCode = statusCode;
+        this.headers = copyHeaders(headers);
     }
 
     /**
@@ -33,9 +49,31 @@ public class Response {
      * @param statusCode status code
      */
     public Response(final InputStream stream, final int statusCode) {
+        this(stream, statusCode, null);
+    }
+
+    /**
+     * Create a Response from input stream, status code and headers.
+     *
+     * @param stream input stream
+     * @param statusCode status code
+     * @param headers response headers
+     */
+    public Response(final InputStream stream, final int statusCode, final Map<String, String> headers) {
         this.stream = stream;
         this.content = null;
         this.statusCode = statusCode;
+        this.headers = copyHeaders(headers);
+    }
+
+    private static Map<String, String> copyHeaders(final Map<String, String> headers) {
+        if (headers == null || headers.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        copy.putAll(headers);
+        return Collections.unmodifiableMap(copy);
     }
 
     /**
@@ -88,4 +126,23 @@ public class Response {
     public int getStatusCode() {
         return statusCode;
     }
+
+    /**
+     * Get the response headers.
+     *
+     * @return headers keyed by case insensitive name
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Get the value of a response header.
+     *
+     * @param name case insensitive name of the header
+     * @return value of the header, or null if the response does not have it
+     */
+    public String getHeader(final String name) {
+        return headers.get(name);
+    }
 }
@@ -0,0 +1,178 @@
+package com.twilio.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.twilio.exception.AuthenticationException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of TwilioRestClients for many accounts.
+ *
+ * <p>
+ *     Every registered client shares the registry's HttpClient, and with it a single connection pool, as well as
+ *     its ObjectMapper, so switching between accounts does not create new connections or parsers. Lookups do not
+ *     lock, and credentials which have not been used recently are evicted once the registry is full.
+ * </p>
+ */
+public class TwilioClientRegistry {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String region;
+    private final Cache<String, TwilioRestClient> clients;
+
+    private TwilioClientRegistry(Builder b) {
+        this.httpClient = b.httpClient;
+        this.objectMapper = b.objectMapper;
+        this.region = b.region;
+
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(b.maximumSize);
+        if (b.expireAfterAccessMillis > 0) {
+            cacheBuilder.expireAfterAccess(b.expireAfterAccessMillis, TimeUnit.MILLISECONDS);
+        }
+        this.clients = cacheBuilder.build();
+    }
+
+    /**
+     * Register the credentials of an account.
+     *
+     * @param username account sid to use
+     * @param password auth token for the account
+     * @return client for the account
+     * @throws AuthenticationException if username or password is null
+     */
+    public TwilioRestClient register(final String username, final String password) {
+        return register(username, password, username);
+    }
+
+    /**
+     * Register the credentials used to access an account, such as an API key and its secret.
+     *
+     * @param username username to use
+     * @param password password for the username
+     * @param accountSid account sid the credentials give access to
+     * @return client for the account
+     * @throws AuthenticationException if username, password or account sid is null
+     */
+    public TwilioRestClient register(final String username, final String password, final String accountSid) {
+        if (username == null || password == null || accountSid == null) {
+            throw new AuthenticationException("Username, Password and AccountSid can not be null");
+        }
+
+        TwilioRestClient client = new TwilioRestClient.Builder(username, password)
+            .accountSid(accountSid)
+            .region(region)
+            .httpClient(httpClient)
+            .objectMapper(objectMapper)
+            .build();
+
+        clients.put(accountSid, client);
+        return client;
+    }
+
+    /**
+     * Get the client for a registered account.
+     *
+     * @param accountSid account sid to get the client for
+     * @return client for the account
+     * @throws AuthenticationException if no credentials are registered for the account
+     */
+    public TwilioRestClient getClient(final String accountSid) {
+        TwilioRestClient client = clients.getIfPresent(accountSid);
+        if (client == null) {
+            throw new AuthenticationException("No credentials registered for account " + accountSid);
+        }
+
+        return client;
+    }
+
+    /**
+     * Check if credentials are registered for an account.
+     *
+     * @param accountSid account sid to check
+     * @return true if a client is registered for the account
+     */
+    public boolean isRegistered(final String accountSid) {
+        return clients.getIfPresent(accountSid) != null;
+    }
+
+    /**
+     * Forget the credentials of an account.
+     *
+     * @param accountSid account sid to remove
+     */
+    public void unregister(final String accountSid) {
+        clients.invalidate(accountSid);
+    }
+
+    public long size() {
+        return clients.size();
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    public static class Builder {
+        private HttpClient httpClient;
+        private ObjectMapper objectMapper;
+        private String region;
+        private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+        private long expireAfterAccessMillis;
+
+        public Builder httpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
+        public Builder region(String region) {
+            this.region = region;
+            return this;
+        }
+
+        public Builder maximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Evict credentials which have not been used for the given duration.
+         *
+         * @param duration idle duration before eviction
+         * @param unit unit of the duration
+         * @return this
+         */
+        public Builder expireAfterAccess(long duration, TimeUnit unit) {
+            this.expireAfterAccessMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Build new TwilioClientRegistry.
+         *
+         * @return TwilioClientRegistry instance
+         */
+        public TwilioClientRegistry build() {
+            if (this.httpClient == null) {
+                this.httpClient = new NetworkHttpClient();
+            }
+            if (this.objectMapper == null) {
+                this.objectMapper = new ObjectMapper();
+            }
+            return new TwilioClientRegistry(this);
+        }
+    }
+}
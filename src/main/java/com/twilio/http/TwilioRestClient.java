@@ -2,6 +2,7 @@ package com.twilio.http;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Predicate;
+import com.twilio.rest.Domains;
 
 public class TwilioRestClient {
 
@@ -18,6 +19,7 @@ public class TwilioRestClient {
     private final ObjectMapper objectMapper;
     private final String username;
     private final String password;
+    private final String authString;
     private final String accountSid;
     private final String region;
     private final HttpClient httpClient;
@@ -25,10 +27,11 @@ public class TwilioRestClient {
     private TwilioRestClient(Builder b) {
         this.username = b.username;
         this.password = b.password;
+        this.authString = Request.encodeAuthString(b.username, b.password);
         this.accountSid = b.accountSid;
         this.region = b.region;
         this.httpClient = b.httpClient;
-        this.objectMapper = new ObjectMapper();
+        this.objectMapper = b.objectMapper;
     }
 
     /**
@@ -38,10 +41,36 @@ public class TwilioRestClient {
      * @return Response object
      */
     public Response request(final Request request) {
-        request.setAuth(username, password);
+        request.setAuth(username, password, authString);
         return httpClient.reliableRequest(request);
     }
 
+    /**
+     * Make a request to Twilio whose response body is streamed, without retries.
+     *
+     * @param request request to make
+     * @return Response object, whose stream must be closed
+     */
+    public Response requestStream(final Request request) {
+        request.setAuth(username, password, authString);
+        return httpClient.makeStreamingRequest(request);
+    }
+
+    /**
+     * Pre-establish pooled connections to the regional hosts of the given domains.
+     *
+     * @param connections number of connections to open to each domain
+     * @param domains Twilio domains to connect to
+     */
+    public void warmUp(final int connections, final Domains... domains) {
+        String[] urls = new String[domains.length];
+        for (int i = 0; i < domains.length; i++) {
+            urls[i] = new Request(HttpMethod.GET, domains[i].toString(), "", region).getUrl();
+        }
+
+        httpClient.warmUp(connections, urls);
+    }
+
     public String getAccountSid() {
         return accountSid;
     }
@@ -64,6 +93,7 @@ public class TwilioRestClient {
         private String accountSid;
         private String region;
         private HttpClient httpClient;
+        private ObjectMapper objectMapper;
 
         /**
          * Create a new Twilio Rest Client.
@@ -92,6 +122,11 @@ public class TwilioRestClient {
             return this;
         }
 
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+            return this;
+        }
+
         /**
          * Build new TwilioRestClient.
          * 
@@ -101,6 +136,9 @@ public class TwilioRestClient {
             if (this.httpClient == null) {
                 this.httpClient = new NetworkHttpClient();
             }
+            if (this.objectMapper == null) {
+                this.objectMapper = new ObjectMapper();
+            }
             return new TwilioRestClient(this);
         }
     }
@@ -3,18 +3,23 @@ package com.twilio.http;
 
 import com.google.common.collect.Lists;
 import com.twilio.Twilio;
+import com.twilio.exception.ApiConnectionException;
 import com.twilio.exception.ApiException;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpVersion;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.client.utils.HttpClientUtils;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.PrivateKey;
 import java.util.Collection;
@@ -25,8 +30,10 @@ public class ValidationClient extends HttpClient {
 
     private static final int CONNECTION_TIMEOUT = 10000;
     private static final int SOCKET_TIMEOUT = 30500;
+    private static final String ACCEPTED_ENCODINGS = "gzip, deflate";
 
     private final org.apache.http.client.HttpClient client;
+    private final RequestConfig config;
 
     /**
      * Create a new ValidationClient.
@@ -37,7 +44,7 @@ public class ValidationClient extends HttpClient {
      * @param  privateKey Private Key
      */
     public ValidationClient(String accountSid, String credentialSid, String signingKey, PrivateKey privateKey) {
-        RequestConfig config = RequestConfig.custom()
+        config = RequestConfig.custom()
             .setConnectTimeout(CONNECTION_TIMEOUT)
             .setSocketTimeout(SOCKET_TIMEOUT)
             .build();
@@ -45,8 +52,7 @@ public class ValidationClient extends HttpClient {
         Collection<Header> headers = Lists.<Header>newArrayList(
             new BasicHeader("X-Twilio-Client", "java-" + Twilio.VERSION),
             new BasicHeader(HttpHeaders.USER_AGENT, "twilio-java/" + Twilio.VERSION + " (" + Twilio.JAVA_VERSION + ")"),
-            new BasicHeader(HttpHeaders.ACCEPT, "application/json"),
-            new BasicHeader(HttpHeaders.ACCEPT_ENCODING, "utf-8")
+            new BasicHeader(HttpHeaders.ACCEPT, "application/json")
         );
 
         client = HttpClientBuilder.create()
@@ -60,15 +66,78 @@ public class ValidationClient extends HttpClient {
 
     @Override
     public Response makeRequest(Request request) {
+        try {
+            HttpResponse response = client.execute(builderFor(request).build());
+            return new Response(
+                response.getEntity() == null ? null : response.getEntity().getContent(),
+                response.getStatusLine().getStatusCode(),
+                NetworkHttpClient.headersOf(response)
+            );
+        } catch (IOException e) {
+            throw new ApiException(e.getMessage());
+        }
+    }
+
+    /**
+     * Make a signed request whose response body is read from the connection as the returned stream is read.
+     *
+     * @param request request to make
+     * @return Response of the HTTP request, whose stream releases the connection when closed
+     */
+    @Override
+    public Response makeStreamingRequest(final Request request) {
+        HttpResponse response = null;
+        try {
+            response = client.execute(builderFor(request).build());
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                HttpClientUtils.closeQuietly(response);
+                return new Response("", response.getStatusLine().getStatusCode(), NetworkHttpClient.headersOf(response));
+            }
+
+            final HttpResponse streamed = response;
+            InputStream stream = new FilterInputStream(entity.getContent()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        HttpClientUtils.closeQuietly(streamed);
+                    }
+                }
+            };
+            return new Response(stream, response.getStatusLine().getStatusCode(), NetworkHttpClient.headersOf(response));
+        } catch (IOException e) {
+            HttpClientUtils.closeQuietly(response);
+            throw new ApiConnectionException(e.getMessage(), e);
+        }
+    }
+
+    private RequestBuilder builderFor(final Request request) {
         RequestBuilder builder = RequestBuilder.create(request.getMethod().toString())
             .setUri(request.constructURL().toString())
             .setVersion(HttpVersion.HTTP_1_1)
             .setCharset(StandardCharsets.UTF_8);
 
+        if (!request.isFollowRedirects()) {
+            builder.setConfig(RequestConfig.copy(config).setRedirectsEnabled(false).build());
+        }
+
         if (request.requiresAuthentication()) {
             builder.addHeader(HttpHeaders.AUTHORIZATION, request.getAuthString());
         }
 
+        boolean encodings = false;
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.addHeader(header.getKey(), header.getValue());
+            encodings |= HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(header.getKey());
+        }
+
+        // Not a default header, which would be sent along with the encoding asked for by the request
+        if (!encodings) {
+            builder.addHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPTED_ENCODINGS);
+        }
+
         HttpMethod method = request.getMethod();
         if (method == HttpMethod.POST) {
             builder.addHeader(HttpHeaders.CONTENT_TYPE, "application/x-www-form-urlencoded");
@@ -80,14 +149,6 @@ public class ValidationClient extends HttpClient {
             }
         }
 
-        try {
-            HttpResponse response = client.execute(builder.build());
-            return new Response(
-                response.getEntity() == null ? null : response.getEntity().getContent(),
-                response.getStatusLine().getStatusCode()
-            );
-        } catch (IOException e) {
-            throw new ApiException(e.getMessage());
-        }
+        return builder;
     }
 }
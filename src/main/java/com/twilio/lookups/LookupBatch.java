@@ -0,0 +1,547 @@
+package com.twilio.lookups;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.twilio.Twilio;
+import com.twilio.exception.ApiException;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.lookups.v1.PhoneNumber;
+import com.twilio.rest.lookups.v1.PhoneNumberFetcher;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up many phone numbers with bounded concurrency, an optional rate limit and a cache of the results.
+ *
+ * <p>
+ *     Numbers are normalized before the lookup, and a number looked up again while cached, or while its lookup is
+ *     in progress, does not make another request. The input is read lazily and at most a buffer of lookups is in
+ *     progress at once, so a list of millions of numbers is streamed through without being held in memory. Every
+ *     number gets a {@link Result}, in input order or as completed, with the exception of a failed lookup instead
+ *     of an aborted batch.
+ * </p>
+ *
+ * <pre>
+ *     LookupBatch batch = new LookupBatch.Builder()
+ *         .type("carrier")
+ *         .rateLimit(100)
+ *         .build();
+ *     try (LookupBatch.Results results = batch.lookup(numbers)) {
+ *         while (results.hasNext()) {
+ *             LookupBatch.Result result = results.next();
+ *             ...
+ *         }
+ *     }
+ * </pre>
+ */
+public class LookupBatch {
+
+    public static final int DEFAULT_PARALLELISM = 8;
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+    public static final long DEFAULT_CACHE_SIZE = 100000;
+    public static final long DEFAULT_CACHE_TTL_HOURS = 24;
+
+    /**
+     * Outcome of the lookup of a number.
+     */
+    public static class Result {
+        private final com.twilio.type.PhoneNumber number;
+        private final PhoneNumber lookup;
+        private final RuntimeException exception;
+        private final boolean cached;
+
+        Result(
+            final com.twilio.type.PhoneNumber number,
+            final PhoneNumber lookup,
+            final RuntimeException exception,
+            final boolean cached
+        ) {
+            this.number = number;
+            this.lookup = lookup;
+            this.exception = exception;
+            this.cached = cached;
+        }
+
+        /**
+         * Get the number as given to the batch.
+         *
+         * @return input number
+         */
+        public com.twilio.type.PhoneNumber getNumber() {
+            return number;
+        }
+
+        /**
+         * Get the looked up number.
+         *
+         * @return the lookup, or null if it failed
+         */
+        public PhoneNumber getLookup() {
+            return lookup;
+        }
+
+        /**
+         * Get the reason of a failed lookup.
+         *
+         * @return the exception, or null if the lookup succeeded
+         */
+        public RuntimeException getException() {
+            return exception;
+        }
+
+        public boolean isSuccess() {
+            return exception == null;
+        }
+
+        /**
+         * Tell whether the lookup was served from the cache without a request.
+         *
+         * @return true if the lookup was cached
+         */
+        public boolean isCached() {
+            return cached;
+        }
+    }
+
+    private final String countryCode;
+    private final List<String> types;
+    private final List<String> addOns;
+    private final Map<String, Object> addOnsData;
+    private final int bufferSize;
+    private final boolean ordered;
+    private final int parallelism;
+    private final Semaphore permits;
+    private final RateLimiter rateLimiter;
+    private final Cache<String, PhoneNumber> cache;
+    private final String cacheKeySuffix;
+
+    private LookupBatch(Builder b) {
+        this.countryCode = b.countryCode;
+        this.types = ImmutableList.copyOf(b.types);
+        this.addOns = ImmutableList.copyOf(b.addOns);
+        this.addOnsData = b.addOnsData;
+        this.bufferSize = b.bufferSize;
+        this.ordered = b.ordered;
+        this.parallelism = b.parallelism;
+        this.permits = new Semaphore(b.parallelism);
+        this.rateLimiter = b.permitsPerSecond > 0 ? RateLimiter.create(b.permitsPerSecond) : null;
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(b.cacheSize)
+            .expireAfterWrite(b.cacheTtl, b.cacheTtlUnit)
+            .build();
+        // The same number looked up with other options is another lookup
+        this.cacheKeySuffix = " " + countryCode + " " + types + " " + addOns + " " + addOnsData;
+    }
+
+    /**
+     * Look up the numbers using default client.
+     *
+     * @param numbers numbers to look up, read lazily
+     * @return the results, which must be closed when not read to the end
+     */
+    public Results lookup(final Iterable<com.twilio.type.PhoneNumber> numbers) {
+        return lookup(Twilio.getRestClient(), numbers);
+    }
+
+    /**
+     * Look up the numbers using specified client.
+     *
+     * @param client client used to make requests
+     * @param numbers numbers to look up, read lazily
+     * @return the results, which must be closed when not read to the end
+     */
+    public Results lookup(final TwilioRestClient client, final Iterable<com.twilio.type.PhoneNumber> numbers) {
+        return new Results(client, numbers.iterator());
+    }
+
+    /**
+     * Look up a single number using specified client, through the cache.
+     *
+     * @param client client used to make requests
+     * @param number number to look up
+     * @return the result
+     */
+    public Result lookup(final TwilioRestClient client, final com.twilio.type.PhoneNumber number) {
+        final String normalized = normalize(number.toString());
+        if (normalized.isEmpty()) {
+            return new Result(number, null, new IllegalArgumentException("Invalid phone number: " + number), false);
+        }
+
+        String key = normalized + cacheKeySuffix;
+        PhoneNumber cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return new Result(number, cached, null, true);
+        }
+
+        try {
+            // Concurrent lookups of the same number wait for a single request
+            PhoneNumber lookup = cache.get(key, new Callable<PhoneNumber>() {
+                @Override
+                public PhoneNumber call() {
+                    return fetch(client, normalized);
+                }
+            });
+            return new Result(number, lookup, null, false);
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            RuntimeException cause = e.getCause() instanceof RuntimeException
+                ? (RuntimeException) e.getCause()
+                : new ApiException("Lookup of " + normalized + " failed", e.getCause());
+            return new Result(number, null, cause, false);
+        }
+    }
+
+    private PhoneNumber fetch(final TwilioRestClient client, final String normalized) {
+        permits.acquireUninterruptibly();
+        try {
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+
+            PhoneNumberFetcher fetcher = PhoneNumber.fetcher(new com.twilio.type.PhoneNumber(normalized));
+            if (countryCode != null) {
+                fetcher.setCountryCode(countryCode);
+            }
+            if (!types.isEmpty()) {
+                fetcher.setType(types);
+            }
+            if (!addOns.isEmpty()) {
+                fetcher.setAddOns(addOns);
+            }
+            if (addOnsData != null) {
+                fetcher.setAddOnsData(addOnsData);
+            }
+            return fetcher.fetch(client);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Normalize a number to a leading plus and its digits.
+     *
+     * @param number number in any format
+     * @return normalized number, empty if it has no digits
+     */
+    static String normalize(final String number) {
+        StringBuilder normalized = new StringBuilder(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                normalized.append(c);
+            } else if (c == '+' && normalized.length() == 0) {
+                normalized.append(c);
+            }
+        }
+        return normalized.length() > 1 || (normalized.length() == 1 && normalized.charAt(0) != '+')
+            ? normalized.toString()
+            : "";
+    }
+
+    /**
+     * Remove every cached lookup.
+     */
+    public void invalidateCache() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Get the number of cached lookups.
+     *
+     * @return approximate number of cached lookups
+     */
+    public long getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * Results of a batch, streamed while the numbers are looked up.
+     */
+    public class Results implements Iterator<Result>, Closeable {
+        private final TwilioRestClient client;
+        private final Iterator<com.twilio.type.PhoneNumber> numbers;
+        private final ArrayDeque<SettableFuture<Result>> pending = new ArrayDeque<>();
+        private final BlockingQueue<Result> completed = new LinkedBlockingQueue<>();
+        private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+        private int inProgress;
+        private int running;
+        private volatile boolean closed;
+
+        private Results(final TwilioRestClient client, final Iterator<com.twilio.type.PhoneNumber> numbers) {
+            this.client = client;
+            this.numbers = numbers;
+        }
+
+        private void fill() {
+            while (!closed && inProgress < bufferSize && numbers.hasNext()) {
+                final com.twilio.type.PhoneNumber number = numbers.next();
+                final SettableFuture<Result> future = SettableFuture.create();
+                inProgress++;
+
+                if (ordered) {
+                    pending.add(future);
+                } else {
+                    future.addListener(new Runnable() {
+                        @Override
+                        public void run() {
+                            completed.add(resultOf(number, future));
+                        }
+                    }, MoreExecutors.directExecutor());
+                }
+
+                start(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            future.set(closed
+                                ? new Result(number, null, new CancellationException("Batch closed"), false)
+                                : lookup(client, number));
+                        } catch (final RuntimeException | Error e) {
+                            future.setException(e);
+                        }
+                    }
+                });
+            }
+        }
+
+        /**
+         * Run a lookup, or queue it until one of the running lookups completes.
+         *
+         * <p>
+         *     Only as many tasks as the parallelism are handed to the executor, and each of them runs the queued
+         *     lookups once its own is done, so the rest of the buffer waits here instead of parking pool threads on
+         *     the permits.
+         * </p>
+         *
+         * @param lookup lookup to run
+         */
+        private synchronized void start(final Runnable lookup) {
+            if (running >= parallelism) {
+                waiting.add(lookup);
+                return;
+            }
+
+            running++;
+            Twilio.getExecutorService().execute(new Runnable() {
+                @Override
+                public void run() {
+                    Runnable next = lookup;
+                    while (next != null) {
+                        try {
+                            next.run();
+                        } finally {
+                            next = poll();
+                        }
+                    }
+                }
+            });
+        }
+
+        private synchronized Runnable poll() {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                running--;
+            }
+            return next;
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return inProgress > 0;
+        }
+
+        @Override
+        public Result next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Result result;
+            try {
+                result = ordered ? resultOf(null, pending.poll()) : completed.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiException("Lookup batch interrupted", e);
+            }
+            inProgress--;
+            fill();
+            return result;
+        }
+
+        private Result resultOf(final com.twilio.type.PhoneNumber number, final SettableFuture<Result> future) {
+            try {
+                return future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiException("Lookup batch interrupted", e);
+            } catch (final ExecutionException e) {
+                // Lookups capture their failures, only errors get here
+                throw new ApiException("Lookup of " + number + " failed", e.getCause());
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Results are read only");
+        }
+
+        /**
+         * Stop looking up further numbers, lookups in progress complete in the background.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            synchronized (this) {
+                waiting.clear();
+            }
+            pending.clear();
+            completed.clear();
+            inProgress = 0;
+        }
+    }
+
+    public static class Builder {
+        private String countryCode;
+        private List<String> types = Collections.emptyList();
+        private List<String> addOns = Collections.emptyList();
+        private Map<String, Object> addOnsData;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+        private double permitsPerSecond;
+        private boolean ordered = true;
+        private long cacheSize = DEFAULT_CACHE_SIZE;
+        private long cacheTtl = DEFAULT_CACHE_TTL_HOURS;
+        private TimeUnit cacheTtlUnit = TimeUnit.HOURS;
+
+        /**
+         * Set the country of numbers given in national format.
+         *
+         * @param countryCode ISO country code
+         * @return this
+         */
+        public Builder countryCode(String countryCode) {
+            this.countryCode = countryCode;
+            return this;
+        }
+
+        public Builder types(List<String> types) {
+            this.types = types;
+            return this;
+        }
+
+        /**
+         * Request additional information on the numbers.
+         *
+         * @param type type of information, such as carrier or caller-name
+         * @return this
+         */
+        public Builder type(String type) {
+            return types(ImmutableList.of(type));
+        }
+
+        public Builder addOns(List<String> addOns) {
+            this.addOns = addOns;
+            return this;
+        }
+
+        public Builder addOnsData(Map<String, Object> addOnsData) {
+            this.addOnsData = addOnsData;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of requests in progress at once.
+         *
+         * @param parallelism maximum number of concurrent requests
+         * @return this
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of numbers read ahead of the results.
+         *
+         * @param bufferSize maximum number of lookups in progress or waiting to be read
+         * @return this
+         */
+        public Builder bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Limit the rate of requests.
+         *
+         * @param permitsPerSecond maximum number of requests per second, zero for no limit
+         * @return this
+         */
+        public Builder rateLimit(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+            return this;
+        }
+
+        /**
+         * Return the results in input order, or as they complete.
+         *
+         * @param ordered true for input order
+         * @return this
+         */
+        public Builder ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of cached lookups.
+         *
+         * @param cacheSize maximum number of cached lookups, zero to disable the cache
+         * @return this
+         */
+        public Builder cacheSize(long cacheSize) {
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * Set how long lookups are cached.
+         *
+         * @param cacheTtl time to live of cached lookups
+         * @param unit unit of the time to live
+         * @return this
+         */
+        public Builder cacheTtl(long cacheTtl, TimeUnit unit) {
+            this.cacheTtl = cacheTtl;
+            this.cacheTtlUnit = unit;
+            return this;
+        }
+
+        /**
+         * Build new LookupBatch.
+         *
+         * @return LookupBatch instance
+         */
+        public LookupBatch build() {
+            return new LookupBatch(this);
+        }
+    }
+}
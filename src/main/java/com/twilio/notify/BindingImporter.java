@@ -0,0 +1,519 @@
+package com.twilio.notify;
+
+import com.google.common.base.Charsets;
+import com.google.common.util.concurrent.RateLimiter;
+import com.twilio.Twilio;
+import com.twilio.base.Parallel;
+import com.twilio.exception.ApiConnectionException;
+import com.twilio.exception.ApiException;
+import com.twilio.exception.TwilioException;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.notify.v1.service.BindingCreator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports a stream of Notify Bindings with pipelined creates, an adaptive rate and a resumable checkpoint.
+ *
+ * <p>
+ *     A bounded number of Bindings are created at once, paced by a rate which halves whenever the API answers 429
+ *     and grows again step by step while it does not, so the import settles just below the rate the service accepts.
+ *     Throttled and unreachable creates are retried with a backoff, other failures are reported to the listener and
+ *     skipped.
+ * </p>
+ *
+ * <p>
+ *     The checkpoint file holds the number of Bindings from the start of the stream which were all handled. It is
+ *     replaced atomically every few Bindings and at the end of the import, and a new import with the same stream
+ *     skips that many Bindings, so an interrupted import resumes where it stopped.
+ * </p>
+ *
+ * <pre>
+ *     BindingImporter.Progress progress = new BindingImporter.Builder()
+ *         .checkpoint(Paths.get("bindings.checkpoint"))
+ *         .build()
+ *         .importBindings(creators);
+ * </pre>
+ */
+public class BindingImporter {
+
+    public static final int DEFAULT_PARALLELISM = 8;
+    public static final double DEFAULT_INITIAL_RATE = 50;
+    public static final double DEFAULT_MIN_RATE = 1;
+    public static final double DEFAULT_MAX_RATE = 500;
+    public static final double DEFAULT_RATE_INCREASE = 5;
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 100;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 5000;
+
+    private static final int HTTP_STATUS_CODE_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Receives the progress and the failures of an import.
+     */
+    public interface Listener {
+
+        /**
+         * Handle the progress of the import, called on every checkpoint.
+         *
+         * @param progress progress so far
+         */
+        void onProgress(Progress progress);
+
+        /**
+         * Handle a Binding which could not be created.
+         *
+         * @param position position of the Binding in the stream
+         * @param e failure of the last attempt
+         */
+        void onFailure(long position, TwilioException e);
+    }
+
+    /**
+     * Progress of an import.
+     */
+    public static class Progress {
+        private final long position;
+        private final long created;
+        private final long failed;
+        private final long throttled;
+        private final double rate;
+        private final long elapsedMillis;
+
+        private Progress(
+            final long position,
+            final long created,
+            final long failed,
+            final long throttled,
+            final double rate,
+            final long elapsedMillis
+        ) {
+            this.position = position;
+            this.created = created;
+            this.failed = failed;
+            this.throttled = throttled;
+            this.rate = rate;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * Get the number of Bindings from the start of the stream which were all handled.
+         *
+         * @return position of the checkpoint
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * Get the number of creates answered with 429.
+         *
+         * @return number of throttled attempts
+         */
+        public long getThrottled() {
+            return throttled;
+        }
+
+        /**
+         * Get the current rate.
+         *
+         * @return creates allowed per second
+         */
+        public double getRate() {
+            return rate;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Get the throughput of this import.
+         *
+         * @return Bindings created per second since the import started
+         */
+        public double getThroughput() {
+            return elapsedMillis <= 0 ? 0 : created * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return position + " handled, " + created + " created, " + failed + " failed, " + throttled + " throttled, "
+                + String.format("%.1f/s", getThroughput());
+        }
+    }
+
+    private final int parallelism;
+    private final double initialRate;
+    private final double minRate;
+    private final double maxRate;
+    private final double rateIncrease;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Path checkpoint;
+    private final int checkpointInterval;
+    private final Listener listener;
+    private final Random random = new Random();
+
+    private BindingImporter(Builder b) {
+        this.parallelism = b.parallelism;
+        this.initialRate = b.initialRate;
+        this.minRate = b.minRate;
+        this.maxRate = b.maxRate;
+        this.rateIncrease = b.rateIncrease;
+        this.maxAttempts = b.maxAttempts;
+        this.initialBackoffMillis = b.initialBackoffMillis;
+        this.maxBackoffMillis = b.maxBackoffMillis;
+        this.checkpoint = b.checkpoint;
+        this.checkpointInterval = b.checkpointInterval;
+        this.listener = b.listener;
+    }
+
+    /**
+     * Import the Bindings using default client.
+     *
+     * @param creators creators of the Bindings, read lazily
+     * @return progress at the end of the import
+     */
+    public Progress importBindings(final Iterator<BindingCreator> creators) {
+        return importBindings(Twilio.getRestClient(), creators);
+    }
+
+    /**
+     * Import the Bindings using specified client, resuming from the checkpoint.
+     *
+     * @param client client used to make requests
+     * @param creators creators of the Bindings, read lazily, in the same order as previous imports
+     * @return progress at the end of the import
+     */
+    public Progress importBindings(final TwilioRestClient client, final Iterator<BindingCreator> creators) {
+        final Run run = new Run(readCheckpoint());
+        for (long skipped = 0; skipped < run.position && creators.hasNext(); skipped++) {
+            creators.next();
+        }
+
+        Iterable<Item> items = new Iterable<Item>() {
+            @Override
+            public Iterator<Item> iterator() {
+                return new Iterator<Item>() {
+                    private long position = run.position;
+
+                    @Override
+                    public boolean hasNext() {
+                        return creators.hasNext();
+                    }
+
+                    @Override
+                    public Item next() {
+                        return new Item(position++, creators.next());
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+
+        try {
+            Parallel.forEach(items, parallelism, new Parallel.Task<Item>() {
+                @Override
+                public void run(final Item item) {
+                    create(client, run, item.position, item.creator);
+                }
+            });
+        } finally {
+            writeCheckpoint(run.handled());
+        }
+
+        Progress progress = run.progress();
+        if (listener != null) {
+            listener.onProgress(progress);
+        }
+        return progress;
+    }
+
+    private void create(final TwilioRestClient client, final Run run, final long position, final BindingCreator creator) {
+        TwilioException failure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            run.rateLimiter.acquire();
+            try {
+                creator.create(client);
+                run.created(position);
+                return;
+            } catch (final ApiException e) {
+                if (!Integer.valueOf(HTTP_STATUS_CODE_TOO_MANY_REQUESTS).equals(e.getStatusCode())) {
+                    failure = e;
+                    break;
+                }
+                run.throttled();
+                failure = e;
+            } catch (final ApiConnectionException e) {
+                failure = e;
+            }
+            if (attempt < maxAttempts) {
+                backoff(attempt);
+            }
+        }
+
+        if (listener != null) {
+            listener.onFailure(position, failure);
+        }
+        run.failed(position);
+    }
+
+    private void backoff(final int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        long millis = ceiling <= 0 ? 0 : (long) (random.nextDouble() * ceiling);
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Binding import interrupted", e);
+        }
+    }
+
+    private long readCheckpoint() {
+        if (checkpoint == null || !Files.exists(checkpoint)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(checkpoint), Charsets.UTF_8).trim());
+        } catch (final IOException | NumberFormatException e) {
+            throw new ApiException("Unable to read checkpoint " + checkpoint + ": " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized void writeCheckpoint(final long position) {
+        if (checkpoint == null) {
+            return;
+        }
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try {
+            Files.write(temporary, Long.toString(position).getBytes(Charsets.UTF_8));
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            throw new ApiException("Unable to write checkpoint " + checkpoint + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static class Item {
+        private final long position;
+        private final BindingCreator creator;
+
+        private Item(final long position, final BindingCreator creator) {
+            this.position = position;
+            this.creator = creator;
+        }
+    }
+
+    /**
+     * State of an import, shared by the workers.
+     */
+    private class Run {
+        private final long start = System.currentTimeMillis();
+        private final RateLimiter rateLimiter = RateLimiter.create(initialRate);
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong throttled = new AtomicLong();
+
+        // Positions handled out of order, beyond the first unhandled one
+        private final TreeSet<Long> handled = new TreeSet<>();
+        private long position;
+        private long checkpointed;
+        private long successes;
+
+        private Run(final long position) {
+            this.position = position;
+            this.checkpointed = position;
+        }
+
+        private void created(final long at) {
+            created.incrementAndGet();
+            synchronized (this) {
+                // Grow the rate additively after about a second without throttling
+                if (++successes >= rateLimiter.getRate()) {
+                    successes = 0;
+                    rateLimiter.setRate(Math.min(maxRate, rateLimiter.getRate() + rateIncrease));
+                }
+            }
+            handle(at);
+        }
+
+        private void failed(final long at) {
+            failed.incrementAndGet();
+            handle(at);
+        }
+
+        private synchronized void throttled() {
+            throttled.incrementAndGet();
+            successes = 0;
+            rateLimiter.setRate(Math.max(minRate, rateLimiter.getRate() / 2));
+        }
+
+        private void handle(final long at) {
+            Progress progress = null;
+            synchronized (this) {
+                handled.add(at);
+                while (!handled.isEmpty() && handled.first() == position) {
+                    handled.pollFirst();
+                    position++;
+                }
+                if (position - checkpointed >= checkpointInterval) {
+                    checkpointed = position;
+                    writeCheckpoint(position);
+                    progress = progress();
+                }
+            }
+            if (progress != null && listener != null) {
+                listener.onProgress(progress);
+            }
+        }
+
+        private synchronized long handled() {
+            return position;
+        }
+
+        private synchronized Progress progress() {
+            return new Progress(
+                position,
+                created.get(),
+                failed.get(),
+                throttled.get(),
+                rateLimiter.getRate(),
+                System.currentTimeMillis() - start
+            );
+        }
+    }
+
+    public static class Builder {
+        private int parallelism = DEFAULT_PARALLELISM;
+        private double initialRate = DEFAULT_INITIAL_RATE;
+        private double minRate = DEFAULT_MIN_RATE;
+        private double maxRate = DEFAULT_MAX_RATE;
+        private double rateIncrease = DEFAULT_RATE_INCREASE;
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        private long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+        private long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+        private Path checkpoint;
+        private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+        private Listener listener;
+
+        /**
+         * Set the maximum number of creates in progress at once.
+         *
+         * @param parallelism maximum number of concurrent creates
+         * @return this
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Set the bounds of the adaptive rate.
+         *
+         * @param initialRate creates per second at the start of the import
+         * @param minRate lowest rate after throttling
+         * @param maxRate highest rate
+         * @return this
+         */
+        public Builder rate(double initialRate, double minRate, double maxRate) {
+            this.initialRate = initialRate;
+            this.minRate = minRate;
+            this.maxRate = maxRate;
+            return this;
+        }
+
+        /**
+         * Set how much the rate grows after about a second without throttling.
+         *
+         * @param rateIncrease creates per second added to the rate
+         * @return this
+         */
+        public Builder rateIncrease(double rateIncrease) {
+            this.rateIncrease = rateIncrease;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of attempts of a throttled or unreachable create.
+         *
+         * @param maxAttempts maximum number of attempts
+         * @return this
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Set the bounds of the backoff between attempts.
+         *
+         * @param initialBackoff backoff ceiling after the first attempt, doubled on every attempt
+         * @param maxBackoff maximum backoff ceiling
+         * @param unit unit of the backoffs
+         * @return this
+         */
+        public Builder backoff(long initialBackoff, long maxBackoff, TimeUnit unit) {
+            this.initialBackoffMillis = unit.toMillis(initialBackoff);
+            this.maxBackoffMillis = unit.toMillis(maxBackoff);
+            return this;
+        }
+
+        /**
+         * Keep the progress in a file, to resume interrupted imports.
+         *
+         * @param checkpoint checkpoint file
+         * @return this
+         */
+        public Builder checkpoint(Path checkpoint) {
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
+        /**
+         * Set how often the checkpoint is written and the progress reported.
+         *
+         * @param checkpointInterval number of Bindings between checkpoints
+         * @return this
+         */
+        public Builder checkpointInterval(int checkpointInterval) {
+            this.checkpointInterval = checkpointInterval;
+            return this;
+        }
+
+        public Builder listener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Build new BindingImporter.
+         *
+         * @return BindingImporter instance
+         */
+        public BindingImporter build() {
+            return new BindingImporter(this);
+        }
+    }
+}
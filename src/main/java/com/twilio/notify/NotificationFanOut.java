@@ -0,0 +1,310 @@
+package com.twilio.notify;
+
+import com.google.common.collect.ImmutableList;
+import com.twilio.Twilio;
+import com.twilio.base.Parallel;
+import com.twilio.exception.ApiException;
+import com.twilio.exception.TwilioException;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.notify.v1.service.Notification;
+import com.twilio.rest.notify.v1.service.NotificationCreator;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends a Notification to more identities and bindings than a single request allows.
+ *
+ * <p>
+ *     Identities are split in chunks of at most 20 per Notification. Bindings are split so that every request stays
+ *     below the 1MB limit of the request entity, measured on the encoded ToBinding parameters, and below a maximum
+ *     number of bindings. The chunks are sent a bounded number at a time, and the chunks which fail are reported with
+ *     their recipients so they can be sent again.
+ * </p>
+ *
+ * <pre>
+ *     NotificationFanOut.Result result = new NotificationFanOut.Builder(new NotificationFanOut.Template() {
+ *         public NotificationCreator creator() {
+ *             return Notification.creator(serviceSid).setBody("Hello");
+ *         }
+ *     }).identities(identities).build().send();
+ * </pre>
+ */
+public class NotificationFanOut {
+
+    public static final int MAX_IDENTITIES = 20;
+    public static final int DEFAULT_MAX_BINDINGS = 10000;
+    public static final int DEFAULT_MAX_BINDING_BYTES = 1000000;
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    // Separator and name of every encoded ToBinding parameter
+    private static final int BINDING_OVERHEAD = "&ToBinding=".length();
+
+    /**
+     * Creates the Notification sent to every chunk.
+     */
+    public interface Template {
+
+        /**
+         * Create a Notification without recipients, called once per chunk.
+         *
+         * @return creator with the content of the Notification
+         */
+        NotificationCreator creator();
+    }
+
+    /**
+     * Chunk of recipients which could not be notified.
+     */
+    public static class Failure {
+        private final List<String> identities;
+        private final List<String> bindings;
+        private final TwilioException exception;
+
+        private Failure(final Chunk chunk, final TwilioException exception) {
+            this.identities = chunk.identities;
+            this.bindings = chunk.bindings;
+            this.exception = exception;
+        }
+
+        public List<String> getIdentities() {
+            return identities;
+        }
+
+        public List<String> getBindings() {
+            return bindings;
+        }
+
+        public TwilioException getException() {
+            return exception;
+        }
+    }
+
+    /**
+     * Outcome of a fan-out.
+     */
+    public static class Result {
+        private final List<Notification> notifications;
+        private final List<Failure> failures;
+
+        private Result(final List<Notification> notifications, final List<Failure> failures) {
+            this.notifications = ImmutableList.copyOf(notifications);
+            this.failures = ImmutableList.copyOf(failures);
+        }
+
+        public List<Notification> getNotifications() {
+            return notifications;
+        }
+
+        public List<Failure> getFailures() {
+            return failures;
+        }
+
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+    }
+
+    private final Template template;
+    private final List<String> identities;
+    private final List<String> bindings;
+    private final int maxBindings;
+    private final int maxBindingBytes;
+    private final int parallelism;
+
+    private NotificationFanOut(Builder b) {
+        this.template = b.template;
+        this.identities = ImmutableList.copyOf(b.identities);
+        this.bindings = ImmutableList.copyOf(b.bindings);
+        this.maxBindings = b.maxBindings;
+        this.maxBindingBytes = b.maxBindingBytes;
+        this.parallelism = b.parallelism;
+    }
+
+    /**
+     * Send the Notifications using default client.
+     *
+     * @return sent Notifications and failed chunks
+     */
+    public Result send() {
+        return send(Twilio.getRestClient());
+    }
+
+    /**
+     * Send the Notifications using specified client.
+     *
+     * @param client client used to make requests
+     * @return sent Notifications and failed chunks
+     */
+    public Result send(final TwilioRestClient client) {
+        final List<Notification> notifications = new ArrayList<>();
+        final List<Failure> failures = new ArrayList<>();
+
+        Parallel.forEach(chunks(), parallelism, new Parallel.Task<Chunk>() {
+            @Override
+            public void run(final Chunk chunk) {
+                NotificationCreator creator = template.creator();
+                if (!chunk.identities.isEmpty()) {
+                    creator.setIdentity(chunk.identities);
+                }
+                if (!chunk.bindings.isEmpty()) {
+                    creator.setToBinding(chunk.bindings);
+                }
+
+                try {
+                    Notification notification = creator.create(client);
+                    synchronized (notifications) {
+                        notifications.add(notification);
+                    }
+                } catch (final TwilioException e) {
+                    synchronized (failures) {
+                        failures.add(new Failure(chunk, e));
+                    }
+                }
+            }
+        });
+        return new Result(notifications, failures);
+    }
+
+    /**
+     * Split the recipients in chunks, each sent in its own request.
+     *
+     * @return chunks of identities followed by chunks of bindings
+     */
+    List<Chunk> chunks() {
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < identities.size(); i += MAX_IDENTITIES) {
+            List<String> chunk = identities.subList(i, Math.min(identities.size(), i + MAX_IDENTITIES));
+            chunks.add(new Chunk(chunk, ImmutableList.<String>of()));
+        }
+
+        int start = 0;
+        long bytes = 0;
+        for (int i = 0; i < bindings.size(); i++) {
+            int size = encodedSize(bindings.get(i));
+            if (size > maxBindingBytes) {
+                throw new ApiException("Binding exceeds the maximum request size: " + bindings.get(i));
+            }
+            if (i - start == maxBindings || bytes + size > maxBindingBytes) {
+                chunks.add(new Chunk(ImmutableList.<String>of(), bindings.subList(start, i)));
+                start = i;
+                bytes = 0;
+            }
+            bytes += size;
+        }
+        if (start < bindings.size()) {
+            chunks.add(new Chunk(ImmutableList.<String>of(), bindings.subList(start, bindings.size())));
+        }
+        return chunks;
+    }
+
+    private static int encodedSize(final String binding) {
+        try {
+            return BINDING_OVERHEAD + URLEncoder.encode(binding, "UTF-8").length();
+        } catch (final UnsupportedEncodingException e) {
+            throw new ApiException("UTF-8 is not supported", e);
+        }
+    }
+
+    static class Chunk {
+        private final List<String> identities;
+        private final List<String> bindings;
+
+        private Chunk(final List<String> identities, final List<String> bindings) {
+            this.identities = identities;
+            this.bindings = bindings;
+        }
+
+        List<String> getIdentities() {
+            return identities;
+        }
+
+        List<String> getBindings() {
+            return bindings;
+        }
+    }
+
+    public static class Builder {
+        private final Template template;
+        private final List<String> identities = new ArrayList<>();
+        private final List<String> bindings = new ArrayList<>();
+        private int maxBindings = DEFAULT_MAX_BINDINGS;
+        private int maxBindingBytes = DEFAULT_MAX_BINDING_BYTES;
+        private int parallelism = DEFAULT_PARALLELISM;
+
+        /**
+         * Create a new NotificationFanOut.
+         *
+         * @param template creates the Notification sent to every chunk
+         */
+        public Builder(Template template) {
+            this.template = template;
+        }
+
+        /**
+         * Notify identities.
+         *
+         * @param identities identities of the Bindings to notify
+         * @return this
+         */
+        public Builder identities(List<String> identities) {
+            this.identities.addAll(identities);
+            return this;
+        }
+
+        /**
+         * Notify addresses directly.
+         *
+         * @param bindings destination addresses, each a JSON object
+         * @return this
+         */
+        public Builder bindings(List<String> bindings) {
+            this.bindings.addAll(bindings);
+            return this;
+        }
+
+        /**
+         * Set the maximum number of bindings per request.
+         *
+         * @param maxBindings maximum number of ToBinding parameters
+         * @return this
+         */
+        public Builder maxBindings(int maxBindings) {
+            this.maxBindings = maxBindings;
+            return this;
+        }
+
+        /**
+         * Set the maximum size of the bindings per request, leaving room for the content of the Notification.
+         *
+         * @param maxBindingBytes maximum size of the encoded ToBinding parameters
+         * @return this
+         */
+        public Builder maxBindingBytes(int maxBindingBytes) {
+            this.maxBindingBytes = maxBindingBytes;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of requests sent at once.
+         *
+         * @param parallelism maximum number of concurrent requests
+         * @return this
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Build new NotificationFanOut.
+         *
+         * @return NotificationFanOut instance
+         */
+        public NotificationFanOut build() {
+            return new NotificationFanOut(this);
+        }
+    }
+}
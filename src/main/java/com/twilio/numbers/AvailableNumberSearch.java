@@ -0,0 +1,467 @@
+package com.twilio.numbers;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.twilio.Twilio;
+import com.twilio.base.Parallel;
+import com.twilio.exception.ApiException;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.IncomingPhoneNumber;
+import com.twilio.rest.api.v2010.account.IncomingPhoneNumberCreator;
+import com.twilio.rest.api.v2010.account.availablephonenumbercountry.Local;
+import com.twilio.rest.api.v2010.account.availablephonenumbercountry.LocalReader;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Searches AvailablePhoneNumbers with many criteria at once until enough numbers are found, and optionally buys them.
+ *
+ * <p>
+ *     Every criteria is a {@link LocalReader}, such as one per area code or region, and a bounded number of them are
+ *     read in parallel. Candidates are deduplicated by number and filtered, and the readers stop requesting pages as
+ *     soon as enough numbers are found. Criteria which fail, such as an area code without numbers, are reported
+ *     without stopping the search.
+ * </p>
+ *
+ * <p>
+ *     When buying, candidates are bought while the search goes on, a bounded number at a time. A number claimed by
+ *     someone else between the search and the purchase is reported as a conflict and replaced by another candidate,
+ *     while any other purchase failure stops the search and is rethrown.
+ * </p>
+ *
+ * <pre>
+ *     AvailableNumberSearch.Result result = new AvailableNumberSearch.Builder(500)
+ *         .areaCodes("US", ImmutableList.of(415, 628, 510, 650))
+ *         .purchase()
+ *         .build()
+ *         .search();
+ * </pre>
+ */
+public class AvailableNumberSearch {
+
+    public static final int DEFAULT_PARALLELISM = 8;
+    public static final int DEFAULT_PURCHASE_PARALLELISM = 4;
+
+    private static final int HTTP_STATUS_CODE_CONFLICT = 409;
+    private static final int ERROR_CODE_NUMBER_NOT_AVAILABLE = 21422;
+
+    /**
+     * Creates the purchase of a found number.
+     */
+    public interface Purchase {
+
+        /**
+         * Create the purchase of a number.
+         *
+         * @param number found number
+         * @return creator of the IncomingPhoneNumber
+         */
+        IncomingPhoneNumberCreator creator(Local number);
+    }
+
+    /**
+     * Outcome of a search.
+     */
+    public static class Result {
+        private final List<Local> numbers;
+        private final List<IncomingPhoneNumber> purchased;
+        private final List<Local> conflicts;
+        private final List<RuntimeException> failures;
+        private final int duplicates;
+
+        private Result(final Run run) {
+            this.numbers = ImmutableList.copyOf(run.found);
+            this.purchased = ImmutableList.copyOf(run.purchased);
+            this.conflicts = ImmutableList.copyOf(run.conflicts);
+            this.failures = ImmutableList.copyOf(run.failures);
+            this.duplicates = run.duplicates;
+        }
+
+        /**
+         * Get the found numbers.
+         *
+         * @return numbers which matched, or which were bought when buying
+         */
+        public List<Local> getNumbers() {
+            return numbers;
+        }
+
+        public List<IncomingPhoneNumber> getPurchased() {
+            return purchased;
+        }
+
+        /**
+         * Get the numbers claimed by someone else before they could be bought.
+         *
+         * @return numbers which were no longer available
+         */
+        public List<Local> getConflicts() {
+            return conflicts;
+        }
+
+        /**
+         * Get the failures of criteria.
+         *
+         * @return exceptions of the readers which failed
+         */
+        public List<RuntimeException> getFailures() {
+            return failures;
+        }
+
+        /**
+         * Get the number of candidates found by more than one criteria.
+         *
+         * @return number of duplicate candidates
+         */
+        public int getDuplicates() {
+            return duplicates;
+        }
+    }
+
+    private final int count;
+    private final List<LocalReader> readers;
+    private final Predicate<Local> filter;
+    private final int parallelism;
+    private final Purchase purchase;
+    private final int purchaseParallelism;
+
+    private AvailableNumberSearch(Builder b) {
+        this.count = b.count;
+        this.readers = ImmutableList.copyOf(b.readers);
+        this.filter = b.filter;
+        this.parallelism = b.parallelism;
+        this.purchase = b.purchase;
+        this.purchaseParallelism = b.purchaseParallelism;
+    }
+
+    /**
+     * Search the numbers using default client.
+     *
+     * @return found numbers
+     */
+    public Result search() {
+        return search(Twilio.getRestClient());
+    }
+
+    /**
+     * Search the numbers using specified client.
+     *
+     * @param client client used to make requests
+     * @return found numbers, fewer than requested if the criteria ran out of numbers
+     */
+    public Result search(final TwilioRestClient client) {
+        final Run run = new Run();
+
+        List<ListenableFuture<Void>> buyers = new ArrayList<>();
+        if (purchase != null) {
+            for (int i = 0; i < purchaseParallelism; i++) {
+                buyers.add(Twilio.getExecutorService().submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        buy(client, run);
+                        return null;
+                    }
+                }));
+            }
+        }
+
+        try {
+            Parallel.forEach(readers, parallelism, new Parallel.Task<LocalReader>() {
+                @Override
+                public void run(final LocalReader reader) {
+                    read(client, reader, run);
+                }
+            });
+        } catch (final RuntimeException e) {
+            run.stop();
+            throw e;
+        } finally {
+            run.finish();
+        }
+
+        try {
+            Futures.allAsList(buyers).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Number search interrupted", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ApiException("Number purchase failed", e.getCause());
+        } finally {
+            for (final ListenableFuture<Void> buyer : buyers) {
+                buyer.cancel(true);
+            }
+        }
+        return new Result(run);
+    }
+
+    private void read(final TwilioRestClient client, final LocalReader reader, final Run run) {
+        if (!run.awaitSearching()) {
+            return;
+        }
+
+        try {
+            for (final Local candidate : reader.read(client)) {
+                if (!run.seen.add(candidate.getPhoneNumber().toString())) {
+                    run.duplicate();
+                } else if (filter == null || filter.apply(candidate)) {
+                    run.offer(candidate);
+                }
+
+                // Stop before the next page is requested
+                if (!run.awaitSearching()) {
+                    return;
+                }
+            }
+        } catch (final ApiException e) {
+            run.fail(e);
+        }
+    }
+
+    private void buy(final TwilioRestClient client, final Run run) {
+        Local candidate;
+        while ((candidate = run.take()) != null) {
+            try {
+                run.bought(candidate, purchase.creator(candidate).create(client));
+            } catch (final ApiException e) {
+                if (!isConflict(e)) {
+                    run.stop();
+                    throw e;
+                }
+                run.conflict(candidate);
+            }
+        }
+    }
+
+    private static boolean isConflict(final ApiException e) {
+        return Integer.valueOf(HTTP_STATUS_CODE_CONFLICT).equals(e.getStatusCode())
+            || Integer.valueOf(ERROR_CODE_NUMBER_NOT_AVAILABLE).equals(e.getCode());
+    }
+
+    /**
+     * State of a search, shared by the readers and the buyers.
+     */
+    private class Run {
+        private final Set<String> seen = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        private final ArrayDeque<Local> candidates = new ArrayDeque<>();
+        private final List<Local> found = new ArrayList<>();
+        private final List<IncomingPhoneNumber> purchased = new ArrayList<>();
+        private final List<Local> conflicts = new ArrayList<>();
+        private final List<RuntimeException> failures = new ArrayList<>();
+        private int duplicates;
+        private int buying;
+        private boolean finished;
+        private boolean stopped;
+
+        /**
+         * Count the numbers still to find, those being bought or waiting to be bought are expected to succeed.
+         */
+        private int needed() {
+            return count - found.size() - buying - candidates.size();
+        }
+
+        /**
+         * Wait until more numbers are needed, or until enough were found. While the candidates are being bought, a
+         * conflict may need another one from the same reader.
+         */
+        private synchronized boolean awaitSearching() {
+            while (!stopped && needed() <= 0 && found.size() < count) {
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return !stopped && needed() > 0;
+        }
+
+        private synchronized void offer(final Local candidate) {
+            if (stopped || needed() <= 0) {
+                return;
+            }
+            if (purchase == null) {
+                found.add(candidate);
+            } else {
+                candidates.add(candidate);
+                notifyAll();
+            }
+        }
+
+        private synchronized Local take() {
+            while (!stopped && found.size() < count) {
+                if (!candidates.isEmpty()) {
+                    buying++;
+                    return candidates.poll();
+                }
+                if (finished) {
+                    return null;
+                }
+                try {
+                    wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        private synchronized void bought(final Local candidate, final IncomingPhoneNumber number) {
+            buying--;
+            found.add(candidate);
+            purchased.add(number);
+            notifyAll();
+        }
+
+        private synchronized void conflict(final Local candidate) {
+            buying--;
+            conflicts.add(candidate);
+            notifyAll();
+        }
+
+        private synchronized void duplicate() {
+            duplicates++;
+        }
+
+        private synchronized void fail(final RuntimeException e) {
+            failures.add(e);
+        }
+
+        private synchronized void finish() {
+            finished = true;
+            notifyAll();
+        }
+
+        private synchronized void stop() {
+            stopped = true;
+            notifyAll();
+        }
+    }
+
+    public static class Builder {
+        private final int count;
+        private final List<LocalReader> readers = new ArrayList<>();
+        private Predicate<Local> filter;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private Purchase purchase;
+        private int purchaseParallelism = DEFAULT_PURCHASE_PARALLELISM;
+
+        /**
+         * Create a new AvailableNumberSearch.
+         *
+         * @param count number of numbers to find
+         */
+        public Builder(int count) {
+            this.count = count;
+        }
+
+        /**
+         * Add a search criteria.
+         *
+         * @param reader reader of the available numbers matching the criteria
+         * @return this
+         */
+        public Builder reader(LocalReader reader) {
+            this.readers.add(reader);
+            return this;
+        }
+
+        public Builder readers(List<LocalReader> readers) {
+            this.readers.addAll(readers);
+            return this;
+        }
+
+        /**
+         * Add a search criteria per area code.
+         *
+         * @param countryCode ISO country code
+         * @param areaCodes area codes to search
+         * @return this
+         */
+        public Builder areaCodes(String countryCode, List<Integer> areaCodes) {
+            for (final Integer areaCode : areaCodes) {
+                this.readers.add(Local.reader(countryCode).setAreaCode(areaCode));
+            }
+            return this;
+        }
+
+        /**
+         * Only keep the candidates matching a predicate.
+         *
+         * @param filter predicate of the numbers to keep
+         * @return this
+         */
+        public Builder filter(Predicate<Local> filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of criteria read at once.
+         *
+         * @param parallelism maximum number of concurrent readers
+         * @return this
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Buy the found numbers in the account of the client.
+         *
+         * @return this
+         */
+        public Builder purchase() {
+            return purchase(new Purchase() {
+                @Override
+                public IncomingPhoneNumberCreator creator(final Local number) {
+                    return IncomingPhoneNumber.creator(number.getPhoneNumber());
+                }
+            });
+        }
+
+        /**
+         * Buy the found numbers.
+         *
+         * @param purchase creates the purchase of every number, such as with its voice and SMS URLs
+         * @return this
+         */
+        public Builder purchase(Purchase purchase) {
+            this.purchase = purchase;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of numbers bought at once.
+         *
+         * @param purchaseParallelism maximum number of concurrent purchases
+         * @return this
+         */
+        public Builder purchaseParallelism(int purchaseParallelism) {
+            this.purchaseParallelism = purchaseParallelism;
+            return this;
+        }
+
+        /**
+         * Build new AvailableNumberSearch.
+         *
+         * @return AvailableNumberSearch instance
+         */
+        public AvailableNumberSearch build() {
+            return new AvailableNumberSearch(this);
+        }
+    }
+}
@@ -0,0 +1,778 @@
+package com.twilio.numbers;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.twilio.Twilio;
+import com.twilio.base.Parallel;
+import com.twilio.base.Reader;
+import com.twilio.base.Resource;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.IncomingPhoneNumber;
+import com.twilio.rest.api.v2010.account.IncomingPhoneNumberReader;
+import com.twilio.rest.api.v2010.account.incomingphonenumber.Local;
+import com.twilio.rest.api.v2010.account.incomingphonenumber.LocalReader;
+import com.twilio.rest.api.v2010.account.incomingphonenumber.Mobile;
+import com.twilio.rest.api.v2010.account.incomingphonenumber.MobileReader;
+import com.twilio.rest.api.v2010.account.incomingphonenumber.TollFree;
+import com.twilio.rest.api.v2010.account.incomingphonenumber.TollFreeReader;
+import com.twilio.type.PhoneNumberCapabilities;
+import org.joda.time.DateTime;
+
+import java.net.URI;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the IncomingPhoneNumbers of an account, to route without requests.
+ *
+ * <p>
+ *     The numbers are loaded by reading IncomingPhoneNumbers and its Local, Mobile and TollFree lists concurrently,
+ *     the latter giving the type of every number. The index is an immutable snapshot of the numbers sorted by E.164,
+ *     with their capabilities in a byte array, hash indexes by number, sid, voice URL, SMS URL and friendly name, and
+ *     the positions of the numbers with every combination of capabilities, so lookups are constant time and numbers
+ *     with a prefix are found by binary search.
+ * </p>
+ *
+ * <p>
+ *     A refresh keeps the numbers which were not updated and only builds a new snapshot when a number was added,
+ *     updated or released. Single numbers put or removed after a purchase or release are kept in a small overlay of
+ *     the snapshot, which is folded into a new snapshot once it grows, and are applied again on top of a refresh which
+ *     was loading at the time. Snapshots and overlays are swapped atomically, so lookups never see a partial update.
+ * </p>
+ *
+ * <pre>
+ *     PhoneNumberInventory inventory = new PhoneNumberInventory.Builder().build();
+ *     inventory.refresh();
+ *
+ *     List&lt;PhoneNumberInventory.Number&gt; senders = inventory.find(PhoneNumberInventory.SMS, "+1415");
+ * </pre>
+ */
+public class PhoneNumberInventory {
+
+    public static final int VOICE = 1;
+    public static final int SMS = 2;
+    public static final int MMS = 4;
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private static final int CAPABILITIES = VOICE | SMS | MMS;
+    private static final int MIN_CHANGES = 64;
+    private static final int CHANGES_RATIO = 16;
+
+    private static final Comparator<Number> BY_PHONE_NUMBER = new Comparator<Number>() {
+        @Override
+        public int compare(final Number a, final Number b) {
+            return String.valueOf(a.getPhoneNumber()).compareTo(String.valueOf(b.getPhoneNumber()));
+        }
+    };
+
+    public enum Type {
+        LOCAL,
+        MOBILE,
+        TOLL_FREE,
+        OTHER
+    }
+
+    /**
+     * Indexed IncomingPhoneNumber.
+     */
+    public static class Number {
+        private final String sid;
+        private final String phoneNumber;
+        private final String friendlyName;
+        private final int capabilities;
+        private final Type type;
+        private final String voiceUrl;
+        private final String smsUrl;
+        private final DateTime dateUpdated;
+
+        Number(
+            final String sid,
+            final com.twilio.type.PhoneNumber phoneNumber,
+            final String friendlyName,
+            final PhoneNumberCapabilities capabilities,
+            final Type type,
+            final URI voiceUrl,
+            final URI smsUrl,
+            final DateTime dateUpdated
+        ) {
+            this.sid = sid;
+            this.phoneNumber = phoneNumber == null ? null : phoneNumber.toString();
+            this.friendlyName = friendlyName;
+            this.capabilities = capabilitiesOf(capabilities);
+            this.type = type;
+            this.voiceUrl = voiceUrl == null ? null : voiceUrl.toString();
+            this.smsUrl = smsUrl == null ? null : smsUrl.toString();
+            this.dateUpdated = dateUpdated;
+        }
+
+        public String getSid() {
+            return sid;
+        }
+
+        /**
+         * Get the number.
+         *
+         * @return E.164 number
+         */
+        public String getPhoneNumber() {
+            return phoneNumber;
+        }
+
+        public String getFriendlyName() {
+            return friendlyName;
+        }
+
+        /**
+         * Get the capabilities of the number.
+         *
+         * @return combination of {@link #VOICE}, {@link #SMS} and {@link #MMS}
+         */
+        public int getCapabilities() {
+            return capabilities;
+        }
+
+        /**
+         * Tell whether the number has all the given capabilities.
+         *
+         * @param capabilities combination of {@link #VOICE}, {@link #SMS} and {@link #MMS}
+         * @return true if the number has them all
+         */
+        public boolean has(final int capabilities) {
+            return (this.capabilities & capabilities) == capabilities;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public String getVoiceUrl() {
+            return voiceUrl;
+        }
+
+        public String getSmsUrl() {
+            return smsUrl;
+        }
+
+        public DateTime getDateUpdated() {
+            return dateUpdated;
+        }
+
+        private Number(final Number number, final Type type) {
+            this.sid = number.sid;
+            this.phoneNumber = number.phoneNumber;
+            this.friendlyName = number.friendlyName;
+            this.capabilities = number.capabilities;
+            this.type = type;
+            this.voiceUrl = number.voiceUrl;
+            this.smsUrl = number.smsUrl;
+            this.dateUpdated = number.dateUpdated;
+        }
+
+        private boolean isSameAs(final Number other) {
+            return other != null
+                && capabilities == other.capabilities
+                && type == other.type
+                && Objects.equals(dateUpdated, other.dateUpdated)
+                && Objects.equals(phoneNumber, other.phoneNumber)
+                && Objects.equals(friendlyName, other.friendlyName)
+                && Objects.equals(voiceUrl, other.voiceUrl)
+                && Objects.equals(smsUrl, other.smsUrl);
+        }
+
+        @Override
+        public String toString() {
+            return sid + " " + phoneNumber;
+        }
+    }
+
+    private final String accountSid;
+    private final int pageSize;
+    private volatile View view = new View(new Snapshot(Collections.<Number>emptyList()));
+    private final List<Map.Entry<String, Number>> journal = new ArrayList<>();
+    private int refreshes;
+
+    private PhoneNumberInventory(Builder b) {
+        this.accountSid = b.accountSid;
+        this.pageSize = b.pageSize;
+    }
+
+    /**
+     * Convert capabilities to a combination of {@link #VOICE}, {@link #SMS} and {@link #MMS}.
+     *
+     * @param capabilities capabilities of a number
+     * @return capability bits
+     */
+    public static int capabilitiesOf(final PhoneNumberCapabilities capabilities) {
+        if (capabilities == null) {
+            return 0;
+        }
+        return (capabilities.getVoice() ? VOICE : 0)
+            | (capabilities.getSms() ? SMS : 0)
+            | (capabilities.getMms() ? MMS : 0);
+    }
+
+    /**
+     * Reload the numbers using default client.
+     *
+     * @return number of numbers added, updated or removed
+     */
+    public int refresh() {
+        return refresh(Twilio.getRestClient());
+    }
+
+    /**
+     * Reload the numbers using specified client.
+     *
+     * @param client client used to make requests
+     * @return number of numbers added, updated or removed
+     */
+    public int refresh(final TwilioRestClient client) {
+        final Map<String, Number> numbers = new ConcurrentHashMap<>();
+        final Map<String, Type> types = new ConcurrentHashMap<>();
+
+        // Numbers put or removed while loading are journaled from here, and applied on top of the load
+        int from;
+        synchronized (this) {
+            from = journal.size();
+            refreshes++;
+        }
+        try {
+            Parallel.forEach(Arrays.asList(Type.values()), Type.values().length, new Parallel.Task<Type>() {
+                @Override
+                public void run(final Type type) {
+                    read(client, type, numbers, types);
+                }
+            });
+
+            Map<String, Number> loaded = new HashMap<>(numbers.size());
+            for (final Number number : numbers.values()) {
+                Type type = types.get(number.getSid());
+                loaded.put(number.getSid(), type == null ? number : new Number(number, type));
+            }
+            return swap(loaded, from);
+        } finally {
+            synchronized (this) {
+                if (--refreshes == 0) {
+                    journal.clear();
+                }
+            }
+        }
+    }
+
+    private void read(
+        final TwilioRestClient client,
+        final Type type,
+        final Map<String, Number> numbers,
+        final Map<String, Type> types
+    ) {
+        switch (type) {
+            case LOCAL:
+                LocalReader localReader = accountSid == null ? Local.reader() : Local.reader(accountSid);
+                for (final Local local : read(client, localReader)) {
+                    types.put(local.getSid(), type);
+                }
+                break;
+            case MOBILE:
+                MobileReader mobileReader = accountSid == null ? Mobile.reader() : Mobile.reader(accountSid);
+                for (final Mobile mobile : read(client, mobileReader)) {
+                    types.put(mobile.getSid(), type);
+                }
+                break;
+            case TOLL_FREE:
+                TollFreeReader tollFreeReader = accountSid == null ? TollFree.reader() : TollFree.reader(accountSid);
+                for (final TollFree tollFree : read(client, tollFreeReader)) {
+                    types.put(tollFree.getSid(), type);
+                }
+                break;
+            default:
+                IncomingPhoneNumberReader reader = accountSid == null
+                    ? IncomingPhoneNumber.reader()
+                    : IncomingPhoneNumber.reader(accountSid);
+                for (final IncomingPhoneNumber number : read(client, reader)) {
+                    numbers.put(number.getSid(), numberOf(number, Type.OTHER));
+                }
+                break;
+        }
+    }
+
+    private <T extends Resource> Iterable<T> read(final TwilioRestClient client, final Reader<T> reader) {
+        return reader.pageSize(pageSize).read(client);
+    }
+
+    private static Number numberOf(final IncomingPhoneNumber number, final Type type) {
+        return new Number(
+            number.getSid(),
+            number.getPhoneNumber(),
+            number.getFriendlyName(),
+            number.getCapabilities(),
+            type,
+            number.getVoiceUrl(),
+            number.getSmsUrl(),
+            number.getDateUpdated()
+        );
+    }
+
+    /**
+     * Index a bought or updated number without reloading the others.
+     *
+     * @param number the number
+     * @param type type of the number
+     */
+    public synchronized void put(final IncomingPhoneNumber number, final Type type) {
+        change(number.getSid(), numberOf(number, type));
+    }
+
+    /**
+     * Remove a released number from the index.
+     *
+     * @param sid sid of the number
+     * @return true if the number was indexed
+     */
+    public synchronized boolean remove(final String sid) {
+        boolean indexed = view.getBySid(sid) != null;
+        change(sid, null);
+        return indexed;
+    }
+
+    private void change(final String sid, final Number number) {
+        if (refreshes > 0) {
+            journal.add(new AbstractMap.SimpleImmutableEntry<>(sid, number));
+        }
+
+        View changed = view.with(sid, number);
+        if (changed.changes() > Math.max(MIN_CHANGES, changed.snapshot.size() / CHANGES_RATIO)) {
+            changed = new View(new Snapshot(changed.getNumbers()));
+        }
+        view = changed;
+    }
+
+    private synchronized int swap(final Map<String, Number> loaded, final int from) {
+        for (final Map.Entry<String, Number> change : journal.subList(from, journal.size())) {
+            if (change.getValue() == null) {
+                loaded.remove(change.getKey());
+            } else {
+                loaded.put(change.getKey(), change.getValue());
+            }
+        }
+
+        View current = view;
+        int changes = 0;
+        int kept = 0;
+        List<Number> numbers = new ArrayList<>(loaded.size());
+        for (final Number number : loaded.values()) {
+            Number previous = current.getBySid(number.getSid());
+            if (previous != null) {
+                kept++;
+            }
+            if (number.isSameAs(previous)) {
+                numbers.add(previous);
+            } else {
+                numbers.add(number);
+                changes++;
+            }
+        }
+        // Every indexed number which was not reloaded was released
+        changes += current.size() - kept;
+
+        if (changes > 0 || current.changes() > 0) {
+            view = new View(new Snapshot(numbers));
+        }
+        return changes;
+    }
+
+    /**
+     * Get a number.
+     *
+     * @param phoneNumber E.164 number
+     * @return the number, or null if it is not indexed
+     */
+    public Number get(final String phoneNumber) {
+        return view.get(phoneNumber);
+    }
+
+    /**
+     * Get the sid of a number.
+     *
+     * @param phoneNumber E.164 number
+     * @return sid of the number, or null if it is not indexed
+     */
+    public String getSid(final String phoneNumber) {
+        Number number = get(phoneNumber);
+        return number == null ? null : number.getSid();
+    }
+
+    /**
+     * Get a number by sid.
+     *
+     * @param sid sid of the number
+     * @return the number, or null if it is not indexed
+     */
+    public Number getBySid(final String sid) {
+        return view.getBySid(sid);
+    }
+
+    /**
+     * Find the numbers with all the given capabilities.
+     *
+     * @param capabilities combination of {@link #VOICE}, {@link #SMS} and {@link #MMS}
+     * @return the numbers, sorted by E.164
+     */
+    public List<Number> find(final int capabilities) {
+        return view.find(capabilities, "");
+    }
+
+    /**
+     * Find the numbers with all the given capabilities and a prefix, such as a country or area code.
+     *
+     * @param capabilities combination of {@link #VOICE}, {@link #SMS} and {@link #MMS}
+     * @param prefix prefix of the E.164 numbers, such as +1415
+     * @return the numbers, sorted by E.164
+     */
+    public List<Number> find(final int capabilities, final String prefix) {
+        return view.find(capabilities, prefix);
+    }
+
+    public List<Number> findByVoiceUrl(final String voiceUrl) {
+        return view.find(Key.VOICE_URL, voiceUrl);
+    }
+
+    public List<Number> findBySmsUrl(final String smsUrl) {
+        return view.find(Key.SMS_URL, smsUrl);
+    }
+
+    public List<Number> findByFriendlyName(final String friendlyName) {
+        return view.find(Key.FRIENDLY_NAME, friendlyName);
+    }
+
+    /**
+     * Get every indexed number.
+     *
+     * @return the numbers, sorted by E.164
+     */
+    public List<Number> getNumbers() {
+        return view.getNumbers();
+    }
+
+    public int size() {
+        return view.size();
+    }
+
+    /**
+     * Indexed field of the numbers.
+     */
+    private enum Key {
+        VOICE_URL,
+        SMS_URL,
+        FRIENDLY_NAME;
+
+        private String of(final Number number) {
+            switch (this) {
+                case VOICE_URL:
+                    return number.getVoiceUrl();
+                case SMS_URL:
+                    return number.getSmsUrl();
+                default:
+                    return number.getFriendlyName();
+            }
+        }
+    }
+
+    /**
+     * Immutable snapshot with the numbers put or removed since it was built.
+     */
+    private static class View {
+        private final Snapshot snapshot;
+        // Changed numbers by sid, null for the removed ones
+        private final Map<String, Number> changed;
+        private final Map<String, Number> changedByPhoneNumber = new HashMap<>();
+        private final List<Number> added = new ArrayList<>();
+        private final int size;
+
+        private View(final Snapshot snapshot) {
+            this(snapshot, Collections.<String, Number>emptyMap());
+        }
+
+        private View(final Snapshot snapshot, final Map<String, Number> changed) {
+            this.snapshot = snapshot;
+            this.changed = changed;
+
+            int size = snapshot.size();
+            for (final Map.Entry<String, Number> change : changed.entrySet()) {
+                if (snapshot.getBySid(change.getKey()) != null) {
+                    size--;
+                }
+                Number number = change.getValue();
+                if (number != null) {
+                    changedByPhoneNumber.put(number.getPhoneNumber(), number);
+                    added.add(number);
+                    size++;
+                }
+            }
+            Collections.sort(added, BY_PHONE_NUMBER);
+            this.size = size;
+        }
+
+        private View with(final String sid, final Number number) {
+            Map<String, Number> changed = new HashMap<>(this.changed);
+            if (number == null && snapshot.getBySid(sid) == null) {
+                changed.remove(sid);
+            } else {
+                changed.put(sid, number);
+            }
+            return new View(snapshot, changed);
+        }
+
+        private int changes() {
+            return changed.size();
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private Number get(final String phoneNumber) {
+            Number number = changedByPhoneNumber.get(phoneNumber);
+            if (number != null) {
+                return number;
+            }
+            number = snapshot.get(phoneNumber);
+            return number == null || changed.containsKey(number.getSid()) ? null : number;
+        }
+
+        private Number getBySid(final String sid) {
+            return changed.containsKey(sid) ? changed.get(sid) : snapshot.getBySid(sid);
+        }
+
+        private List<Number> getNumbers() {
+            return changed.isEmpty()
+                ? snapshot.numbers
+                : ImmutableList.copyOf(merge(snapshot.numbers, Predicates.<Number>alwaysTrue()));
+        }
+
+        private List<Number> find(final int capabilities, final String prefix) {
+            List<Number> found = prefix.isEmpty() ? snapshot.find(capabilities) : snapshot.find(capabilities, prefix);
+            return changed.isEmpty() ? found : merge(found, new Predicate<Number>() {
+                @Override
+                public boolean apply(final Number number) {
+                    return number.has(capabilities & CAPABILITIES)
+                        && String.valueOf(number.getPhoneNumber()).startsWith(prefix);
+                }
+            });
+        }
+
+        private List<Number> find(final Key key, final String value) {
+            List<Number> found = snapshot.find(snapshot.index(key), value);
+            return changed.isEmpty() ? found : merge(found, new Predicate<Number>() {
+                @Override
+                public boolean apply(final Number number) {
+                    return Objects.equals(value, key.of(number));
+                }
+            });
+        }
+
+        /**
+         * Merge the numbers found in the snapshot with the changed numbers which match the query.
+         *
+         * @param found numbers found in the snapshot, sorted by E.164
+         * @param query query of the numbers
+         * @return the numbers, sorted by E.164
+         */
+        private List<Number> merge(final List<Number> found, final Predicate<Number> query) {
+            List<Number> merged = new ArrayList<>(found.size() + added.size());
+            for (final Number number : found) {
+                if (!changed.containsKey(number.getSid())) {
+                    merged.add(number);
+                }
+            }
+            for (final Number number : added) {
+                if (query.apply(number)) {
+                    merged.add(number);
+                }
+            }
+            Collections.sort(merged, BY_PHONE_NUMBER);
+            return merged;
+        }
+    }
+
+    /**
+     * Immutable index of numbers.
+     */
+    private static class Snapshot {
+        private final List<Number> numbers;
+        private final String[] phoneNumbers;
+        private final byte[] capabilities;
+        private final int[][] byCapabilities = new int[CAPABILITIES + 1][];
+        private final Map<String, Integer> byPhoneNumber = new HashMap<>();
+        private final Map<String, Integer> bySid = new HashMap<>();
+        private final Map<String, int[]> byVoiceUrl = new HashMap<>();
+        private final Map<String, int[]> bySmsUrl = new HashMap<>();
+        private final Map<String, int[]> byFriendlyName = new HashMap<>();
+
+        private Snapshot(final Collection<Number> numbers) {
+            Number[] sorted = numbers.toArray(new Number[numbers.size()]);
+            Arrays.sort(sorted, BY_PHONE_NUMBER);
+            this.numbers = ImmutableList.copyOf(sorted);
+            this.phoneNumbers = new String[sorted.length];
+            this.capabilities = new byte[sorted.length];
+
+            String[] voiceUrls = new String[sorted.length];
+            String[] smsUrls = new String[sorted.length];
+            String[] friendlyNames = new String[sorted.length];
+            int[] counts = new int[CAPABILITIES + 1];
+            for (int i = 0; i < sorted.length; i++) {
+                Number number = sorted[i];
+                phoneNumbers[i] = String.valueOf(number.getPhoneNumber());
+                capabilities[i] = (byte) number.getCapabilities();
+                byPhoneNumber.put(number.getPhoneNumber(), i);
+                bySid.put(number.getSid(), i);
+                voiceUrls[i] = number.getVoiceUrl();
+                smsUrls[i] = number.getSmsUrl();
+                friendlyNames[i] = number.getFriendlyName();
+                for (int mask = 0; mask <= CAPABILITIES; mask++) {
+                    if ((number.getCapabilities() & mask) == mask) {
+                        counts[mask]++;
+                    }
+                }
+            }
+
+            for (int mask = 0; mask <= CAPABILITIES; mask++) {
+                byCapabilities[mask] = new int[counts[mask]];
+                counts[mask] = 0;
+            }
+            for (int i = 0; i < sorted.length; i++) {
+                for (int mask = 0; mask <= CAPABILITIES; mask++) {
+                    if ((capabilities[i] & mask) == mask) {
+                        byCapabilities[mask][counts[mask]++] = i;
+                    }
+                }
+            }
+            index(byVoiceUrl, voiceUrls);
+            index(bySmsUrl, smsUrls);
+            index(byFriendlyName, friendlyNames);
+        }
+
+        /**
+         * Index the positions of the numbers by key, counting the positions of every key before filling them.
+         *
+         * @param index index to fill
+         * @param keys key of every position, null for the numbers without one
+         */
+        private static void index(final Map<String, int[]> index, final String[] keys) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (final String key : keys) {
+                if (key != null) {
+                    Integer count = counts.get(key);
+                    counts.put(key, count == null ? 1 : count + 1);
+                }
+            }
+            for (final Map.Entry<String, Integer> count : counts.entrySet()) {
+                index.put(count.getKey(), new int[count.getValue()]);
+            }
+            // Filled from the end, so the positions stay in ascending order
+            for (int i = keys.length - 1; i >= 0; i--) {
+                if (keys[i] != null) {
+                    int count = counts.get(keys[i]) - 1;
+                    counts.put(keys[i], count);
+                    index.get(keys[i])[count] = i;
+                }
+            }
+        }
+
+        private int size() {
+            return phoneNumbers.length;
+        }
+
+        private Number get(final String phoneNumber) {
+            Integer position = byPhoneNumber.get(phoneNumber);
+            return position == null ? null : numbers.get(position);
+        }
+
+        private Number getBySid(final String sid) {
+            Integer position = bySid.get(sid);
+            return position == null ? null : numbers.get(position);
+        }
+
+        private List<Number> find(final int capabilities) {
+            return find(byCapabilities[capabilities & CAPABILITIES]);
+        }
+
+        private List<Number> find(final int capabilities, final String prefix) {
+            int from = Arrays.binarySearch(phoneNumbers, prefix);
+            if (from < 0) {
+                from = -from - 1;
+            }
+
+            List<Number> found = new ArrayList<>();
+            for (int i = from; i < phoneNumbers.length && phoneNumbers[i].startsWith(prefix); i++) {
+                if ((this.capabilities[i] & capabilities) == capabilities) {
+                    found.add(numbers.get(i));
+                }
+            }
+            return found;
+        }
+
+        private Map<String, int[]> index(final Key key) {
+            switch (key) {
+                case VOICE_URL:
+                    return byVoiceUrl;
+                case SMS_URL:
+                    return bySmsUrl;
+                default:
+                    return byFriendlyName;
+            }
+        }
+
+        private List<Number> find(final Map<String, int[]> index, final String key) {
+            int[] positions = index.get(key);
+            return positions == null ? Collections.<Number>emptyList() : find(positions);
+        }
+
+        private List<Number> find(final int[] positions) {
+            List<Number> found = new ArrayList<>(positions.length);
+            for (final int position : positions) {
+                found.add(numbers.get(position));
+            }
+            return found;
+        }
+    }
+
+    public static class Builder {
+        private String accountSid;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+
+        /**
+         * Index the numbers of another account than the one of the client.
+         *
+         * @param accountSid sid of the account
+         * @return this
+         */
+        public Builder accountSid(String accountSid) {
+            this.accountSid = accountSid;
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Build new PhoneNumberInventory.
+         *
+         * @return PhoneNumberInventory instance
+         */
+        public PhoneNumberInventory build() {
+            return new PhoneNumberInventory(this);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.twilio.pricing;
+
+import com.twilio.Twilio;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.type.InboundSmsPrice;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Local index of the outbound voice and messaging prices, to estimate costs without a request per destination.
+ *
+ * <p>
+ *     Every refresh loads a complete {@link PriceTable} and swaps it in at once, so lookups running during a refresh
+ *     keep reading the previous table and never see a partially loaded one. Scheduled refreshes run in the
+ *     background with a fixed delay, and a failed refresh keeps the previous table and is reported to the listeners.
+ * </p>
+ *
+ * <pre>
+ *     PriceIndex prices = new PriceIndex.Builder().build();
+ *     prices.refresh();
+ *     prices.addListener(new PriceIndex.Listener() {
+ *         public void onRefresh(PriceTable table) {
+ *         }
+ *         public void onError(Throwable error) {
+ *             alerts.priceRefreshFailed(error);
+ *         }
+ *     });
+ *     prices.start(6, TimeUnit.HOURS);
+ *
+ *     double estimate = prices.getMessagePrice("+33612345678").getCurrentPrice();
+ * </pre>
+ */
+public class PriceIndex {
+
+    /**
+     * Receives the outcome of the scheduled refreshes.
+     */
+    public interface Listener {
+
+        /**
+         * Handle prices loaded by a scheduled refresh.
+         *
+         * @param table the loaded prices, already swapped in
+         */
+        void onRefresh(PriceTable table);
+
+        /**
+         * Handle the failure of a scheduled refresh.
+         *
+         * <p>
+         *     The previous prices are kept. The schedule keeps running after an exception and stops after an error.
+         * </p>
+         *
+         * @param error exception or error thrown by the refresh
+         */
+        void onError(Throwable error);
+    }
+
+    private final int parallelism;
+    private final AtomicReference<PriceTable> table = new AtomicReference<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile long lastRefreshMillis;
+    private volatile Throwable lastError;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> schedule;
+
+    private PriceIndex(Builder b) {
+        this.parallelism = b.parallelism;
+    }
+
+    public void addListener(final Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(final Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Load the prices and swap them in using default client.
+     *
+     * @return the loaded prices
+     */
+    public PriceTable refresh() {
+        return refresh(Twilio.getRestClient());
+    }
+
+    /**
+     * Load the prices and swap them in using specified client.
+     *
+     * @param client client used to make requests
+     * @return the loaded prices
+     */
+    public PriceTable refresh(final TwilioRestClient client) {
+        PriceTable loaded = PriceTable.load(client, parallelism);
+        table.set(loaded);
+        lastRefreshMillis = System.currentTimeMillis();
+        return loaded;
+    }
+
+    /**
+     * Start refreshing the prices in the background using default client.
+     *
+     * @param delay delay between the end of a refresh and the start of the next one
+     * @param unit unit of the delay
+     */
+    public void start(final long delay, final TimeUnit unit) {
+        start(Twilio.getRestClient(), delay, unit);
+    }
+
+    /**
+     * Start refreshing the prices in the background using specified client.
+     *
+     * <p>
+     *     The first refresh starts immediately unless prices were already loaded. A refresh failing with an exception
+     *     does not stop the schedule, the previous prices are kept until the next refresh. Failures are passed to
+     *     {@link Listener#onError(Throwable)} and kept as the last error.
+     * </p>
+     *
+     * @param client client used to make requests
+     * @param delay delay between the end of a refresh and the start of the next one
+     * @param unit unit of the delay
+     */
+    public synchronized void start(final TwilioRestClient client, final long delay, final TimeUnit unit) {
+        if (schedule != null) {
+            throw new IllegalStateException("Price index is already started");
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(runnable, "twilio-pricing");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        schedule = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                PriceTable loaded;
+                try {
+                    loaded = refresh(client);
+                } catch (final RuntimeException e) {
+                    // Keep the previous prices, the next refresh tries again
+                    failed(e);
+                    return;
+                } catch (final Error e) {
+                    failed(e);
+                    throw e;
+                }
+
+                for (final Listener listener : listeners) {
+                    try {
+                        listener.onRefresh(loaded);
+                    } catch (final RuntimeException e) {
+                        // A failing listener must not stop the schedule nor the other listeners
+                    }
+                }
+            }
+        }, table.get() == null ? 0 : delay, delay, unit);
+    }
+
+    private void failed(final Throwable error) {
+        lastError = error;
+        for (final Listener listener : listeners) {
+            try {
+                listener.onError(error);
+            } catch (final RuntimeException e) {
+                // A failing listener must not stop the schedule nor hide the failure from the other listeners
+            }
+        }
+    }
+
+    /**
+     * Stop refreshing the prices, the loaded prices remain available.
+     */
+    public synchronized void stop() {
+        if (schedule != null) {
+            schedule.cancel(false);
+            scheduler.shutdown();
+            schedule = null;
+            scheduler = null;
+        }
+    }
+
+    public synchronized boolean isStarted() {
+        return schedule != null;
+    }
+
+    /**
+     * Get the current prices.
+     *
+     * @return the last loaded prices, or null if none were loaded yet
+     */
+    public PriceTable getTable() {
+        return table.get();
+    }
+
+    /**
+     * Get the outbound call price of a number.
+     *
+     * @param number E.164 number
+     * @return price of the longest matching prefix, or null if no prefix matches
+     */
+    public PriceTable.Price getVoicePrice(final String number) {
+        return loaded().getVoicePrice(number);
+    }
+
+    /**
+     * Get the highest outbound message price of a number, whatever its carrier and type.
+     *
+     * @param number E.164 number
+     * @return price, or null if the country of the number has no messaging prices
+     */
+    public PriceTable.Price getMessagePrice(final String number) {
+        return loaded().getMessagePrice(number);
+    }
+
+    /**
+     * Get the highest outbound message price of a number of a given type, whatever its carrier.
+     *
+     * @param number E.164 number
+     * @param type type of the number
+     * @return price, or null if the country of the number has no messaging prices for that type
+     */
+    public PriceTable.Price getMessagePrice(final String number, final InboundSmsPrice.Type type) {
+        return loaded().getMessagePrice(number, type);
+    }
+
+    /**
+     * Get the time of the last successful refresh, to detect prices which stopped being updated.
+     *
+     * @return milliseconds since the epoch, or 0 if no refresh succeeded yet
+     */
+    public long getLastRefreshMillis() {
+        return lastRefreshMillis;
+    }
+
+    /**
+     * Get the failure of the last failed scheduled refresh.
+     *
+     * @return the failure, or null if no scheduled refresh failed
+     */
+    public Throwable getLastError() {
+        return lastError;
+    }
+
+    private PriceTable loaded() {
+        PriceTable current = table.get();
+        if (current == null) {
+            throw new IllegalStateException("Prices are not loaded yet");
+        }
+        return current;
+    }
+
+    public static class Builder {
+        private int parallelism = PriceTable.DEFAULT_PARALLELISM;
+
+        /**
+         * Set the maximum number of countries fetched at once.
+         *
+         * @param parallelism maximum number of concurrent fetches
+         * @return this
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Build new PriceIndex.
+         *
+         * @return PriceIndex instance
+         */
+        public PriceIndex build() {
+            return new PriceIndex(this);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.twilio.pricing;
+
+import com.twilio.Twilio;
+import com.twilio.base.Parallel;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.type.InboundSmsPrice;
+import com.twilio.type.OutboundPrefixPrice;
+import com.twilio.type.OutboundSmsPrice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable snapshot of the outbound voice and messaging prices of every country.
+ *
+ * <p>
+ *     The voice prefixes of every country are stored in a trie of E.164 digits, so the price of a number is found
+ *     by walking at most one node per digit of the number and keeping the longest matching prefix. The country of
+ *     that prefix gives the messaging prices, which are computed per number type when the table is built. Lookups
+ *     neither allocate nor make requests.
+ * </p>
+ */
+public class PriceTable {
+
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    private static final int DIGITS = 10;
+    private static final InboundSmsPrice.Type[] TYPES = InboundSmsPrice.Type.values();
+
+    /**
+     * Outbound price of a prefix or a country.
+     */
+    public static class Price {
+        private final String country;
+        private final String isoCountry;
+        private final String prefix;
+        private final String friendlyName;
+        private final double basePrice;
+        private final double currentPrice;
+        private final Currency priceUnit;
+
+        Price(
+            final String country,
+            final String isoCountry,
+            final String prefix,
+            final String friendlyName,
+            final double basePrice,
+            final double currentPrice,
+            final Currency priceUnit
+        ) {
+            this.country = country;
+            this.isoCountry = isoCountry;
+            this.prefix = prefix;
+            this.friendlyName = friendlyName;
+            this.basePrice = basePrice;
+            this.currentPrice = currentPrice;
+            this.priceUnit = priceUnit;
+        }
+
+        public String getCountry() {
+            return country;
+        }
+
+        public String getIsoCountry() {
+            return isoCountry;
+        }
+
+        /**
+         * Get the matched prefix.
+         *
+         * @return longest voice prefix matching the number
+         */
+        public String getPrefix() {
+            return prefix;
+        }
+
+        /**
+         * Get the name of the price.
+         *
+         * @return name of the voice prefix, or carrier of a messaging price
+         */
+        public String getFriendlyName() {
+            return friendlyName;
+        }
+
+        public double getBasePrice() {
+            return basePrice;
+        }
+
+        public double getCurrentPrice() {
+            return currentPrice;
+        }
+
+        public Currency getPriceUnit() {
+            return priceUnit;
+        }
+
+        @Override
+        public String toString() {
+            return isoCountry + " " + prefix + " " + friendlyName + ": " + currentPrice + " " + priceUnit;
+        }
+    }
+
+    // Node n has its children at n * DIGITS + digit, zero when absent since the root is no one's child
+    private final int[] children;
+    private final Price[] voicePrices;
+    private final Price[][] messagePrices;
+    private final int size;
+
+    private PriceTable(
+        final int[] children,
+        final Price[] voicePrices,
+        final Price[][] messagePrices,
+        final int size
+    ) {
+        this.children = children;
+        this.voicePrices = voicePrices;
+        this.messagePrices = messagePrices;
+        this.size = size;
+    }
+
+    /**
+     * Load the prices of every country using default client.
+     *
+     * @return price table
+     */
+    public static PriceTable load() {
+        return load(Twilio.getRestClient(), DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Load the prices of every country using specified client.
+     *
+     * <p>
+     *     The country lists do not include prices, so every country is then fetched, a bounded number at a time.
+     * </p>
+     *
+     * @param client client used to make requests
+     * @param parallelism maximum number of countries fetched at once
+     * @return price table
+     */
+    public static PriceTable load(final TwilioRestClient client, final int parallelism) {
+        final TreeSet<String> voiceCountries = new TreeSet<>();
+        for (final com.twilio.rest.pricing.v1.voice.Country country
+            : com.twilio.rest.pricing.v1.voice.Country.reader().read(client)) {
+            voiceCountries.add(country.getIsoCountry());
+        }
+        final TreeSet<String> messagingCountries = new TreeSet<>();
+        for (final com.twilio.rest.pricing.v1.messaging.Country country
+            : com.twilio.rest.pricing.v1.messaging.Country.reader().read(client)) {
+            messagingCountries.add(country.getIsoCountry());
+        }
+
+        TreeSet<String> isoCountries = new TreeSet<>(voiceCountries);
+        isoCountries.addAll(messagingCountries);
+        final Map<String, com.twilio.rest.pricing.v1.voice.Country> voice = new ConcurrentHashMap<>();
+        final Map<String, com.twilio.rest.pricing.v1.messaging.Country> messaging = new ConcurrentHashMap<>();
+        Parallel.forEach(isoCountries, parallelism, new Parallel.Task<String>() {
+            @Override
+            public void run(final String isoCountry) {
+                if (voiceCountries.contains(isoCountry)) {
+                    voice.put(isoCountry, com.twilio.rest.pricing.v1.voice.Country.fetcher(isoCountry).fetch(client));
+                }
+                if (messagingCountries.contains(isoCountry)) {
+                    messaging.put(
+                        isoCountry,
+                        com.twilio.rest.pricing.v1.messaging.Country.fetcher(isoCountry).fetch(client)
+                    );
+                }
+            }
+        });
+
+        return of(voice.values(), messaging.values());
+    }
+
+    /**
+     * Build a price table from fetched countries.
+     *
+     * <p>
+     *     When several countries share a prefix, the highest price is kept so estimates never fall short.
+     * </p>
+     *
+     * @param voiceCountries voice prices of the countries
+     * @param messagingCountries messaging prices of the countries
+     * @return price table
+     */
+    public static PriceTable of(
+        final Collection<com.twilio.rest.pricing.v1.voice.Country> voiceCountries,
+        final Collection<com.twilio.rest.pricing.v1.messaging.Country> messagingCountries
+    ) {
+        Map<String, Price[]> messagePricesByCountry = new HashMap<>();
+        for (final com.twilio.rest.pricing.v1.messaging.Country country : messagingCountries) {
+            messagePricesByCountry.put(country.getIsoCountry(), messagePricesOf(country));
+        }
+
+        int[] children = new int[DIGITS * 64];
+        List<Price> voicePrices = new ArrayList<>();
+        List<Price[]> messagePrices = new ArrayList<>();
+        int[] prices = new int[64];
+        Arrays.fill(prices, -1);
+        int nodes = 1;
+
+        for (final com.twilio.rest.pricing.v1.voice.Country country : voiceCountries) {
+            if (country.getOutboundPrefixPrices() == null) {
+                continue;
+            }
+            for (final OutboundPrefixPrice prefixPrice : country.getOutboundPrefixPrices()) {
+                if (prefixPrice.getPrefixes() == null) {
+                    continue;
+                }
+                for (final String prefix : prefixPrice.getPrefixes()) {
+                    int node = 0;
+                    for (int i = 0; i < prefix.length(); i++) {
+                        int digit = prefix.charAt(i) - '0';
+                        if (digit < 0 || digit >= DIGITS) {
+                            continue;
+                        }
+                        if (children[node * DIGITS + digit] == 0) {
+                            if (nodes == prices.length) {
+                                prices = Arrays.copyOf(prices, nodes * 2);
+                                Arrays.fill(prices, nodes, prices.length, -1);
+                                children = Arrays.copyOf(children, nodes * 2 * DIGITS);
+                            }
+                            children[node * DIGITS + digit] = nodes++;
+                        }
+                        node = children[node * DIGITS + digit];
+                    }
+
+                    int existing = prices[node];
+                    if (existing >= 0 && voicePrices.get(existing).getCurrentPrice() >= prefixPrice.getCurrentPrice()) {
+                        continue;
+                    }
+                    prices[node] = voicePrices.size();
+                    voicePrices.add(new Price(
+                        country.getCountry(),
+                        country.getIsoCountry(),
+                        prefix,
+                        prefixPrice.getFriendlyName(),
+                        prefixPrice.getBasePrice(),
+                        prefixPrice.getCurrentPrice(),
+                        country.getPriceUnit()
+                    ));
+                    messagePrices.add(messagePricesByCountry.get(country.getIsoCountry()));
+                }
+            }
+        }
+
+        // Store the prices by node, so a lookup reads a single array per digit
+        Price[] voiceByNode = new Price[nodes];
+        Price[][] messageByNode = new Price[nodes][];
+        int size = 0;
+        for (int node = 0; node < nodes; node++) {
+            if (prices[node] >= 0) {
+                voiceByNode[node] = voicePrices.get(prices[node]);
+                messageByNode[node] = messagePrices.get(prices[node]);
+                size++;
+            }
+        }
+        return new PriceTable(Arrays.copyOf(children, nodes * DIGITS), voiceByNode, messageByNode, size);
+    }
+
+    /**
+     * Compute the highest messaging price of every number type, and of any number type, over the carriers of a
+     * country.
+     */
+    private static Price[] messagePricesOf(final com.twilio.rest.pricing.v1.messaging.Country country) {
+        Price[] prices = new Price[TYPES.length + 1];
+        if (country.getOutboundSmsPrices() == null) {
+            return prices;
+        }
+        for (final OutboundSmsPrice carrier : country.getOutboundSmsPrices()) {
+            if (carrier.getPrices() == null) {
+                continue;
+            }
+            for (final InboundSmsPrice price : carrier.getPrices()) {
+                int index = price.getType() == null ? TYPES.length : price.getType().ordinal();
+                Price candidate = new Price(
+                    country.getCountry(),
+                    country.getIsoCountry(),
+                    null,
+                    carrier.getCarrier(),
+                    price.getBasePrice(),
+                    price.getCurrentPrice(),
+                    country.getPriceUnit()
+                );
+                if (prices[index] == null || prices[index].getCurrentPrice() < candidate.getCurrentPrice()) {
+                    prices[index] = candidate;
+                }
+                if (prices[TYPES.length] == null || prices[TYPES.length].getCurrentPrice() < candidate.getCurrentPrice()) {
+                    prices[TYPES.length] = candidate;
+                }
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * Find the node of the longest prefix of a number which has a price.
+     *
+     * @param number E.164 number, non digits are ignored
+     * @return node of the prefix, or -1 if no prefix matches
+     */
+    private int match(final String number) {
+        int node = 0;
+        int matched = -1;
+        for (int i = 0; i < number.length(); i++) {
+            int digit = number.charAt(i) - '0';
+            if (digit < 0 || digit >= DIGITS) {
+                continue;
+            }
+            node = children[node * DIGITS + digit];
+            if (node == 0) {
+                break;
+            }
+            if (voicePrices[node] != null) {
+                matched = node;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Get the outbound call price of a number.
+     *
+     * @param number E.164 number
+     * @return price of the longest matching prefix, or null if no prefix matches
+     */
+    public Price getVoicePrice(final String number) {
+        int node = match(number);
+        return node < 0 ? null : voicePrices[node];
+    }
+
+    /**
+     * Get the highest outbound message price of a number, whatever its carrier and type.
+     *
+     * @param number E.164 number
+     * @return price, or null if the country of the number has no messaging prices
+     */
+    public Price getMessagePrice(final String number) {
+        return getMessagePrice(number, TYPES.length);
+    }
+
+    /**
+     * Get the highest outbound message price of a number of a given type, whatever its carrier.
+     *
+     * @param number E.164 number
+     * @param type type of the number
+     * @return price, or null if the country of the number has no messaging prices for that type
+     */
+    public Price getMessagePrice(final String number, final InboundSmsPrice.Type type) {
+        return getMessagePrice(number, type.ordinal());
+    }
+
+    private Price getMessagePrice(final String number, final int index) {
+        int node = match(number);
+        if (node < 0 || messagePrices[node] == null) {
+            return null;
+        }
+        return messagePrices[node][index];
+    }
+
+    /**
+     * Get the number of voice prefixes.
+     *
+     * @return number of prefixes with a price
+     */
+    public int size() {
+        return size;
+    }
+}
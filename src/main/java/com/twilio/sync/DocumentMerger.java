@@ -0,0 +1,247 @@
+package com.twilio.sync;
+
+import com.twilio.Twilio;
+import com.twilio.converter.Converter;
+import com.twilio.exception.ApiConnectionException;
+import com.twilio.exception.ApiException;
+import com.twilio.exception.RestException;
+import com.twilio.http.HttpMethod;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.Domains;
+import com.twilio.rest.sync.v1.service.Document;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-modify-write updates of a Sync Document with optimistic concurrency.
+ *
+ * <p>
+ *     Every update is conditional on the revision the new data was computed from, so concurrent writers never
+ *     overwrite each other silently. When another writer changed the Document first, Sync rejects the update with
+ *     {@code 412 Precondition Failed}; the Document is then fetched again and the merge function reapplied to the
+ *     latest data, after an exponential backoff with jitter.
+ * </p>
+ *
+ * <p>
+ *     The condition is sent as the {@code If-Match} header of the update request, which the generated
+ *     {@code DocumentUpdater} does not expose.
+ * </p>
+ *
+ * <pre>
+ *     Document document = new DocumentMerger.Builder("IS123", "ET123").build().update(new DocumentMerger.Merge() {
+ *         public Map&lt;String, Object&gt; apply(Map&lt;String, Object&gt; data) {
+ *             Map&lt;String, Object&gt; merged = new HashMap&lt;&gt;(data);
+ *             merged.put("visits", ((Number) data.get("visits")).intValue() + 1);
+ *             return merged;
+ *         }
+ *     });
+ * </pre>
+ */
+public class DocumentMerger {
+
+    public static final int HTTP_STATUS_CODE_PRECONDITION_FAILED = 412;
+    public static final int DEFAULT_MAX_ATTEMPTS = 10;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 50;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 2000;
+
+    /**
+     * Computes the new data of a Document from its current data.
+     *
+     * <p>
+     *     The function may be applied several times for a single update, once per conflicting attempt, so it must not
+     *     have side effects.
+     * </p>
+     */
+    public interface Merge {
+
+        /**
+         * Compute the new data of the Document.
+         *
+         * @param data current data of the Document
+         * @return data to write, or null to leave the Document unchanged
+         */
+        Map<String, Object> apply(Map<String, Object> data);
+    }
+
+    private final String serviceSid;
+    private final String documentSid;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Random random = new Random();
+
+    private DocumentMerger(Builder b) {
+        this.serviceSid = b.serviceSid;
+        this.documentSid = b.documentSid;
+        this.maxAttempts = b.maxAttempts;
+        this.initialBackoffMillis = b.initialBackoffMillis;
+        this.maxBackoffMillis = b.maxBackoffMillis;
+    }
+
+    /**
+     * Apply a merge function to the Document using default client.
+     *
+     * @param merge function computing the new data
+     * @return the updated Document
+     */
+    public Document update(final Merge merge) {
+        return update(Twilio.getRestClient(), merge);
+    }
+
+    /**
+     * Apply a merge function to the Document using specified client, retrying on conflicting writes.
+     *
+     * @param client client used to make requests
+     * @param merge function computing the new data
+     * @return the updated Document, or the fetched one if the merge function left it unchanged
+     * @throws ApiException if the Document is still conflicting after the maximum number of attempts
+     */
+    public Document update(final TwilioRestClient client, final Merge merge) {
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            if (attempt > 0) {
+                backoff(attempt);
+            }
+
+            Document current = Document.fetcher(serviceSid, documentSid).fetch(client);
+            Map<String, Object> data = merge.apply(current.getData());
+            if (data == null) {
+                return current;
+            }
+
+            Document updated = compareAndSet(client, current.getRevision(), data);
+            if (updated != null) {
+                return updated;
+            }
+        }
+
+        throw new ApiException(
+            "Document " + documentSid + " update conflicted " + maxAttempts + " times",
+            null,
+            null,
+            HTTP_STATUS_CODE_PRECONDITION_FAILED,
+            null
+        );
+    }
+
+    /**
+     * Replace the data of the Document if it still has the expected revision, using specified client.
+     *
+     * @param client client used to make requests
+     * @param revision revision the new data was computed from
+     * @param data new data of the Document
+     * @return the updated Document, or null if the Document has another revision
+     */
+    public Document compareAndSet(final TwilioRestClient client, final String revision, final Map<String, Object> data) {
+        Request request = new Request(
+            HttpMethod.POST,
+            Domains.SYNC.toString(),
+            "/v1/Services/" + serviceSid + "/Documents/" + documentSid,
+            client.getRegion()
+        );
+        request.addPostParam("Data", Converter.mapToJson(data));
+        request.setHeader("If-Match", revision);
+        Response response = client.request(request);
+
+        if (response == null) {
+            throw new ApiConnectionException("Document update failed: Unable to connect to server");
+        } else if (response.getStatusCode() == HTTP_STATUS_CODE_PRECONDITION_FAILED) {
+            return null;
+        } else if (!TwilioRestClient.SUCCESS.apply(response.getStatusCode())) {
+            RestException restException = RestException.fromJson(response.getStream(), client.getObjectMapper());
+            if (restException == null) {
+                throw new ApiException("Server Error, no content");
+            }
+
+            throw new ApiException(
+                restException.getMessage(),
+                restException.getCode(),
+                restException.getMoreInfo(),
+                restException.getStatus(),
+                null
+            );
+        }
+
+        return Document.fromJson(response.getStream(), client.getObjectMapper());
+    }
+
+    private void backoff(final int attempt) {
+        // Full jitter keeps writers that conflicted together from retrying in lockstep
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        long millis = ceiling <= 0 ? 0 : (long) (random.nextDouble() * ceiling);
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Document " + documentSid + " update interrupted", e);
+        }
+    }
+
+    public String getServiceSid() {
+        return serviceSid;
+    }
+
+    public String getDocumentSid() {
+        return documentSid;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public static class Builder {
+        private final String serviceSid;
+        private final String documentSid;
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        private long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+        private long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+
+        /**
+         * Create a new DocumentMerger.
+         *
+         * @param serviceSid sid of the Sync Service
+         * @param documentSid sid or unique name of the Sync Document
+         */
+        public Builder(String serviceSid, String documentSid) {
+            this.serviceSid = serviceSid;
+            this.documentSid = documentSid;
+        }
+
+        /**
+         * Set the number of conflicting attempts after which an update fails.
+         *
+         * @param maxAttempts maximum number of update attempts
+         * @return this
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Set the bounds of the randomized exponential backoff between conflicting attempts.
+         *
+         * @param initial upper bound of the first backoff
+         * @param max upper bound of any backoff
+         * @param unit unit of the bounds
+         * @return this
+         */
+        public Builder backoff(long initial, long max, TimeUnit unit) {
+            this.initialBackoffMillis = unit.toMillis(initial);
+            this.maxBackoffMillis = unit.toMillis(max);
+            return this;
+        }
+
+        /**
+         * Build new DocumentMerger.
+         *
+         * @return DocumentMerger instance
+         */
+        public DocumentMerger build() {
+            return new DocumentMerger(this);
+        }
+    }
+}
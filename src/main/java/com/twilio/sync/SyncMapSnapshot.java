@@ -0,0 +1,284 @@
+package com.twilio.sync;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.twilio.Twilio;
+import com.twilio.base.Page;
+import com.twilio.exception.ApiException;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.sync.v1.service.SyncMap;
+import com.twilio.rest.sync.v1.service.syncmap.SyncMapItem;
+import com.twilio.rest.sync.v1.service.syncmap.SyncMapItemReader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * In-memory snapshot of the items of a Sync Map.
+ *
+ * <p>
+ *     The key space is split into ranges at a set of split keys. Each range is read with its own cursor, starting
+ *     {@code from} its split key and stopping at the next one, and the ranges are read in parallel. The loaded items
+ *     are kept in an immutable sorted map which can be read from any thread without locking.
+ * </p>
+ *
+ * <p>
+ *     Refreshing first compares the revision of the Sync Map with the one seen by the last load and only rescans the
+ *     map when it changed. Items whose revision did not change keep their previously loaded instance.
+ * </p>
+ */
+public class SyncMapSnapshot {
+
+    /**
+     * Split keys spreading printable ASCII keys over eleven ranges.
+     */
+    public static final List<String> DEFAULT_SPLIT_KEYS = ImmutableList.of(
+        "0", "5", "A", "H", "O", "V", "a", "h", "o", "v"
+    );
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /**
+     * Receives the items of a Sync Map as they are scanned.
+     *
+     * <p>
+     *     Ranges are scanned in parallel, so implementations must be thread safe.
+     * </p>
+     */
+    public interface ItemHandler {
+
+        /**
+         * Handle a scanned item.
+         *
+         * @param item item of the Sync Map
+         */
+        void onItem(SyncMapItem item);
+    }
+
+    private final String serviceSid;
+    private final String mapSid;
+    private final List<String> splitKeys;
+    private final int pageSize;
+
+    private volatile ImmutableSortedMap<String, SyncMapItem> items = ImmutableSortedMap.of();
+    private volatile String revision;
+
+    private SyncMapSnapshot(Builder b) {
+        this.serviceSid = b.serviceSid;
+        this.mapSid = b.mapSid;
+        this.splitKeys = ImmutableList.copyOf(new TreeSet<>(b.splitKeys));
+        this.pageSize = b.pageSize;
+    }
+
+    /**
+     * Load every item of the Sync Map using default client.
+     *
+     * @return this
+     */
+    public SyncMapSnapshot load() {
+        return load(Twilio.getRestClient());
+    }
+
+    /**
+     * Load every item of the Sync Map using specified client.
+     *
+     * @param client client used to make requests
+     * @return this
+     */
+    public SyncMapSnapshot load(final TwilioRestClient client) {
+        refresh(client);
+        return this;
+    }
+
+    /**
+     * Reload the items of the Sync Map if it changed since the last load, using default client.
+     *
+     * @return keys of the items which were added, updated or removed
+     */
+    public Set<String> refresh() {
+        return refresh(Twilio.getRestClient());
+    }
+
+    /**
+     * Reload the items of the Sync Map if it changed since the last load, using specified client.
+     *
+     * @param client client used to make requests
+     * @return keys of the items which were added, updated or removed
+     */
+    public synchronized Set<String> refresh(final TwilioRestClient client) {
+        // Read the revision before scanning so changes made during the scan are picked up by the next refresh
+        String latestRevision = SyncMap.fetcher(serviceSid, mapSid).fetch(client).getRevision();
+        if (latestRevision != null && latestRevision.equals(revision)) {
+            return Collections.emptySet();
+        }
+
+        final Map<String, SyncMapItem> scanned = new ConcurrentSkipListMap<>();
+        scan(client, new ItemHandler() {
+            @Override
+            public void onItem(final SyncMapItem item) {
+                scanned.put(item.getKey(), item);
+            }
+        });
+
+        Set<String> changed = new HashSet<>();
+        ImmutableSortedMap.Builder<String, SyncMapItem> builder = ImmutableSortedMap.naturalOrder();
+        for (final SyncMapItem item : scanned.values()) {
+            SyncMapItem previous = items.get(item.getKey());
+            if (previous != null && previous.getRevision() != null && previous.getRevision().equals(item.getRevision())) {
+                builder.put(item.getKey(), previous);
+            } else {
+                builder.put(item.getKey(), item);
+                changed.add(item.getKey());
+            }
+        }
+        for (final String key : items.keySet()) {
+            if (!scanned.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+
+        items = builder.build();
+        revision = latestRevision;
+        return changed;
+    }
+
+    /**
+     * Scan every item of the Sync Map without keeping them, using specified client.
+     *
+     * @param client client used to make requests
+     * @param handler handler receiving the items
+     */
+    public void scan(final TwilioRestClient client, final ItemHandler handler) {
+        List<ListenableFuture<Void>> ranges = new ArrayList<>();
+        for (int i = 0; i <= splitKeys.size(); i++) {
+            final String from = i == 0 ? null : splitKeys.get(i - 1);
+            final String to = i == splitKeys.size() ? null : splitKeys.get(i);
+            ranges.add(Twilio.getExecutorService().submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    scanRange(client, from, to, handler);
+                    return null;
+                }
+            }));
+        }
+
+        try {
+            Futures.allAsList(ranges).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Sync Map scan interrupted", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ApiException("Sync Map scan failed", e.getCause());
+        } finally {
+            for (final ListenableFuture<Void> range : ranges) {
+                range.cancel(true);
+            }
+        }
+    }
+
+    private void scanRange(
+        final TwilioRestClient client,
+        final String from,
+        final String to,
+        final ItemHandler handler
+    ) {
+        SyncMapItemReader reader = SyncMapItem.reader(serviceSid, mapSid).setOrder(SyncMapItem.QueryResultOrder.ASC);
+        if (from != null) {
+            reader.setFrom(from).setBounds(SyncMapItem.QueryFromBoundType.INCLUSIVE);
+        }
+        reader.pageSize(pageSize);
+
+        Page<SyncMapItem> page = reader.firstPage(client);
+        while (true) {
+            for (final SyncMapItem item : page.getRecords()) {
+                if (to != null && item.getKey().compareTo(to) >= 0) {
+                    return;
+                }
+                handler.onItem(item);
+            }
+
+            if (!page.hasNextPage()) {
+                return;
+            }
+            page = reader.nextPage(page, client);
+        }
+    }
+
+    /**
+     * Get the item with the given key.
+     *
+     * @param key key of the item
+     * @return the item, or null if the snapshot does not contain it
+     */
+    public SyncMapItem get(final String key) {
+        return items.get(key);
+    }
+
+    public ImmutableSortedMap<String, SyncMapItem> getItems() {
+        return items;
+    }
+
+    public String getRevision() {
+        return revision;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public static class Builder {
+        private final String serviceSid;
+        private final String mapSid;
+        private List<String> splitKeys = DEFAULT_SPLIT_KEYS;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+
+        /**
+         * Create a new SyncMapSnapshot.
+         *
+         * @param serviceSid sid of the Sync Service
+         * @param mapSid sid or unique name of the Sync Map
+         */
+        public Builder(String serviceSid, String mapSid) {
+            this.serviceSid = serviceSid;
+            this.mapSid = mapSid;
+        }
+
+        /**
+         * Set the keys at which the key space is split into ranges read in parallel.
+         *
+         * @param splitKeys first key of every range but the first
+         * @return this
+         */
+        public Builder splitKeys(List<String> splitKeys) {
+            this.splitKeys = splitKeys;
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Build new SyncMapSnapshot.
+         *
+         * @return SyncMapSnapshot instance
+         */
+        public SyncMapSnapshot build() {
+            return new SyncMapSnapshot(this);
+        }
+    }
+}
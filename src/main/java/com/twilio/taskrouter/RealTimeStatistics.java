@@ -0,0 +1,324 @@
+package com.twilio.taskrouter;
+
+import com.twilio.rest.taskrouter.v1.workspace.WorkspaceRealTimeStatistics;
+import com.twilio.rest.taskrouter.v1.workspace.taskqueue.TaskQueueRealTimeStatistics;
+import com.twilio.rest.taskrouter.v1.workspace.worker.WorkersRealTimeStatistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed snapshot of the real-time statistics of a Workspace, a TaskQueue or the Workers of a Workspace.
+ *
+ * <p>
+ *     The untyped statistics are read once into an array of counters indexed by {@link Field}, and the number of
+ *     Workers in every Activity into arrays indexed alike, so snapshots can be compared without walking maps.
+ *     Counters which the statistics do not report are zero.
+ * </p>
+ */
+public class RealTimeStatistics {
+
+    public enum Scope {
+        WORKSPACE,
+        TASK_QUEUE,
+        WORKERS
+    }
+
+    public enum Field {
+        TOTAL_TASKS("total_tasks"),
+        LONGEST_TASK_WAITING_AGE("longest_task_waiting_age"),
+        TOTAL_WORKERS("total_workers"),
+        TOTAL_AVAILABLE_WORKERS("total_available_workers"),
+        TOTAL_ELIGIBLE_WORKERS("total_eligible_workers"),
+        PENDING_TASKS("tasks_by_status.pending"),
+        RESERVED_TASKS("tasks_by_status.reserved"),
+        ASSIGNED_TASKS("tasks_by_status.assigned"),
+        WRAPPING_TASKS("tasks_by_status.wrapping"),
+        CANCELED_TASKS("tasks_by_status.canceled"),
+        COMPLETED_TASKS("tasks_by_status.completed");
+
+        private final String value;
+
+        private Field(final String value) {
+            this.value = value;
+        }
+
+        public String toString() {
+            return value;
+        }
+    }
+
+    private static final Field[] FIELDS = Field.values();
+    private static final String TASKS_BY_STATUS = "tasks_by_status.";
+
+    private final Scope scope;
+    private final String sid;
+    private final int[] values;
+    private final String[] activitySids;
+    private final String[] activityNames;
+    private final int[] activityWorkers;
+
+    private RealTimeStatistics(
+        final Scope scope,
+        final String sid,
+        final int[] values,
+        final List<Map<String, Object>> activityStatistics
+    ) {
+        this.scope = scope;
+        this.sid = sid;
+        this.values = values;
+
+        List<Map<String, Object>> activities = activityStatistics == null
+            ? Collections.<Map<String, Object>>emptyList()
+            : activityStatistics;
+        this.activitySids = new String[activities.size()];
+        this.activityNames = new String[activities.size()];
+        this.activityWorkers = new int[activities.size()];
+        for (int i = 0; i < activities.size(); i++) {
+            Map<String, Object> activity = activities.get(i);
+            activitySids[i] = String.valueOf(activity.get("sid"));
+            activityNames[i] = activity.get("friendly_name") == null ? null : activity.get("friendly_name").toString();
+            activityWorkers[i] = toInt(activity.get("workers"));
+        }
+    }
+
+    /**
+     * Create a snapshot of the real-time statistics of a Workspace.
+     *
+     * @param statistics statistics of the Workspace
+     * @return typed statistics
+     */
+    public static RealTimeStatistics of(final WorkspaceRealTimeStatistics statistics) {
+        int[] values = new int[FIELDS.length];
+        values[Field.TOTAL_TASKS.ordinal()] = toInt(statistics.getTotalTasks());
+        values[Field.LONGEST_TASK_WAITING_AGE.ordinal()] = toInt(statistics.getLongestTaskWaitingAge());
+        values[Field.TOTAL_WORKERS.ordinal()] = toInt(statistics.getTotalWorkers());
+        readTasksByStatus(statistics.getTasksByStatus(), values);
+        return new RealTimeStatistics(
+            Scope.WORKSPACE,
+            statistics.getWorkspaceSid(),
+            values,
+            statistics.getActivityStatistics()
+        );
+    }
+
+    /**
+     * Create a snapshot of the real-time statistics of a TaskQueue.
+     *
+     * @param statistics statistics of the TaskQueue
+     * @return typed statistics
+     */
+    public static RealTimeStatistics of(final TaskQueueRealTimeStatistics statistics) {
+        int[] values = new int[FIELDS.length];
+        values[Field.TOTAL_TASKS.ordinal()] = toInt(statistics.getTotalTasks());
+        values[Field.LONGEST_TASK_WAITING_AGE.ordinal()] = toInt(statistics.getLongestTaskWaitingAge());
+        values[Field.TOTAL_AVAILABLE_WORKERS.ordinal()] = toInt(statistics.getTotalAvailableWorkers());
+        values[Field.TOTAL_ELIGIBLE_WORKERS.ordinal()] = toInt(statistics.getTotalEligibleWorkers());
+        readTasksByStatus(statistics.getTasksByStatus(), values);
+        return new RealTimeStatistics(
+            Scope.TASK_QUEUE,
+            statistics.getTaskQueueSid(),
+            values,
+            statistics.getActivityStatistics()
+        );
+    }
+
+    /**
+     * Create a snapshot of the real-time statistics of the Workers of a Workspace.
+     *
+     * @param statistics statistics of the Workers
+     * @return typed statistics
+     */
+    public static RealTimeStatistics of(final WorkersRealTimeStatistics statistics) {
+        int[] values = new int[FIELDS.length];
+        values[Field.TOTAL_WORKERS.ordinal()] = toInt(statistics.getTotalWorkers());
+        return new RealTimeStatistics(
+            Scope.WORKERS,
+            statistics.getWorkspaceSid(),
+            values,
+            statistics.getActivityStatistics()
+        );
+    }
+
+    private static void readTasksByStatus(final Map<String, Object> tasksByStatus, final int[] values) {
+        if (tasksByStatus == null) {
+            return;
+        }
+        for (final Field field : FIELDS) {
+            if (field.toString().startsWith(TASKS_BY_STATUS)) {
+                values[field.ordinal()] = toInt(tasksByStatus.get(field.toString().substring(TASKS_BY_STATUS.length())));
+            }
+        }
+    }
+
+    private static int toInt(final Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt((String) value);
+            } catch (final NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Compare with the previous snapshot of the same statistics.
+     *
+     * @param previous previous snapshot, or null to report every counter
+     * @return the counters which changed
+     */
+    public List<Change> changesSince(final RealTimeStatistics previous) {
+        List<Change> changes = new ArrayList<>();
+        for (final Field field : FIELDS) {
+            int before = previous == null ? 0 : previous.values[field.ordinal()];
+            int after = values[field.ordinal()];
+            if (previous == null || before != after) {
+                changes.add(new Change(this, field.toString(), before, after));
+            }
+        }
+
+        for (int i = 0; i < activitySids.length; i++) {
+            int index = previous == null ? -1 : previous.activityIndex(activitySids[i]);
+            int before = index < 0 ? 0 : previous.activityWorkers[index];
+            if (previous == null || index < 0 || before != activityWorkers[i]) {
+                changes.add(new Change(this, activityField(activitySids[i]), before, activityWorkers[i]));
+            }
+        }
+        if (previous != null) {
+            for (int i = 0; i < previous.activitySids.length; i++) {
+                if (activityIndex(previous.activitySids[i]) < 0) {
+                    changes.add(new Change(this, activityField(previous.activitySids[i]), previous.activityWorkers[i], 0));
+                }
+            }
+        }
+
+        return changes;
+    }
+
+    private static String activityField(final String activitySid) {
+        return "activity_statistics." + activitySid;
+    }
+
+    private int activityIndex(final String activitySid) {
+        for (int i = 0; i < activitySids.length; i++) {
+            if (activitySids[i].equals(activitySid)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int get(final Field field) {
+        return values[field.ordinal()];
+    }
+
+    /**
+     * Get the number of Workers in an Activity.
+     *
+     * @param activitySid sid of the Activity
+     * @return number of Workers, zero if the Activity is not reported
+     */
+    public int getActivityWorkers(final String activitySid) {
+        int index = activityIndex(activitySid);
+        return index < 0 ? 0 : activityWorkers[index];
+    }
+
+    /**
+     * Get the friendly name of an Activity.
+     *
+     * @param activitySid sid of the Activity
+     * @return friendly name, or null if the Activity is not reported
+     */
+    public String getActivityName(final String activitySid) {
+        int index = activityIndex(activitySid);
+        return index < 0 ? null : activityNames[index];
+    }
+
+    public int getTotalTasks() {
+        return get(Field.TOTAL_TASKS);
+    }
+
+    public int getLongestTaskWaitingAge() {
+        return get(Field.LONGEST_TASK_WAITING_AGE);
+    }
+
+    public int getTotalWorkers() {
+        return get(Field.TOTAL_WORKERS);
+    }
+
+    public int getTotalAvailableWorkers() {
+        return get(Field.TOTAL_AVAILABLE_WORKERS);
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Get the sid of the Workspace or TaskQueue of the statistics.
+     *
+     * @return sid of the TaskQueue, or of the Workspace for Workspace and Workers statistics
+     */
+    public String getSid() {
+        return sid;
+    }
+
+    /**
+     * Change of a counter between two snapshots.
+     */
+    public static class Change {
+        private final Scope scope;
+        private final String sid;
+        private final String field;
+        private final int previous;
+        private final int current;
+
+        Change(final RealTimeStatistics statistics, final String field, final int previous, final int current) {
+            this.scope = statistics.scope;
+            this.sid = statistics.sid;
+            this.field = field;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        public Scope getScope() {
+            return scope;
+        }
+
+        public String getSid() {
+            return sid;
+        }
+
+        /**
+         * Get the name of the counter.
+         *
+         * @return name of a {@link Field}, or {@code activity_statistics.} followed by the sid of an Activity
+         */
+        public String getField() {
+            return field;
+        }
+
+        public int getPrevious() {
+            return previous;
+        }
+
+        public int getCurrent() {
+            return current;
+        }
+
+        public int getDelta() {
+            return current - previous;
+        }
+
+        @Override
+        public String toString() {
+            return scope + " " + sid + " " + field + ": " + previous + " -> " + current;
+        }
+    }
+}
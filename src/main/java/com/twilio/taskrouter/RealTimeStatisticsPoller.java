@@ -0,0 +1,390 @@
+package com.twilio.taskrouter;
+
+import com.google.common.collect.ImmutableList;
+import com.twilio.Twilio;
+import com.twilio.base.Parallel;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.taskrouter.v1.workspace.WorkspaceRealTimeStatistics;
+import com.twilio.rest.taskrouter.v1.workspace.WorkspaceRealTimeStatisticsFetcher;
+import com.twilio.rest.taskrouter.v1.workspace.taskqueue.TaskQueueRealTimeStatistics;
+import com.twilio.rest.taskrouter.v1.workspace.taskqueue.TaskQueueRealTimeStatisticsFetcher;
+import com.twilio.rest.taskrouter.v1.workspace.worker.WorkersRealTimeStatistics;
+import com.twilio.rest.taskrouter.v1.workspace.worker.WorkersRealTimeStatisticsFetcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the real-time statistics of a Workspace, its Workers and some of its TaskQueues, and publishes the counters
+ * which changed since the previous poll.
+ *
+ * <p>
+ *     Every poll fetches the statistics concurrently, a bounded number at a time, and compares them with the
+ *     snapshots of the previous poll. Listeners only receive the changed counters, once per poll, and are not
+ *     called when nothing changed. Scheduled polls run with a fixed delay, so a slow poll delays the next one
+ *     instead of piling up requests.
+ * </p>
+ *
+ * <pre>
+ *     RealTimeStatisticsPoller poller = new RealTimeStatisticsPoller.Builder("WS123")
+ *         .taskQueueSids(queueSids)
+ *         .build();
+ *     poller.addListener(new RealTimeStatisticsPoller.Listener() {
+ *         public void onChanges(List&lt;RealTimeStatistics.Change&gt; changes) {
+ *             wallboard.update(changes);
+ *         }
+ *         public void onError(Throwable error) {
+ *             wallboard.markStale(error);
+ *         }
+ *     });
+ *     poller.start(1, TimeUnit.SECONDS);
+ * </pre>
+ */
+public class RealTimeStatisticsPoller {
+
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    /**
+     * Receives the counters which changed during a poll.
+     */
+    public interface Listener {
+
+        /**
+         * Handle the changes of a poll.
+         *
+         * @param changes changed counters, never empty
+         */
+        void onChanges(List<RealTimeStatistics.Change> changes);
+
+        /**
+         * Handle the failure of a scheduled poll.
+         *
+         * <p>
+         *     The schedule keeps running after an exception, e.g. rate limiting, and stops after an error.
+         * </p>
+         *
+         * @param error exception or error thrown by the poll
+         */
+        void onError(Throwable error);
+    }
+
+    private final String workspaceSid;
+    private final List<String> taskQueueSids;
+    private final boolean workspace;
+    private final boolean workers;
+    private final String taskChannel;
+    private final int parallelism;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<String, RealTimeStatistics> snapshots = new ConcurrentHashMap<>();
+
+    private volatile long lastPollMillis;
+    private volatile Throwable lastError;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> schedule;
+
+    private RealTimeStatisticsPoller(Builder b) {
+        this.workspaceSid = b.workspaceSid;
+        this.taskQueueSids = ImmutableList.copyOf(b.taskQueueSids);
+        this.workspace = b.workspace;
+        this.workers = b.workers;
+        this.taskChannel = b.taskChannel;
+        this.parallelism = b.parallelism;
+    }
+
+    public void addListener(final Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(final Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Poll the statistics once using default client.
+     *
+     * @return the counters which changed since the previous poll
+     */
+    public List<RealTimeStatistics.Change> poll() {
+        return poll(Twilio.getRestClient());
+    }
+
+    /**
+     * Poll the statistics once using specified client, and publish the changes to the listeners.
+     *
+     * @param client client used to make requests
+     * @return the counters which changed since the previous poll
+     */
+    public synchronized List<RealTimeStatistics.Change> poll(final TwilioRestClient client) {
+        final List<RealTimeStatistics.Scope> scopes = new ArrayList<>();
+        final List<String> sids = new ArrayList<>();
+        if (workspace) {
+            scopes.add(RealTimeStatistics.Scope.WORKSPACE);
+            sids.add(workspaceSid);
+        }
+        if (workers) {
+            scopes.add(RealTimeStatistics.Scope.WORKERS);
+            sids.add(workspaceSid);
+        }
+        for (final String taskQueueSid : taskQueueSids) {
+            scopes.add(RealTimeStatistics.Scope.TASK_QUEUE);
+            sids.add(taskQueueSid);
+        }
+
+        final RealTimeStatistics[] fetched = new RealTimeStatistics[scopes.size()];
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < fetched.length; i++) {
+            indexes.add(i);
+        }
+        Parallel.forEach(indexes, parallelism, new Parallel.Task<Integer>() {
+            @Override
+            public void run(final Integer index) {
+                fetched[index] = fetch(client, scopes.get(index), sids.get(index));
+            }
+        });
+
+        List<RealTimeStatistics.Change> changes = new ArrayList<>();
+        for (int i = 0; i < fetched.length; i++) {
+            RealTimeStatistics previous = snapshots.put(keyFor(scopes.get(i), sids.get(i)), fetched[i]);
+            changes.addAll(fetched[i].changesSince(previous));
+        }
+
+        lastPollMillis = System.currentTimeMillis();
+        if (!changes.isEmpty()) {
+            List<RealTimeStatistics.Change> published = Collections.unmodifiableList(changes);
+            for (final Listener listener : listeners) {
+                listener.onChanges(published);
+            }
+        }
+        return changes;
+    }
+
+    private RealTimeStatistics fetch(
+        final TwilioRestClient client,
+        final RealTimeStatistics.Scope scope,
+        final String sid
+    ) {
+        switch (scope) {
+            case WORKSPACE:
+                WorkspaceRealTimeStatisticsFetcher workspaceFetcher = WorkspaceRealTimeStatistics.fetcher(sid);
+                if (taskChannel != null) {
+                    workspaceFetcher.setTaskChannel(taskChannel);
+                }
+                return RealTimeStatistics.of(workspaceFetcher.fetch(client));
+            case WORKERS:
+                WorkersRealTimeStatisticsFetcher workersFetcher = WorkersRealTimeStatistics.fetcher(sid);
+                if (taskChannel != null) {
+                    workersFetcher.setTaskChannel(taskChannel);
+                }
+                return RealTimeStatistics.of(workersFetcher.fetch(client));
+            default:
+                TaskQueueRealTimeStatisticsFetcher queueFetcher = TaskQueueRealTimeStatistics.fetcher(workspaceSid, sid);
+                if (taskChannel != null) {
+                    queueFetcher.setTaskChannel(taskChannel);
+                }
+                return RealTimeStatistics.of(queueFetcher.fetch(client));
+        }
+    }
+
+    /**
+     * Start polling the statistics on a schedule using default client.
+     *
+     * @param delay delay between the end of a poll and the start of the next one
+     * @param unit unit of the delay
+     */
+    public void start(final long delay, final TimeUnit unit) {
+        start(Twilio.getRestClient(), delay, unit);
+    }
+
+    /**
+     * Start polling the statistics on a schedule using specified client.
+     *
+     * <p>
+     *     A poll failing with an exception does not stop the schedule, the next poll compares with the last
+     *     successful one. Failures are passed to {@link Listener#onError(Throwable)} and kept as the last error.
+     * </p>
+     *
+     * @param client client used to make requests
+     * @param delay delay between the end of a poll and the start of the next one
+     * @param unit unit of the delay
+     */
+    public synchronized void start(final TwilioRestClient client, final long delay, final TimeUnit unit) {
+        if (schedule != null) {
+            throw new IllegalStateException("Poller of " + workspaceSid + " is already started");
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(runnable, "twilio-statistics-" + workspaceSid);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        schedule = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    poll(client);
+                } catch (final RuntimeException e) {
+                    // Keep polling, transient failures such as rate limiting are retried by the next poll
+                    failed(e);
+                } catch (final Error e) {
+                    failed(e);
+                    throw e;
+                }
+            }
+        }, 0, delay, unit);
+    }
+
+    private void failed(final Throwable error) {
+        lastError = error;
+        for (final Listener listener : listeners) {
+            try {
+                listener.onError(error);
+            } catch (final RuntimeException e) {
+                // A failing listener must not stop the schedule nor hide the failure from the other listeners
+            }
+        }
+    }
+
+    /**
+     * Stop polling the statistics.
+     */
+    public synchronized void stop() {
+        if (schedule != null) {
+            schedule.cancel(false);
+            scheduler.shutdown();
+            schedule = null;
+            scheduler = null;
+        }
+    }
+
+    public synchronized boolean isStarted() {
+        return schedule != null;
+    }
+
+    /**
+     * Get the statistics of the last poll.
+     *
+     * @param scope scope of the statistics
+     * @param sid sid of the TaskQueue, or of the Workspace for Workspace and Workers statistics
+     * @return the statistics, or null if they were not polled yet
+     */
+    public RealTimeStatistics getStatistics(final RealTimeStatistics.Scope scope, final String sid) {
+        return snapshots.get(keyFor(scope, sid));
+    }
+
+    /**
+     * Get the time of the last successful poll, to detect statistics which stopped being updated.
+     *
+     * @return milliseconds since the epoch, or 0 if no poll succeeded yet
+     */
+    public long getLastPollMillis() {
+        return lastPollMillis;
+    }
+
+    /**
+     * Get the failure of the last failed scheduled poll.
+     *
+     * @return the failure, or null if no scheduled poll failed
+     */
+    public Throwable getLastError() {
+        return lastError;
+    }
+
+    private static String keyFor(final RealTimeStatistics.Scope scope, final String sid) {
+        return scope + " " + sid;
+    }
+
+    public String getWorkspaceSid() {
+        return workspaceSid;
+    }
+
+    public List<String> getTaskQueueSids() {
+        return taskQueueSids;
+    }
+
+    public static class Builder {
+        private final String workspaceSid;
+        private List<String> taskQueueSids = Collections.emptyList();
+        private boolean workspace = true;
+        private boolean workers = true;
+        private String taskChannel;
+        private int parallelism = DEFAULT_PARALLELISM;
+
+        /**
+         * Create a new RealTimeStatisticsPoller.
+         *
+         * @param workspaceSid sid of the Workspace
+         */
+        public Builder(String workspaceSid) {
+            this.workspaceSid = workspaceSid;
+        }
+
+        public Builder taskQueueSids(List<String> taskQueueSids) {
+            this.taskQueueSids = taskQueueSids;
+            return this;
+        }
+
+        /**
+         * Poll the statistics of the Workspace.
+         *
+         * @param workspace true to poll the Workspace statistics
+         * @return this
+         */
+        public Builder workspace(boolean workspace) {
+            this.workspace = workspace;
+            return this;
+        }
+
+        /**
+         * Poll the statistics of the Workers of the Workspace.
+         *
+         * @param workers true to poll the Workers statistics
+         * @return this
+         */
+        public Builder workers(boolean workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Filter the statistics by TaskChannel.
+         *
+         * @param taskChannel unique name or sid of the TaskChannel
+         * @return this
+         */
+        public Builder taskChannel(String taskChannel) {
+            this.taskChannel = taskChannel;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of statistics fetched at once.
+         *
+         * @param parallelism maximum number of concurrent fetches
+         * @return this
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Build new RealTimeStatisticsPoller.
+         *
+         * @return RealTimeStatisticsPoller instance
+         */
+        public RealTimeStatisticsPoller build() {
+            return new RealTimeStatisticsPoller(this);
+        }
+    }
+}
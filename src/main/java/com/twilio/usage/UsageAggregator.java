@@ -0,0 +1,212 @@
+package com.twilio.usage;
+
+import com.google.common.collect.ImmutableList;
+import com.twilio.Twilio;
+import com.twilio.base.Page;
+import com.twilio.base.Parallel;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.usage.record.Daily;
+import com.twilio.rest.api.v2010.account.usage.record.DailyReader;
+import org.joda.time.LocalDate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Aggregates the daily usage records of accounts into a {@link UsageSummary}.
+ *
+ * <p>
+ *     The usage of every account and usage category is read with its own reader, and a bounded number of readers
+ *     run in parallel. Each page of records is folded into the summary as soon as it is read, so no more than one page
+ *     per reader is held in memory whatever the number of accounts, categories and days.
+ * </p>
+ *
+ * <pre>
+ *     UsageSummary summary = new UsageAggregator.Builder(new LocalDate(2017, 1, 1), new LocalDate(2017, 1, 31))
+ *         .accountSids(subaccountSids)
+ *         .categories(ImmutableList.of(Daily.Category.SMS, Daily.Category.CALLS))
+ *         .build()
+ *         .aggregate();
+ * </pre>
+ */
+public class UsageAggregator {
+
+    public static final int DEFAULT_PARALLELISM = 8;
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final List<String> accountSids;
+    private final List<Daily.Category> categories;
+    private final Boolean includeSubaccounts;
+    private final int parallelism;
+    private final int pageSize;
+
+    private UsageAggregator(Builder b) {
+        this.startDate = b.startDate;
+        this.endDate = b.endDate;
+        this.accountSids = ImmutableList.copyOf(b.accountSids);
+        this.categories = ImmutableList.copyOf(b.categories);
+        this.includeSubaccounts = b.includeSubaccounts;
+        this.parallelism = b.parallelism;
+        this.pageSize = b.pageSize;
+    }
+
+    /**
+     * Aggregate the usage using default client.
+     *
+     * @return usage summary
+     */
+    public UsageSummary aggregate() {
+        return aggregate(Twilio.getRestClient());
+    }
+
+    /**
+     * Aggregate the usage using specified client.
+     *
+     * @param client client used to make requests
+     * @return usage summary
+     */
+    public UsageSummary aggregate(final TwilioRestClient client) {
+        final UsageSummary summary = new UsageSummary(startDate, endDate);
+
+        // A null account reads the account of the client, a null category every category
+        List<String> accounts = accountSids.isEmpty() ? Collections.<String>singletonList(null) : accountSids;
+        List<Daily.Category> reads = categories.isEmpty() ? Collections.<Daily.Category>singletonList(null) : categories;
+        List<DailyReader> readers = new ArrayList<>();
+        for (final String accountSid : accounts) {
+            for (final Daily.Category category : reads) {
+                readers.add(readerFor(accountSid, category));
+            }
+        }
+
+        Parallel.forEach(readers, parallelism, new Parallel.Task<DailyReader>() {
+            @Override
+            public void run(final DailyReader reader) {
+                read(client, reader, summary);
+            }
+        });
+
+        return summary;
+    }
+
+    private DailyReader readerFor(final String accountSid, final Daily.Category category) {
+        DailyReader reader = accountSid == null ? Daily.reader() : Daily.reader(accountSid);
+        reader.setStartDate(startDate).setEndDate(endDate);
+        if (category != null) {
+            reader.setCategory(category);
+        }
+        if (includeSubaccounts != null) {
+            reader.setIncludeSubaccounts(includeSubaccounts);
+        }
+        reader.pageSize(pageSize);
+        return reader;
+    }
+
+    private static void read(final TwilioRestClient client, final DailyReader reader, final UsageSummary summary) {
+        Page<Daily> page = reader.firstPage(client);
+        while (true) {
+            summary.add(page.getRecords());
+            if (!page.hasNextPage()) {
+                return;
+            }
+            page = reader.nextPage(page, client);
+        }
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public List<String> getAccountSids() {
+        return accountSids;
+    }
+
+    public List<Daily.Category> getCategories() {
+        return categories;
+    }
+
+    public static class Builder {
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private List<String> accountSids = Collections.emptyList();
+        private List<Daily.Category> categories = Collections.emptyList();
+        private Boolean includeSubaccounts;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+
+        /**
+         * Create a new UsageAggregator.
+         *
+         * @param startDate first day of usage, inclusive
+         * @param endDate last day of usage, inclusive
+         */
+        public Builder(LocalDate startDate, LocalDate endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        /**
+         * Set the accounts whose usage is read, e.g. the subaccounts of the main account.
+         *
+         * @param accountSids sids of the accounts, the account of the client if empty
+         * @return this
+         */
+        public Builder accountSids(List<String> accountSids) {
+            this.accountSids = accountSids;
+            return this;
+        }
+
+        /**
+         * Set the usage categories which are read, each with its own reader.
+         *
+         * @param categories usage categories, every category with a single reader if empty
+         * @return this
+         */
+        public Builder categories(List<Daily.Category> categories) {
+            this.categories = categories;
+            return this;
+        }
+
+        /**
+         * Include the usage of the subaccounts of every account in its own usage records.
+         *
+         * @param includeSubaccounts true to include the usage of subaccounts
+         * @return this
+         */
+        public Builder includeSubaccounts(Boolean includeSubaccounts) {
+            this.includeSubaccounts = includeSubaccounts;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of readers running in parallel.
+         *
+         * @param parallelism maximum number of concurrent reads
+         * @return this
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Build new UsageAggregator.
+         *
+         * @return UsageAggregator instance
+         */
+        public UsageAggregator build() {
+            return new UsageAggregator(this);
+        }
+    }
+}
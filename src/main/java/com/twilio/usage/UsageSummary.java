@@ -0,0 +1,302 @@
+package com.twilio.usage;
+
+import com.twilio.exception.ApiException;
+import com.twilio.rest.api.v2010.account.usage.record.Daily;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Daily usage of one or more accounts, summed per usage category.
+ *
+ * <p>
+ *     Values are stored in columns of primitive arrays indexed by category ordinal and day, instead of keeping the
+ *     usage records they were computed from. Prices are summed exactly, in millionths of the price unit, and every
+ *     record must be priced in the same currency.
+ * </p>
+ */
+public class UsageSummary {
+
+    /**
+     * Number of decimal places kept for prices.
+     */
+    public static final int PRICE_SCALE = 6;
+
+    private static final Daily.Category[] CATEGORIES = Daily.Category.values();
+
+    /**
+     * Categories named after another category without being part of it, e.g. the fees of the messaging features
+     * are charged on top of the messages.
+     */
+    private static final Set<Daily.Category> NOT_CHILDREN = EnumSet.of(Daily.Category.SMS_MESSAGES_FEATURES);
+
+    private static final Map<Daily.Category, Daily.Category> PARENTS = parents();
+
+    private final LocalDate startDate;
+    private final int days;
+    private final long[] priceMicros;
+    private final double[] usage;
+    private final long[] count;
+    private final boolean[] present;
+    private Currency priceUnit;
+    private long records;
+
+    UsageSummary(final LocalDate startDate, final LocalDate endDate) {
+        this.startDate = startDate;
+        this.days = Days.daysBetween(startDate, endDate).getDays() + 1;
+        if (days <= 0) {
+            throw new IllegalArgumentException("End date " + endDate + " is before start date " + startDate);
+        }
+
+        this.priceMicros = new long[CATEGORIES.length * days];
+        this.usage = new double[CATEGORIES.length * days];
+        this.count = new long[CATEGORIES.length * days];
+        this.present = new boolean[CATEGORIES.length];
+    }
+
+    /**
+     * Fold a page of daily usage records into the summary.
+     *
+     * @param page usage records
+     */
+    synchronized void add(final List<Daily> page) {
+        for (final Daily record : page) {
+            if (record.getCategory() == null || record.getStartDate() == null) {
+                continue;
+            }
+
+            int day = Days.daysBetween(startDate, record.getStartDate()).getDays();
+            if (day < 0 || day >= days) {
+                continue;
+            }
+
+            Currency unit = record.getPriceUnit();
+            if (unit != null && priceUnit != null && !unit.equals(priceUnit)) {
+                throw new ApiException(
+                    "Usage of " + record.getCategory() + " is priced in " + unit + " while other usage is priced in "
+                        + priceUnit + ", prices in different currencies can not be summed"
+                );
+            }
+            if (priceUnit == null) {
+                priceUnit = unit;
+            }
+
+            int ordinal = record.getCategory().ordinal();
+            int index = ordinal * days + day;
+            if (record.getPrice() != null) {
+                priceMicros[index] += record.getPrice().setScale(PRICE_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+            }
+            usage[index] += parse(record.getUsage());
+            count[index] += Math.round(parse(record.getCount()));
+            present[ordinal] = true;
+
+            records++;
+        }
+    }
+
+    /**
+     * Map every category to its parent, the longest other category whose name followed by a dash starts its name.
+     */
+    private static Map<Daily.Category, Daily.Category> parents() {
+        Map<Daily.Category, Daily.Category> parents = new EnumMap<>(Daily.Category.class);
+        for (final Daily.Category category : CATEGORIES) {
+            if (NOT_CHILDREN.contains(category)) {
+                continue;
+            }
+
+            Daily.Category parent = null;
+            for (final Daily.Category candidate : CATEGORIES) {
+                if (category.toString().startsWith(candidate.toString() + "-")
+                    && (parent == null || candidate.toString().length() > parent.toString().length())) {
+                    parent = candidate;
+                }
+            }
+            if (parent != null) {
+                parents.put(category, parent);
+            }
+        }
+        return parents;
+    }
+
+    private static double parse(final String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private int index(final Daily.Category category, final LocalDate date) {
+        int day = Days.daysBetween(startDate, date).getDays();
+        if (day < 0 || day >= days) {
+            throw new IllegalArgumentException(date + " is outside of the summarized dates");
+        }
+        return category.ordinal() * days + day;
+    }
+
+    /**
+     * Get the usage categories with at least one usage record.
+     *
+     * @return usage categories in declaration order
+     */
+    public synchronized List<Daily.Category> getCategories() {
+        List<Daily.Category> categories = new ArrayList<>();
+        for (int i = 0; i < present.length; i++) {
+            if (present[i]) {
+                categories.add(CATEGORIES[i]);
+            }
+        }
+        return categories;
+    }
+
+    public synchronized BigDecimal getPrice(final Daily.Category category, final LocalDate date) {
+        return BigDecimal.valueOf(priceMicros[index(category, date)], PRICE_SCALE);
+    }
+
+    public synchronized double getUsage(final Daily.Category category, final LocalDate date) {
+        return usage[index(category, date)];
+    }
+
+    public synchronized long getCount(final Daily.Category category, final LocalDate date) {
+        return count[index(category, date)];
+    }
+
+    /**
+     * Get the price of a usage category over every summarized day.
+     *
+     * @param category usage category
+     * @return total price
+     */
+    public synchronized BigDecimal getTotalPrice(final Daily.Category category) {
+        long total = 0;
+        int offset = category.ordinal() * days;
+        for (int day = 0; day < days; day++) {
+            total += priceMicros[offset + day];
+        }
+        return BigDecimal.valueOf(total, PRICE_SCALE);
+    }
+
+    /**
+     * Get the price of every usage category over every summarized day.
+     *
+     * <p>
+     *     Parent categories such as calls already include the price of their children such as calls-inbound, and
+     *     totalprice includes every category. The total is therefore the totalprice category when it was read, and
+     *     otherwise the sum of the categories which have no descendant category in the summary. A category is the
+     *     child of the longest category whose name followed by a dash starts its name, except for the few categories
+     *     which are not part of the category they are named after, such as sms-messages-features.
+     * </p>
+     *
+     * @return total price
+     */
+    public synchronized BigDecimal getTotalPrice() {
+        if (present[Daily.Category.TOTALPRICE.ordinal()]) {
+            return getTotalPrice(Daily.Category.TOTALPRICE);
+        }
+
+        long total = 0;
+        for (int i = 0; i < present.length; i++) {
+            if (!present[i] || hasChild(CATEGORIES[i])) {
+                continue;
+            }
+            int offset = i * days;
+            for (int day = 0; day < days; day++) {
+                total += priceMicros[offset + day];
+            }
+        }
+        return BigDecimal.valueOf(total, PRICE_SCALE);
+    }
+
+    private boolean hasChild(final Daily.Category category) {
+        for (int i = 0; i < present.length; i++) {
+            if (!present[i]) {
+                continue;
+            }
+            for (Daily.Category parent = PARENTS.get(CATEGORIES[i]); parent != null; parent = PARENTS.get(parent)) {
+                if (parent == category) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public synchronized double getTotalUsage(final Daily.Category category) {
+        double total = 0;
+        int offset = category.ordinal() * days;
+        for (int day = 0; day < days; day++) {
+            total += usage[offset + day];
+        }
+        return total;
+    }
+
+    public synchronized long getTotalCount(final Daily.Category category) {
+        long total = 0;
+        int offset = category.ordinal() * days;
+        for (int day = 0; day < days; day++) {
+            total += count[offset + day];
+        }
+        return total;
+    }
+
+    /**
+     * Get the daily usage of a category.
+     *
+     * @param category usage category
+     * @return usage of every summarized day, starting at the start date
+     */
+    public synchronized double[] getDailyUsage(final Daily.Category category) {
+        double[] daily = new double[days];
+        System.arraycopy(usage, category.ordinal() * days, daily, 0, days);
+        return daily;
+    }
+
+    /**
+     * Get the daily count of a category.
+     *
+     * @param category usage category
+     * @return count of every summarized day, starting at the start date
+     */
+    public synchronized long[] getDailyCount(final Daily.Category category) {
+        long[] daily = new long[days];
+        System.arraycopy(count, category.ordinal() * days, daily, 0, days);
+        return daily;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return startDate.plusDays(days - 1);
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public synchronized Currency getPriceUnit() {
+        return priceUnit;
+    }
+
+    /**
+     * Get the number of usage records folded into the summary.
+     *
+     * @return number of usage records
+     */
+    public synchronized long getRecords() {
+        return records;
+    }
+}
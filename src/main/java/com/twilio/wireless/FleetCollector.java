@@ -0,0 +1,307 @@
+package com.twilio.wireless;
+
+import com.twilio.Twilio;
+import com.twilio.base.Page;
+import com.twilio.base.Parallel;
+import com.twilio.converter.DateConverter;
+import com.twilio.exception.TwilioException;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.wireless.v1.Sim;
+import com.twilio.rest.wireless.v1.SimReader;
+import com.twilio.rest.wireless.v1.sim.DataSession;
+import com.twilio.rest.wireless.v1.sim.DataSessionReader;
+import com.twilio.rest.wireless.v1.sim.UsageRecord;
+import com.twilio.rest.wireless.v1.sim.UsageRecordReader;
+import org.joda.time.DateTime;
+
+import java.util.Map;
+
+/**
+ * Collects the usage records and data sessions of a fleet of SIMs into a {@link FleetUsage}.
+ *
+ * <p>
+ *     The SIMs are read lazily and a bounded number of them are collected at once, each with its own usage record
+ *     and data session readers. The counters of a SIM are folded into the summary, and passed to the listener, as
+ *     soon as the SIM is collected, so no more than one page per reader is held in memory whatever the size of the
+ *     fleet. A SIM whose usage could not be read is reported as a failure without stopping the others.
+ * </p>
+ *
+ * <p>
+ *     Usage records and data sessions which started before the window count in its first bucket, e.g. the daily
+ *     record of the whole first day when the window starts at 12:30.
+ * </p>
+ *
+ * <pre>
+ *     FleetUsage usage = new FleetCollector.Builder(start, start.plusDays(1))
+ *         .sims(Sim.reader().setStatus(Sim.Status.ACTIVE))
+ *         .granularity(UsageRecord.Granularity.HOURLY)
+ *         .build()
+ *         .collect();
+ *     long download = usage.getTotal(FleetUsage.Counter.DATA_DOWNLOAD);
+ * </pre>
+ */
+public class FleetCollector {
+
+    public static final int DEFAULT_PARALLELISM = 32;
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /**
+     * Receives the usage of every SIM as soon as it is collected.
+     */
+    public interface Listener {
+
+        /**
+         * Called with the usage of a SIM, from the thread which collected it.
+         *
+         * @param usage usage of the SIM
+         */
+        void onSim(SimUsage usage);
+    }
+
+    private final DateTime start;
+    private final DateTime end;
+    private final SimReader sims;
+    private final UsageRecord.Granularity granularity;
+    private final boolean dataSessions;
+    private final int parallelism;
+    private final int pageSize;
+    private final Listener listener;
+
+    private FleetCollector(Builder b) {
+        this.start = b.start;
+        this.end = b.end;
+        this.sims = b.sims;
+        this.granularity = b.granularity;
+        this.dataSessions = b.dataSessions;
+        this.parallelism = b.parallelism;
+        this.pageSize = b.pageSize;
+        this.listener = b.listener;
+    }
+
+    /**
+     * Collect the usage of the fleet using default client.
+     *
+     * @return fleet usage
+     */
+    public FleetUsage collect() {
+        return collect(Twilio.getRestClient());
+    }
+
+    /**
+     * Collect the usage of the fleet using specified client.
+     *
+     * @param client client used to make requests
+     * @return fleet usage
+     */
+    public FleetUsage collect(final TwilioRestClient client) {
+        final FleetUsage usage = new FleetUsage(start, end, granularity);
+        SimReader reader = sims == null ? Sim.reader() : sims;
+        reader.pageSize(pageSize);
+
+        Parallel.forEach(reader.read(client), parallelism, new Parallel.Task<Sim>() {
+            @Override
+            public void run(final Sim sim) {
+                SimUsage simUsage = new SimUsage(sim.getSid(), sim.getRatePlanSid(), usage.getBuckets());
+                try {
+                    readUsage(client, simUsage, usage);
+                    if (dataSessions) {
+                        readSessions(client, simUsage, usage);
+                    }
+                } catch (final TwilioException e) {
+                    usage.fail(sim.getSid(), e);
+                    return;
+                }
+
+                usage.add(simUsage);
+                if (listener != null) {
+                    listener.onSim(simUsage);
+                }
+            }
+        });
+
+        return usage;
+    }
+
+    private void readUsage(final TwilioRestClient client, final SimUsage simUsage, final FleetUsage usage) {
+        UsageRecordReader reader = UsageRecord.reader(simUsage.getSimSid())
+            .setStart(start)
+            .setEnd(end)
+            .setGranularity(granularity);
+        reader.pageSize(pageSize);
+
+        Page<UsageRecord> page = reader.firstPage(client);
+        while (true) {
+            for (final UsageRecord record : page.getRecords()) {
+                // Records which started before the window, e.g. when it is not aligned on the granularity, count in
+                // its first bucket like sessions
+                DateTime periodStart = start(record.getPeriod());
+                int bucket = periodStart != null && periodStart.isBefore(start) ? 0 : usage.bucket(periodStart);
+                if (bucket < 0) {
+                    continue;
+                }
+
+                simUsage.add(FleetUsage.Counter.COMMANDS_FROM_SIM, bucket, count(record.getCommands(), "from_sim"));
+                simUsage.add(FleetUsage.Counter.COMMANDS_TO_SIM, bucket, count(record.getCommands(), "to_sim"));
+                simUsage.add(FleetUsage.Counter.DATA_UPLOAD, bucket, count(record.getData(), "upload"));
+                simUsage.add(FleetUsage.Counter.DATA_DOWNLOAD, bucket, count(record.getData(), "download"));
+                simUsage.addRecord();
+            }
+            if (!page.hasNextPage()) {
+                return;
+            }
+            page = reader.nextPage(page, client);
+        }
+    }
+
+    private void readSessions(final TwilioRestClient client, final SimUsage simUsage, final FleetUsage usage) {
+        DataSessionReader reader = DataSession.reader(simUsage.getSimSid()).setStart(start).setEnd(end);
+        reader.pageSize(pageSize);
+
+        Page<DataSession> page = reader.firstPage(client);
+        while (true) {
+            for (final DataSession session : page.getRecords()) {
+                // Sessions which started before the window count in its first bucket
+                DateTime sessionStart = session.getStart();
+                int bucket = sessionStart == null || sessionStart.isBefore(start) ? 0 : usage.bucket(sessionStart);
+                if (bucket < 0) {
+                    continue;
+                }
+
+                simUsage.add(FleetUsage.Counter.DATA_SESSIONS, bucket, 1);
+                simUsage.add(FleetUsage.Counter.PACKETS_UPLOADED, bucket, value(session.getPacketsUploaded()));
+                simUsage.add(FleetUsage.Counter.PACKETS_DOWNLOADED, bucket, value(session.getPacketsDownloaded()));
+            }
+            if (!page.hasNextPage()) {
+                return;
+            }
+            page = reader.nextPage(page, client);
+        }
+    }
+
+    private static DateTime start(final Map<String, Object> period) {
+        Object value = period == null ? null : period.get("start");
+        return value == null ? null : DateConverter.iso8601DateTimeFromString(value.toString());
+    }
+
+    private static long count(final Map<String, Object> values, final String key) {
+        Object value = values == null ? null : values.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long value(final Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    public DateTime getStart() {
+        return start;
+    }
+
+    public DateTime getEnd() {
+        return end;
+    }
+
+    public UsageRecord.Granularity getGranularity() {
+        return granularity;
+    }
+
+    public static class Builder {
+        private final DateTime start;
+        private final DateTime end;
+        private SimReader sims;
+        private UsageRecord.Granularity granularity = UsageRecord.Granularity.DAILY;
+        private boolean dataSessions = true;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+        private Listener listener;
+
+        /**
+         * Create a new FleetCollector.
+         *
+         * @param start start of the window, inclusive
+         * @param end end of the window, exclusive
+         */
+        public Builder(DateTime start, DateTime end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Set the SIMs whose usage is collected, e.g. the active SIMs of a rate plan.
+         *
+         * @param sims query of the SIMs, every SIM of the account if not set
+         * @return this
+         */
+        public Builder sims(SimReader sims) {
+            this.sims = sims;
+            return this;
+        }
+
+        /**
+         * Set the width of the time buckets, which is also the granularity of the usage records read.
+         *
+         * @param granularity hourly, daily or all for a single bucket
+         * @return this
+         */
+        public Builder granularity(UsageRecord.Granularity granularity) {
+            this.granularity = granularity;
+            return this;
+        }
+
+        /**
+         * Set whether the data sessions of every SIM are read, which costs at least one more request per SIM.
+         *
+         * @param dataSessions true to count data sessions and packets
+         * @return this
+         */
+        public Builder dataSessions(boolean dataSessions) {
+            this.dataSessions = dataSessions;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of SIMs collected in parallel.
+         *
+         * @param parallelism maximum number of concurrent SIMs
+         * @return this
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Stream the usage of every SIM as it is collected.
+         *
+         * @param listener listener called concurrently by the collecting threads
+         * @return this
+         */
+        public Builder listener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Build new FleetCollector.
+         *
+         * @return FleetCollector instance
+         */
+        public FleetCollector build() {
+            return new FleetCollector(this);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.twilio.wireless;
+
+import com.google.common.collect.ImmutableMap;
+import com.twilio.exception.TwilioException;
+import com.twilio.rest.wireless.v1.sim.UsageRecord;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Usage and data sessions of a fleet of SIMs, summed per rate plan and time bucket.
+ *
+ * <p>
+ *     Every rate plan has a column of primitive counters per time bucket, so the summary stays the same size whatever
+ *     the number of SIMs, usage records and data sessions folded into it. The buckets start at the start of the
+ *     window and are one hour, one day or the whole window wide.
+ * </p>
+ */
+public class FleetUsage {
+
+    /**
+     * Counter summed for every rate plan and time bucket.
+     */
+    public enum Counter {
+        COMMANDS_FROM_SIM,
+        COMMANDS_TO_SIM,
+        DATA_UPLOAD,
+        DATA_DOWNLOAD,
+        DATA_SESSIONS,
+        PACKETS_UPLOADED,
+        PACKETS_DOWNLOADED
+    }
+
+    static final int COUNTERS = Counter.values().length;
+
+    private final DateTime start;
+    private final DateTime end;
+    private final long bucketMillis;
+    private final int buckets;
+    private final Map<String, long[]> counters = new HashMap<>();
+    private final Map<String, Integer> sims = new HashMap<>();
+    private final Map<String, TwilioException> failures = new HashMap<>();
+    private long records;
+
+    FleetUsage(final DateTime start, final DateTime end, final UsageRecord.Granularity granularity) {
+        long window = new Duration(start, end).getMillis();
+        if (window <= 0) {
+            throw new IllegalArgumentException("End " + end + " is not after start " + start);
+        }
+
+        this.start = start;
+        this.end = end;
+        if (granularity == UsageRecord.Granularity.HOURLY) {
+            this.bucketMillis = TimeUnit.HOURS.toMillis(1);
+        } else if (granularity == UsageRecord.Granularity.DAILY) {
+            this.bucketMillis = TimeUnit.DAYS.toMillis(1);
+        } else {
+            this.bucketMillis = window;
+        }
+        this.buckets = (int) ((window + bucketMillis - 1) / bucketMillis);
+    }
+
+    /**
+     * Get the bucket of an instant.
+     *
+     * @param instant instant in the window
+     * @return index of the bucket, or -1 if the instant is outside of the window
+     */
+    int bucket(final DateTime instant) {
+        if (instant == null || instant.isBefore(start) || !instant.isBefore(end)) {
+            return -1;
+        }
+        return (int) ((instant.getMillis() - start.getMillis()) / bucketMillis);
+    }
+
+    /**
+     * Fold the counters of a SIM into the summary.
+     *
+     * @param usage usage of the SIM
+     */
+    synchronized void add(final SimUsage usage) {
+        long[] buckets = usage.getBuckets();
+        String ratePlanSid = usage.getRatePlanSid();
+        long[] column = counters.get(ratePlanSid);
+        if (column == null) {
+            column = new long[buckets.length];
+            counters.put(ratePlanSid, column);
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            column[i] += buckets[i];
+        }
+
+        Integer count = sims.get(ratePlanSid);
+        sims.put(ratePlanSid, count == null ? 1 : count + 1);
+        records += usage.getRecords();
+    }
+
+    synchronized void fail(final String simSid, final TwilioException exception) {
+        failures.put(simSid, exception);
+    }
+
+    private long[] column(final String ratePlanSid) {
+        long[] column = counters.get(ratePlanSid);
+        return column == null ? new long[COUNTERS * buckets] : column;
+    }
+
+    /**
+     * Get the rate plans of the collected SIMs.
+     *
+     * @return sids of the rate plans, including null for SIMs without a rate plan
+     */
+    public synchronized List<String> getRatePlanSids() {
+        return new ArrayList<>(counters.keySet());
+    }
+
+    /**
+     * Get a counter of a rate plan in a time bucket.
+     *
+     * @param ratePlanSid sid of the rate plan
+     * @param counter counter
+     * @param instant any instant of the bucket
+     * @return sum of the counter over the SIMs of the rate plan
+     */
+    public synchronized long get(final String ratePlanSid, final Counter counter, final DateTime instant) {
+        int bucket = bucket(instant);
+        if (bucket < 0) {
+            throw new IllegalArgumentException(instant + " is outside of the collected window");
+        }
+        return column(ratePlanSid)[counter.ordinal() * buckets + bucket];
+    }
+
+    /**
+     * Get a counter of a rate plan in every time bucket.
+     *
+     * @param ratePlanSid sid of the rate plan
+     * @param counter counter
+     * @return counter of every bucket, starting at the start of the window
+     */
+    public synchronized long[] getBuckets(final String ratePlanSid, final Counter counter) {
+        long[] values = new long[buckets];
+        System.arraycopy(column(ratePlanSid), counter.ordinal() * buckets, values, 0, buckets);
+        return values;
+    }
+
+    /**
+     * Get a counter of a rate plan over the whole window.
+     *
+     * @param ratePlanSid sid of the rate plan
+     * @param counter counter
+     * @return total of the counter
+     */
+    public synchronized long getTotal(final String ratePlanSid, final Counter counter) {
+        long total = 0;
+        long[] column = column(ratePlanSid);
+        int offset = counter.ordinal() * buckets;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            total += column[offset + bucket];
+        }
+        return total;
+    }
+
+    /**
+     * Get a counter of the whole fleet over the whole window.
+     *
+     * @param counter counter
+     * @return total of the counter over every rate plan
+     */
+    public synchronized long getTotal(final Counter counter) {
+        long total = 0;
+        for (final String ratePlanSid : counters.keySet()) {
+            total += getTotal(ratePlanSid, counter);
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of collected SIMs of a rate plan.
+     *
+     * @param ratePlanSid sid of the rate plan
+     * @return number of SIMs
+     */
+    public synchronized int getSims(final String ratePlanSid) {
+        Integer count = sims.get(ratePlanSid);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Get the number of collected SIMs.
+     *
+     * @return number of SIMs, without the failed ones
+     */
+    public synchronized int getSims() {
+        int total = 0;
+        for (final int count : sims.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Get the SIMs whose usage could not be read.
+     *
+     * @return failures by SIM sid
+     */
+    public synchronized Map<String, TwilioException> getFailures() {
+        return ImmutableMap.copyOf(failures);
+    }
+
+    /**
+     * Get the start of a time bucket.
+     *
+     * @param bucket index of the bucket
+     * @return start of the bucket
+     */
+    public DateTime getBucketStart(final int bucket) {
+        return start.plus(bucket * bucketMillis);
+    }
+
+    public DateTime getStart() {
+        return start;
+    }
+
+    public DateTime getEnd() {
+        return end;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * Get the number of usage records folded into the summary.
+     *
+     * @return number of usage records
+     */
+    public synchronized long getRecords() {
+        return records;
+    }
+}
@@ -0,0 +1,74 @@
+package com.twilio.wireless;
+
+/**
+ * Usage of a single SIM over the collected window.
+ *
+ * <p>
+ *     The untyped commands and data of its usage records are parsed into primitive counters, summed with the sessions
+ *     and packets of its data sessions.
+ * </p>
+ */
+public class SimUsage {
+
+    private final String simSid;
+    private final String ratePlanSid;
+    private final long[] counters = new long[FleetUsage.COUNTERS];
+    private final long[] buckets;
+    private long records;
+
+    SimUsage(final String simSid, final String ratePlanSid, final int buckets) {
+        this.simSid = simSid;
+        this.ratePlanSid = ratePlanSid;
+        this.buckets = new long[FleetUsage.COUNTERS * buckets];
+    }
+
+    void add(final FleetUsage.Counter counter, final int bucket, final long value) {
+        counters[counter.ordinal()] += value;
+        buckets[counter.ordinal() * (buckets.length / FleetUsage.COUNTERS) + bucket] += value;
+    }
+
+    /**
+     * Get the counters of the SIM per time bucket.
+     *
+     * @return counters indexed by counter ordinal and bucket
+     */
+    long[] getBuckets() {
+        return buckets;
+    }
+
+    void addRecord() {
+        records++;
+    }
+
+    public String getSimSid() {
+        return simSid;
+    }
+
+    /**
+     * Get the rate plan of the SIM.
+     *
+     * @return sid of the rate plan, or null if the SIM has no rate plan
+     */
+    public String getRatePlanSid() {
+        return ratePlanSid;
+    }
+
+    /**
+     * Get a counter of the SIM.
+     *
+     * @param counter counter
+     * @return total of the counter over the collected window
+     */
+    public long get(final FleetUsage.Counter counter) {
+        return counters[counter.ordinal()];
+    }
+
+    /**
+     * Get the number of usage records of the SIM.
+     *
+     * @return number of usage records
+     */
+    public long getRecords() {
+        return records;
+    }
+}
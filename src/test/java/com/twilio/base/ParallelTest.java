@@ -0,0 +1,80 @@
+package com.twilio.base;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelTest {
+
+    private static List<Integer> items(final int count) {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(i);
+        }
+        return items;
+    }
+
+    @Test
+    public void testRunsEveryItemWithBoundedParallelism() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<Integer> handled = Collections.synchronizedList(new ArrayList<Integer>());
+
+        Parallel.forEach(items(20), 3, new Parallel.Task<Integer>() {
+            @Override
+            public void run(final Integer item) {
+                int now = running.incrementAndGet();
+                synchronized (maxRunning) {
+                    maxRunning.set(Math.max(maxRunning.get(), now));
+                }
+                try {
+                    Thread.sleep(5);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                handled.add(item);
+                running.decrementAndGet();
+            }
+        });
+
+        Collections.sort(handled);
+        assertEquals(items(20), handled);
+        assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void testRethrowsFirstFailure() {
+        final AtomicInteger started = new AtomicInteger();
+        try {
+            Parallel.forEach(items(100), 1, new Parallel.Task<Integer>() {
+                @Override
+                public void run(final Integer item) {
+                    started.incrementAndGet();
+                    if (item == 2) {
+                        throw new IllegalStateException("item " + item);
+                    }
+                }
+            });
+            fail("IllegalStateException was expected");
+        } catch (final IllegalStateException e) {
+            assertEquals("item 2", e.getMessage());
+        }
+        assertEquals(3, started.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNonPositiveParallelism() {
+        Parallel.forEach(items(1), 0, new Parallel.Task<Integer>() {
+            @Override
+            public void run(final Integer item) {
+            }
+        });
+    }
+}
@@ -0,0 +1,132 @@
+package com.twilio.calls;
+
+import com.google.common.collect.ImmutableList;
+import com.twilio.exception.ApiException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.HttpMethod;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.Call;
+import com.twilio.rest.api.v2010.account.conference.Participant;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CallControlTest {
+
+    private static final String ACCOUNT_URI = "/2010-04-01/Accounts/AC123";
+
+    private Map<String, String> updates;
+    private List<String> reads;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        updates = new ConcurrentHashMap<>();
+        reads = Collections.synchronizedList(new ArrayList<String>());
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                String path = request.constructURL().getPath().substring(ACCOUNT_URI.length());
+                if (request.getMethod() == HttpMethod.GET) {
+                    reads.add(path);
+                    if (!path.startsWith("/Conferences")) {
+                        return page(path, "calls", call("CA1"), call("CA2"), call("CA3"));
+                    }
+                    String conferenceSid = path.split("/")[2];
+                    return page(path, "participants", participant(conferenceSid, "CA1"), participant(conferenceSid, "CA2"));
+                }
+
+                if (path.contains("CA2") && !path.startsWith("/Conferences")) {
+                    return new Response("{\"status\": 400, \"message\": \"Call is not in-progress\", \"code\": 21220}", 400);
+                }
+                Map<String, List<String>> params = request.getPostParams();
+                String update = params.containsKey("Status") ? "Status=" + params.get("Status").get(0)
+                    : params.containsKey("Url") ? "Url=" + params.get("Url").get(0)
+                    : "Muted=" + params.get("Muted").get(0);
+                updates.put(path, update);
+                return new Response(
+                    path.startsWith("/Conferences") ? participant("CF1", "CA1") : call(path.substring(7, 10)),
+                    TwilioRestClient.HTTP_STATUS_CODE_OK
+                );
+            }
+        }).build();
+    }
+
+    private static String call(final String sid) {
+        return "{\"sid\": \"" + sid + "\", \"account_sid\": \"AC123\", \"status\": \"in-progress\"}";
+    }
+
+    private static String participant(final String conferenceSid, final String callSid) {
+        return "{\"account_sid\": \"AC123\", \"conference_sid\": \"" + conferenceSid + "\", \"call_sid\": \""
+            + callSid + "\", \"muted\": false}";
+    }
+
+    private static Response page(final String uri, final String key, final String... records) {
+        StringBuilder json = new StringBuilder();
+        for (final String record : records) {
+            json.append(json.length() > 0 ? "," : "").append(record);
+        }
+        return new Response(
+            "{\"first_page_uri\": \"" + uri + "\", \"next_page_uri\": null, \"page\": 0, \"page_size\": 50, "
+                + "\"previous_page_uri\": null, \"uri\": \"" + uri + "\", \"" + key + "\": [" + json + "]}",
+            TwilioRestClient.HTTP_STATUS_CODE_OK
+        );
+    }
+
+    @Test
+    public void testHangsUpQueriedCallsAndReportsFailures() {
+        CallControl.Result<String> result = new CallControl.Builder<>(
+            CallControl.calls(Call.reader().setStatus(Call.Status.IN_PROGRESS)),
+            CallControl.hangUp()
+        ).build().run(client);
+
+        assertEquals(ImmutableList.of("/Calls.json"), reads);
+        assertEquals(2, result.getUpdated());
+        assertFalse(result.isSuccess());
+        assertEquals("CA2", result.getFailures().get(0).getTarget());
+        assertEquals(Integer.valueOf(21220), ((ApiException) result.getFailures().get(0).getException()).getCode());
+        assertEquals("Status=completed", updates.get("/Calls/CA1.json"));
+        assertEquals("Status=completed", updates.get("/Calls/CA3.json"));
+        assertEquals(3, result.getLatency().getCount());
+        assertTrue(result.getLatency().getPercentileMillis(99) <= result.getLatency().getMaxMillis());
+    }
+
+    @Test
+    public void testRedirectsListedCallsAtLimitedRate() {
+        CallControl.Result<String> result = new CallControl.Builder<>(
+            CallControl.calls(ImmutableList.of("CA1", "CA3")),
+            CallControl.redirect(URI.create("https://example.com/maintenance"))
+        ).parallelism(2).rate(10).build().run(client);
+
+        assertTrue(reads.isEmpty());
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getUpdated());
+        assertEquals("Url=https://example.com/maintenance", updates.get("/Calls/CA1.json"));
+        assertEquals("Url=https://example.com/maintenance", updates.get("/Calls/CA3.json"));
+    }
+
+    @Test
+    public void testMutesParticipantsOfConferences() {
+        CallControl.Result<Participant> result = new CallControl.Builder<>(
+            CallControl.participants(ImmutableList.of(Participant.reader("CF1"), Participant.reader("CF2"))),
+            CallControl.mute(true)
+        ).build().run(client);
+
+        assertEquals(ImmutableList.of("/Conferences/CF1/Participants.json", "/Conferences/CF2/Participants.json"), reads);
+        assertEquals(4, result.getUpdated());
+        assertEquals("Muted=true", updates.get("/Conferences/CF1/Participants/CA2.json"));
+        assertEquals("Muted=true", updates.get("/Conferences/CF2/Participants/CA1.json"));
+    }
+}
@@ -0,0 +1,206 @@
+package com.twilio.calls;
+
+import com.google.common.collect.ImmutableList;
+import com.twilio.exception.ApiException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.HttpMethod;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.conference.Participant;
+import com.twilio.type.PhoneNumber;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConferenceOrchestratorTest {
+
+    private static final PhoneNumber FROM = new PhoneNumber("+15005550000");
+    private static final List<PhoneNumber> NUMBERS = ImmutableList.of(
+        new PhoneNumber("+15005550001"),
+        new PhoneNumber("+15005550002"),
+        new PhoneNumber("+15005550003")
+    );
+
+    private CountDownLatch creates;
+    private AtomicInteger polls;
+    private AtomicInteger failedPolls;
+    private volatile boolean listingLags;
+    private List<Request> requests;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        creates = new CountDownLatch(NUMBERS.size());
+        polls = new AtomicInteger();
+        failedPolls = new AtomicInteger();
+        listingLags = false;
+        requests = Collections.synchronizedList(new ArrayList<Request>());
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                requests.add(request);
+                if (request.getMethod() == HttpMethod.GET) {
+                    if (failedPolls.getAndDecrement() > 0) {
+                        return new Response("{\"status\": 429, \"message\": \"Too many requests\", \"code\": 20429}", 429);
+                    }
+                    String path = request.constructURL().getPath();
+                    if (path.contains("/Participants/")) {
+                        return fetch(path);
+                    }
+                    return poll(path, polls.incrementAndGet());
+                }
+
+                // Every create must be in flight at the same time
+                creates.countDown();
+                try {
+                    assertTrue(creates.await(5, TimeUnit.SECONDS));
+                } catch (final InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                String to = request.getPostParams().get("To").get(0);
+                if (to.endsWith("3")) {
+                    return new Response("{\"status\": 400, \"message\": \"Invalid number\", \"code\": 21211}", 400);
+                }
+                return new Response(participant("CA" + to.charAt(to.length() - 1), "queued"), 201);
+            }
+        }).build();
+    }
+
+    private static String participant(final String callSid, final String status) {
+        return "{\"account_sid\": \"AC123\", \"conference_sid\": \"CF123\", \"call_sid\": \"" + callSid + "\", "
+            + "\"status\": \"" + status + "\"}";
+    }
+
+    private static Response fetch(final String uri) {
+        String callSid = uri.substring(uri.lastIndexOf('/') + 1).replace(".json", "");
+        if ("CA4".equals(callSid)) {
+            return new Response("{\"status\": 404, \"message\": \"Not found\", \"code\": 20404}", 404);
+        }
+        return new Response(participant(callSid, "ringing"), TwilioRestClient.HTTP_STATUS_CODE_OK);
+    }
+
+    private Response poll(final String uri, final int poll) {
+        String records = poll == 1
+            ? participant("CA1", "connected") + (listingLags ? "" : "," + participant("CA2", "ringing"))
+            : participant("CA1", "connected") + "," + participant("CA2", "connected");
+        return new Response(
+            "{\"first_page_uri\": \"" + uri + "\", \"next_page_uri\": null, \"page\": 0, \"page_size\": 50, "
+                + "\"previous_page_uri\": null, \"uri\": \"" + uri + "\", \"participants\": [" + records + "]}",
+            TwilioRestClient.HTTP_STATUS_CODE_OK
+        );
+    }
+
+    @Test
+    public void testDialsConcurrentlyAndTracksJoins() {
+        ConferenceOrchestrator.Result result = new ConferenceOrchestrator.Builder("standup")
+            .participants(FROM, NUMBERS)
+            .earlyMedia(true)
+            .beep("false")
+            .startConferenceOnEnter(true)
+            .warmUp(true)
+            .tracking(1, 5000, TimeUnit.MILLISECONDS)
+            .build()
+            .dialOut(client);
+
+        assertEquals(2, polls.get());
+        assertEquals(2, result.getJoined().size());
+        assertEquals(2, result.getJoinLatency().getCount());
+        assertEquals(2, result.getCreateLatency().getCount());
+
+        ConferenceOrchestrator.Leg failed = result.getMissing().get(0);
+        assertEquals("+15005550003", failed.getLabel());
+        assertEquals(Integer.valueOf(21211), ((ApiException) failed.getException()).getCode());
+        assertNull(failed.getJoinMillis());
+
+        ConferenceOrchestrator.Leg joined = result.getLegs().get(1);
+        assertEquals("CA2", joined.getCallSid());
+        assertEquals(Participant.Status.CONNECTED, joined.getStatus());
+        assertNotNull(joined.getJoinMillis());
+        assertTrue(joined.getJoinMillis() >= joined.getCreateMillis());
+
+        Request create = requests.get(0);
+        assertTrue(create.constructURL().getPath().endsWith("/Conferences/standup/Participants.json"));
+        assertEquals("true", create.getPostParams().get("EarlyMedia").get(0));
+        assertEquals("false", create.getPostParams().get("Beep").get(0));
+        assertEquals("true", create.getPostParams().get("StartConferenceOnEnter").get(0));
+        assertTrue(requests.get(3).constructURL().getPath().endsWith("/Conferences/CF123/Participants.json"));
+    }
+
+    @Test
+    public void testReportsCallsEndedBeforeJoining() {
+        polls.set(1);
+
+        ConferenceOrchestrator.Result result = new ConferenceOrchestrator.Builder("standup")
+            .participants(FROM, NUMBERS)
+            .participant("+15005550004", Participant.creator("standup", FROM, new PhoneNumber("+15005550004")))
+            .build()
+            .dialOut(client);
+
+        assertEquals(2, result.getJoined().size());
+        ConferenceOrchestrator.Leg ended = result.getLegs().get(3);
+        assertEquals("CA4", ended.getCallSid());
+        assertEquals(Participant.Status.COMPLETE, ended.getStatus());
+        assertEquals(2, result.getMissing().size());
+    }
+
+    @Test
+    public void testFetchesLegsMissingFromTheListing() {
+        listingLags = true;
+
+        ConferenceOrchestrator.Result result = new ConferenceOrchestrator.Builder("standup")
+            .participants(FROM, NUMBERS)
+            .tracking(1, 5000, TimeUnit.MILLISECONDS)
+            .build()
+            .dialOut(client);
+
+        assertEquals(2, polls.get());
+        assertEquals(2, result.getJoined().size());
+        assertEquals(Participant.Status.CONNECTED, result.getLegs().get(1).getStatus());
+        assertTrue(requests.get(4).constructURL().getPath().endsWith("/Conferences/CF123/Participants/CA2.json"));
+    }
+
+    @Test
+    public void testKeepsTrackingAfterFailedPoll() {
+        failedPolls.set(1);
+
+        ConferenceOrchestrator.Result result = new ConferenceOrchestrator.Builder("standup")
+            .participants(FROM, NUMBERS)
+            .tracking(1, 5000, TimeUnit.MILLISECONDS)
+            .build()
+            .dialOut(client);
+
+        assertEquals(2, polls.get());
+        assertEquals(2, result.getJoined().size());
+        assertEquals(Integer.valueOf(20429), ((ApiException) result.getPollException()).getCode());
+    }
+
+    @Test
+    public void testReturnsLegsWhenEveryPollFails() {
+        failedPolls.set(Integer.MAX_VALUE);
+
+        ConferenceOrchestrator.Result result = new ConferenceOrchestrator.Builder("standup")
+            .participants(FROM, NUMBERS)
+            .tracking(1, 50, TimeUnit.MILLISECONDS)
+            .build()
+            .dialOut(client);
+
+        assertEquals(0, polls.get());
+        assertEquals(3, result.getMissing().size());
+        assertEquals("CA1", result.getLegs().get(0).getCallSid());
+        assertEquals(Participant.Status.QUEUED, result.getLegs().get(0).getStatus());
+        assertEquals(2, result.getCreateLatency().getCount());
+        assertNotNull(result.getPollException());
+    }
+}
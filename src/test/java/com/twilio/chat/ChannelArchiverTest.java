@@ -0,0 +1,226 @@
+package com.twilio.chat;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.chat.v2.service.channel.Message;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ChannelArchiverTest {
+
+    private static final String CHANNELS_URL = "https://chat.twilio.com/v2/Services/IS123/Channels";
+    private static final int PAGE_SIZE = 2;
+
+    private Map<String, Integer> channels;
+    private List<String> requests;
+    private Path directory;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        channels = new ConcurrentHashMap<>();
+        channels.put("CH1", 5);
+        channels.put("CH2", 0);
+        channels.put("CH3", 3);
+        requests = Collections.synchronizedList(new ArrayList<String>());
+        directory = Files.createTempDirectory("channels");
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                String path = request.constructURL().getPath();
+                Map<String, String> query = query(request.constructURL().getQuery());
+                int page = query.containsKey("Page") ? Integer.parseInt(query.get("Page")) : 0;
+                requests.add(path + " " + query.get("Order") + " " + page);
+                if (path.endsWith("/Channels")) {
+                    return new Response(page("channels", CHANNELS_URL, channelRecords(), page, ""), 200);
+                }
+
+                String channelSid = path.split("/")[5];
+                if (!channels.containsKey(channelSid)) {
+                    return new Response("{\"status\": 500, \"message\": \"Unavailable\", \"code\": 20500}", 500);
+                }
+                String order = query.get("Order");
+                return new Response(
+                    page("messages", CHANNELS_URL + "/" + channelSid + "/Messages", messageRecords(channelSid, order),
+                        page, "Order=" + order + "&"),
+                    200
+                );
+            }
+        }).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (final Path file : Files.newDirectoryStream(directory)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    private static Map<String, String> query(final String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query != null) {
+            for (final String param : query.split("&")) {
+                String[] pair = param.split("=", 2);
+                params.put(pair[0], pair[1]);
+            }
+        }
+        return params;
+    }
+
+    private List<String> channelRecords() {
+        List<String> records = new ArrayList<>();
+        for (final String sid : ImmutableList.of("CH1", "CH2", "CH3", "CH4")) {
+            records.add("{\"sid\": \"" + sid + "\", \"service_sid\": \"IS123\"}");
+        }
+        return records;
+    }
+
+    private List<String> messageRecords(final String channelSid, final String order) {
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < channels.get(channelSid); i++) {
+            records.add("{\"sid\": \"IM" + channelSid + i + "\", \"channel_sid\": \"" + channelSid + "\", \"index\": " + i
+                + ", \"body\": \"Message " + i + "\"}");
+        }
+        if ("desc".equals(order)) {
+            Collections.reverse(records);
+        }
+        return records;
+    }
+
+    private static String page(
+        final String key,
+        final String url,
+        final List<String> records,
+        final int page,
+        final String query
+    ) {
+        int end = Math.min(records.size(), (page + 1) * PAGE_SIZE);
+        StringBuilder json = new StringBuilder();
+        for (final String record : records.subList(Math.min(end, page * PAGE_SIZE), end)) {
+            json.append(json.length() > 0 ? "," : "").append(record);
+        }
+        String next = end < records.size()
+            ? "\"" + url + "?" + query + "PageSize=" + PAGE_SIZE + "&Page=" + (page + 1) + "\""
+            : "null";
+        return "{\"" + key + "\": [" + json + "], \"meta\": {\"first_page_url\": \"" + url + "\", \"key\": \"" + key
+            + "\", \"next_page_url\": " + next + ", \"page\": " + page + ", \"page_size\": " + PAGE_SIZE + ", "
+            + "\"previous_page_url\": null, \"url\": \"" + url + "\"}}";
+    }
+
+    private static class RecordingSink implements ChannelArchiver.Sink<Message> {
+        private final Map<String, List<Integer>> messages = new ConcurrentHashMap<>();
+        private final Map<String, Integer> ends = new ConcurrentHashMap<>();
+
+        @Override
+        public void onMessage(final String channelSid, final Message message) {
+            if (!messages.containsKey(channelSid)) {
+                messages.put(channelSid, new ArrayList<Integer>());
+            }
+            messages.get(channelSid).add(message.getIndex());
+        }
+
+        @Override
+        public void onChannel(final String channelSid, final int count) {
+            ends.put(channelSid, count);
+        }
+    }
+
+    private ChannelArchiver<Message> archiver(final Path cursors) {
+        return new ChannelArchiver.Builder<>(ChannelArchiver.chat("IS123"))
+            .pageSize(PAGE_SIZE)
+            .parallelism(3)
+            .cursors(cursors)
+            .build();
+    }
+
+    @Test
+    public void testArchivesEveryChannelAndReportsFailures() {
+        RecordingSink sink = new RecordingSink();
+        ChannelArchiver<Message> archiver = archiver(null);
+
+        ChannelArchiver.Result result = archiver.archive(client, sink);
+
+        assertEquals(3, result.getChannels());
+        assertEquals(8, result.getMessages());
+        assertEquals(ImmutableList.of("CH4"), ImmutableList.copyOf(result.getFailures().keySet()));
+        assertEquals(ImmutableList.of(0, 1, 2, 3, 4), sink.messages.get("CH1"));
+        assertEquals(ImmutableList.of(0, 1, 2), sink.messages.get("CH3"));
+        assertEquals(Integer.valueOf(0), sink.ends.get("CH2"));
+        assertEquals(Integer.valueOf(4), archiver.getCursor("CH1"));
+        assertNull(archiver.getCursor("CH4"));
+    }
+
+    @Test
+    public void testReadsOnlyFromThePageOfTheCursor() {
+        ChannelArchiver<Message> archiver = archiver(null);
+        archiver.archive(client, new RecordingSink());
+        assertEquals(Integer.valueOf(4), archiver.getCursor("CH1"));
+        assertNull(archiver.getCursor("CH2"));
+
+        channels.put("CH1", 10);
+        channels.put("CH2", 1);
+        requests.clear();
+        final List<Boolean> lastPageRead = Collections.synchronizedList(new ArrayList<Boolean>());
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            public void onMessage(final String channelSid, final Message message) {
+                if (message.getIndex() == 6) {
+                    lastPageRead.add(requests.contains("/v2/Services/IS123/Channels/CH1/Messages asc 4"));
+                }
+                super.onMessage(channelSid, message);
+            }
+        };
+        ChannelArchiver.Result result = archiver.archive(client, sink);
+
+        assertEquals(6, result.getMessages());
+        assertEquals(ImmutableList.of(5, 6, 7, 8, 9), sink.messages.get("CH1"));
+        assertEquals(ImmutableList.of(0), sink.messages.get("CH2"));
+        assertNull(sink.messages.get("CH3"));
+        assertEquals(Integer.valueOf(9), archiver.getCursor("CH1"));
+        assertEquals(ImmutableList.of(false), lastPageRead);
+        assertFalse(requests.contains("/v2/Services/IS123/Channels/CH1/Messages asc 0"));
+        assertFalse(requests.contains("/v2/Services/IS123/Channels/CH1/Messages asc 1"));
+        assertTrue(requests.contains("/v2/Services/IS123/Channels/CH1/Messages asc 2"));
+        assertFalse(requests.contains("/v2/Services/IS123/Channels/CH1/Messages desc 0"));
+    }
+
+    @Test
+    public void testResumesFromCursorsFile() throws IOException {
+        Path cursors = directory.resolve("chat.cursors");
+        archiver(cursors).archive(client, new RecordingSink());
+        assertEquals(2, Files.readAllLines(cursors, Charsets.UTF_8).size());
+
+        channels.put("CH3", 4);
+        RecordingSink sink = new RecordingSink();
+        ChannelArchiver<Message> resumed = archiver(cursors);
+        assertEquals(Integer.valueOf(2), resumed.getCursor("CH3"));
+
+        requests.clear();
+        resumed.archive(client, sink);
+
+        assertEquals(ImmutableList.of(3), sink.messages.get("CH3"));
+        assertFalse(requests.contains("/v2/Services/IS123/Channels/CH3/Messages asc 0"));
+        assertNull(sink.messages.get("CH1"));
+    }
+}
@@ -0,0 +1,381 @@
+package com.twilio.export;
+
+import com.google.common.base.Charsets;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.twilio.exception.ApiException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.NetworkHttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.preview.bulkExports.export.Day;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BulkExportDownloaderTest {
+
+    private static final String DAYS_URL = "https://preview.twilio.com/BulkExports/Exports/Messages/Days";
+    private static final String FILE_URL = "https://files.example.com/";
+
+    private Path directory;
+    private Map<String, byte[]> files;
+    private Map<String, String> ranges;
+    private List<String> unauthenticated;
+    private List<String> redirected;
+    private AtomicInteger brokenStreams;
+    private boolean ignoreRange;
+    private boolean rangeBeforeOffset;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("exports");
+        files = new LinkedHashMap<>();
+        files.put("2017-05-01", gzip("{\"sid\": \"SM1\"}\n{\"sid\": \"SM2\"}\n"));
+        files.put("2017-05-02", gzip("{\"sid\": \"SM3\"}\n"));
+        files.put("2017-05-03", gzip("{\"sid\": \"SM4\"}\n"));
+        ranges = new ConcurrentHashMap<>();
+        unauthenticated = Collections.synchronizedList(new ArrayList<String>());
+        redirected = Collections.synchronizedList(new ArrayList<String>());
+        brokenStreams = new AtomicInteger();
+
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                String url = request.constructURL().toString();
+                if (url.startsWith(DAYS_URL + "?") || url.equals(DAYS_URL)) {
+                    return new Response(daysPage(), TwilioRestClient.HTTP_STATUS_CODE_OK);
+                }
+
+                String day = url.substring(url.lastIndexOf('/') + 1);
+                if (request.requiresAuthentication() && !request.isFollowRedirects()) {
+                    redirected.add(day);
+                    return new Response("", 307, Collections.singletonMap("Location", FILE_URL + day));
+                }
+                if (!request.requiresAuthentication()) {
+                    unauthenticated.add(url);
+                }
+                byte[] content = files.get(day);
+                String range = request.getHeaders().get("Range");
+                if (range == null || ignoreRange) {
+                    return new Response(stream(content), 200);
+                }
+
+                ranges.put(day, range);
+                int offset = Integer.parseInt(range.replace("bytes=", "").replace("-", ""));
+                if (offset >= content.length) {
+                    return new Response("", 416);
+                }
+                if (rangeBeforeOffset) {
+                    offset -= 5;
+                }
+                return new Response(
+                    stream(Arrays.copyOfRange(content, offset, content.length)),
+                    206,
+                    Collections.singletonMap(
+                        "Content-Range", "bytes " + offset + "-" + (content.length - 1) + "/" + content.length
+                    )
+                );
+            }
+        }).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (final Path file : Files.newDirectoryStream(directory)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    private String daysPage() {
+        StringBuilder days = new StringBuilder();
+        for (final Map.Entry<String, byte[]> file : files.entrySet()) {
+            if (days.length() > 0) {
+                days.append(',');
+            }
+            String redirectTo = file.getKey().equals("2017-05-02") ? "\"" + FILE_URL + file.getKey() + "\"" : "null";
+            days.append("{\"day\": \"").append(file.getKey()).append("\", \"size\": ").append(file.getValue().length)
+                .append(", \"resource_type\": \"Messages\", \"redirect_to\": ").append(redirectTo).append('}');
+        }
+        return "{\"days\": [" + days + "], \"meta\": {\"key\": \"days\", \"page_size\": 50, \"url\": \"" + DAYS_URL
+            + "\", \"page\": 0, \"first_page_url\": \"" + DAYS_URL + "\", \"previous_page_url\": null, "
+            + "\"next_page_url\": null}}";
+    }
+
+    /**
+     * Serve the content, failing half way the first times.
+     */
+    private InputStream stream(final byte[] content) {
+        if (brokenStreams.getAndDecrement() <= 0) {
+            return new ByteArrayInputStream(content);
+        }
+        return new FilterInputStream(new ByteArrayInputStream(content, 0, content.length / 2)) {
+            @Override
+            public int read(final byte[] b, final int off, final int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read < 0) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+        };
+    }
+
+    private static byte[] gzip(final String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(Charsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private BulkExportDownloader.Builder builder() {
+        return new BulkExportDownloader.Builder("Messages", directory).parallelism(2).bufferSize(16);
+    }
+
+    private static List<String> read(final BulkExportDownloader downloader, final List<Path> files) throws IOException {
+        List<String> records = new ArrayList<>();
+        try (BulkExportDownloader.Records iterator = downloader.records(files)) {
+            while (iterator.hasNext()) {
+                records.add(iterator.next());
+            }
+        }
+        return records;
+    }
+
+    @Test
+    public void testDownloadsEveryDay() throws IOException {
+        BulkExportDownloader downloader = builder().build();
+
+        List<Path> downloaded = downloader.download(client);
+
+        assertEquals(3, downloaded.size());
+        assertEquals(directory.resolve("Messages-2017-05-01.json.gz"), downloaded.get(0));
+        assertArrayEquals(files.get("2017-05-03"), Files.readAllBytes(downloaded.get(2)));
+        assertEquals(
+            ImmutableList.of("{\"sid\": \"SM1\"}", "{\"sid\": \"SM2\"}", "{\"sid\": \"SM3\"}", "{\"sid\": \"SM4\"}"),
+            read(downloader, downloaded)
+        );
+        assertEquals(3, downloader.getFilesDownloaded());
+    }
+
+    @Test
+    public void testFollowsRedirectsWithoutCredentials() {
+        builder().build().download(client);
+
+        assertEquals(
+            ImmutableSet.of("2017-05-01", "2017-05-03"),
+            ImmutableSet.copyOf(redirected)
+        );
+        assertEquals(
+            ImmutableSet.of(FILE_URL + "2017-05-01", FILE_URL + "2017-05-02", FILE_URL + "2017-05-03"),
+            ImmutableSet.copyOf(unauthenticated)
+        );
+    }
+
+    @Test
+    public void testDownloadsSelectedDays() {
+        List<Path> downloaded = builder()
+            .days(new LocalDate(2017, 5, 2), null)
+            .build()
+            .download(client);
+
+        assertEquals(2, downloaded.size());
+        assertEquals(directory.resolve("Messages-2017-05-02.json.gz"), downloaded.get(0));
+    }
+
+    @Test
+    public void testSkipsDownloadedDays() {
+        builder().build().download(client);
+        BulkExportDownloader downloader = builder().build();
+
+        downloader.download(client);
+
+        assertEquals(3, downloader.getFilesSkipped());
+        assertEquals(0, downloader.getBytesDownloaded());
+    }
+
+    @Test
+    public void testResumesPartialDownload() throws IOException {
+        byte[] content = files.get("2017-05-01");
+        Files.write(directory.resolve("Messages-2017-05-01.json.gz.part"), Arrays.copyOf(content, 10));
+        BulkExportDownloader downloader = builder().days(new LocalDate(2017, 5, 1), new LocalDate(2017, 5, 1)).build();
+
+        List<Path> downloaded = downloader.download(client);
+
+        assertEquals("bytes=10-", ranges.get("2017-05-01"));
+        assertArrayEquals(content, Files.readAllBytes(downloaded.get(0)));
+        assertEquals(content.length - 10, downloader.getBytesDownloaded());
+        assertFalse(Files.exists(directory.resolve("Messages-2017-05-01.json.gz.part")));
+    }
+
+    @Test
+    public void testRetriesBrokenDownload() throws IOException {
+        brokenStreams.set(1);
+        BulkExportDownloader downloader = builder().parallelism(1).build();
+
+        List<Path> downloaded = downloader.download(client);
+
+        assertEquals(1, ranges.size());
+        assertArrayEquals(files.get("2017-05-01"), Files.readAllBytes(downloaded.get(0)));
+    }
+
+    @Test
+    public void testRestartsWhenRangeIsIgnored() throws IOException {
+        ignoreRange = true;
+        byte[] content = files.get("2017-05-01");
+        Files.write(directory.resolve("Messages-2017-05-01.json.gz.part"), Arrays.copyOf(content, 10));
+
+        List<Path> downloaded = builder().days(null, new LocalDate(2017, 5, 1)).build().download(client);
+
+        assertArrayEquals(content, Files.readAllBytes(downloaded.get(0)));
+    }
+
+    @Test
+    public void testRestartsWhenRangeDoesNotStartAtOffset() throws IOException {
+        rangeBeforeOffset = true;
+        byte[] content = files.get("2017-05-01");
+        Files.write(directory.resolve("Messages-2017-05-01.json.gz.part"), Arrays.copyOf(content, 10));
+        BulkExportDownloader downloader = builder().days(new LocalDate(2017, 5, 1), new LocalDate(2017, 5, 1)).build();
+
+        List<Path> downloaded = downloader.download(client);
+
+        assertEquals("bytes=10-", ranges.get("2017-05-01"));
+        assertArrayEquals(content, Files.readAllBytes(downloaded.get(0)));
+        assertEquals(content.length, downloader.getBytesDownloaded());
+    }
+
+    @Test
+    public void testVerifiesSize() {
+        final byte[] truncated = Arrays.copyOf(files.get("2017-05-01"), 5);
+        BulkExportDownloader downloader = builder().days(new LocalDate(2017, 5, 1), new LocalDate(2017, 5, 1)).build();
+
+        // The day lists the full size while the server only has a truncated file
+        TwilioRestClient truncating = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                if (request.getUrl().startsWith(DAYS_URL + "/")) {
+                    return new Response(new ByteArrayInputStream(truncated), 200);
+                }
+                return client.getHttpClient().makeRequest(request);
+            }
+        }).build();
+
+        try {
+            downloader.download(truncating);
+            fail("ApiException was expected");
+        } catch (final ApiException e) {
+            assertTrue(e.getMessage().contains("has 5 bytes"));
+            assertNull(e.getStatusCode());
+        }
+        assertTrue(Files.exists(directory.resolve("Messages-2017-05-01.json.gz.part")));
+    }
+
+    @Test
+    public void testResumesTruncatedBodyThroughNetworkHttpClient() throws Exception {
+        final byte[] content = files.get("2017-05-01");
+        final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+        try (final ServerSocket server = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"))) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    serve(server, content, requests);
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+
+            Day day = Day.fromJson(
+                "{\"day\": \"2017-05-01\", \"size\": " + content.length + ", \"resource_type\": \"Messages\", "
+                    + "\"redirect_to\": \"http://127.0.0.1:" + server.getLocalPort() + "/file\"}",
+                new ObjectMapper()
+            );
+            TwilioRestClient network = new TwilioRestClient.Builder("AC123", "token")
+                .httpClient(new NetworkHttpClient())
+                .build();
+
+            Path downloaded = builder().build().download(network, day);
+
+            assertArrayEquals(content, Files.readAllBytes(downloaded));
+            assertEquals(ImmutableList.of("identity null", "identity bytes=" + content.length / 2 + "-"), requests);
+        }
+    }
+
+    /**
+     * Serve the content over HTTP, closing the first connection half way through the body.
+     */
+    private static void serve(final ServerSocket server, final byte[] content, final List<String> requests) {
+        try {
+            for (int i = 0; i < 2; i++) {
+                try (Socket socket = server.accept()) {
+                    BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), Charsets.US_ASCII)
+                    );
+                    String encoding = null;
+                    String range = null;
+                    for (String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+                        String header = line.toLowerCase(Locale.ROOT);
+                        if (header.startsWith("accept-encoding:")) {
+                            encoding = line.substring(line.indexOf(':') + 1).trim();
+                        } else if (header.startsWith("range:")) {
+                            range = line.substring(line.indexOf(':') + 1).trim();
+                        }
+                    }
+                    requests.add(encoding + " " + range);
+
+                    OutputStream out = socket.getOutputStream();
+                    if (range == null) {
+                        out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + content.length
+                            + "\r\nConnection: close\r\n\r\n").getBytes(Charsets.US_ASCII));
+                        out.write(content, 0, content.length / 2);
+                    } else {
+                        int offset = Integer.parseInt(range.replace("bytes=", "").replace("-", ""));
+                        out.write(("HTTP/1.1 206 Partial Content\r\nContent-Length: " + (content.length - offset)
+                            + "\r\nContent-Range: bytes " + offset + "-" + (content.length - 1) + "/" + content.length
+                            + "\r\nConnection: close\r\n\r\n").getBytes(Charsets.US_ASCII));
+                        out.write(content, offset, content.length - offset);
+                    }
+                    out.flush();
+                }
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
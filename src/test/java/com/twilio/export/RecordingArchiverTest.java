@@ -0,0 +1,243 @@
+package com.twilio.export;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+import com.twilio.converter.DateConverter;
+import com.twilio.exception.ApiConnectionException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.HttpMethod;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.Recording;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecordingArchiverTest {
+
+    private static final String RECORDINGS_URI = "/2010-04-01/Accounts/AC123/Recordings";
+    private static final Map<String, String> DATES = ImmutableMap.of(
+        "RE1", "Tue, 02 May 2017 12:00:00 +0000",
+        "RE2", "Tue, 02 May 2017 11:00:00 +0000",
+        "RE3", "Tue, 02 May 2017 10:00:00 +0000",
+        "RE4", "Mon, 01 May 2017 10:00:00 +0000"
+    );
+
+    private Path directory;
+    private Map<String, Map<String, List<String>>> lists;
+    private List<String> downloads;
+    private List<String> deletes;
+    private List<String> events;
+    private List<String> encodings;
+    private Set<String> chunked;
+    private Set<String> unsized;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("recordings");
+        lists = new ConcurrentHashMap<>();
+        downloads = Collections.synchronizedList(new ArrayList<String>());
+        deletes = Collections.synchronizedList(new ArrayList<String>());
+        events = Collections.synchronizedList(new ArrayList<String>());
+        encodings = Collections.synchronizedList(new ArrayList<String>());
+        chunked = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        unsized = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                String path = request.constructURL().getPath();
+                if (path.equals(RECORDINGS_URI + ".json")) {
+                    lists.put(path, request.getQueryParams());
+                    return new Response(page(), TwilioRestClient.HTTP_STATUS_CODE_OK);
+                }
+
+                String sid = path.substring(RECORDINGS_URI.length() + 1, path.lastIndexOf('.'));
+                if (request.getMethod() == HttpMethod.DELETE) {
+                    deletes.add(sid);
+                    events.add("delete " + sid);
+                    return new Response("", TwilioRestClient.HTTP_STATUS_CODE_NO_CONTENT);
+                }
+
+                downloads.add(sid);
+                encodings.add(request.getHeaders().get("Accept-Encoding"));
+                byte[] media = media(sid);
+                // The connection of the third recording drops before the announced length is sent
+                int length = sid.equals("RE3") ? media.length + 10 : media.length;
+                Map<String, String> headers = chunked.contains(sid)
+                    ? ImmutableMap.of("Transfer-Encoding", "chunked")
+                    : unsized.contains(sid)
+                        ? ImmutableMap.<String, String>of()
+                        : ImmutableMap.of("Content-Length", Integer.toString(length));
+                return new Response(new ByteArrayInputStream(media), TwilioRestClient.HTTP_STATUS_CODE_OK, headers);
+            }
+        }).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (final Path file : Files.newDirectoryStream(directory)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    private static byte[] media(final String sid) {
+        byte[] media = new byte[1000 * Integer.parseInt(sid.substring(2))];
+        for (int i = 0; i < media.length; i++) {
+            media[i] = (byte) i;
+        }
+        return media;
+    }
+
+    private static String page() {
+        StringBuilder json = new StringBuilder();
+        for (final Map.Entry<String, String> recording : DATES.entrySet()) {
+            json.append(json.length() > 0 ? "," : "").append("{\"sid\": \"").append(recording.getKey())
+                .append("\", \"account_sid\": \"AC123\", \"date_created\": \"").append(recording.getValue())
+                .append("\", \"duration\": \"10\"}");
+        }
+        String uri = RECORDINGS_URI + ".json";
+        return "{\"first_page_uri\": \"" + uri + "\", \"next_page_uri\": null, \"page\": 0, \"page_size\": 1000, "
+            + "\"previous_page_uri\": null, \"uri\": \"" + uri + "\", \"recordings\": [" + json + "]}";
+    }
+
+    private static DateTime date(final String sid) {
+        return DateConverter.rfc2822DateTimeFromString(DATES.get(sid));
+    }
+
+    @Test
+    public void testArchivesThenDeletesRecordings() throws IOException {
+        Path checkpoint = directory.resolve("recordings.checkpoint");
+
+        RecordingArchiver.Result result = new RecordingArchiver.Builder(
+            Range.lessThan(new DateTime(2017, 6, 1, 0, 0)),
+            RecordingArchiver.directory(directory)
+        ).delete(true).parallelism(2).bufferSize(256).checkpoint(checkpoint).checkpointInterval(1).build().archive(client);
+
+        assertEquals(3, result.getDownloaded());
+        assertEquals(3, result.getDeleted());
+        assertEquals(7000, result.getBytes());
+        assertArrayEquals(media("RE4"), Files.readAllBytes(directory.resolve("RE4.wav")));
+        assertEquals(ImmutableList.of("RE3", "RE3", "RE3"), ImmutableList.copyOf(filter(downloads, "RE3")));
+        assertFalse(Files.exists(directory.resolve("RE3.wav")));
+        assertFalse(Files.exists(directory.resolve("RE3.wav.part")));
+        assertFalse(deletes.contains("RE3"));
+        assertEquals(3, deletes.size());
+
+        assertEquals("RE3", result.getFailures().get(0).getSid());
+        assertTrue(result.getFailures().get(0).getException() instanceof ApiConnectionException);
+        assertEquals(date("RE2"), result.getCheckpoint());
+        assertEquals(date("RE2"), DateTime.parse(new String(Files.readAllBytes(checkpoint), Charsets.UTF_8)));
+    }
+
+    private static List<String> filter(final List<String> values, final String value) {
+        List<String> filtered = new ArrayList<>();
+        for (final String candidate : values) {
+            if (candidate.equals(value)) {
+                filtered.add(candidate);
+            }
+        }
+        return filtered;
+    }
+
+    @Test
+    public void testResumesFromCheckpointAndSkipsStoredRecordings() throws IOException {
+        Path checkpoint = directory.resolve("recordings.checkpoint");
+        Files.write(checkpoint, date("RE1").toString().getBytes(Charsets.UTF_8));
+        Files.write(directory.resolve("RE1.mp3"), media("RE1"));
+
+        RecordingArchiver.Result result = new RecordingArchiver.Builder(
+            Range.<DateTime>all(),
+            RecordingArchiver.directory(directory)
+        ).format(RecordingArchiver.Format.MP3).maxAttempts(1).checkpoint(checkpoint).build().archive(client);
+
+        assertTrue(lists.get(RECORDINGS_URI + ".json").containsKey("DateCreated<"));
+        assertEquals(1, result.getSkipped());
+        assertEquals(2, result.getDownloaded());
+        assertEquals(0, result.getDeleted());
+        assertFalse(downloads.contains("RE1"));
+        assertTrue(Files.exists(directory.resolve("RE2.mp3")));
+        assertTrue(deletes.isEmpty());
+    }
+
+    @Test
+    public void testVerifiesSizeWithoutContentLength() {
+        chunked.add("RE4");
+        unsized.add("RE2");
+
+        RecordingArchiver.Result result = new RecordingArchiver.Builder(
+            Range.lessThan(new DateTime(2017, 6, 1, 0, 0)),
+            RecordingArchiver.directory(directory)
+        ).build().archive(client);
+
+        assertTrue(Files.exists(directory.resolve("RE4.wav")));
+        assertFalse(Files.exists(directory.resolve("RE2.wav")));
+        assertEquals(ImmutableList.of("RE2", "RE2", "RE2"), ImmutableList.copyOf(filter(downloads, "RE2")));
+        assertEquals(2, result.getFailures().size());
+        assertEquals(Collections.singleton("identity"), ImmutableSet.copyOf(encodings));
+    }
+
+    @Test
+    public void testDeletesOnlyAfterCommitReturns() throws IOException {
+        final RecordingArchiver.Storage storage = RecordingArchiver.directory(directory);
+        RecordingArchiver.Storage recorded = new RecordingArchiver.Storage() {
+            @Override
+            public boolean contains(final Recording recording, final RecordingArchiver.Format format)
+                throws IOException {
+                return storage.contains(recording, format);
+            }
+
+            @Override
+            public WritableByteChannel create(final Recording recording, final RecordingArchiver.Format format)
+                throws IOException {
+                return storage.create(recording, format);
+            }
+
+            @Override
+            public void commit(final Recording recording, final RecordingArchiver.Format format) throws IOException {
+                events.add("commit " + recording.getSid());
+                storage.commit(recording, format);
+                assertTrue(storage.contains(recording, format));
+                events.add("committed " + recording.getSid());
+            }
+
+            @Override
+            public void discard(final Recording recording, final RecordingArchiver.Format format) throws IOException {
+                storage.discard(recording, format);
+            }
+        };
+
+        new RecordingArchiver.Builder(Range.<DateTime>all(), recorded).delete(true).parallelism(3).build().archive(client);
+
+        assertEquals(3, deletes.size());
+        for (final String sid : deletes) {
+            int committed = events.indexOf("committed " + sid);
+            assertTrue(committed >= 0);
+            assertTrue(committed < events.indexOf("delete " + sid));
+        }
+        assertArrayEquals(media("RE2"), Files.readAllBytes(directory.resolve("RE2.wav")));
+    }
+}
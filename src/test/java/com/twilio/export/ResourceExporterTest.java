@@ -0,0 +1,136 @@
+package com.twilio.export;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.twilio.exception.ApiException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResourceExporterTest {
+
+    private static final String MESSAGES_URI = "/2010-04-01/Accounts/AC123/Messages.json";
+
+    private List<String> urls;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        urls = new ArrayList<>();
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                String url = request.constructURL().toString();
+                urls.add(url);
+                if (url.contains("Page=1")) {
+                    return new Response(page(message("SM2", "Café, \"bar\"", "null"), "null"), 200);
+                }
+                return new Response(
+                    page(message("SM1", "hello", "\"0.0075\""), "\"" + MESSAGES_URI + "?PageSize=1&Page=1\""),
+                    200
+                );
+            }
+        }).build();
+    }
+
+    private static String message(final String sid, final String body, final String price) {
+        return "{\"sid\": \"" + sid + "\", \"body\": \"" + body.replace("\"", "\\\"") + "\", \"num_segments\": 1, "
+            + "\"price\": " + price + ", \"subresource_uris\": {\"media\": \"/media\"}, \"to\": \"+14155551212\"}";
+    }
+
+    private static String page(final String record, final String nextPageUri) {
+        return "{\"first_page_uri\": \"" + MESSAGES_URI + "\", \"messages\": [" + record + "], \"next_page_uri\": "
+            + nextPageUri + ", \"page\": 0, \"page_size\": 1, \"uri\": \"" + MESSAGES_URI + "\"}";
+    }
+
+    private String export(final ResourceExporter exporter) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(client, Channels.newChannel(out));
+        return new String(out.toByteArray(), Charsets.UTF_8);
+    }
+
+    @Test
+    public void testExportsCsv() {
+        String csv = export(ResourceExporter.messages()
+            .columns(ImmutableList.of("sid", "body", "price", "num_segments"))
+            .pageSize(1)
+            .bufferSize(8)
+            .build());
+
+        assertEquals(
+            "sid,body,price,num_segments\n"
+                + "SM1,hello,0.0075,1\n"
+                + "SM2,\"Café, \"\"bar\"\"\",,1\n",
+            csv
+        );
+        assertEquals(2, urls.size());
+        assertEquals("https://api.twilio.com" + MESSAGES_URI + "?PageSize=1", urls.get(0));
+    }
+
+    @Test
+    public void testExportsNewlineDelimitedJson() {
+        String json = export(ResourceExporter.messages()
+            .columns(ImmutableList.of("sid", "body", "price", "num_segments", "subresource_uris"))
+            .format(ResourceExporter.Format.NDJSON)
+            .build());
+
+        assertEquals(
+            "{\"sid\":\"SM1\",\"body\":\"hello\",\"price\":\"0.0075\",\"num_segments\":1,"
+                + "\"subresource_uris\":{\"media\":\"/media\"}}\n"
+                + "{\"sid\":\"SM2\",\"body\":\"Café, \\\"bar\\\"\",\"price\":null,\"num_segments\":1,"
+                + "\"subresource_uris\":{\"media\":\"/media\"}}\n",
+            json
+        );
+    }
+
+    @Test
+    public void testExportsFile() throws IOException {
+        Path path = Files.createTempFile("messages", ".csv");
+        try {
+            long records = ResourceExporter.messages()
+                .columns(ImmutableList.of("sid", "to"))
+                .queryParam("DateSent>", "2017-01-01")
+                .header(false)
+                .build()
+                .export(client, path);
+
+            assertEquals(2, records);
+            assertEquals(ImmutableList.of("SM1,+14155551212", "SM2,+14155551212"), Files.readAllLines(path, Charsets.UTF_8));
+            assertTrue(urls.get(0).contains("DateSent%3E=2017-01-01"));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testFailsOnErrorResponse() {
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                return new Response("{\"code\": 20003, \"message\": \"Authenticate\", \"status\": 401}", 401);
+            }
+        }).build();
+
+        try {
+            export(ResourceExporter.calls().build());
+            fail("ApiException was expected");
+        } catch (final ApiException e) {
+            assertEquals(401, e.getStatusCode().intValue());
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.twilio.feed;
+
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.Message;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChangeFeedTest {
+
+    private static final DateTime NOW = DateTime.now(DateTimeZone.UTC).withMillisOfSecond(0);
+    private static final DateTimeFormatter RFC2822 =
+        DateTimeFormat.forPattern("EEE, dd MMM yyyy HH:mm:ss Z").withZone(DateTimeZone.UTC).withLocale(Locale.US);
+    private static final DateTimeFormatter QUERY =
+        DateTimeFormat.forPattern(Request.QUERY_STRING_DATE_TIME_FORMAT).withZone(DateTimeZone.UTC);
+
+    private Map<String, String> messages;
+    private List<String> windows;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        messages = new LinkedHashMap<>();
+        windows = new ArrayList<>();
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                List<String> after = request.getQueryParams().get("DateSent>");
+                DateTime from = after == null ? null : QUERY.parseDateTime(after.get(0));
+                windows.add(after == null ? null : after.get(0));
+
+                StringBuilder records = new StringBuilder();
+                for (final Map.Entry<String, String> message : messages.entrySet()) {
+                    DateTime sent = RFC2822.parseDateTime(message.getValue().split("\\|")[0]);
+                    if (from != null && sent.isBefore(from)) {
+                        continue;
+                    }
+                    if (records.length() > 0) {
+                        records.append(',');
+                    }
+                    String[] fields = message.getValue().split("\\|");
+                    records.append("{\"sid\": \"").append(message.getKey()).append("\", \"date_sent\": \"")
+                        .append(fields[0]).append("\", \"status\": \"").append(fields[1])
+                        .append("\", \"date_updated\": \"").append(fields[2]).append("\"}");
+                }
+
+                return new Response(
+                    "{\"messages\": [" + records + "], \"next_page_uri\": null, \"page\": 0, \"page_size\": 50, "
+                        + "\"uri\": \"/2010-04-01/Accounts/AC123/Messages.json\"}",
+                    TwilioRestClient.HTTP_STATUS_CODE_OK
+                );
+            }
+        }).build();
+    }
+
+    private void message(final String sid, final DateTime sent, final String status, final DateTime updated) {
+        messages.put(sid, RFC2822.print(sent) + "|" + status + "|" + RFC2822.print(updated));
+    }
+
+    private static ChangeFeed.Consumer<Message> collect(final List<String> sids) {
+        return new ChangeFeed.Consumer<Message>() {
+            @Override
+            public void onRecord(final Message record) {
+                sids.add(record.getSid() + " " + record.getStatus());
+            }
+        };
+    }
+
+    private static ChangeFeed<Message> feed() {
+        return new ChangeFeed.Builder<>(ChangeFeed.MESSAGES).overlap(5, TimeUnit.MINUTES).build();
+    }
+
+    @Test
+    public void testEmitsNewRecordsOldestFirst() {
+        message("SM2", NOW, "sent", NOW);
+        message("SM1", NOW.minusMinutes(1), "sent", NOW);
+        ChangeFeed<Message> feed = feed();
+
+        List<String> emitted = new ArrayList<>();
+        assertEquals(2, feed.poll(client, collect(emitted)));
+
+        assertEquals("SM1 sent", emitted.get(0));
+        assertEquals("SM2 sent", emitted.get(1));
+        assertEquals(NOW, feed.getHighWaterMark());
+    }
+
+    @Test
+    public void testFirstPollReadsInitialWindow() {
+        message("SM1", NOW.minusDays(3), "sent", NOW.minusDays(3));
+        message("SM2", NOW.minusHours(2), "sent", NOW.minusHours(2));
+
+        List<String> emitted = new ArrayList<>();
+        new ChangeFeed.Builder<>(ChangeFeed.MESSAGES).build().poll(client, collect(emitted));
+        assertEquals(1, emitted.size());
+        assertEquals("SM2 sent", emitted.get(0));
+        assertNotNull(windows.get(0));
+
+        emitted.clear();
+        new ChangeFeed.Builder<>(ChangeFeed.MESSAGES).initialWindow(0, TimeUnit.DAYS).build().poll(client, collect(emitted));
+        assertEquals(2, emitted.size());
+        assertNull(windows.get(1));
+    }
+
+    @Test
+    public void testOverlappingPollsSkipEmittedRecords() {
+        message("SM1", NOW, "sent", NOW);
+        ChangeFeed<Message> feed = feed();
+        feed.poll(client, collect(new ArrayList<String>()));
+
+        message("SM2", NOW.plusMinutes(1), "sent", NOW.plusMinutes(1));
+        List<String> emitted = new ArrayList<>();
+        assertEquals(1, feed.poll(client, collect(emitted)));
+
+        assertEquals("SM2 sent", emitted.get(0));
+        assertEquals(QUERY.print(NOW.minusMinutes(5)), windows.get(1));
+        assertEquals(0, feed.poll(client, collect(emitted)));
+    }
+
+    @Test
+    public void testEmitsUpdatedRecords() {
+        message("SM1", NOW, "sent", NOW);
+        ChangeFeed<Message> feed = feed();
+        feed.poll(client, collect(new ArrayList<String>()));
+
+        message("SM1", NOW, "delivered", NOW.plusSeconds(10));
+        List<String> emitted = new ArrayList<>();
+        feed.poll(client, collect(emitted));
+
+        assertEquals(1, emitted.size());
+        assertEquals("SM1 delivered", emitted.get(0));
+    }
+
+    @Test
+    public void testResumesFromHighWaterMark() {
+        message("SM1", NOW.minusHours(1), "sent", NOW);
+        message("SM2", NOW, "sent", NOW);
+        ChangeFeed<Message> feed = new ChangeFeed.Builder<>(ChangeFeed.MESSAGES)
+            .since(NOW.minusMinutes(1))
+            .overlap(0, TimeUnit.MINUTES)
+            .build();
+
+        List<String> emitted = new ArrayList<>();
+        feed.poll(client, collect(emitted));
+
+        assertEquals(1, emitted.size());
+        assertEquals("SM2 sent", emitted.get(0));
+    }
+
+    @Test
+    public void testConsumerFailureKeepsUnhandledRecords() {
+        message("SM1", NOW.minusMinutes(1), "sent", NOW);
+        message("SM2", NOW, "sent", NOW);
+        ChangeFeed<Message> feed = feed();
+
+        try {
+            feed.poll(client, new ChangeFeed.Consumer<Message>() {
+                @Override
+                public void onRecord(final Message record) {
+                    if ("SM2".equals(record.getSid())) {
+                        throw new IllegalStateException("warehouse unavailable");
+                    }
+                }
+            });
+            fail("IllegalStateException was expected");
+        } catch (final IllegalStateException e) {
+            assertEquals(NOW.minusMinutes(1), feed.getHighWaterMark());
+        }
+
+        List<String> emitted = new ArrayList<>();
+        feed.poll(client, collect(emitted));
+        assertEquals(1, emitted.size());
+        assertEquals("SM2 sent", emitted.get(0));
+    }
+
+    @Test
+    public void testWindowsAreInUtcWhateverTheDefaultZone() {
+        DateTimeZone zone = DateTimeZone.getDefault();
+        DateTimeZone.setDefault(DateTimeZone.forID("America/Los_Angeles"));
+        try {
+            message("SM1", NOW, "sent", NOW);
+            ChangeFeed<Message> feed = new ChangeFeed.Builder<>(ChangeFeed.MESSAGES).overlap(5, TimeUnit.MINUTES).build();
+            feed.poll(client, collect(new ArrayList<String>()));
+
+            long initialWindow = QUERY.parseMillis(windows.get(0));
+            long expected = DateTime.now(DateTimeZone.UTC).minus(ChangeFeed.DEFAULT_INITIAL_WINDOW_MILLIS).getMillis();
+            assertTrue(Math.abs(expected - initialWindow) < TimeUnit.MINUTES.toMillis(1));
+            assertEquals(DateTimeZone.UTC, feed.getHighWaterMark().getZone());
+
+            feed.poll(client, collect(new ArrayList<String>()));
+            assertEquals(QUERY.print(NOW.minusMinutes(5)), windows.get(1));
+
+            new ChangeFeed.Builder<>(ChangeFeed.MESSAGES)
+                .since(NOW.withZone(DateTimeZone.forID("Asia/Tokyo")))
+                .overlap(0, TimeUnit.MINUTES)
+                .build()
+                .poll(client, collect(new ArrayList<String>()));
+            assertEquals(QUERY.print(NOW), windows.get(2));
+        } finally {
+            DateTimeZone.setDefault(zone);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.twilio.feed;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SeenKeysTest {
+
+    @Test
+    public void testContainsRecentKeys() {
+        SeenKeys seen = new SeenKeys(2, 100, 0.001);
+        seen.add("SM1", 1);
+        seen.add("SM2", 2);
+
+        assertTrue(seen.contains("SM1", 1));
+        assertTrue(seen.contains("SM2", 2));
+        assertFalse(seen.contains("SM3", 3));
+    }
+
+    @Test
+    public void testRemembersEvictedKeys() {
+        SeenKeys seen = new SeenKeys(2, 100, 0.001);
+        seen.add("SM1", 1);
+        seen.add("SM2", 2);
+        seen.add("SM3", 3);
+
+        assertEquals(2, seen.size());
+        assertTrue(seen.contains("SM1", 1));
+        assertFalse(seen.contains("SM4", 4));
+    }
+
+    @Test
+    public void testRotatesFilters() {
+        SeenKeys seen = new SeenKeys(1, 2, 0.001);
+        for (int i = 0; i < 6; i++) {
+            seen.add("SM" + i, i);
+        }
+
+        assertTrue(seen.contains("SM3", 3));
+        assertTrue(seen.contains("SM4", 4));
+        assertFalse(seen.contains("SM0", 0));
+    }
+}
@@ -0,0 +1,268 @@
+package com.twilio.http;
+
+import com.google.common.base.Ticker;
+import com.twilio.rest.Domains;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class CachingHttpClientTest {
+
+    private static final String PHONE_NUMBER_URI =
+        "/2010-04-01/Accounts/AC123/IncomingPhoneNumbers/PN123.json";
+
+    private AtomicInteger requests;
+    private AtomicLong ticker;
+    private int statusCode;
+    private HttpClient network;
+
+    @Before
+    public void setUp() {
+        requests = new AtomicInteger();
+        ticker = new AtomicLong();
+        statusCode = 200;
+        network = new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                return new Response("{\"count\": " + requests.incrementAndGet() + "}", statusCode);
+            }
+        };
+    }
+
+    private CachingHttpClient.Builder builder() {
+        return new CachingHttpClient.Builder(network).ticker(new Ticker() {
+            @Override
+            public long read() {
+                return ticker.get();
+            }
+        });
+    }
+
+    private static Request get(final String uri) {
+        Request request = new Request(HttpMethod.GET, Domains.API.toString(), uri);
+        request.setAuth("AC123", "token");
+        return request;
+    }
+
+    @Test
+    public void testCachesResourceType() {
+        CachingHttpClient client = builder().ttl("IncomingPhoneNumbers", 1, TimeUnit.MINUTES).build();
+
+        assertEquals("{\"count\": 1}", client.makeRequest(get(PHONE_NUMBER_URI)).getContent());
+        assertEquals("{\"count\": 1}", client.makeRequest(get(PHONE_NUMBER_URI)).getContent());
+        assertEquals(1, requests.get());
+        assertEquals(1, client.getHits());
+        assertEquals(1, client.getMisses());
+    }
+
+    @Test
+    public void testExpires() {
+        CachingHttpClient client = builder().ttl("IncomingPhoneNumbers", 1, TimeUnit.MINUTES).build();
+
+        client.makeRequest(get(PHONE_NUMBER_URI));
+        ticker.set(TimeUnit.MINUTES.toNanos(1));
+
+        assertEquals("{\"count\": 2}", client.makeRequest(get(PHONE_NUMBER_URI)).getContent());
+        assertEquals(2, client.getMisses());
+    }
+
+    @Test
+    public void testDoesNotCacheOtherResourceTypes() {
+        CachingHttpClient client = builder().ttl(Domains.MESSAGING, "Services", 1, TimeUnit.MINUTES).build();
+
+        client.makeRequest(get("/2010-04-01/Accounts/AC123/Services/MG123.json"));
+        client.makeRequest(get("/2010-04-01/Accounts/AC123/Services/MG123.json"));
+        client.makeRequest(get(PHONE_NUMBER_URI));
+        client.makeRequest(get(PHONE_NUMBER_URI));
+
+        assertEquals(4, requests.get());
+        assertEquals(0, client.size());
+    }
+
+    @Test
+    public void testDoesNotCacheErrors() {
+        CachingHttpClient client = builder().defaultTtl(1, TimeUnit.MINUTES).build();
+        statusCode = 404;
+
+        assertEquals(404, client.makeRequest(get(PHONE_NUMBER_URI)).getStatusCode());
+        assertEquals(404, client.makeRequest(get(PHONE_NUMBER_URI)).getStatusCode());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testKeyedByCredentials() {
+        CachingHttpClient client = builder().defaultTtl(1, TimeUnit.MINUTES).build();
+        Request other = get(PHONE_NUMBER_URI);
+        other.setAuth("AC456", "token");
+
+        client.makeRequest(get(PHONE_NUMBER_URI));
+        client.makeRequest(other);
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testUpdateInvalidates() {
+        CachingHttpClient client = builder().defaultTtl(1, TimeUnit.MINUTES).build();
+        Request update = new Request(HttpMethod.POST, Domains.API.toString(), PHONE_NUMBER_URI);
+        update.setAuth("AC123", "token");
+
+        client.makeRequest(get(PHONE_NUMBER_URI));
+        client.makeRequest(update);
+
+        assertEquals("{\"count\": 3}", client.makeRequest(get(PHONE_NUMBER_URI)).getContent());
+    }
+
+    @Test
+    public void testCreateInvalidatesList() {
+        CachingHttpClient client = builder().defaultTtl(1, TimeUnit.MINUTES).build();
+        Request list = get("/2010-04-01/Accounts/AC123/IncomingPhoneNumbers.json");
+        list.addQueryParam("PageSize", "50");
+        Request create = new Request(HttpMethod.POST, Domains.API.toString(),
+            "/2010-04-01/Accounts/AC123/IncomingPhoneNumbers.json");
+        create.setAuth("AC123", "token");
+
+        client.makeRequest(list);
+        client.makeRequest(get(PHONE_NUMBER_URI));
+        client.makeRequest(get("/2010-04-01/Accounts/AC123/Calls.json"));
+        client.makeRequest(create);
+
+        assertEquals("{\"count\": 5}", client.makeRequest(list).getContent());
+        assertEquals("{\"count\": 6}", client.makeRequest(get(PHONE_NUMBER_URI)).getContent());
+        assertEquals("{\"count\": 3}", client.makeRequest(get("/2010-04-01/Accounts/AC123/Calls.json")).getContent());
+    }
+
+    @Test
+    public void testUpdateInvalidatesList() {
+        CachingHttpClient client = builder().defaultTtl(1, TimeUnit.MINUTES).build();
+        String uri = "/2010-04-01/Accounts/AC123/IncomingPhoneNumbers/PN0123456789abcdef0123456789abcdef.json";
+        Request update = new Request(HttpMethod.POST, Domains.API.toString(), uri);
+        update.setAuth("AC123", "token");
+
+        client.makeRequest(get("/2010-04-01/Accounts/AC123/IncomingPhoneNumbers.json"));
+        client.makeRequest(update);
+
+        assertEquals("{\"count\": 3}",
+            client.makeRequest(get("/2010-04-01/Accounts/AC123/IncomingPhoneNumbers.json")).getContent());
+    }
+
+    @Test
+    public void testCachesLists() {
+        CachingHttpClient client = builder().ttl("IncomingPhoneNumbers", 1, TimeUnit.MINUTES).build();
+
+        client.makeRequest(get("/2010-04-01/Accounts/AC123/IncomingPhoneNumbers.json"));
+        client.makeRequest(get("/2010-04-01/Accounts/AC123/IncomingPhoneNumbers.json"));
+
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testRevalidatesExpiredResponse() {
+        final List<Request> sent = new ArrayList<>();
+        network = new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                sent.add(request);
+                if ("\"v1\"".equals(request.getHeaders().get("If-None-Match"))) {
+                    return new Response("", 304);
+                }
+                return new Response("{}", 200, Collections.singletonMap("ETag", "\"v1\""));
+            }
+        };
+        CachingHttpClient client = builder().defaultTtl(1, TimeUnit.MINUTES).revalidate(true).build();
+
+        client.makeRequest(get(PHONE_NUMBER_URI));
+        ticker.set(TimeUnit.MINUTES.toNanos(1));
+        Request request = get(PHONE_NUMBER_URI);
+        Response response = client.makeRequest(request);
+        assertFalse(request.getHeaders().containsKey("If-None-Match"));
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("{}", response.getContent());
+        assertEquals(2, sent.size());
+        assertEquals(1, client.getNotModified());
+
+        client.makeRequest(get(PHONE_NUMBER_URI));
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    public void testCoalescesConcurrentMisses() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        network = new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Response("{\"count\": " + requests.incrementAndGet() + "}", 200);
+            }
+        };
+        final CachingHttpClient client = builder().defaultTtl(1, TimeUnit.MINUTES).build();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    client.makeRequest(get(PHONE_NUMBER_URI));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        started.await();
+        Thread.sleep(100);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, requests.get());
+        assertEquals(1, client.getMisses());
+        assertEquals(4, client.getHits());
+    }
+
+    @Test
+    public void testDoesNotCacheStreamingRequests() throws IOException {
+        final AtomicInteger streams = new AtomicInteger();
+        network = new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                throw new AssertionError("Streaming requests must not be read");
+            }
+
+            @Override
+            public Response makeStreamingRequest(final Request request) {
+                streams.incrementAndGet();
+                return new Response(new ByteArrayInputStream(new byte[] {1, 2}), 200, null);
+            }
+        };
+        CachingHttpClient client = builder().ttl("IncomingPhoneNumbers", 1, TimeUnit.MINUTES).build();
+
+        client.makeStreamingRequest(get(PHONE_NUMBER_URI));
+        Response response = client.makeStreamingRequest(get(PHONE_NUMBER_URI));
+
+        assertEquals(2, streams.get());
+        assertEquals(2, response.getStream().available());
+        assertEquals(0, client.getHits());
+        assertEquals(0, client.getMisses());
+    }
+}
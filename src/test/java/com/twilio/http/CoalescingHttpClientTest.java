@@ -0,0 +1,187 @@
+package com.twilio.http;
+
+import com.twilio.exception.ApiConnectionException;
+import com.twilio.rest.Domains;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class CoalescingHttpClientTest {
+
+    private static Request request(final HttpMethod method) {
+        Request request = new Request(method, Domains.TASKROUTER.toString(), "/v1/Workspaces/WS123");
+        request.setAuth("AC123", "token");
+        return request;
+    }
+
+    @Test
+    public void testCoalescesConcurrentGets() throws InterruptedException {
+        final AtomicInteger requests = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CoalescingHttpClient client = new CoalescingHttpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                requests.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Response("{}", 200);
+            }
+        });
+
+        final List<Response> responses = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Response response = client.makeRequest(request(HttpMethod.GET));
+                    synchronized (responses) {
+                        responses.add(response);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        started.await();
+        while (client.getCoalescedRequests() < 4) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, requests.get());
+        assertEquals(5, responses.size());
+        for (Response response : responses) {
+            assertEquals("{}", response.getContent());
+        }
+    }
+
+    @Test
+    public void testDoesNotKeepCompletedResponses() {
+        final AtomicInteger requests = new AtomicInteger();
+        CoalescingHttpClient client = new CoalescingHttpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                return new Response(Integer.toString(requests.incrementAndGet()), 200);
+            }
+        });
+
+        assertEquals("1", client.makeRequest(request(HttpMethod.GET)).getContent());
+        assertEquals("2", client.makeRequest(request(HttpMethod.GET)).getContent());
+        assertEquals("3", client.makeRequest(request(HttpMethod.POST)).getContent());
+        assertEquals(0, client.getCoalescedRequests());
+    }
+
+    @Test
+    public void testFailureIsNotKept() {
+        final AtomicInteger requests = new AtomicInteger();
+        CoalescingHttpClient client = new CoalescingHttpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                if (requests.incrementAndGet() == 1) {
+                    throw new ApiConnectionException("Connection reset");
+                }
+                return new Response("{}", 200);
+            }
+        });
+
+        try {
+            client.makeRequest(request(HttpMethod.GET));
+            fail("ApiConnectionException was expected");
+        } catch (final ApiConnectionException e) {
+            assertEquals("Connection reset", e.getMessage());
+        }
+
+        assertEquals("{}", client.makeRequest(request(HttpMethod.GET)).getContent());
+    }
+
+    @Test
+    public void testErrorIsSharedWithWaitingRequests() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CoalescingHttpClient client = new CoalescingHttpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new StackOverflowError();
+            }
+        });
+
+        final List<Throwable> errors = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        client.makeRequest(request(HttpMethod.GET));
+                    } catch (final StackOverflowError e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        started.await();
+        while (client.getCoalescedRequests() < 2) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+            assertFalse(thread.isAlive());
+        }
+
+        assertEquals(3, errors.size());
+    }
+
+    @Test
+    public void testDelegatesStreamingRequests() throws IOException {
+        final AtomicInteger streams = new AtomicInteger();
+        CoalescingHttpClient client = new CoalescingHttpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                throw new AssertionError("Streaming requests must not be read");
+            }
+
+            @Override
+            public Response makeStreamingRequest(final Request request) {
+                streams.incrementAndGet();
+                return new Response(new ByteArrayInputStream(new byte[] {1, 2}), 200, null);
+            }
+        });
+
+        Response response = client.makeStreamingRequest(request(HttpMethod.GET));
+
+        assertEquals(1, streams.get());
+        assertEquals(2, response.getStream().available());
+        assertEquals(0, client.getCoalescedRequests());
+    }
+}
@@ -12,13 +12,20 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.pool.PoolStats;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.net.URL;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -56,7 +63,17 @@ public class NetworkHttpClientTest {
         final HttpMethod method,
         final Boolean requiresAuthentication
     ) throws IOException {
-        final InputStream stream = new ByteArrayInputStream(content.getBytes("UTF-8"));
+        setup(statusCode, content.getBytes("UTF-8"), null, method, requiresAuthentication);
+    }
+
+    private void setup(
+        final int statusCode,
+        final byte[] content,
+        final Header contentEncoding,
+        final HttpMethod method,
+        final Boolean requiresAuthentication
+    ) throws IOException {
+        final InputStream stream = new ByteArrayInputStream(content);
 
         new Expectations() {{
             mockBuilder.setDefaultHeaders((Collection<Header>) any);
@@ -71,6 +88,9 @@ public class NetworkHttpClientTest {
             mockRequest.constructURL();
             result = mockUrl;
 
+            mockRequest.isFollowRedirects();
+            result = true;
+
             mockRequest.requiresAuthentication();
             result = requiresAuthentication;
 
@@ -79,6 +99,9 @@ public class NetworkHttpClientTest {
                 result = "foo:bar";
             }
 
+            mockRequest.getHeaders();
+            result = Collections.singletonMap("If-None-Match", "\"etag\"");
+
             if (method == HttpMethod.POST) {
                 mockRequest.getPostParams();
             }
@@ -95,6 +118,9 @@ public class NetworkHttpClientTest {
             mockEntity.getContentLength();
             result = 1;
 
+            mockEntity.getContentEncoding();
+            result = contentEncoding;
+
             mockEntity.getContent();
             result = stream;
 
@@ -104,6 +130,13 @@ public class NetworkHttpClientTest {
             mockStatusLine.getStatusCode();
             result = statusCode;
 
+            mockResponse.getAllHeaders();
+            result = new Header[] {
+                new BasicHeader("ETag", "\"etag\""),
+                new BasicHeader("Vary", "Accept"),
+                new BasicHeader("Vary", "Accept-Encoding")
+            };
+
             mockResponse.getEntity();
             result = null;
         }};
@@ -118,6 +151,8 @@ public class NetworkHttpClientTest {
 
         assertEquals(resp.getStatusCode(), 200);
         assertEquals(resp.getContent(), "frobozz");
+        assertEquals("\"etag\"", resp.getHeader("etag"));
+        assertEquals("Accept, Accept-Encoding", resp.getHeader("Vary"));
     }
 
     @Test(expected = ApiConnectionException.class)
@@ -203,6 +238,65 @@ public class NetworkHttpClientTest {
         httpClient.reliableRequest(request);
     }
 
+    @Test
+    public void testPoolStats() {
+        NetworkHttpClient httpClient = new NetworkHttpClient(5, 15);
+        PoolStats stats = httpClient.getPoolStats();
+
+        assertNotNull(stats);
+        assertEquals(15, stats.getMax());
+        assertEquals(0, stats.getLeased());
+    }
+
+    @Test(expected = ApiConnectionException.class)
+    public void testWarmUpConnectionFailure() {
+        NetworkHttpClient httpClient = new NetworkHttpClient();
+        httpClient.warmUp(2, "https://localhost:1");
+        fail("ApiConnectionException was expected");
+    }
+
+    @Test
+    public void testWarmUpReleasesConnections() throws IOException {
+        NetworkHttpClient httpClient = new NetworkHttpClient();
+        try (ServerSocket server = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"))) {
+            httpClient.warmUp(2, "http://127.0.0.1:" + server.getLocalPort());
+
+            PoolStats stats = httpClient.getPoolStats();
+            assertEquals(2, stats.getAvailable());
+            assertEquals(0, stats.getLeased());
+        }
+    }
+
+    @Test
+    public void testWarmUpReleasesConnectionsOnFailure() {
+        NetworkHttpClient httpClient = new NetworkHttpClient();
+        try {
+            httpClient.warmUp(2, "http://localhost:1");
+            fail("ApiConnectionException was expected");
+        } catch (final ApiConnectionException e) {
+            assertEquals(0, httpClient.getPoolStats().getLeased());
+            assertEquals(0, httpClient.getPoolStats().getAvailable());
+        }
+    }
+
+    @Test
+    public void testGzipResponse() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        gzip.write("frobozz".getBytes("UTF-8"));
+        gzip.close();
+
+        setup(200, compressed.toByteArray(), new BasicHeader("Content-Encoding", "gzip"), HttpMethod.GET, false);
+
+        client = new NetworkHttpClient(mockBuilder);
+        Response resp = client.makeRequest(mockRequest);
+
+        assertEquals(resp.getStatusCode(), 200);
+        assertEquals(resp.getContent(), "frobozz");
+        assertEquals(compressed.size(), client.getCompressedBytes());
+        assertEquals(7, client.getUncompressedBytes());
+    }
+
     @Test
     public void testDelete() throws IOException {
         setup(204, "", HttpMethod.DELETE,false);
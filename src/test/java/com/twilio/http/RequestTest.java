@@ -9,6 +9,7 @@ import org.junit.Test;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collections;
 
 import static com.twilio.Assert.assertQueryStringsEqual;
 import static com.twilio.Assert.assertUrlsEqual;
@@ -158,6 +159,31 @@ public class RequestTest {
         assertEquals("username", request.getUsername());
     }
 
+    @Test
+    public void testGetAuthString() {
+        Request request = new Request(HttpMethod.DELETE, "/uri");
+        request.setAuth("username", "password");
+        assertEquals("Basic dXNlcm5hbWU6cGFzc3dvcmQ=", request.getAuthString());
+    }
+
+    @Test
+    public void testGetPrecomputedAuthString() {
+        Request request = new Request(HttpMethod.DELETE, "/uri");
+        request.setAuth("username", "password", "Basic cHJlY29tcHV0ZWQ=");
+        assertEquals("Basic cHJlY29tcHV0ZWQ=", request.getAuthString());
+
+        request.setAuth("username", "password");
+        assertEquals(Request.encodeAuthString("username", "password"), request.getAuthString());
+    }
+
+    @Test
+    public void testSetHeader() {
+        Request request = new Request(HttpMethod.GET, "/uri");
+        request.setHeader("If-None-Match", "\"first\"");
+        request.setHeader("If-None-Match", "\"second\"");
+        assertEquals(Collections.singletonMap("If-None-Match", "\"second\""), request.getHeaders());
+    }
+
     @Test
     public void testRequiresAuthentication() {
         Request request = new Request(HttpMethod.DELETE, "/uri");
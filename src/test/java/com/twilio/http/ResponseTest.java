@@ -5,8 +5,10 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class ResponseTest {
 
@@ -25,6 +27,19 @@ public class ResponseTest {
         assertEquals("Test", response.getContent());
     }
 
+    @Test
+    public void testGetHeaders() {
+        Response response = new Response(
+            "Test",
+            TwilioRestClient.HTTP_STATUS_CODE_OK,
+            Collections.singletonMap("ETag", "\"etag\"")
+        );
+
+        assertEquals("\"etag\"", response.getHeader("etag"));
+        assertEquals(1, response.getHeaders().size());
+        assertNull(new Response("Test", TwilioRestClient.HTTP_STATUS_CODE_OK).getHeader("ETag"));
+    }
+
     @Test
     public void testGetStream(@Mocked final InputStream stream) {
         Response response = new Response(stream, TwilioRestClient.HTTP_STATUS_CODE_OK);
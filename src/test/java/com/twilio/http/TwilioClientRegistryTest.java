@@ -0,0 +1,76 @@
+package com.twilio.http;
+
+import com.twilio.exception.AuthenticationException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TwilioClientRegistryTest {
+
+    @Test
+    public void testRegister() {
+        TwilioClientRegistry registry = new TwilioClientRegistry.Builder().region("us1").build();
+        TwilioRestClient client = registry.register("AC123", "token");
+
+        assertSame(client, registry.getClient("AC123"));
+        assertEquals("AC123", client.getAccountSid());
+        assertEquals("us1", client.getRegion());
+        assertTrue(registry.isRegistered("AC123"));
+    }
+
+    @Test
+    public void testRegisterApiKey() {
+        TwilioClientRegistry registry = new TwilioClientRegistry.Builder().build();
+        registry.register("SK123", "secret", "AC123");
+
+        assertEquals("AC123", registry.getClient("AC123").getAccountSid());
+        assertFalse(registry.isRegistered("SK123"));
+    }
+
+    @Test
+    public void testClientsShareHttpClientAndObjectMapper() {
+        TwilioClientRegistry registry = new TwilioClientRegistry.Builder().build();
+        TwilioRestClient first = registry.register("AC123", "token");
+        TwilioRestClient second = registry.register("AC456", "token");
+
+        assertSame(registry.getHttpClient(), first.getHttpClient());
+        assertSame(first.getHttpClient(), second.getHttpClient());
+        assertSame(first.getObjectMapper(), second.getObjectMapper());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        TwilioClientRegistry registry = new TwilioClientRegistry.Builder().maximumSize(1).build();
+        registry.register("AC123", "token");
+        registry.register("AC456", "token");
+
+        assertEquals(1, registry.size());
+        assertFalse(registry.isRegistered("AC123"));
+        assertTrue(registry.isRegistered("AC456"));
+    }
+
+    @Test
+    public void testUnregister() {
+        TwilioClientRegistry registry = new TwilioClientRegistry.Builder().build();
+        registry.register("AC123", "token");
+        registry.unregister("AC123");
+
+        assertFalse(registry.isRegistered("AC123"));
+    }
+
+    @Test(expected = AuthenticationException.class)
+    public void testGetUnregisteredClient() {
+        new TwilioClientRegistry.Builder().build().getClient("AC123");
+        fail("AuthenticationException was expected");
+    }
+
+    @Test(expected = AuthenticationException.class)
+    public void testRegisterNullPassword() {
+        new TwilioClientRegistry.Builder().build().register("AC123", null);
+        fail("AuthenticationException was expected");
+    }
+}
@@ -0,0 +1,168 @@
+package com.twilio.http;
+
+import com.google.common.base.Charsets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ValidationClientTest {
+
+    private static final byte[] BODY = "0123456789".getBytes(Charsets.US_ASCII);
+
+    private ServerSocket server;
+    private List<String> headers;
+    private CountDownLatch rest;
+    private volatile String redirect;
+    private ValidationClient client;
+
+    @Before
+    public void setUp() throws IOException, NoSuchAlgorithmException {
+        server = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+        headers = Collections.synchronizedList(new ArrayList<String>());
+        rest = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                serve();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        client = new ValidationClient("AC123", "CR123", "SK123", generator.generateKeyPair().getPrivate());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Serve one request, sending the second half of the body only once released.
+     */
+    private void serve() {
+        try (Socket socket = server.accept()) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), Charsets.US_ASCII));
+            for (String line = reader.readLine(); line != null && !line.isEmpty(); line = reader.readLine()) {
+                headers.add(line);
+            }
+
+            OutputStream out = socket.getOutputStream();
+            if (redirect != null) {
+                out.write(("HTTP/1.1 302 Found\r\nLocation: " + redirect + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n")
+                    .getBytes(Charsets.US_ASCII));
+                out.flush();
+                return;
+            }
+            out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + BODY.length + "\r\nConnection: close\r\n\r\n")
+                .getBytes(Charsets.US_ASCII));
+            out.write(BODY, 0, BODY.length / 2);
+            out.flush();
+            rest.await(5, TimeUnit.SECONDS);
+            out.write(BODY, BODY.length / 2, BODY.length - BODY.length / 2);
+            out.flush();
+        } catch (final IOException | InterruptedException e) {
+            // The test fails on the client side
+        }
+    }
+
+    private Request request() {
+        Request request = new Request(HttpMethod.GET, "http://127.0.0.1:" + server.getLocalPort() + "/media");
+        request.setAuth("AC123", "token");
+        return request;
+    }
+
+    @Test
+    public void testStreamsResponseBody() throws IOException {
+        Response response = client.makeStreamingRequest(request());
+
+        try (InputStream stream = response.getStream()) {
+            // The first half is readable before the server sends the rest
+            byte[] read = new byte[BODY.length];
+            int first = stream.read(read, 0, BODY.length / 2);
+            assertTrue(first > 0);
+            rest.countDown();
+
+            int length = first;
+            for (int n = stream.read(read, length, read.length - length); n > 0;
+                 n = stream.read(read, length, read.length - length)) {
+                length += n;
+            }
+            assertEquals(BODY.length, length);
+            assertEquals(new String(BODY, Charsets.US_ASCII), new String(read, Charsets.US_ASCII));
+        }
+        assertEquals(200, response.getStatusCode());
+        assertTrue(headers.get(0).startsWith("GET /media"));
+    }
+
+    @Test
+    public void testSendsOnlyTheEncodingOfTheRequest() throws IOException {
+        Request request = request();
+        request.setHeader("Accept-Encoding", "identity");
+        rest.countDown();
+
+        try (InputStream stream = client.makeStreamingRequest(request).getStream()) {
+            while (stream.read() >= 0) {
+                continue;
+            }
+        }
+
+        assertEquals(Collections.singletonList("identity"), encodings());
+    }
+
+    @Test
+    public void testAcceptsCompressionByDefault() throws IOException {
+        rest.countDown();
+
+        client.makeRequest(request()).getContent();
+
+        assertEquals(Collections.singletonList("gzip, deflate"), encodings());
+    }
+
+    @Test
+    public void testReturnsRedirectWhenNotFollowingRedirects() throws IOException {
+        redirect = "http://127.0.0.1:1/file";
+        Request request = request();
+        request.setFollowRedirects(false);
+
+        Response response = client.makeStreamingRequest(request);
+        response.getStream().close();
+
+        assertEquals(302, response.getStatusCode());
+        assertEquals(redirect, response.getHeader("Location"));
+    }
+
+    private List<String> encodings() {
+        List<String> encodings = new ArrayList<>();
+        synchronized (headers) {
+            for (final String header : headers) {
+                if (header.toLowerCase(Locale.ROOT).startsWith("accept-encoding:")) {
+                    encodings.add(header.substring(header.indexOf(':') + 1).trim());
+                }
+            }
+        }
+        return encodings;
+    }
+}
@@ -0,0 +1,208 @@
+package com.twilio.lookups;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.twilio.Twilio;
+import com.twilio.exception.ApiException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.type.PhoneNumber;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LookupBatchTest {
+
+    private static final String LOOKUP_URL = "https://lookups.twilio.com/v1/PhoneNumbers/";
+
+    private AtomicInteger requests;
+    private AtomicInteger running;
+    private AtomicInteger maxRunning;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        requests = new AtomicInteger();
+        running = new AtomicInteger();
+        maxRunning = new AtomicInteger();
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                requests.incrementAndGet();
+                int now = running.incrementAndGet();
+                synchronized (maxRunning) {
+                    maxRunning.set(Math.max(maxRunning.get(), now));
+                }
+                try {
+                    String number = request.getUrl().substring(LOOKUP_URL.length());
+                    sleep(number.equals("+15550000001") ? 200 : 5);
+                    if (number.equals("+15550000000")) {
+                        return new Response("{\"status\": 404, \"message\": \"Not found\", \"code\": 20404}", 404);
+                    }
+                    return new Response(
+                        "{\"country_code\": \"US\", \"phone_number\": \"" + number + "\", \"national_format\": null, "
+                            + "\"carrier\": {\"name\": \"Carrier\", \"type\": \"mobile\"}, \"caller_name\": null, "
+                            + "\"add_ons\": null, \"url\": \"" + LOOKUP_URL + number + "\"}",
+                        TwilioRestClient.HTTP_STATUS_CODE_OK
+                    );
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        }).build();
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<PhoneNumber> numbers(final String... numbers) {
+        List<PhoneNumber> phoneNumbers = new ArrayList<>();
+        for (final String number : numbers) {
+            phoneNumbers.add(new PhoneNumber(number));
+        }
+        return phoneNumbers;
+    }
+
+    private static List<LookupBatch.Result> read(final LookupBatch.Results results) {
+        List<LookupBatch.Result> read = new ArrayList<>();
+        try (LookupBatch.Results iterator = results) {
+            while (iterator.hasNext()) {
+                read.add(iterator.next());
+            }
+        }
+        return read;
+    }
+
+    @Test
+    public void testDedupesNormalizedNumbers() {
+        LookupBatch batch = new LookupBatch.Builder().type("carrier").build();
+
+        List<LookupBatch.Result> results = read(
+            batch.lookup(client, numbers("+1 (415) 555-1234", "+14155551234", "+14155559876", "n/a"))
+        );
+
+        assertEquals(4, results.size());
+        assertEquals(2, requests.get());
+        assertEquals("+1 (415) 555-1234", results.get(0).getNumber().toString());
+        assertEquals("+14155551234", results.get(0).getLookup().getPhoneNumber().toString());
+        assertEquals("+14155551234", results.get(1).getLookup().getPhoneNumber().toString());
+        assertEquals("+14155559876", results.get(2).getLookup().getPhoneNumber().toString());
+        assertTrue(results.get(3).getException() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testCapturesFailedLookups() {
+        LookupBatch batch = new LookupBatch.Builder().build();
+
+        List<LookupBatch.Result> results = read(batch.lookup(client, numbers("+15550000000", "+14155551234")));
+
+        assertFalse(results.get(0).isSuccess());
+        assertNull(results.get(0).getLookup());
+        assertEquals(Integer.valueOf(404), ((ApiException) results.get(0).getException()).getStatusCode());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(1, batch.getCacheSize());
+    }
+
+    @Test
+    public void testBoundsConcurrentRequests() {
+        List<PhoneNumber> input = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            input.add(new PhoneNumber("+1415555" + (1000 + i)));
+        }
+        LookupBatch batch = new LookupBatch.Builder().parallelism(3).bufferSize(8).build();
+
+        List<LookupBatch.Result> results = read(batch.lookup(client, input));
+
+        assertEquals(40, results.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(input.get(i), results.get(i).getNumber());
+        }
+        assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void testReturnsResultsAsCompleted() {
+        LookupBatch batch = new LookupBatch.Builder().ordered(false).build();
+
+        List<LookupBatch.Result> results = read(batch.lookup(client, numbers("+15550000001", "+14155551234")));
+
+        assertEquals(ImmutableList.of(new PhoneNumber("+14155551234"), new PhoneNumber("+15550000001")),
+            ImmutableList.of(results.get(0).getNumber(), results.get(1).getNumber()));
+    }
+
+    @Test
+    public void testServesCachedLookups() {
+        LookupBatch batch = new LookupBatch.Builder().build();
+        read(batch.lookup(client, numbers("+14155551234")));
+
+        LookupBatch.Result result = batch.lookup(client, new PhoneNumber("+1 415 555 1234"));
+
+        assertTrue(result.isCached());
+        assertEquals(1, requests.get());
+
+        batch.invalidateCache();
+        assertFalse(batch.lookup(client, new PhoneNumber("+14155551234")).isCached());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testHandsOnlyParallelismTasksToTheExecutor() {
+        final AtomicInteger tasks = new AtomicInteger();
+        final AtomicInteger maxTasks = new AtomicInteger();
+        final ExecutorService threads = new ThreadPoolExecutor(
+            0, Integer.MAX_VALUE, 1, TimeUnit.SECONDS, new SynchronousQueue<Runnable>()
+        ) {
+            @Override
+            protected void beforeExecute(final Thread thread, final Runnable task) {
+                int now = tasks.incrementAndGet();
+                synchronized (maxTasks) {
+                    maxTasks.set(Math.max(maxTasks.get(), now));
+                }
+            }
+
+            @Override
+            protected void afterExecute(final Runnable task, final Throwable throwable) {
+                tasks.decrementAndGet();
+            }
+        };
+
+        List<PhoneNumber> input = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            input.add(new PhoneNumber("+1415555" + (1000 + i)));
+        }
+        ListeningExecutorService previous = Twilio.getExecutorService();
+        Twilio.setExecutorService(MoreExecutors.listeningDecorator(threads));
+        try {
+            LookupBatch batch = new LookupBatch.Builder().parallelism(2).bufferSize(32).build();
+
+            List<LookupBatch.Result> results = read(batch.lookup(client, input));
+
+            assertEquals(40, results.size());
+            assertEquals(40, requests.get());
+            assertTrue(maxTasks.get() <= 2);
+        } finally {
+            Twilio.setExecutorService(previous);
+            threads.shutdown();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.twilio.notify;
+
+import com.google.common.base.Charsets;
+import com.twilio.exception.ApiException;
+import com.twilio.exception.TwilioException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.notify.v1.service.Binding;
+import com.twilio.rest.notify.v1.service.BindingCreator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BindingImporterTest {
+
+    private List<String> created;
+    private Set<String> throttled;
+    private Path directory;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        created = Collections.synchronizedList(new ArrayList<String>());
+        throttled = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        directory = Files.createTempDirectory("bindings");
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                String identity = request.getPostParams().get("Identity").get(0);
+                if (identity.startsWith("throttled") && throttled.add(identity)) {
+                    return new Response("{\"status\": 429, \"message\": \"Too many requests\", \"code\": 20429}", 429);
+                }
+                if (identity.startsWith("invalid")) {
+                    return new Response("{\"status\": 400, \"message\": \"Invalid address\", \"code\": 20001}", 400);
+                }
+                created.add(identity);
+                return new Response(
+                    "{\"sid\": \"BS" + identity + "\", \"service_sid\": \"IS123\", \"identity\": \"" + identity + "\"}",
+                    TwilioRestClient.HTTP_STATUS_CODE_CREATED
+                );
+            }
+        }).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (final Path file : Files.newDirectoryStream(directory)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    private static Iterator<BindingCreator> creators(final String... identities) {
+        List<BindingCreator> creators = new ArrayList<>();
+        for (final String identity : identities) {
+            creators.add(Binding.creator("IS123", identity, Binding.BindingType.SMS, "+14155550000"));
+        }
+        return creators.iterator();
+    }
+
+    @Test
+    public void testRetriesThrottledCreatesAndReportsFailures() {
+        final List<Long> failures = Collections.synchronizedList(new ArrayList<Long>());
+        final List<BindingImporter.Progress> checkpoints =
+            Collections.synchronizedList(new ArrayList<BindingImporter.Progress>());
+
+        BindingImporter.Progress progress = new BindingImporter.Builder()
+            .rate(100, 1, 100)
+            .backoff(1, 1, TimeUnit.MILLISECONDS)
+            .checkpointInterval(2)
+            .listener(new BindingImporter.Listener() {
+                @Override
+                public void onProgress(final BindingImporter.Progress progress) {
+                    checkpoints.add(progress);
+                }
+
+                @Override
+                public void onFailure(final long position, final TwilioException e) {
+                    assertEquals(Integer.valueOf(400), ((ApiException) e).getStatusCode());
+                    failures.add(position);
+                }
+            })
+            .build()
+            .importBindings(client, creators("alice", "throttled-bob", "invalid-carol", "dave", "throttled-erin"));
+
+        assertEquals(5, progress.getPosition());
+        assertEquals(4, progress.getCreated());
+        assertEquals(1, progress.getFailed());
+        assertEquals(2, progress.getThrottled());
+        assertTrue(progress.getRate() < 100);
+        assertEquals(Collections.singletonList(2L), failures);
+        assertEquals(4, created.size());
+        assertTrue(checkpoints.size() >= 2);
+        assertEquals(5, checkpoints.get(checkpoints.size() - 1).getPosition());
+    }
+
+    @Test
+    public void testResumesFromCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve("bindings.checkpoint");
+        Files.write(checkpoint, "3".getBytes(Charsets.UTF_8));
+
+        BindingImporter.Progress progress = new BindingImporter.Builder()
+            .checkpoint(checkpoint)
+            .build()
+            .importBindings(client, creators("alice", "bob", "carol", "dave", "erin"));
+
+        assertEquals(5, progress.getPosition());
+        assertEquals(2, progress.getCreated());
+        assertEquals(2, created.size());
+        assertFalse(created.contains("alice"));
+        assertEquals("5", new String(Files.readAllBytes(checkpoint), Charsets.UTF_8));
+    }
+
+    @Test
+    public void testReplacesCheckpointAtomically() throws IOException {
+        Path checkpoint = directory.resolve("bindings.checkpoint");
+
+        new BindingImporter.Builder()
+            .checkpoint(checkpoint)
+            .checkpointInterval(1)
+            .parallelism(1)
+            .build()
+            .importBindings(client, creators("alice", "bob"));
+
+        assertEquals("2", new String(Files.readAllBytes(checkpoint), Charsets.UTF_8));
+        assertFalse(Files.exists(directory.resolve("bindings.checkpoint.tmp")));
+    }
+}
@@ -0,0 +1,127 @@
+package com.twilio.notify;
+
+import com.twilio.exception.ApiException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.notify.v1.service.Notification;
+import com.twilio.rest.notify.v1.service.NotificationCreator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NotificationFanOutTest {
+
+    private static final NotificationFanOut.Template TEMPLATE = new NotificationFanOut.Template() {
+        @Override
+        public NotificationCreator creator() {
+            return Notification.creator("IS123").setBody("Hello");
+        }
+    };
+
+    private List<Request> requests;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        requests = Collections.synchronizedList(new ArrayList<Request>());
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                requests.add(request);
+                List<String> identities = request.getPostParams().get("Identity");
+                if (identities != null && identities.contains("blocked")) {
+                    return new Response("{\"status\": 400, \"message\": \"Invalid identity\", \"code\": 20001}", 400);
+                }
+                return new Response(
+                    "{\"sid\": \"NT" + requests.size() + "\", \"service_sid\": \"IS123\", \"body\": \"Hello\"}",
+                    TwilioRestClient.HTTP_STATUS_CODE_CREATED
+                );
+            }
+        }).build();
+    }
+
+    private static List<String> identities(final int count) {
+        List<String> identities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            identities.add("user" + i);
+        }
+        return identities;
+    }
+
+    private static List<String> bindings(final int count) {
+        List<String> bindings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            bindings.add("{\"binding_type\":\"sms\",\"address\":\"+1415555" + String.format("%04d", i) + "\"}");
+        }
+        return bindings;
+    }
+
+    @Test
+    public void testChunksIdentities() {
+        NotificationFanOut.Result result = new NotificationFanOut.Builder(TEMPLATE)
+            .identities(identities(45))
+            .build()
+            .send(client);
+
+        assertTrue(result.isSuccess());
+        assertEquals(3, result.getNotifications().size());
+        assertEquals(3, requests.size());
+        int sent = 0;
+        for (final Request request : requests) {
+            assertTrue(request.getPostParams().get("Identity").size() <= NotificationFanOut.MAX_IDENTITIES);
+            assertEquals("Hello", request.getPostParams().get("Body").get(0));
+            sent += request.getPostParams().get("Identity").size();
+        }
+        assertEquals(45, sent);
+    }
+
+    @Test
+    public void testChunksBindingsBySizeAndCount() {
+        List<String> bindings = bindings(25);
+        int size = "&ToBinding=".length() + 75;
+
+        List<NotificationFanOut.Chunk> chunks = new NotificationFanOut.Builder(TEMPLATE)
+            .bindings(bindings)
+            .maxBindingBytes(size * 10)
+            .build()
+            .chunks();
+        assertEquals(3, chunks.size());
+        assertEquals(10, chunks.get(0).getBindings().size());
+        assertEquals(5, chunks.get(2).getBindings().size());
+
+        chunks = new NotificationFanOut.Builder(TEMPLATE)
+            .bindings(bindings)
+            .maxBindings(20)
+            .build()
+            .chunks();
+        assertEquals(2, chunks.size());
+        assertEquals(bindings.subList(20, 25), chunks.get(1).getBindings());
+    }
+
+    @Test
+    public void testReportsFailedChunks() {
+        List<String> identities = identities(20);
+        identities.add("blocked");
+
+        NotificationFanOut.Result result = new NotificationFanOut.Builder(TEMPLATE)
+            .identities(identities)
+            .bindings(bindings(2))
+            .build()
+            .send(client);
+
+        assertFalse(result.isSuccess());
+        assertEquals(2, result.getNotifications().size());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(Collections.singletonList("blocked"), result.getFailures().get(0).getIdentities());
+        assertEquals(Integer.valueOf(400), ((ApiException) result.getFailures().get(0).getException()).getStatusCode());
+    }
+}
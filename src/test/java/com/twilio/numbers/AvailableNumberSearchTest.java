@@ -0,0 +1,202 @@
+package com.twilio.numbers;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.twilio.exception.ApiException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.HttpMethod;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.availablephonenumbercountry.Local;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AvailableNumberSearchTest {
+
+    private static final String SEARCH_URI = "/2010-04-01/Accounts/AC123/AvailablePhoneNumbers/US/Local.json";
+    private static final int PAGES = 3;
+
+    private List<String> pages;
+    private Set<String> claimed;
+    private List<String> bought;
+    private volatile int purchaseStatus;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        pages = Collections.synchronizedList(new ArrayList<String>());
+        claimed = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        bought = Collections.synchronizedList(new ArrayList<String>());
+        purchaseStatus = TwilioRestClient.HTTP_STATUS_CODE_CREATED;
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                if (request.getMethod() == HttpMethod.POST) {
+                    return purchase(request.getPostParams().get("PhoneNumber").get(0));
+                }
+
+                Map<String, String> query = query(request.constructURL());
+                String areaCode = query.containsKey("AreaCode") ? query.get("AreaCode") : "415";
+                int page = query.containsKey("Page") ? Integer.parseInt(query.get("Page")) : 0;
+                pages.add(areaCode + "/" + page);
+                if (areaCode.equals("999")) {
+                    return new Response("{\"status\": 404, \"message\": \"No numbers\", \"code\": 20404}", 404);
+                }
+                String filter = query.containsKey("AreaCode") ? "AreaCode=" + areaCode : "Contains=" + query.get("Contains");
+                return new Response(page(areaCode, page, filter), TwilioRestClient.HTTP_STATUS_CODE_OK);
+            }
+        }).build();
+    }
+
+    private static Map<String, String> query(final URL url) {
+        Map<String, String> params = new HashMap<>();
+        if (url.getQuery() != null) {
+            for (final String param : url.getQuery().split("&")) {
+                String[] pair = param.split("=", 2);
+                params.put(pair[0], pair[1]);
+            }
+        }
+        return params;
+    }
+
+    private static String number(final String areaCode, final int page, final int index) {
+        return "+1" + areaCode + "55500" + page + index;
+    }
+
+    private static String page(final String areaCode, final int page, final String filter) {
+        StringBuilder numbers = new StringBuilder();
+        for (int i = 0; i < 2; i++) {
+            numbers.append(i > 0 ? "," : "").append("{\"friendly_name\": \"").append(number(areaCode, page, i))
+                .append("\", \"phone_number\": \"").append(number(areaCode, page, i))
+                .append("\", \"region\": \"CA\", \"iso_country\": \"US\", \"capabilities\": {\"voice\": true, "
+                    + "\"SMS\": true, \"MMS\": false}}");
+        }
+        String next = page == PAGES - 1 ? "null" : "\"" + SEARCH_URI + "?" + filter + "&Page=" + (page + 1) + "\"";
+        return "{\"first_page_uri\": \"" + SEARCH_URI + "\", \"next_page_uri\": " + next + ", \"page\": " + page
+            + ", \"page_size\": 2, \"previous_page_uri\": null, \"uri\": \"" + SEARCH_URI + "\", "
+            + "\"available_phone_numbers\": [" + numbers + "]}";
+    }
+
+    private Response purchase(final String number) {
+        if (claimed.contains(number)) {
+            return new Response(
+                "{\"status\": 400, \"message\": \"" + number + " is not available\", \"code\": 21422}",
+                400
+            );
+        }
+        if (purchaseStatus != TwilioRestClient.HTTP_STATUS_CODE_CREATED) {
+            return new Response("{\"status\": 401, \"message\": \"Authenticate\", \"code\": 20003}", purchaseStatus);
+        }
+        bought.add(number);
+        return new Response(
+            "{\"sid\": \"PN" + number.substring(1) + "\", \"account_sid\": \"AC123\", \"phone_number\": \"" + number + "\"}",
+            TwilioRestClient.HTTP_STATUS_CODE_CREATED
+        );
+    }
+
+    private static List<String> numbers(final List<Local> numbers) {
+        List<String> strings = new ArrayList<>();
+        for (final Local number : numbers) {
+            strings.add(number.getPhoneNumber().toString());
+        }
+        Collections.sort(strings);
+        return strings;
+    }
+
+    @Test
+    public void testStopsOnceEnoughNumbersAreFound() {
+        AvailableNumberSearch.Result result = new AvailableNumberSearch.Builder(3)
+            .areaCodes("US", ImmutableList.of(415, 510))
+            .parallelism(1)
+            .build()
+            .search(client);
+
+        assertEquals(
+            ImmutableList.of(number("415", 0, 0), number("415", 0, 1), number("415", 1, 0)),
+            numbers(result.getNumbers())
+        );
+        assertEquals(ImmutableList.of("415/0", "415/1"), pages);
+    }
+
+    @Test
+    public void testDedupesAndFiltersCandidates() {
+        AvailableNumberSearch.Result result = new AvailableNumberSearch.Builder(10)
+            .areaCodes("US", ImmutableList.of(415))
+            .reader(Local.reader("US").setContains("4155550"))
+            .filter(new Predicate<Local>() {
+                @Override
+                public boolean apply(final Local number) {
+                    return number.getPhoneNumber().toString().endsWith("0");
+                }
+            })
+            .parallelism(1)
+            .build()
+            .search(client);
+
+        assertEquals(3, result.getNumbers().size());
+        assertEquals(6, result.getDuplicates());
+        assertEquals(2 * PAGES, pages.size());
+    }
+
+    @Test
+    public void testReportsFailedCriteria() {
+        AvailableNumberSearch.Result result = new AvailableNumberSearch.Builder(4)
+            .areaCodes("US", ImmutableList.of(999, 510))
+            .build()
+            .search(client);
+
+        assertEquals(4, result.getNumbers().size());
+        assertEquals(1, result.getFailures().size());
+        assertEquals(Integer.valueOf(404), ((ApiException) result.getFailures().get(0)).getStatusCode());
+    }
+
+    @Test
+    public void testBuysNumbersAndReplacesConflicts() {
+        claimed.add(number("415", 0, 1));
+
+        AvailableNumberSearch.Result result = new AvailableNumberSearch.Builder(3)
+            .areaCodes("US", ImmutableList.of(415))
+            .purchase()
+            .purchaseParallelism(2)
+            .build()
+            .search(client);
+
+        assertEquals(3, result.getPurchased().size());
+        assertEquals(3, bought.size());
+        assertEquals(ImmutableList.of(number("415", 0, 1)), numbers(result.getConflicts()));
+        assertFalse(numbers(result.getNumbers()).contains(number("415", 0, 1)));
+        assertTrue(result.getPurchased().get(0).getSid().startsWith("PN1415"));
+    }
+
+    @Test
+    public void testStopsOnPurchaseFailure() {
+        purchaseStatus = 401;
+
+        try {
+            new AvailableNumberSearch.Builder(3)
+                .areaCodes("US", ImmutableList.of(415, 510))
+                .purchase()
+                .build()
+                .search(client);
+            fail("ApiException was expected");
+        } catch (final ApiException e) {
+            assertEquals(Integer.valueOf(401), e.getStatusCode());
+        }
+        assertTrue(bought.isEmpty());
+    }
+}
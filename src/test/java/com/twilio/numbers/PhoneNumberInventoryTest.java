@@ -0,0 +1,222 @@
+package com.twilio.numbers;
+
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.IncomingPhoneNumber;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PhoneNumberInventoryTest {
+
+    private static final String NUMBERS_URI = "/2010-04-01/Accounts/AC123/IncomingPhoneNumbers";
+
+    private Map<String, String> numbers;
+    private Map<String, String> types;
+    private AtomicInteger requests;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        numbers = new ConcurrentHashMap<>();
+        types = new ConcurrentHashMap<>();
+        add("PN1", "+14155550001", "Support", "true", "true", "false", "Local", "01");
+        add("PN2", "+14155550002", "Sales", "true", "false", "false", "Local", "01");
+        add("PN3", "+18005550003", "Support", "true", "true", "true", "TollFree", "01");
+        add("PN4", "+447700900004", "UK", "false", "true", "false", "Mobile", "01");
+        requests = new AtomicInteger();
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                requests.incrementAndGet();
+                String path = request.constructURL().getPath();
+                String list = path.substring(NUMBERS_URI.length()).replace(".json", "").replace("/", "");
+                return new Response(page(path, list), TwilioRestClient.HTTP_STATUS_CODE_OK);
+            }
+        }).build();
+    }
+
+    private void add(
+        final String sid,
+        final String number,
+        final String friendlyName,
+        final String voice,
+        final String sms,
+        final String mms,
+        final String type,
+        final String day
+    ) {
+        numbers.put(sid, "{\"sid\": \"" + sid + "\", \"account_sid\": \"AC123\", \"phone_number\": \"" + number
+            + "\", \"friendly_name\": \"" + friendlyName + "\", \"capabilities\": {\"voice\": " + voice + ", \"SMS\": "
+            + sms + ", \"MMS\": " + mms + "}, \"voice_url\": \"https://example.com/" + friendlyName + "/voice\", "
+            + "\"sms_url\": \"https://example.com/sms\", \"date_updated\": \"Mon, " + day + " May 2017 00:00:00 +0000\"}");
+        types.put(sid, type);
+    }
+
+    private String page(final String uri, final String list) {
+        List<String> records = new ArrayList<>();
+        for (final Map.Entry<String, String> number : numbers.entrySet()) {
+            if (list.isEmpty() || list.equals(types.get(number.getKey()))) {
+                records.add(number.getValue());
+            }
+        }
+        StringBuilder json = new StringBuilder();
+        for (final String record : records) {
+            json.append(json.length() > 0 ? "," : "").append(record);
+        }
+        return "{\"first_page_uri\": \"" + uri + "\", \"next_page_uri\": null, \"page\": 0, \"page_size\": 1000, "
+            + "\"previous_page_uri\": null, \"uri\": \"" + uri + "\", \"incoming_phone_numbers\": [" + json + "]}";
+    }
+
+    @Test
+    public void testIndexesEveryNumber() {
+        PhoneNumberInventory inventory = new PhoneNumberInventory.Builder().build();
+
+        assertEquals(4, inventory.refresh(client));
+
+        assertEquals(4, requests.get());
+        assertEquals(4, inventory.size());
+        assertEquals("PN2", inventory.getSid("+14155550002"));
+        assertNull(inventory.get("+14155550009"));
+        PhoneNumberInventory.Number tollFree = inventory.getBySid("PN3");
+        assertEquals(PhoneNumberInventory.Type.TOLL_FREE, tollFree.getType());
+        assertTrue(tollFree.has(PhoneNumberInventory.VOICE | PhoneNumberInventory.SMS | PhoneNumberInventory.MMS));
+        assertEquals(PhoneNumberInventory.Type.MOBILE, inventory.get("+447700900004").getType());
+        assertEquals("https://example.com/Sales/voice", inventory.get("+14155550002").getVoiceUrl());
+    }
+
+    @Test
+    public void testFindsNumbersByCapabilitiesAndPrefix() {
+        PhoneNumberInventory inventory = new PhoneNumberInventory.Builder().build();
+        inventory.refresh(client);
+
+        assertEquals(3, inventory.find(PhoneNumberInventory.SMS).size());
+        assertEquals("PN3", inventory.find(PhoneNumberInventory.MMS).get(0).getSid());
+        assertEquals(4, inventory.find(0).size());
+
+        List<PhoneNumberInventory.Number> found = inventory.find(PhoneNumberInventory.VOICE, "+1415");
+        assertEquals(2, found.size());
+        assertEquals("PN1", found.get(0).getSid());
+        assertEquals("PN2", found.get(1).getSid());
+        assertEquals(1, inventory.find(PhoneNumberInventory.SMS, "+1415").size());
+        assertTrue(inventory.find(PhoneNumberInventory.VOICE, "+44").isEmpty());
+        assertTrue(inventory.find(PhoneNumberInventory.VOICE, "+9").isEmpty());
+    }
+
+    @Test
+    public void testFindsNumbersByUrlAndFriendlyName() {
+        PhoneNumberInventory inventory = new PhoneNumberInventory.Builder().build();
+        inventory.refresh(client);
+
+        assertEquals(4, inventory.findBySmsUrl("https://example.com/sms").size());
+        assertEquals(2, inventory.findByVoiceUrl("https://example.com/Support/voice").size());
+        assertEquals("PN4", inventory.findByFriendlyName("UK").get(0).getSid());
+        assertTrue(inventory.findByFriendlyName("Billing").isEmpty());
+    }
+
+    @Test
+    public void testRefreshKeepsUnchangedNumbers() {
+        PhoneNumberInventory inventory = new PhoneNumberInventory.Builder().build();
+        inventory.refresh(client);
+        PhoneNumberInventory.Number unchanged = inventory.getBySid("PN1");
+        List<PhoneNumberInventory.Number> snapshot = inventory.getNumbers();
+
+        assertEquals(0, inventory.refresh(client));
+        assertSame(snapshot, inventory.getNumbers());
+
+        add("PN2", "+14155550002", "Sales", "true", "true", "false", "Local", "02");
+        numbers.remove("PN4");
+        add("PN5", "+14155550005", "Sales", "true", "true", "false", "Local", "02");
+
+        assertEquals(3, inventory.refresh(client));
+        assertSame(unchanged, inventory.getBySid("PN1"));
+        assertTrue(inventory.getBySid("PN2").has(PhoneNumberInventory.SMS));
+        assertNull(inventory.getBySid("PN4"));
+        assertEquals(3, inventory.find(PhoneNumberInventory.SMS, "+1415").size());
+    }
+
+    @Test
+    public void testPutsAndRemovesSingleNumbers() {
+        PhoneNumberInventory inventory = new PhoneNumberInventory.Builder().build();
+        inventory.refresh(client);
+        add("PN6", "+14155550006", "New", "true", "false", "false", "Local", "03");
+
+        inventory.put(IncomingPhoneNumber.fromJson(numbers.get("PN6"), client.getObjectMapper()),
+            PhoneNumberInventory.Type.LOCAL);
+
+        assertEquals("PN6", inventory.getSid("+14155550006"));
+        assertEquals(3, inventory.find(PhoneNumberInventory.VOICE, "+1415").size());
+        assertTrue(inventory.remove("PN1"));
+        assertEquals(2, inventory.find(PhoneNumberInventory.VOICE, "+1415").size());
+        assertEquals(4, inventory.size());
+    }
+
+    @Test
+    public void testKeepsChangesMadeDuringRefresh() {
+        final PhoneNumberInventory inventory = new PhoneNumberInventory.Builder().build();
+        inventory.refresh(client);
+        add("PN6", "+14155550006", "New", "true", "false", "false", "Local", "03");
+        final IncomingPhoneNumber bought = IncomingPhoneNumber.fromJson(numbers.get("PN6"), client.getObjectMapper());
+        numbers.remove("PN6");
+        final AtomicInteger calls = new AtomicInteger();
+        TwilioRestClient changing = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                if (calls.incrementAndGet() == 1) {
+                    // Bought and released while the refresh is loading the numbers
+                    inventory.put(bought, PhoneNumberInventory.Type.LOCAL);
+                    inventory.remove("PN1");
+                }
+                return client.getHttpClient().makeRequest(request);
+            }
+        }).build();
+
+        inventory.refresh(changing);
+
+        assertEquals("PN6", inventory.getSid("+14155550006"));
+        assertNull(inventory.getBySid("PN1"));
+        assertEquals(4, inventory.size());
+        assertEquals(4, inventory.getNumbers().size());
+    }
+
+    @Test
+    public void testFoldsManyChangesIntoSnapshot() {
+        PhoneNumberInventory inventory = new PhoneNumberInventory.Builder().build();
+        inventory.refresh(client);
+
+        for (int i = 100; i < 300; i++) {
+            add("PN" + i, "+1415555" + (9000 - i), "Bulk", "true", "true", "false", "Local", "03");
+            inventory.put(IncomingPhoneNumber.fromJson(numbers.get("PN" + i), client.getObjectMapper()),
+                PhoneNumberInventory.Type.LOCAL);
+            if (i % 2 == 0) {
+                assertTrue(inventory.remove("PN" + i));
+            }
+        }
+        assertTrue(inventory.remove("PN1"));
+        assertFalse(inventory.remove("PN1"));
+
+        assertEquals(103, inventory.size());
+        assertEquals(100, inventory.findByFriendlyName("Bulk").size());
+        assertNull(inventory.get("+14155550001"));
+        assertEquals("PN299", inventory.getSid("+14155558701"));
+        List<PhoneNumberInventory.Number> found = inventory.find(PhoneNumberInventory.SMS, "+1415");
+        assertEquals(100, found.size());
+        for (int i = 1; i < found.size(); i++) {
+            assertTrue(found.get(i - 1).getPhoneNumber().compareTo(found.get(i).getPhoneNumber()) < 0);
+        }
+        assertEquals(1, inventory.findByVoiceUrl("https://example.com/Support/voice").size());
+    }
+}
@@ -0,0 +1,199 @@
+package com.twilio.pricing;
+
+import com.twilio.exception.ApiException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.type.InboundSmsPrice;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Currency;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PriceIndexTest {
+
+    private static final String PRICING_URL = "https://pricing.twilio.com/v1/";
+
+    private volatile String alaskaPrice;
+    private volatile boolean unavailable;
+    private AtomicInteger requests;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        alaskaPrice = "0.05";
+        unavailable = false;
+        requests = new AtomicInteger();
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                requests.incrementAndGet();
+                if (unavailable) {
+                    return new Response("{\"status\": 503, \"message\": \"Unavailable\", \"code\": 20503}", 503);
+                }
+
+                String url = request.getUrl();
+                if (url.equals(PRICING_URL + "Voice/Countries")) {
+                    return new Response(countries("Voice", "US", "GB", "FR"), TwilioRestClient.HTTP_STATUS_CODE_OK);
+                }
+                if (url.equals(PRICING_URL + "Messaging/Countries")) {
+                    return new Response(countries("Messaging", "US", "GB"), TwilioRestClient.HTTP_STATUS_CODE_OK);
+                }
+                return new Response(country(url), TwilioRestClient.HTTP_STATUS_CODE_OK);
+            }
+        }).build();
+    }
+
+    private static String countries(final String product, final String... isoCountries) {
+        StringBuilder countries = new StringBuilder();
+        for (final String isoCountry : isoCountries) {
+            if (countries.length() > 0) {
+                countries.append(',');
+            }
+            countries.append("{\"country\": \"").append(isoCountry).append("\", \"iso_country\": \"").append(isoCountry)
+                .append("\", \"url\": \"").append(PRICING_URL).append(product).append("/Countries/").append(isoCountry)
+                .append("\"}");
+        }
+        String url = PRICING_URL + product + "/Countries";
+        return "{\"countries\": [" + countries + "], \"meta\": {\"key\": \"countries\", \"page_size\": 50, \"url\": \""
+            + url + "\", \"page\": 0, \"first_page_url\": \"" + url + "\", \"previous_page_url\": null, "
+            + "\"next_page_url\": null}}";
+    }
+
+    private String country(final String url) {
+        String isoCountry = url.substring(url.lastIndexOf('/') + 1);
+        if (url.startsWith(PRICING_URL + "Voice/")) {
+            String prefixes;
+            if (isoCountry.equals("US")) {
+                prefixes = prefix("1", "United States", "0.013") + "," + prefix("1907", "Alaska", alaskaPrice);
+            } else if (isoCountry.equals("GB")) {
+                prefixes = prefix("44", "United Kingdom", "0.02") + "," + prefix("447", "United Kingdom - Mobile", "0.1");
+            } else {
+                prefixes = prefix("33", "France", "0.02");
+            }
+            return "{\"country\": \"" + isoCountry + "\", \"iso_country\": \"" + isoCountry + "\", "
+                + "\"outbound_prefix_prices\": [" + prefixes + "], \"inbound_call_prices\": [], \"price_unit\": \"USD\"}";
+        }
+
+        String carriers;
+        if (isoCountry.equals("US")) {
+            carriers = carrier("AT&T", "mobile", "0.0075") + "," + carrier("Verizon", "mobile", "0.008") + ","
+                + carrier("Other", "local", "0.0075");
+        } else {
+            carriers = carrier("Vodafone", "mobile", "0.04");
+        }
+        return "{\"country\": \"" + isoCountry + "\", \"iso_country\": \"" + isoCountry + "\", "
+            + "\"outbound_sms_prices\": [" + carriers + "], \"inbound_sms_prices\": [], \"price_unit\": \"USD\"}";
+    }
+
+    private static String prefix(final String prefix, final String friendlyName, final String price) {
+        return "{\"prefixes\": [\"" + prefix + "\"], \"friendly_name\": \"" + friendlyName + "\", \"base_price\": "
+            + price + ", \"current_price\": " + price + "}";
+    }
+
+    private static String carrier(final String carrier, final String type, final String price) {
+        return "{\"mcc\": \"310\", \"mnc\": \"000\", \"carrier\": \"" + carrier + "\", \"prices\": [{\"number_type\": \""
+            + type + "\", \"base_price\": " + price + ", \"current_price\": " + price + "}]}";
+    }
+
+    @Test
+    public void testMatchesLongestPrefix() {
+        PriceTable table = PriceTable.load(client, 2);
+
+        assertEquals(5, table.size());
+        assertEquals(7, requests.get());
+        assertEquals("1907", table.getVoicePrice("+19075551234").getPrefix());
+        assertEquals(0.05, table.getVoicePrice("+19075551234").getCurrentPrice(), 0.0);
+        assertEquals("1", table.getVoicePrice("+1 415 555 1234").getPrefix());
+        assertEquals("United Kingdom - Mobile", table.getVoicePrice("+447700900123").getFriendlyName());
+        assertEquals("44", table.getVoicePrice("+442071234567").getPrefix());
+        assertEquals(Currency.getInstance("USD"), table.getVoicePrice("+33123456789").getPriceUnit());
+        assertNull(table.getVoicePrice("+81312345678"));
+        assertNull(table.getVoicePrice("+"));
+    }
+
+    @Test
+    public void testMessagePriceIsHighestOverCarriers() {
+        PriceTable table = PriceTable.load(client, 2);
+
+        PriceTable.Price price = table.getMessagePrice("+14155551234");
+        assertEquals("Verizon", price.getFriendlyName());
+        assertEquals(0.008, price.getCurrentPrice(), 0.0);
+        assertEquals(0.0075, table.getMessagePrice("+14155551234", InboundSmsPrice.Type.LOCAL).getCurrentPrice(), 0.0);
+        assertNull(table.getMessagePrice("+14155551234", InboundSmsPrice.Type.TOLLFREE));
+        assertEquals("GB", table.getMessagePrice("+447700900123").getIsoCountry());
+        assertNull(table.getMessagePrice("+33123456789"));
+    }
+
+    @Test
+    public void testRefreshSwapsPrices() {
+        PriceIndex index = new PriceIndex.Builder().parallelism(1).build();
+        try {
+            index.getVoicePrice("+19075551234");
+            fail("IllegalStateException was expected");
+        } catch (final IllegalStateException e) {
+            assertNull(index.getTable());
+        }
+
+        index.refresh(client);
+        PriceTable loaded = index.getTable();
+        alaskaPrice = "0.06";
+        unavailable = true;
+        try {
+            index.refresh(client);
+            fail("ApiException was expected");
+        } catch (final ApiException e) {
+            assertSame(loaded, index.getTable());
+            assertEquals(0.05, index.getVoicePrice("+19075551234").getCurrentPrice(), 0.0);
+        }
+
+        unavailable = false;
+        index.refresh(client);
+        assertEquals(0.06, index.getVoicePrice("+19075551234").getCurrentPrice(), 0.0);
+    }
+
+    @Test
+    public void testReportsFailedScheduledRefreshes() throws InterruptedException {
+        final CountDownLatch errors = new CountDownLatch(2);
+        final CountDownLatch refreshes = new CountDownLatch(1);
+        PriceIndex index = new PriceIndex.Builder().parallelism(1).build();
+        index.addListener(new PriceIndex.Listener() {
+            @Override
+            public void onRefresh(final PriceTable table) {
+                refreshes.countDown();
+            }
+
+            @Override
+            public void onError(final Throwable error) {
+                errors.countDown();
+            }
+        });
+
+        unavailable = true;
+        index.start(client, 10, TimeUnit.MILLISECONDS);
+        try {
+            // The schedule keeps running after a failed refresh
+            assertTrue(errors.await(10, TimeUnit.SECONDS));
+            assertTrue(index.getLastError() instanceof ApiException);
+            assertEquals(0, index.getLastRefreshMillis());
+            assertNull(index.getTable());
+
+            unavailable = false;
+            assertTrue(refreshes.await(10, TimeUnit.SECONDS));
+            assertTrue(index.getLastRefreshMillis() > 0);
+            assertTrue(index.isStarted());
+        } finally {
+            index.stop();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.twilio.sync;
+
+import com.twilio.exception.ApiException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.HttpMethod;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.sync.v1.service.Document;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class DocumentMergerTest {
+
+    private AtomicInteger revision;
+    private AtomicInteger visits;
+    private AtomicInteger concurrentWrites;
+    private List<String> ifMatches;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        revision = new AtomicInteger();
+        visits = new AtomicInteger();
+        concurrentWrites = new AtomicInteger();
+        ifMatches = new ArrayList<>();
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                if (request.getMethod() == HttpMethod.POST) {
+                    String ifMatch = request.getHeaders().get("If-Match");
+                    ifMatches.add(ifMatch);
+
+                    // Simulate another writer updating the document between our fetch and our update
+                    if (concurrentWrites.getAndDecrement() > 0) {
+                        revision.incrementAndGet();
+                    }
+                    if (ifMatch != null && !ifMatch.equals(String.valueOf(revision.get()))) {
+                        return new Response(
+                            "{\"code\": 54103, \"message\": \"Revision does not match\", \"status\": 412}",
+                            412
+                        );
+                    }
+
+                    String data = request.getPostParams().get("Data").get(0);
+                    visits.set(Integer.parseInt(data.replaceAll("[^0-9]", "")));
+                    revision.incrementAndGet();
+                }
+                return new Response(document(), TwilioRestClient.HTTP_STATUS_CODE_OK);
+            }
+        }).build();
+    }
+
+    private String document() {
+        return "{\"sid\": \"ET123\", \"revision\": \"" + revision.get() + "\", \"data\": {\"visits\": " + visits.get() + "}}";
+    }
+
+    private static DocumentMerger merger() {
+        return new DocumentMerger.Builder("IS123", "ET123").backoff(0, 0, TimeUnit.MILLISECONDS).build();
+    }
+
+    private static final DocumentMerger.Merge INCREMENT = new DocumentMerger.Merge() {
+        @Override
+        public Map<String, Object> apply(final Map<String, Object> data) {
+            Map<String, Object> merged = new HashMap<>(data);
+            merged.put("visits", ((Number) data.get("visits")).intValue() + 1);
+            return merged;
+        }
+    };
+
+    @Test
+    public void testUpdateSendsFetchedRevision() {
+        revision.set(3);
+
+        Document document = merger().update(client, INCREMENT);
+
+        assertEquals("4", document.getRevision());
+        assertEquals(1, visits.get());
+        assertEquals(1, ifMatches.size());
+        assertEquals("3", ifMatches.get(0));
+    }
+
+    @Test
+    public void testUpdateRetriesConflicts() {
+        concurrentWrites.set(2);
+
+        merger().update(client, INCREMENT);
+
+        assertEquals(1, visits.get());
+        assertEquals(3, ifMatches.size());
+        assertEquals("0", ifMatches.get(0));
+        assertEquals("1", ifMatches.get(1));
+        assertEquals("2", ifMatches.get(2));
+    }
+
+    @Test
+    public void testUpdateGivesUpAfterMaxAttempts() {
+        concurrentWrites.set(Integer.MAX_VALUE);
+
+        try {
+            new DocumentMerger.Builder("IS123", "ET123")
+                .maxAttempts(3)
+                .backoff(0, 0, TimeUnit.MILLISECONDS)
+                .build()
+                .update(client, INCREMENT);
+            fail("ApiException was expected");
+        } catch (final ApiException e) {
+            assertEquals(412, e.getStatusCode().intValue());
+        }
+        assertEquals(3, ifMatches.size());
+        assertEquals(0, visits.get());
+    }
+
+    @Test
+    public void testUnchangedDataSkipsUpdate() {
+        Document document = merger().update(client, new DocumentMerger.Merge() {
+            @Override
+            public Map<String, Object> apply(final Map<String, Object> data) {
+                return null;
+            }
+        });
+
+        assertEquals("0", document.getRevision());
+        assertEquals(0, ifMatches.size());
+    }
+
+    @Test
+    public void testCompareAndSetReturnsNullOnConflict() {
+        revision.set(5);
+
+        assertNull(merger().compareAndSet(client, "4", new HashMap<String, Object>()));
+        assertEquals(5, revision.get());
+    }
+
+    @Test
+    public void testCompareAndSetRethrowsOtherErrors() {
+        ApiException error = null;
+        TwilioRestClient failing = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                return new Response("{\"code\": 20404, \"message\": \"Not found\", \"status\": 404}", 404);
+            }
+        }).build();
+
+        try {
+            merger().compareAndSet(failing, "1", new HashMap<String, Object>());
+        } catch (final ApiException e) {
+            error = e;
+        }
+        assertEquals(404, error.getStatusCode().intValue());
+    }
+}
@@ -0,0 +1,188 @@
+package com.twilio.sync;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.sync.v1.service.syncmap.SyncMapItem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SyncMapSnapshotTest {
+
+    private static final String ITEMS_URL = "https://sync.twilio.com/v1/Services/IS123/Maps/MP123/Items";
+
+    private NavigableMap<String, String> map;
+    private AtomicInteger mapRevision;
+    private AtomicInteger itemReads;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        map = new ConcurrentSkipListMap<>();
+        mapRevision = new AtomicInteger();
+        itemReads = new AtomicInteger();
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                String url = request.constructURL().toString();
+                if (!url.startsWith(ITEMS_URL)) {
+                    return new Response(
+                        "{\"sid\": \"MP123\", \"revision\": \"" + mapRevision.get() + "\"}",
+                        TwilioRestClient.HTTP_STATUS_CODE_OK
+                    );
+                }
+
+                itemReads.incrementAndGet();
+                return new Response(itemsPage(query(url)), TwilioRestClient.HTTP_STATUS_CODE_OK);
+            }
+        }).build();
+    }
+
+    private String itemsPage(final Map<String, String> query) {
+        int pageSize = Integer.parseInt(query.get("PageSize"));
+        NavigableMap<String, String> remaining = query.containsKey("From") ? map.tailMap(query.get("From"), true) : map;
+
+        List<String> records = new ArrayList<>();
+        String next = null;
+        for (final Map.Entry<String, String> entry : remaining.entrySet()) {
+            if (records.size() == pageSize) {
+                next = entry.getKey();
+                break;
+            }
+            records.add(
+                "{\"key\": \"" + entry.getKey() + "\", \"revision\": \"" + entry.getValue() + "\", \"data\": {}}"
+            );
+        }
+
+        String nextPageUrl = next == null
+            ? "null"
+            : "\"" + ITEMS_URL + "?Order=asc&From=" + encode(next) + "&Bounds=inclusive&PageSize=" + pageSize + "\"";
+        return "{\"items\": [" + join(records) + "], \"meta\": {"
+            + "\"first_page_url\": \"" + ITEMS_URL + "\", \"key\": \"items\", \"next_page_url\": " + nextPageUrl + ", "
+            + "\"page\": 0, \"page_size\": " + pageSize + ", \"previous_page_url\": null, \"url\": \"" + ITEMS_URL + "\"}}";
+    }
+
+    private static String join(final List<String> values) {
+        StringBuilder builder = new StringBuilder();
+        for (final String value : values) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    private static Map<String, String> query(final String url) {
+        Map<String, String> params = new HashMap<>();
+        int start = url.indexOf('?');
+        if (start < 0) {
+            return params;
+        }
+        try {
+            for (final String param : url.substring(start + 1).split("&")) {
+                String[] pair = param.split("=", 2);
+                params.put(URLDecoder.decode(pair[0], "UTF-8"), URLDecoder.decode(pair[1], "UTF-8"));
+            }
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return params;
+    }
+
+    private static String encode(final String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private SyncMapSnapshot snapshot() {
+        return new SyncMapSnapshot.Builder("IS123", "MP123")
+            .splitKeys(ImmutableList.of("c", "f"))
+            .pageSize(2)
+            .build();
+    }
+
+    @Test
+    public void testLoadScansEveryRange() {
+        for (final String key : ImmutableList.of("a", "b", "c", "d", "e", "f", "g", "h", "i")) {
+            map.put(key, "1");
+        }
+
+        SyncMapSnapshot snapshot = snapshot().load(client);
+
+        assertEquals(9, snapshot.size());
+        assertEquals(new ArrayList<>(map.keySet()), new ArrayList<>(snapshot.getItems().keySet()));
+        assertEquals("1", snapshot.get("e").getRevision());
+        assertNull(snapshot.get("z"));
+    }
+
+    @Test
+    public void testScanStreamsItems() {
+        map.put("a", "1");
+        map.put("d", "1");
+        map.put("x", "1");
+
+        final List<String> keys = Collections.synchronizedList(new ArrayList<String>());
+        snapshot().scan(client, new SyncMapSnapshot.ItemHandler() {
+            @Override
+            public void onItem(final SyncMapItem item) {
+                keys.add(item.getKey());
+            }
+        });
+
+        Collections.sort(keys);
+        assertEquals(ImmutableList.of("a", "d", "x"), keys);
+    }
+
+    @Test
+    public void testRefreshSkipsUnchangedMap() {
+        map.put("a", "1");
+        SyncMapSnapshot snapshot = snapshot().load(client);
+        int reads = itemReads.get();
+
+        assertTrue(snapshot.refresh(client).isEmpty());
+        assertEquals(reads, itemReads.get());
+    }
+
+    @Test
+    public void testRefreshReportsChangedKeys() {
+        map.put("a", "1");
+        map.put("d", "1");
+        map.put("g", "1");
+        SyncMapSnapshot snapshot = snapshot().load(client);
+        SyncMapItem unchanged = snapshot.get("a");
+
+        map.put("d", "2");
+        map.remove("g");
+        map.put("h", "1");
+        mapRevision.incrementAndGet();
+
+        assertEquals(ImmutableSet.of("d", "g", "h"), snapshot.refresh(client));
+        assertSame(unchanged, snapshot.get("a"));
+        assertEquals("2", snapshot.get("d").getRevision());
+        assertNull(snapshot.get("g"));
+    }
+}
@@ -0,0 +1,214 @@
+package com.twilio.taskrouter;
+
+import com.google.common.collect.ImmutableList;
+import com.twilio.exception.ApiConnectionException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RealTimeStatisticsPollerTest {
+
+    private static final String WORKSPACE_URL = "https://taskrouter.twilio.com/v1/Workspaces/WS123";
+
+    private Map<String, Integer> pending;
+    private AtomicInteger idleWorkers;
+    private AtomicInteger requests;
+    private AtomicInteger failures;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        pending = new ConcurrentHashMap<>();
+        pending.put("WQ1", 1);
+        pending.put("WQ2", 2);
+        idleWorkers = new AtomicInteger(3);
+        requests = new AtomicInteger();
+        failures = new AtomicInteger();
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                requests.incrementAndGet();
+                if (failures.getAndDecrement() > 0) {
+                    throw new ApiConnectionException("Connection reset");
+                }
+                String url = request.getUrl();
+                String activities = "\"activity_statistics\": [{\"friendly_name\": \"Idle\", \"workers\": " + idleWorkers.get()
+                    + ", \"sid\": \"WA1\"}]";
+
+                if (url.equals(WORKSPACE_URL + "/Workers/RealTimeStatistics")) {
+                    return new Response(
+                        "{\"workspace_sid\": \"WS123\", \"total_workers\": 5, " + activities + "}",
+                        TwilioRestClient.HTTP_STATUS_CODE_OK
+                    );
+                }
+                if (url.equals(WORKSPACE_URL + "/RealTimeStatistics")) {
+                    return new Response(
+                        "{\"workspace_sid\": \"WS123\", \"total_tasks\": 3, \"total_workers\": 5, "
+                            + "\"tasks_by_status\": {\"pending\": 3, \"assigned\": 0}, " + activities + "}",
+                        TwilioRestClient.HTTP_STATUS_CODE_OK
+                    );
+                }
+
+                String queue = url.split("/")[7];
+                return new Response(
+                    "{\"task_queue_sid\": \"" + queue + "\", \"workspace_sid\": \"WS123\", \"total_tasks\": "
+                        + pending.get(queue) + ", \"longest_task_waiting_age\": 10, \"total_available_workers\": 1, "
+                        + "\"tasks_by_status\": {\"pending\": " + pending.get(queue) + "}, " + activities + "}",
+                    TwilioRestClient.HTTP_STATUS_CODE_OK
+                );
+            }
+        }).build();
+    }
+
+    private RealTimeStatisticsPoller poller() {
+        return new RealTimeStatisticsPoller.Builder("WS123")
+            .taskQueueSids(ImmutableList.of("WQ1", "WQ2"))
+            .parallelism(2)
+            .build();
+    }
+
+    @Test
+    public void testFirstPollReportsEveryCounter() {
+        RealTimeStatisticsPoller poller = poller();
+
+        List<RealTimeStatistics.Change> changes = poller.poll(client);
+
+        assertEquals(4, requests.get());
+        assertEquals(4 * (RealTimeStatistics.Field.values().length + 1), changes.size());
+
+        RealTimeStatistics queue = poller.getStatistics(RealTimeStatistics.Scope.TASK_QUEUE, "WQ2");
+        assertEquals(2, queue.getTotalTasks());
+        assertEquals(2, queue.get(RealTimeStatistics.Field.PENDING_TASKS));
+        assertEquals(10, queue.getLongestTaskWaitingAge());
+        assertEquals(3, queue.getActivityWorkers("WA1"));
+        assertEquals("Idle", queue.getActivityName("WA1"));
+
+        RealTimeStatistics workers = poller.getStatistics(RealTimeStatistics.Scope.WORKERS, "WS123");
+        assertEquals(5, workers.getTotalWorkers());
+        assertEquals(0, workers.getTotalTasks());
+    }
+
+    @Test
+    public void testPublishesOnlyChangedCounters() {
+        RealTimeStatisticsPoller poller = poller();
+        final List<List<RealTimeStatistics.Change>> published = new ArrayList<>();
+        poller.poll(client);
+        poller.addListener(new RealTimeStatisticsPoller.Listener() {
+            @Override
+            public void onChanges(final List<RealTimeStatistics.Change> changes) {
+                published.add(changes);
+            }
+
+            @Override
+            public void onError(final Throwable error) {
+            }
+        });
+
+        assertTrue(poller.poll(client).isEmpty());
+        assertTrue(published.isEmpty());
+
+        pending.put("WQ1", 4);
+        poller.poll(client);
+
+        assertEquals(1, published.size());
+        List<RealTimeStatistics.Change> changes = published.get(0);
+        assertEquals(2, changes.size());
+        assertEquals("WQ1", changes.get(0).getSid());
+        assertEquals("total_tasks", changes.get(0).getField());
+        assertEquals(3, changes.get(0).getDelta());
+        assertEquals("tasks_by_status.pending", changes.get(1).getField());
+        assertEquals(4, changes.get(1).getCurrent());
+    }
+
+    @Test
+    public void testReportsActivityChanges() {
+        RealTimeStatisticsPoller poller = new RealTimeStatisticsPoller.Builder("WS123").workspace(false).build();
+        poller.poll(client);
+        idleWorkers.set(1);
+
+        List<RealTimeStatistics.Change> changes = poller.poll(client);
+
+        assertEquals(1, changes.size());
+        assertEquals(RealTimeStatistics.Scope.WORKERS, changes.get(0).getScope());
+        assertEquals("activity_statistics.WA1", changes.get(0).getField());
+        assertEquals(-2, changes.get(0).getDelta());
+        assertNull(poller.getStatistics(RealTimeStatistics.Scope.WORKSPACE, "WS123"));
+    }
+
+    @Test
+    public void testPollsOnSchedule() throws InterruptedException {
+        RealTimeStatisticsPoller poller = poller();
+        final CountDownLatch polled = new CountDownLatch(1);
+        poller.addListener(new RealTimeStatisticsPoller.Listener() {
+            @Override
+            public void onChanges(final List<RealTimeStatistics.Change> changes) {
+                polled.countDown();
+            }
+
+            @Override
+            public void onError(final Throwable error) {
+            }
+        });
+
+        poller.start(client, 1, TimeUnit.HOURS);
+        try {
+            assertTrue(polled.await(5, TimeUnit.SECONDS));
+            assertTrue(poller.isStarted());
+        } finally {
+            poller.stop();
+        }
+        assertFalse(poller.isStarted());
+    }
+
+    @Test
+    public void testReportsFailedScheduledPolls() throws InterruptedException {
+        failures.set(1);
+        RealTimeStatisticsPoller poller = poller();
+        final CountDownLatch failed = new CountDownLatch(1);
+        final CountDownLatch polled = new CountDownLatch(1);
+        final List<Throwable> errors = new ArrayList<>();
+        poller.addListener(new RealTimeStatisticsPoller.Listener() {
+            @Override
+            public void onChanges(final List<RealTimeStatistics.Change> changes) {
+                polled.countDown();
+            }
+
+            @Override
+            public void onError(final Throwable error) {
+                errors.add(error);
+                failed.countDown();
+            }
+        });
+
+        assertEquals(0, poller.getLastPollMillis());
+        poller.start(client, 10, TimeUnit.MILLISECONDS);
+        try {
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+            assertTrue(polled.await(5, TimeUnit.SECONDS));
+        } finally {
+            poller.stop();
+        }
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof ApiConnectionException);
+        assertSame(errors.get(0), poller.getLastError());
+        assertTrue(poller.getLastPollMillis() > 0);
+    }
+}
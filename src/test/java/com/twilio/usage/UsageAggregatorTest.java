@@ -0,0 +1,196 @@
+package com.twilio.usage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.twilio.exception.ApiException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.api.v2010.account.usage.record.Daily;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class UsageAggregatorTest {
+
+    private static final LocalDate START = new LocalDate(2017, 1, 1);
+    private static final LocalDate END = new LocalDate(2017, 1, 3);
+
+    private Set<String> reads;
+    private AtomicInteger requests;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        reads = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        requests = new AtomicInteger();
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                requests.incrementAndGet();
+                URL url = request.constructURL();
+                String accountSid = url.getPath().split("/")[3];
+                Map<String, String> query = query(url);
+                String category = query.get("Category");
+                int page = query.containsKey("Page") ? Integer.parseInt(query.get("Page")) : 0;
+                reads.add(accountSid + " " + category);
+                return new Response(usagePage(accountSid, category, page), TwilioRestClient.HTTP_STATUS_CODE_OK);
+            }
+        }).build();
+    }
+
+    private static Map<String, String> query(final URL url) {
+        Map<String, String> params = new HashMap<>();
+        if (url.getQuery() != null) {
+            for (final String param : url.getQuery().split("&")) {
+                String[] pair = param.split("=", 2);
+                params.put(pair[0], pair[1]);
+            }
+        }
+        return params;
+    }
+
+    /**
+     * One page per day, with a record of every requested category.
+     */
+    private static String usagePage(final String accountSid, final String category, final int page) {
+        List<String> categories = category == null ? ImmutableList.of("sms", "calls") : ImmutableList.of(category);
+        String day = START.plusDays(page).toString();
+        String uri = "/2010-04-01/Accounts/" + accountSid + "/Usage/Records/Daily.json";
+
+        StringBuilder records = new StringBuilder();
+        for (final String value : categories) {
+            if (records.length() > 0) {
+                records.append(',');
+            }
+            records.append("{\"account_sid\": \"").append(accountSid).append("\", \"category\": \"").append(value)
+                .append("\", \"count\": \"2\", \"usage\": \"1.5\", \"price\": \"0.0075\", \"price_unit\": \"usd\", ")
+                .append("\"start_date\": \"").append(day).append("\", \"end_date\": \"").append(day).append("\"}");
+        }
+
+        String filter = category == null ? "" : "&Category=" + category;
+        String next = page == 2 ? "null" : "\"" + uri + "?Page=" + (page + 1) + filter + "\"";
+        return "{\"first_page_uri\": \"" + uri + "\", \"next_page_uri\": " + next + ", \"page\": " + page
+            + ", \"page_size\": 1, \"previous_page_uri\": null, \"uri\": \"" + uri + "\", \"usage_records\": [" + records + "]}";
+    }
+
+    @Test
+    public void testAggregatesAccountsAndCategories() {
+        UsageSummary summary = new UsageAggregator.Builder(START, END)
+            .accountSids(ImmutableList.of("AC1", "AC2"))
+            .categories(ImmutableList.of(Daily.Category.SMS, Daily.Category.CALLS))
+            .parallelism(3)
+            .build()
+            .aggregate(client);
+
+        assertEquals(4, reads.size());
+        assertTrue(reads.contains("AC2 calls"));
+        assertEquals(12, requests.get());
+        assertEquals(12, summary.getRecords());
+
+        assertEquals(ImmutableList.of(Daily.Category.CALLS, Daily.Category.SMS), summary.getCategories());
+        assertEquals(new BigDecimal("0.015000"), summary.getPrice(Daily.Category.SMS, START.plusDays(1)));
+        assertEquals(3.0, summary.getUsage(Daily.Category.SMS, END), 0.0);
+        assertEquals(4, summary.getCount(Daily.Category.CALLS, START));
+        assertArrayEquals(new long[] {4, 4, 4}, summary.getDailyCount(Daily.Category.CALLS));
+        assertEquals(12, summary.getTotalCount(Daily.Category.SMS));
+        assertEquals(new BigDecimal("0.090000"), summary.getTotalPrice());
+        assertEquals("USD", summary.getPriceUnit().getCurrencyCode());
+    }
+
+    @Test
+    public void testReadsEveryCategoryOfClientAccount() {
+        UsageSummary summary = new UsageAggregator.Builder(START, END).build().aggregate(client);
+
+        assertEquals(Collections.singleton("AC123 null"), reads);
+        assertEquals(6, summary.getRecords());
+        assertEquals(new BigDecimal("0.022500"), summary.getTotalPrice(Daily.Category.CALLS));
+        assertEquals(0, summary.getTotalCount(Daily.Category.MMS));
+    }
+
+    @Test
+    public void testIgnoresRecordsOutsideOfDates() {
+        UsageSummary summary = new UsageAggregator.Builder(START, START.plusDays(1)).build().aggregate(client);
+
+        assertEquals(2, summary.getDays());
+        assertEquals(4, summary.getRecords());
+        assertArrayEquals(new long[] {2, 2}, summary.getDailyCount(Daily.Category.SMS));
+    }
+
+    private static Daily record(final String category, final String price) {
+        return record(category, price, "usd");
+    }
+
+    private static Daily record(final String category, final String price, final String priceUnit) {
+        return Daily.fromJson(
+            "{\"category\": \"" + category + "\", \"price\": \"" + price + "\", \"price_unit\": \"" + priceUnit + "\", "
+                + "\"start_date\": \"" + START + "\", \"end_date\": \"" + START + "\"}",
+            new ObjectMapper()
+        );
+    }
+
+    @Test
+    public void testTotalPriceCountsParentCategoriesOnce() {
+        UsageSummary summary = new UsageSummary(START, END);
+        summary.add(ImmutableList.of(
+            record("calls", "3.00"),
+            record("calls-inbound", "1.00"),
+            record("calls-outbound", "2.00"),
+            record("sms", "0.50"),
+            record("recordings", "0.25")
+        ));
+
+        assertEquals(new BigDecimal("3.750000"), summary.getTotalPrice());
+        assertEquals(new BigDecimal("3.000000"), summary.getTotalPrice(Daily.Category.CALLS));
+
+        summary.add(ImmutableList.of(record("totalprice", "4.00")));
+        assertEquals(new BigDecimal("4.000000"), summary.getTotalPrice());
+    }
+
+    @Test
+    public void testTotalPriceCountsCategoriesNamedAfterOtherCategories() {
+        UsageSummary summary = new UsageSummary(START, END);
+        summary.add(ImmutableList.of(
+            record("sms", "1.00"),
+            record("sms-messages-features", "0.50")
+        ));
+
+        assertEquals(new BigDecimal("1.500000"), summary.getTotalPrice());
+    }
+
+    @Test
+    public void testRejectsPricesInDifferentCurrencies() {
+        UsageSummary summary = new UsageSummary(START, END);
+        summary.add(ImmutableList.of(record("sms", "1.00", "usd")));
+
+        try {
+            summary.add(ImmutableList.of(record("calls", "1.00", "eur")));
+            fail("ApiException was expected");
+        } catch (final ApiException e) {
+            assertEquals(new BigDecimal("1.000000"), summary.getTotalPrice());
+            assertEquals(Currency.getInstance("USD"), summary.getPriceUnit());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEndBeforeStart() {
+        new UsageAggregator.Builder(END, START).build().aggregate(client);
+    }
+}
@@ -0,0 +1,165 @@
+package com.twilio.wireless;
+
+import com.twilio.exception.ApiException;
+import com.twilio.http.HttpClient;
+import com.twilio.http.Request;
+import com.twilio.http.Response;
+import com.twilio.http.TwilioRestClient;
+import com.twilio.rest.wireless.v1.sim.UsageRecord;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FleetCollectorTest {
+
+    private static final DateTime START = new DateTime(2017, 5, 1, 0, 0, DateTimeZone.UTC);
+    private static final DateTime END = START.plusDays(2);
+    private static final String META = "\"meta\": {\"first_page_url\": null, \"key\": \"%s\", \"next_page_url\": %s, "
+        + "\"page\": 0, \"page_size\": 50, \"previous_page_url\": null, \"url\": null}";
+
+    private Set<String> collected;
+    private AtomicInteger sessionReads;
+    private TwilioRestClient client;
+
+    @Before
+    public void setUp() {
+        collected = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        sessionReads = new AtomicInteger();
+        client = new TwilioRestClient.Builder("AC123", "token").httpClient(new HttpClient() {
+            @Override
+            public Response makeRequest(final Request request) {
+                String path = request.constructURL().getPath();
+                if ("/v1/Sims".equals(path)) {
+                    return new Response(sims(request.constructURL().getQuery()), TwilioRestClient.HTTP_STATUS_CODE_OK);
+                }
+
+                String simSid = path.split("/")[3];
+                if ("DE4".equals(simSid)) {
+                    return new Response("{\"code\": 20500, \"message\": \"Internal error\", \"status\": 500}", 500);
+                }
+                if (path.endsWith("/UsageRecords")) {
+                    return new Response(usageRecords(simSid), TwilioRestClient.HTTP_STATUS_CODE_OK);
+                }
+                sessionReads.incrementAndGet();
+                return new Response(dataSessions(simSid), TwilioRestClient.HTTP_STATUS_CODE_OK);
+            }
+        }).build();
+    }
+
+    /**
+     * Two pages of SIMs, DE1 and DE2 on rate plan WP1, DE3 and DE4 on WP2.
+     */
+    private static String sims(final String query) {
+        boolean first = query == null || !query.contains("Page=1");
+        String next = first ? "\"https://wireless.twilio.com/v1/Sims?PageSize=2&Page=1\"" : "null";
+        return "{\"sims\": [" + (first ? sim("DE1", "WP1") + "," + sim("DE2", "WP1") : sim("DE3", "WP2") + ","
+            + sim("DE4", "WP2")) + "], " + String.format(META, "sims", next) + "}";
+    }
+
+    private static String sim(final String sid, final String ratePlanSid) {
+        return "{\"sid\": \"" + sid + "\", \"rate_plan_sid\": \"" + ratePlanSid + "\", \"status\": \"active\"}";
+    }
+
+    /**
+     * One daily record per day, with the counts as numbers or strings like the untyped fields allow.
+     */
+    private static String usageRecords(final String simSid) {
+        StringBuilder records = new StringBuilder();
+        for (int day = 0; day < 2; day++) {
+            if (records.length() > 0) {
+                records.append(',');
+            }
+            records.append("{\"sim_sid\": \"").append(simSid).append("\", \"period\": {\"start\": \"")
+                .append(START.plusDays(day).toString("yyyy-MM-dd'T'HH:mm:ss'Z'"))
+                .append("\"}, \"commands\": {\"from_sim\": 1, \"to_sim\": 2, \"total\": 3}, ")
+                .append("\"data\": {\"upload\": 100, \"download\": \"300\", \"total\": 400, \"units\": \"bytes\"}}");
+        }
+        return "{\"usage_records\": [" + records + "], " + String.format(META, "usage_records", "null") + "}";
+    }
+
+    /**
+     * A session started before the window and a session on its second day.
+     */
+    private static String dataSessions(final String simSid) {
+        return "{\"data_sessions\": ["
+            + "{\"sid\": \"WN1\", \"sim_sid\": \"" + simSid + "\", \"packets_uploaded\": 5, \"packets_downloaded\": 7, "
+            + "\"start\": \"2017-04-30T23:00:00Z\", \"end\": \"2017-05-01T01:00:00Z\"},"
+            + "{\"sid\": \"WN2\", \"sim_sid\": \"" + simSid + "\", \"packets_uploaded\": 1, \"packets_downloaded\": null, "
+            + "\"start\": \"2017-05-02T12:00:00Z\", \"end\": null}], " + String.format(META, "data_sessions", "null") + "}";
+    }
+
+    @Test
+    public void testAggregatesByRatePlanAndDay() {
+        FleetUsage usage = new FleetCollector.Builder(START, END)
+            .parallelism(3)
+            .listener(new FleetCollector.Listener() {
+                @Override
+                public void onSim(final SimUsage simUsage) {
+                    assertEquals(600, simUsage.get(FleetUsage.Counter.DATA_DOWNLOAD));
+                    collected.add(simUsage.getSimSid());
+                }
+            })
+            .build()
+            .collect(client);
+
+        assertEquals(3, collected.size());
+        assertEquals(3, usage.getSims());
+        assertEquals(2, usage.getSims("WP1"));
+        assertEquals(1, usage.getSims("WP2"));
+        assertEquals(6, usage.getRecords());
+        assertEquals(2, usage.getBuckets());
+        assertEquals(START.plusDays(1), usage.getBucketStart(1));
+
+        assertEquals(Collections.singleton("DE4"), usage.getFailures().keySet());
+        assertTrue(usage.getFailures().get("DE4") instanceof ApiException);
+
+        assertArrayEquals(new long[] {2, 2}, usage.getBuckets("WP1", FleetUsage.Counter.COMMANDS_FROM_SIM));
+        assertEquals(4, usage.get("WP1", FleetUsage.Counter.COMMANDS_TO_SIM, START.plusHours(5)));
+        assertEquals(1200, usage.getTotal("WP1", FleetUsage.Counter.DATA_DOWNLOAD));
+        assertEquals(1800, usage.getTotal(FleetUsage.Counter.DATA_DOWNLOAD));
+        assertArrayEquals(new long[] {1, 1}, usage.getBuckets("WP2", FleetUsage.Counter.DATA_SESSIONS));
+        assertArrayEquals(new long[] {10, 2}, usage.getBuckets("WP1", FleetUsage.Counter.PACKETS_UPLOADED));
+        assertEquals(21, usage.getTotal(FleetUsage.Counter.PACKETS_DOWNLOADED));
+        assertEquals(0, usage.getTotal("WP3", FleetUsage.Counter.DATA_UPLOAD));
+    }
+
+    @Test
+    public void testCollectsSingleBucketWithoutDataSessions() {
+        FleetUsage usage = new FleetCollector.Builder(START, END)
+            .granularity(UsageRecord.Granularity.ALL)
+            .dataSessions(false)
+            .build()
+            .collect(client);
+
+        assertEquals(0, sessionReads.get());
+        assertEquals(1, usage.getBuckets());
+        assertArrayEquals(new long[] {200}, usage.getBuckets("WP2", FleetUsage.Counter.DATA_UPLOAD));
+        assertEquals(0, usage.getTotal(FleetUsage.Counter.DATA_SESSIONS));
+    }
+
+    @Test
+    public void testCountsRecordsStartedBeforeUnalignedStartInFirstBucket() {
+        DateTime start = START.plusHours(12).plusMinutes(30);
+        FleetUsage usage = new FleetCollector.Builder(start, END).build().collect(client);
+
+        assertEquals(2, usage.getBuckets());
+        assertArrayEquals(new long[] {4, 0}, usage.getBuckets("WP1", FleetUsage.Counter.COMMANDS_FROM_SIM));
+        assertArrayEquals(new long[] {4, 0}, usage.getBuckets("WP1", FleetUsage.Counter.DATA_SESSIONS));
+        assertEquals(6, usage.getRecords());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEndBeforeStart() {
+        new FleetCollector.Builder(END, START).build().collect(client);
+    }
+}